@@ -35,6 +35,7 @@ public class FastAlign implements Aligner {
 
     private SymmetrizationStrategy strategy = SymmetrizationStrategy.GROW_DIAGONAL_FINAL_AND;
     private final HashMap<LanguagePair, Long> models;
+    private final HashMap<LanguagePair, Vocabulary> vocabularies;
 
     private static LanguagePair getLanguagePairFromFilename(File file) throws IOException {
         String encoded = FilenameUtils.removeExtension(file.getName());
@@ -57,11 +58,13 @@ public class FastAlign implements Aligner {
         int threads = Runtime.getRuntime().availableProcessors();
 
         this.models = new HashMap<>(paths.length);
+        this.vocabularies = new HashMap<>(paths.length);
         for (File path : paths) {
             long nativeHandle = instantiate(path.getAbsolutePath(), threads);
             LanguagePair pair = getLanguagePairFromFilename(path);
 
             this.models.put(pair, nativeHandle);
+            this.vocabularies.put(pair, Vocabulary.load(new File(path, "model.voc")));
         }
     }
 
@@ -120,31 +123,53 @@ public class FastAlign implements Aligner {
         if (nativeHandle == null)
             throw new UnsupportedLanguageException(direction);
 
-        String[][] sourceArray = new String[sources.size()][];
-        String[][] targetArray = new String[targets.size()][];
+        Vocabulary vocabulary = vocabularies.get(reversed ? direction.reversed() : direction);
 
-        Iterator<? extends Sentence> sourceIterator = sources.iterator();
-        Iterator<? extends Sentence> targetIterator = targets.iterator();
+        // Sentences are encoded into word ids on the Java side and passed to the native
+        // code as flat buffers: words of sentence i are in [offsets[i], offsets[i + 1])
+        int size = Math.min(sources.size(), targets.size());
 
-        int i = 0;
-        while (sourceIterator.hasNext() && targetIterator.hasNext()) {
-            sourceArray[i] = XUtils.toTokensArray(sourceIterator.next());
-            targetArray[i] = XUtils.toTokensArray(targetIterator.next());
-            i++;
-        }
-
-        int[][] result = new int[sourceArray.length][];
-        Alignment[] alignments = new Alignment[result.length];
+        int[] sourceOffsets = new int[size + 1];
+        int[] targetOffsets = new int[size + 1];
+        int[] sourceWords = encode(vocabulary, sources, size, sourceOffsets);
+        int[] targetWords = encode(vocabulary, targets, size, targetOffsets);
 
-        float[] scores = align(nativeHandle, reversed, sourceArray, targetArray, XUtils.toInt(strategy), result);
+        float[] scores = new float[size];
+        int[] offsets = new int[size + 1];
+        int[] result = align(nativeHandle, reversed, sourceWords, sourceOffsets, targetWords, targetOffsets,
+                XUtils.toInt(strategy), scores, offsets);
 
-        for (int j = 0; j < result.length; j++)
-            alignments[j] = XUtils.parseAlignment(result[j], scores[j]);
+        Alignment[] alignments = new Alignment[size];
+        for (int j = 0; j < size; j++)
+            alignments[j] = XUtils.parseAlignment(result, offsets[j], offsets[j + 1] - offsets[j], scores[j]);
 
         return alignments;
     }
 
-    private native float[] align(long nativeHandle, boolean reversed, String[][] sources, String[][] targets, int strategy, int[][] outputAlignment);
+    private static int[] encode(Vocabulary vocabulary, List<? extends Sentence> sentences, int size, int[] offsets) {
+        String[][] tokens = new String[size][];
+
+        Iterator<? extends Sentence> iterator = sentences.iterator();
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            tokens[i] = XUtils.toTokensArray(iterator.next());
+            length += tokens[i].length;
+        }
+
+        int[] words = new int[length];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            offsets[i] = index;
+            for (String token : tokens[i])
+                words[index++] = vocabulary.get(token);
+        }
+        offsets[size] = index;
+
+        return words;
+    }
+
+    private native int[] align(long nativeHandle, boolean reversed, int[] sourceWords, int[] sourceOffsets,
+                               int[] targetWords, int[] targetOffsets, int strategy, float[] outputScores, int[] outputOffsets);
 
     @Override
     protected void finalize() throws Throwable {
@@ -154,6 +179,7 @@ public class FastAlign implements Aligner {
             dispose(nativeHandle);
 
         models.clear();
+        vocabularies.clear();
     }
 
     @Override
@@ -0,0 +1,66 @@
+package eu.modernmt.aligner.fastalign;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Java-side copy of the FastAlign model vocabulary ("model.voc"), used to encode
+ * sentences into word ids before crossing the JNI boundary.
+ * Ids follow the native convention: terms are numbered from 2 in file order,
+ * while 1 is reserved for unknown words.
+ */
+class Vocabulary {
+
+    static final int UNKNOWN_WORD = 1;
+
+    private final HashMap<String, Integer> ids;
+
+    public static Vocabulary load(File file) throws IOException {
+        if (!file.isFile())
+            throw new IOException("File not found: " + file);
+
+        HashMap<String, Integer> ids = new HashMap<>();
+
+        Reader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+
+            // Lines are split on '\n' only, exactly like the native getline()
+            StringBuilder line = new StringBuilder();
+            int id = 2;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '\n') {
+                    ids.put(line.toString(), id++);
+                    line.setLength(0);
+                } else {
+                    line.append((char) c);
+                }
+            }
+
+            if (line.length() > 0)
+                ids.put(line.toString(), id);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        return new Vocabulary(ids);
+    }
+
+    private Vocabulary(HashMap<String, Integer> ids) {
+        this.ids = ids;
+    }
+
+    public int get(String term) {
+        Integer id = ids.get(term);
+        return id == null ? UNKNOWN_WORD : id;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+}
@@ -30,16 +30,20 @@ class XUtils {
     }
 
     public static Alignment parseAlignment(int[] encoded, float score) {
-        if (encoded.length % 2 == 1)
-            throw new Error("Invalid native result length: " + encoded.length);
+        return parseAlignment(encoded, 0, encoded.length, score);
+    }
+
+    public static Alignment parseAlignment(int[] encoded, int offset, int length, float score) {
+        if (length % 2 == 1)
+            throw new Error("Invalid native result length: " + length);
 
-        int size = encoded.length / 2;
+        int size = length / 2;
 
         int[] source = new int[size];
         int[] target = new int[size];
 
-        System.arraycopy(encoded, 0, source, 0, size);
-        System.arraycopy(encoded, size, target, 0, size);
+        System.arraycopy(encoded, offset, source, 0, size);
+        System.arraycopy(encoded, offset + size, target, 0, size);
 
         return new Alignment(source, target, score);
     }
@@ -78,47 +78,70 @@ Java_eu_modernmt_aligner_fastalign_FastAlign_align__JZ_3Ljava_lang_String_2_3Lja
     return (jfloat) align.score;
 }
 
+inline void ParseBatch(JNIEnv *jvm, jintArray jwords, jintArray joffsets, bool second,
+                       vector<pair<wordvec_t, wordvec_t>> &batch) {
+    jint *words = jvm->GetIntArrayElements(jwords, NULL);
+    jint *offsets = jvm->GetIntArrayElements(joffsets, NULL);
+
+    for (size_t i = 0; i < batch.size(); i++) {
+        wordvec_t &sentence = second ? batch[i].second : batch[i].first;
+        sentence.assign(words + offsets[i], words + offsets[i + 1]);
+    }
+
+    jvm->ReleaseIntArrayElements(joffsets, offsets, JNI_ABORT);
+    jvm->ReleaseIntArrayElements(jwords, words, JNI_ABORT);
+}
+
 /*
  * Class:     eu_modernmt_aligner_fastalign_FastAlign
  * Method:    align
- * Signature: (JZ[[Ljava/lang/String;[[Ljava/lang/String;I[[I)[F
+ * Signature: (JZ[I[I[I[II[F[I)[I
  */
-JNIEXPORT jfloatArray JNICALL
-Java_eu_modernmt_aligner_fastalign_FastAlign_align__JZ_3_3Ljava_lang_String_2_3_3Ljava_lang_String_2I_3_3I
+JNIEXPORT jintArray JNICALL
+Java_eu_modernmt_aligner_fastalign_FastAlign_align__JZ_3I_3I_3I_3II_3F_3I
         (JNIEnv *jvm, jobject jself, jlong jhandle, jboolean reversed,
-         jobjectArray jsources, jobjectArray jtargets, jint jstrategy, jobjectArray joutput) {
+         jintArray jsourceWords, jintArray jsourceOffsets, jintArray jtargetWords, jintArray jtargetOffsets,
+         jint jstrategy, jfloatArray joutputScores, jintArray joutputOffsets) {
     FastAligner *aligner = reinterpret_cast<FastAligner *>(jhandle);
-    jsize length = jvm->GetArrayLength(jsources);
-
-    vector<pair<vector<string>, vector<string>>> batch;
-    batch.reserve((size_t) length);
-
-    for (jsize i = 0; i < length; i++) {
-        jobjectArray jsource = (jobjectArray) jvm->GetObjectArrayElement(jsources, i);
-        jobjectArray jtarget = (jobjectArray) jvm->GetObjectArrayElement(jtargets, i);
-
-        vector<string> source, target;
-        ParseSentence(jvm, reversed ? jtarget : jsource, source);
-        ParseSentence(jvm, reversed ? jsource : jtarget, target);
+    jsize length = jvm->GetArrayLength(jsourceOffsets) - 1;
 
-        batch.push_back(pair<vector<string>, vector<string>>(source, target));
-    }
+    vector<pair<wordvec_t, wordvec_t>> batch((size_t) length);
+    ParseBatch(jvm, jsourceWords, jsourceOffsets, (bool) reversed, batch);
+    ParseBatch(jvm, jtargetWords, jtargetOffsets, !reversed, batch);
 
     vector<alignment_t> alignments;
     aligner->GetAlignments(batch, alignments, (Symmetrization) jstrategy);
 
-    jsize size = (jsize) alignments.size();
+    // Alignments are written in a single flat buffer: alignment i is in [offsets[i], offsets[i + 1])
+    // and contains all the source indexes followed by all the target indexes
+    vector<jfloat> scores((size_t) length);
+    vector<jint> offsets((size_t) length + 1);
 
-    jfloat *jscores = new jfloat[size];
-    for (jsize i = 0; i < size; i++) {
-        jintArray alignment = AlignmentToArray(jvm, alignments[i], (bool) reversed);
-        jvm->SetObjectArrayElement(joutput, i, alignment);
-        jscores[i] = (jfloat) alignments[i].score;
+    jsize size = 0;
+    for (jsize i = 0; i < length; i++) {
+        offsets[i] = size;
+        size += (jsize) (alignments[i].points.size() * 2);
+        scores[i] = (jfloat) alignments[i].score;
+    }
+    offsets[length] = size;
+
+    vector<jint> buffer((size_t) size);
+    for (jsize i = 0; i < length; i++) {
+        vector<pair<length_t, length_t>> &points = alignments[i].points;
+        jsize hsize = (jsize) points.size();
+        jint *output = buffer.data() + offsets[i];
+
+        for (jsize j = 0; j < hsize; j++) {
+            output[j] = reversed ? points[j].second : points[j].first;
+            output[j + hsize] = reversed ? points[j].first : points[j].second;
+        }
     }
 
-    jfloatArray jarray = jvm->NewFloatArray(size);
-    jvm->SetFloatArrayRegion(jarray, 0, size, jscores);
-    delete[] jscores;
+    jvm->SetFloatArrayRegion(joutputScores, 0, length, scores.data());
+    jvm->SetIntArrayRegion(joutputOffsets, 0, length + 1, offsets.data());
+
+    jintArray jarray = jvm->NewIntArray(size);
+    jvm->SetIntArrayRegion(jarray, 0, size, buffer.data());
 
     return jarray;
 }
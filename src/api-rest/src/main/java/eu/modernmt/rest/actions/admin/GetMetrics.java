@@ -0,0 +1,156 @@
+package eu.modernmt.rest.actions.admin;
+
+import eu.modernmt.cluster.NodeMetrics;
+import eu.modernmt.facade.ModernMT;
+import eu.modernmt.facade.TranslationFacade;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.metrics.LatencyHistogram;
+import eu.modernmt.metrics.LatencyMetrics;
+import eu.modernmt.rest.framework.HttpMethod;
+import eu.modernmt.rest.framework.RESTRequest;
+import eu.modernmt.rest.framework.RESTResponse;
+import eu.modernmt.rest.framework.actions.Action;
+import eu.modernmt.rest.framework.routing.Route;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+
+/**
+ * Exposes the cluster-wide metrics in the Prometheus text exposition format.
+ */
+@Route(aliases = "metrics", method = HttpMethod.GET, log = false)
+public class GetMetrics implements Action {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = new double[]{.5, .9, .99, .999};
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    @Override
+    public void execute(RESTRequest request, RESTResponse response) {
+        NodeMetrics metrics;
+
+        try {
+            metrics = ModernMT.cluster.getMetrics();
+        } catch (Throwable e) {
+            logger.error("Internal error while executing action " + this, e);
+            response.unexpectedError(e);
+            return;
+        }
+
+        StringBuilder output = new StringBuilder();
+        appendLatencies(output, metrics.getLatencies());
+        appendQueue(output, metrics.getQueueDepth());
+        appendAdmission(output, metrics);
+        appendContextCache(output, metrics);
+        appendCoalescing(output, metrics);
+
+        response.ok(CONTENT_TYPE, output.toString());
+    }
+
+    private static void appendLatencies(StringBuilder output, LatencyMetrics.Snapshot snapshot) {
+        String name = "mmt_translation_latency_seconds";
+
+        output.append("# HELP ").append(name).append(" Time spent by translations in every processing stage.\n");
+        output.append("# TYPE ").append(name).append(" summary\n");
+
+        for (Map.Entry<LatencyMetrics.Key, LatencyHistogram.Snapshot> entry : snapshot.getEntries().entrySet()) {
+            LatencyMetrics.Key key = entry.getKey();
+            LatencyHistogram.Snapshot histogram = entry.getValue();
+
+            String labels = "stage=\"" + key.stage.name().toLowerCase() + "\"," +
+                    "direction=\"" + label(key.direction) + "\"," +
+                    "priority=\"" + label(key.priority) + "\"";
+
+            for (double quantile : QUANTILES) {
+                output.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ");
+                output.append(seconds(histogram.getValueAtQuantile(quantile))).append('\n');
+            }
+
+            output.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSum())).append('\n');
+            output.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+        }
+    }
+
+    private static void appendQueue(StringBuilder output, long[] depth) {
+        String name = "mmt_translation_queue_depth";
+
+        output.append("# HELP ").append(name).append(" Number of translations waiting in the queue.\n");
+        output.append("# TYPE ").append(name).append(" gauge\n");
+
+        for (int i = 0; i < depth.length; i++)
+            output.append(name).append("{priority=\"").append(label(i)).append("\"} ").append(depth[i]).append('\n');
+    }
+
+    private static void appendAdmission(StringBuilder output, NodeMetrics metrics) {
+        output.append("# HELP mmt_translation_service_seconds Moving average of the time spent serving a translation.\n");
+        output.append("# TYPE mmt_translation_service_seconds gauge\n");
+        output.append("mmt_translation_service_seconds ").append(metrics.getServiceTime() / 1000.).append('\n');
+
+        String name = "mmt_translation_estimated_wait_seconds";
+        double[] wait = metrics.getEstimatedWaitTime();
+
+        output.append("# HELP ").append(name).append(" Estimated time before a new translation starts.\n");
+        output.append("# TYPE ").append(name).append(" gauge\n");
+
+        for (int i = 0; i < wait.length; i++)
+            output.append(name).append("{priority=\"").append(label(i)).append("\"} ").append(wait[i] / 1000.).append('\n');
+
+        name = "mmt_translation_rejected_total";
+        long[] shed = metrics.getShedTranslations();
+        long[] overflows = metrics.getOverflowTranslations();
+
+        output.append("# HELP ").append(name).append(" Translations rejected by the admission control.\n");
+        output.append("# TYPE ").append(name).append(" counter\n");
+
+        for (int i = 0; i < shed.length; i++)
+            output.append(name).append("{priority=\"").append(label(i)).append("\",reason=\"budget\"} ").append(shed[i]).append('\n');
+        for (int i = 0; i < overflows.length; i++)
+            output.append(name).append("{priority=\"").append(label(i)).append("\",reason=\"queue_full\"} ").append(overflows[i]).append('\n');
+    }
+
+    private static void appendContextCache(StringBuilder output, NodeMetrics metrics) {
+        output.append("# HELP mmt_context_cache_hits_total Context vector requests served by the cache.\n");
+        output.append("# TYPE mmt_context_cache_hits_total counter\n");
+        output.append("mmt_context_cache_hits_total ").append(metrics.getContextCacheHits()).append('\n');
+        output.append("# HELP mmt_context_cache_misses_total Context vector requests not found in the cache.\n");
+        output.append("# TYPE mmt_context_cache_misses_total counter\n");
+        output.append("mmt_context_cache_misses_total ").append(metrics.getContextCacheMisses()).append('\n');
+        output.append("# HELP mmt_context_cache_size Number of context vectors in the cache.\n");
+        output.append("# TYPE mmt_context_cache_size gauge\n");
+        output.append("mmt_context_cache_size ").append(metrics.getContextCacheSize()).append('\n');
+    }
+
+    private static void appendCoalescing(StringBuilder output, NodeMetrics metrics) {
+        output.append("# HELP mmt_translation_coalesced_total Translation requests that shared the result of an identical in-flight request.\n");
+        output.append("# TYPE mmt_translation_coalesced_total counter\n");
+        output.append("mmt_translation_coalesced_total ").append(metrics.getCoalescedTranslations()).append('\n');
+        output.append("# HELP mmt_translation_submitted_total Translation requests submitted to the translation service.\n");
+        output.append("# TYPE mmt_translation_submitted_total counter\n");
+        output.append("mmt_translation_submitted_total ").append(metrics.getSubmittedTranslations()).append('\n');
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1000000.;
+    }
+
+    private static String label(LanguagePair direction) {
+        return direction == null ? "any" : (direction.source.toLanguageTag() + '-' + direction.target.toLanguageTag());
+    }
+
+    private static String label(int priority) {
+        for (TranslationFacade.Priority value : TranslationFacade.Priority.values()) {
+            if (value.intValue == priority)
+                return value.name().toLowerCase();
+        }
+
+        return "unknown";
+    }
+
+    @Override
+    public final String toString() {
+        return getClass().getSimpleName();
+    }
+
+}
@@ -1,6 +1,7 @@
 package eu.modernmt.rest.actions.memory;
 
 import eu.modernmt.data.DataManagerException;
+import eu.modernmt.facade.CorpusImport;
 import eu.modernmt.facade.ModernMT;
 import eu.modernmt.io.FileProxy;
 import eu.modernmt.lang.Language;
@@ -20,6 +21,11 @@ import java.io.File;
 
 /**
  * Created by davide on 15/12/15.
+ * <p>
+ * A corpus is imported asynchronously: the response with the pending import job is sent as soon as the
+ * parameters that precede the content have been read, then the content is read from the request while
+ * the pairs are sent to the data stream. The cleaning filters that need statistics of the whole corpus read
+ * an uploaded content once more: the first pass spools it to disk while it arrives, the second one reads it back.
  */
 @Route(aliases = {"memories/:id/corpus", "domains/:id/corpus"}, method = HttpMethod.POST)
 public class AddToMemoryCorpus extends ObjectAction<ImportJob> {
@@ -28,10 +34,30 @@ public class AddToMemoryCorpus extends ObjectAction<ImportJob> {
     protected ImportJob execute(RESTRequest req, Parameters _params) throws DataManagerException, PersistenceException {
         Params params = (Params) _params;
 
-        if (params.corpus == null)
+        if (params.corpus == null) {
             return ModernMT.memory.add(params.direction, params.memory, params.source, params.target);
-        else
-            return ModernMT.memory.add(params.memory, params.corpus);
+        } else {
+            params.corpusImport = ModernMT.memory.startImport(params.memory, params.corpus);
+            return params.corpusImport == null ? null : params.corpusImport.getJob();
+        }
+    }
+
+    @Override
+    protected void afterResponse(RESTRequest req, RESTResponse resp, Parameters _params) throws Throwable {
+        Params params = (Params) _params;
+
+        if (params.corpusImport != null) {
+            resp.flush();
+            params.corpusImport.feed();
+        }
+    }
+
+    @Override
+    protected void discardResult(RESTRequest req, Parameters _params) {
+        Params params = (Params) _params;
+
+        if (params.corpusImport != null)
+            params.corpusImport.discard();
     }
 
     @Override
@@ -54,6 +80,7 @@ public class AddToMemoryCorpus extends ObjectAction<ImportJob> {
         private final String source;
         private final String target;
         private final MultilingualCorpus corpus;
+        private CorpusImport corpusImport = null;
 
         public Params(RESTRequest req) throws ParameterParsingException, TemplateException {
             super(req);
@@ -31,12 +31,12 @@ public class Translate extends ObjectAction<TranslationResponse> {
         result.verbose = params.verbose;
 
         if (params.context != null) {
-            result.translation = ModernMT.translation.get(params.direction, params.query, params.context, params.nbest, params.priority, params.variant);
+            result.translation = ModernMT.translation.get(params.direction, params.query, params.context, params.nbest, params.priority, params.variant, params.timeout);
         } else if (params.contextString != null) {
             result.context = ModernMT.translation.getContextVector(params.direction, params.contextString, params.contextLimit);
-            result.translation = ModernMT.translation.get(params.direction, params.query, result.context, params.nbest, params.priority, params.variant);
+            result.translation = ModernMT.translation.get(params.direction, params.query, result.context, params.nbest, params.priority, params.variant, params.timeout);
         } else {
-            result.translation = ModernMT.translation.get(params.direction, params.query, params.nbest, params.priority, params.variant);
+            result.translation = ModernMT.translation.get(params.direction, params.query, null, params.nbest, params.priority, params.variant, params.timeout);
         }
 
 
@@ -62,6 +62,7 @@ public class Translate extends ObjectAction<TranslationResponse> {
         public final TranslationFacade.Priority priority;
         public final boolean verbose;
         public final String variant;
+        public final long timeout;
 
         public Params(RESTRequest req) throws ParameterParsingException {
             super(req);
@@ -84,6 +85,10 @@ public class Translate extends ObjectAction<TranslationResponse> {
             verbose = getBoolean("verbose", false);
             variant = getString("variant", false, null);
 
+            timeout = getLong("timeout", 0L);
+            if (timeout < 0)
+                throw new ParameterParsingException("timeout", Long.toString(timeout), "timeout cannot be negative");
+
             String weights = getString("context_vector", false, null);
 
             if (weights != null) {
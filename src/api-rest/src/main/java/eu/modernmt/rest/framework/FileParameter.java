@@ -1,39 +1,168 @@
 package eu.modernmt.rest.framework;
 
-import javax.servlet.http.Part;
-import java.io.IOException;
-import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
 
 /**
  * Created by davide on 21/12/16.
+ * <p>
+ * A file uploaded with a multipart request. The content is read directly from the request
+ * while it arrives: the first stream returned by getInputStream() reads from the request and
+ * copies the content to a spool file, that is used by the following streams.
+ * If the rest of the content is spooled while the first stream is still open (the content is requested again,
+ * or a part that follows it is requested), the first stream continues from the spool file.
  */
 public class FileParameter {
 
-    private final Part parameter;
+    private final String name;
+    private final File file;
+
+    private InputStream part;
+    private OutputStream spool;
+    private boolean opened = false;
 
-    FileParameter(Part parameter) {
-        this.parameter = parameter;
+    FileParameter(String name, InputStream part, File file) throws IOException {
+        this.name = name;
+        this.part = part;
+        this.file = file;
+        this.spool = new BufferedOutputStream(new FileOutputStream(file));
     }
 
     public String getFilename() {
-        return parameter.getName();
+        return name;
     }
 
     public InputStream getInputStream() throws IOException {
-        return parameter.getInputStream();
+        if (part != null && !opened) {
+            opened = true;
+            return new SpoolingInputStream();
+        }
+
+        spool();
+        return new FileInputStream(file);
     }
 
-    public void delete() {
+    /**
+     * Copies the remaining content of the part to the spool file; the part is no longer
+     * read from the request after this call.
+     */
+    void spool() throws IOException {
+        if (part == null)
+            return;
+
+        try {
+            IOUtils.copyLarge(part, spool);
+        } finally {
+            closeSpool();
+        }
+    }
+
+    private void closeSpool() throws IOException {
+        part = null;
+
         try {
-            parameter.delete();
-        } catch (IOException e) {
-            // Ignore it
+            spool.close();
+        } finally {
+            spool = null;
+        }
+    }
+
+    public void delete() {
+        if (spool != null) {
+            IOUtils.closeQuietly(spool);
+            spool = null;
+            part = null;
         }
+
+        if (file.exists() && !file.delete())
+            file.deleteOnExit();
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        delete();
-        super.finalize();
+    private class SpoolingInputStream extends InputStream {
+
+        private long position = 0L;
+        private InputStream spooled = null;
+        private boolean closed = false;
+
+        /*
+         * Returns the stream to read the content from: the part as long as it is read by this stream,
+         * the spool file (from the current position) once the part has been spooled.
+         */
+        private InputStream source() throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+
+            if (part != null)
+                return part;
+
+            if (spooled == null) {
+                spooled = new FileInputStream(file);
+
+                long skipped = 0;
+                while (skipped < position) {
+                    long n = spooled.skip(position - skipped);
+                    if (n <= 0)
+                        throw new EOFException("Spool file of " + name + " is shorter than its content");
+                    skipped += n;
+                }
+            }
+
+            return spooled;
+        }
+
+        @Override
+        public int read() throws IOException {
+            InputStream source = source();
+            int b = source.read();
+
+            if (source == part) {
+                if (b < 0)
+                    closeSpool();
+                else
+                    spool.write(b);
+            }
+
+            if (b >= 0)
+                position++;
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            InputStream source = source();
+            int read = source.read(b, off, len);
+
+            if (source == part) {
+                if (read < 0)
+                    closeSpool();
+                else
+                    spool.write(b, off, read);
+            }
+
+            if (read > 0)
+                position += read;
+
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return closed ? 0 : source().available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The spool file is completed when the content is requested again
+            closed = true;
+
+            if (spooled != null) {
+                spooled.close();
+                spooled = null;
+            }
+        }
+
     }
+
 }
@@ -1,10 +1,11 @@
 package eu.modernmt.rest.framework;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonSerializer;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 
 /**
@@ -12,14 +13,65 @@ import java.lang.reflect.Type;
  */
 public class JSONSerializer {
 
-    private static final GsonBuilder builder = new GsonBuilder();
+    /**
+     * A write-only serializer that streams objects directly to a JsonWriter,
+     * instead of building a JSON tree like a JsonSerializer does.
+     */
+    public interface StreamSerializer<T> {
+
+        /**
+         * @param writer the JSON writer
+         * @param src    the object to write, never null
+         */
+        void write(JsonWriter writer, T src) throws IOException;
+
+    }
+
+    private static final GsonBuilder builder = new GsonBuilder().disableHtmlEscaping();
     private static Gson customInstance = null;
-    private static Gson staticInstance = new Gson();
+    private static Gson staticInstance = new GsonBuilder().disableHtmlEscaping().create();
 
     public static void registerCustomSerializer(Class<?> clazz, JsonSerializer<?> serializer) {
         builder.registerTypeAdapter(clazz, serializer);
     }
 
+    /**
+     * Registers a serializer for writing the objects of the given class; reading is left to the
+     * adapter that Gson would use without this registration.
+     */
+    public static <T> void registerCustomSerializer(Class<T> clazz, StreamSerializer<T> serializer) {
+        builder.registerTypeAdapterFactory(new TypeAdapterFactory() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> type) {
+                if (type.getRawType() != clazz)
+                    return null;
+
+                TypeAdapterFactory factory = this;
+
+                return (TypeAdapter<R>) new TypeAdapter<T>() {
+
+                    private TypeAdapter<T> delegate = null;
+
+                    @Override
+                    public void write(JsonWriter writer, T value) throws IOException {
+                        serializer.write(writer, value);
+                    }
+
+                    @Override
+                    public T read(JsonReader reader) throws IOException {
+                        if (delegate == null)
+                            delegate = gson.getDelegateAdapter(factory, TypeToken.get(clazz));
+                        return delegate.read(reader);
+                    }
+
+                }.nullSafe();
+            }
+
+        });
+    }
+
     private static Gson getCustom() {
         if (customInstance == null) {
             synchronized (JSONSerializer.class) {
@@ -40,4 +92,23 @@ public class JSONSerializer {
         return gson.toJsonTree(object, type);
     }
 
+    /**
+     * Writes the object directly to the given writer, without building the JSON tree
+     * (unless the type has been registered with a JsonSerializer).
+     */
+    public static void toJSON(Object object, Type type, JsonWriter writer) throws IOException {
+        try {
+            getCustom().toJson(object, type, writer);
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            else
+                throw e;
+        }
+    }
+
+    public static void toJSON(JsonElement json, JsonWriter writer) throws IOException {
+        staticInstance.getAdapter(JsonElement.class).write(writer, json);
+    }
+
 }
@@ -0,0 +1,366 @@
+package eu.modernmt.rest.framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sequential reader of a multipart/form-data body: parts are parsed while the request
+ * is still arriving, in the same order they have been sent by the client.
+ * The content of a part must be read before moving to the next part; the unread content
+ * is skipped by next(). Memory usage is bounded by the size of the internal buffer.
+ */
+class MultipartStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte DASH = '-';
+
+    public static class Part {
+
+        private final String name;
+        private final String filename;
+        private final String contentType;
+        private final PartInputStream content;
+
+        private Part(String name, String filename, String contentType, PartInputStream content) {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public InputStream getInputStream() {
+            return content;
+        }
+
+    }
+
+    /**
+     * Extracts the boundary from a multipart/form-data content type
+     *
+     * @return the boundary or null if not found
+     */
+    public static String getBoundary(String contentType) {
+        if (contentType == null)
+            return null;
+
+        for (String token : contentType.split(";")) {
+            token = token.trim();
+
+            if (token.regionMatches(true, 0, "boundary=", 0, 9)) {
+                String boundary = token.substring(9).trim();
+                if (boundary.length() > 1 && boundary.charAt(0) == '"' && boundary.charAt(boundary.length() - 1) == '"')
+                    boundary = boundary.substring(1, boundary.length() - 1);
+
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+
+        return null;
+    }
+
+    private final InputStream input;
+    private final byte[] delimiter;
+    private final long maxPartSize;
+    private final long maxRequestSize;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private long base = 0; // offset in the stream of the first byte of the buffer
+    private boolean eof = false;
+    private long totalRead = 0;
+
+    private PartInputStream current = null;
+    private boolean finished = false;
+
+    /**
+     * @param input          the request body
+     * @param boundary       the boundary of the parts
+     * @param maxPartSize    the max size of a single part (-1 for no limit)
+     * @param maxRequestSize the max size of the whole body (-1 for no limit)
+     */
+    public MultipartStream(InputStream input, String boundary, long maxPartSize, long maxRequestSize) {
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.maxPartSize = maxPartSize;
+        this.maxRequestSize = maxRequestSize;
+
+        // The first delimiter is not preceded by CRLF: pretend it is
+        buffer[0] = CR;
+        buffer[1] = LF;
+        limit = 2;
+    }
+
+    /**
+     * Skips the remaining content of the current part and moves to the next one.
+     *
+     * @return the next part or null if there are no more parts
+     */
+    public Part next() throws IOException {
+        if (finished)
+            return null;
+
+        if (current == null) {
+            // Skip preamble
+            skipToDelimiter();
+        } else {
+            current.skip();
+            current = null;
+        }
+
+        position += delimiter.length;
+
+        // Closing delimiter "--" or CRLF
+        ensure(2);
+        if (buffer[position] == DASH && buffer[position + 1] == DASH) {
+            finished = true;
+            return null;
+        }
+
+        skipLine(); // transport padding and CRLF
+
+        String name = null, filename = null, contentType = null;
+
+        String header;
+        while (!(header = readLine()).isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon < 0)
+                continue;
+
+            String key = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+
+            if ("Content-Disposition".equalsIgnoreCase(key)) {
+                name = getDispositionParameter(value, "name");
+                filename = getDispositionParameter(value, "filename");
+            } else if ("Content-Type".equalsIgnoreCase(key)) {
+                contentType = value;
+            }
+        }
+
+        current = new PartInputStream();
+        return new Part(name, filename, contentType, current);
+    }
+
+    private static String getDispositionParameter(String disposition, String parameter) {
+        for (String token : disposition.split(";")) {
+            token = token.trim();
+
+            int equal = token.indexOf('=');
+            if (equal < 0 || !parameter.equalsIgnoreCase(token.substring(0, equal).trim()))
+                continue;
+
+            String value = token.substring(equal + 1).trim();
+            if (value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"')
+                value = value.substring(1, value.length() - 1);
+
+            return value;
+        }
+
+        return null;
+    }
+
+    // Buffer management
+
+    /*
+     * Makes at least n bytes available after position, or throws an exception if the stream ends before.
+     */
+    private void ensure(int n) throws IOException {
+        while (limit - position < n) {
+            if (!fill())
+                throw new IOException("Unexpected end of multipart stream");
+        }
+    }
+
+    /*
+     * Compacts the buffer and reads new bytes; returns false if the stream is over.
+     */
+    private boolean fill() throws IOException {
+        if (eof)
+            return false;
+
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            base += position;
+            limit -= position;
+            position = 0;
+        }
+
+        if (limit == buffer.length)
+            throw new IOException("Multipart header too large");
+
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+
+        totalRead += read;
+        if (maxRequestSize >= 0 && totalRead > maxRequestSize)
+            throw new IOException("Request exceeds max size of " + maxRequestSize + " bytes");
+
+        limit += read;
+        return true;
+    }
+
+    /*
+     * Returns the index of the next delimiter in the buffer, or -1 if not found.
+     */
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+
+        outer:
+        for (int i = position; i <= last; i++) {
+            if (buffer[i] != CR)
+                continue;
+
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j])
+                    continue outer;
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private void skipToDelimiter() throws IOException {
+        int index;
+        while ((index = indexOfDelimiter()) < 0) {
+            // keep the bytes that could be the beginning of the delimiter
+            position = Math.max(position, limit - delimiter.length + 1);
+            if (!fill())
+                throw new IOException("Unexpected end of multipart stream");
+        }
+
+        position = index;
+    }
+
+    private String readLine() throws IOException {
+        for (; ; ) {
+            for (int i = position; i < limit - 1; i++) {
+                if (buffer[i] == CR && buffer[i + 1] == LF) {
+                    String line = new String(buffer, position, i - position, StandardCharsets.UTF_8);
+                    position = i + 2;
+                    return line;
+                }
+            }
+
+            if (!fill())
+                throw new IOException("Unexpected end of multipart stream");
+        }
+    }
+
+    private void skipLine() throws IOException {
+        readLine();
+    }
+
+    private class PartInputStream extends InputStream {
+
+        private long size = 0;
+        private boolean ended = false;
+
+        // stream offset up to which the bytes are known to be part content
+        private long contentEnd = 0;
+        private boolean delimiterFound = false;
+
+        /*
+         * Returns the number of bytes of the part that are available in the buffer,
+         * or -1 if the part is over.
+         */
+        private int available0() throws IOException {
+            if (ended)
+                return -1;
+
+            for (; ; ) {
+                long offset = base + position;
+                if (offset < contentEnd)
+                    return (int) (contentEnd - offset);
+
+                if (delimiterFound) {
+                    ended = true;
+                    return -1;
+                }
+
+                int index = indexOfDelimiter();
+
+                if (index >= 0) {
+                    contentEnd = base + index;
+                    delimiterFound = true;
+                } else if (limit - delimiter.length + 1 > position) {
+                    // No delimiter: bytes that cannot be part of the delimiter are available
+                    contentEnd = base + limit - delimiter.length + 1;
+                } else if (!fill()) {
+                    throw new IOException("Unexpected end of multipart stream");
+                }
+            }
+        }
+
+        private void consume(int n) throws IOException {
+            position += n;
+            size += n;
+
+            if (maxPartSize >= 0 && size > maxPartSize)
+                throw new IOException("Multipart part exceeds max size of " + maxPartSize + " bytes");
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (available0() < 0)
+                return -1;
+
+            int b = buffer[position] & 0xFF;
+            consume(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+
+            int available = available0();
+            if (available < 0)
+                return -1;
+
+            int n = Math.min(available, len);
+            System.arraycopy(buffer, position, b, off, n);
+            consume(n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return ended ? 0 : (int) Math.max(0, contentEnd - base - position);
+        }
+
+        private void skip() throws IOException {
+            int available;
+            while ((available = available0()) >= 0)
+                consume(available);
+        }
+
+        @Override
+        public void close() {
+            // The request stream is closed by the container
+        }
+
+    }
+
+}
@@ -10,15 +10,15 @@ import eu.modernmt.rest.framework.routing.RouteTree;
 import eu.modernmt.rest.framework.routing.TemplateException;
 import org.apache.commons.io.IOUtils;
 
-import javax.servlet.ServletException;
+import javax.servlet.MultipartConfigElement;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.Part;
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
@@ -26,6 +26,7 @@ import java.util.UUID;
 public class RESTRequest {
 
     public static final String HTTP_METHOD_HEADER = "X-HTTP-Method-Override";
+    public static final String MULTIPART_CONFIG_ATTRIBUTE = "eu.modernmt.rest.MultipartConfig";
 
     private static final JsonObject NULL_OBJECT = new JsonObject();
     private static final JsonArray NULL_ARRAY = new JsonArray();
@@ -42,6 +43,12 @@ public class RESTRequest {
     private String json = null;
     private String toString = null;
 
+    private MultipartStream multipart = null;
+    private MultipartConfigElement multipartConfig = null;
+    private MultipartStream.Part pendingPart = null;
+    private FileParameter streamingFile = null;
+    private final ArrayList<FileParameter> files = new ArrayList<>();
+
     public RESTRequest(HttpServletRequest request, RouteTree routes) {
         this.request = request;
         this.template = routes.get(getHttpMethod(), getPath());
@@ -176,38 +183,94 @@ public class RESTRequest {
                 }
             }
         } else if (isContentType("multipart/form-data")) {
-            Collection<Part> parts = null;
+            String boundary = MultipartStream.getBoundary(request.getContentType());
+            if (boundary == null)
+                throw new Parameters.ParameterParsingException("Missing boundary in multipart/form-data request");
+
+            multipartConfig = (MultipartConfigElement) request.getAttribute(MULTIPART_CONFIG_ATTRIBUTE);
+            if (multipartConfig == null)
+                multipartConfig = new MultipartConfigElement(System.getProperty("java.io.tmpdir"));
+
             try {
-                parts = request.getParts();
+                multipart = new MultipartStream(request.getInputStream(), boundary,
+                        multipartConfig.getMaxFileSize(), multipartConfig.getMaxRequestSize());
             } catch (IOException e) {
-                throw new Parameters.ParameterParsingException("Failed to retrieve multipart/form-data request parts", e);
-            } catch (ServletException e) {
-                // thrown if this request is not of type "multipart/form-data"
-                // ignore it
+                throw new Parameters.ParameterParsingException("Failed to read multipart/form-data request", e);
             }
 
-            if (parts != null) {
-                for (Part part : parts) {
-                    String contentType = part.getContentType();
-                    String name = part.getName();
-                    String file = part.getSubmittedFileName();
-                    Object value = null;
-
-                    if (contentType == null && file == null) {
-                        // Assume parameter is a string
-                        try {
-                            value = IOUtils.toString(part.getInputStream(), Charset.defaultCharset());
-                        } catch (IOException e) {
-                            throw new Parameters.ParameterParsingException("Unable to read parameter '" + name + "'");
-                        }
-                    } else if ("application/octet-stream".equals(contentType) && file != null) {
-                        value = new FileParameter(part);
-                    }
+            readMultipartFields();
+        }
+    }
+
+    /*
+     * Multipart requests are parsed while they arrive: fields are read until the first file part,
+     * that is left in the stream so that its content can be read directly from the request.
+     * The parts that follow a file are read only when a file that comes after it is requested
+     * (the content of the skipped file is spooled to disk): fields must precede the files.
+     */
+    private void readMultipartFields() throws Parameters.ParameterParsingException {
+        try {
+            MultipartStream.Part part;
+            while ((part = multipart.next()) != null) {
+                String contentType = part.getContentType();
+                String name = part.getName();
+                String file = part.getFilename();
 
-                    if (value != null)
-                        this.parameters.put(name, value);
+                if (name == null)
+                    continue;
+
+                if (contentType == null && file == null) {
+                    // Assume parameter is a string
+                    try {
+                        this.parameters.put(name, IOUtils.toString(part.getInputStream(), Charset.defaultCharset()));
+                    } catch (IOException e) {
+                        throw new Parameters.ParameterParsingException("Unable to read parameter '" + name + "'");
+                    }
+                } else if ("application/octet-stream".equals(contentType) && file != null) {
+                    pendingPart = part;
+                    return;
                 }
             }
+        } catch (IOException e) {
+            throw new Parameters.ParameterParsingException("Failed to retrieve multipart/form-data request parts", e);
+        }
+    }
+
+    /*
+     * Moves past the pending file part, returning true if there are more parts to read
+     */
+    private boolean skipMultipartFile() throws Parameters.ParameterParsingException {
+        if (pendingPart == null && streamingFile == null)
+            return false;
+
+        FileParameter file = streamingFile == null ? openMultipartFile() : streamingFile;
+        streamingFile = null;
+
+        try {
+            file.spool();
+        } catch (IOException e) {
+            throw new Parameters.ParameterParsingException("Failed to read multipart/form-data request parts", e);
+        }
+
+        readMultipartFields();
+        return true;
+    }
+
+    private FileParameter openMultipartFile() throws Parameters.ParameterParsingException {
+        MultipartStream.Part part = pendingPart;
+        pendingPart = null;
+
+        try {
+            File location = new File(multipartConfig.getLocation());
+            FileParameter file = new FileParameter(part.getName(), part.getInputStream(),
+                    File.createTempFile("MultiPart", "", location));
+            files.add(file);
+            this.parameters.put(part.getName(), file);
+
+            streamingFile = file;
+            return file;
+        } catch (IOException e) {
+            throw new Parameters.ParameterParsingException("Unable to read parameter '" + part.getName() + "'", e);
         }
     }
 
@@ -223,10 +286,26 @@ public class RESTRequest {
         if (parameters == null)
             this.ensureParameters();
 
-        Object value = parameters.get(name);
+        Object value;
+        while ((value = parameters.get(name)) == null) {
+            if (pendingPart != null && name.equals(pendingPart.getName()))
+                return openMultipartFile();
+            else if (!skipMultipartFile())
+                break;
+        }
+
         return (value == null || !(value instanceof FileParameter)) ? null : (FileParameter) value;
     }
 
+    /**
+     * Deletes the temporary files created for the uploaded content
+     */
+    public void close() {
+        for (FileParameter file : files)
+            file.delete();
+        files.clear();
+    }
+
     public String getPathParameter(String varname) throws TemplateException {
         if (pathTokens == null) {
             String path = getPath();
@@ -1,12 +1,17 @@
 package eu.modernmt.rest.framework;
 
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Created by davide on 15/12/15.
@@ -25,21 +30,83 @@ public class RESTResponse {
         }
     }
 
+    /**
+     * The "data" field of a JSON response, written directly to the response buffer
+     */
+    public interface JSONContent {
+
+        void write(JsonWriter writer) throws IOException;
+
+    }
+
+    private static final int MAX_LOGGED_CONTENT_LENGTH = 500;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Per-thread buffer the JSON responses are encoded in before being sent to the client;
+     * the buffer is reused by all the requests served by the same thread, unless it grew too much.
+     */
+    private static final class ResponseBuffer extends ByteArrayOutputStream {
+
+        private static final int INITIAL_SIZE = 8 * 1024;
+        private static final int MAX_RETAINED_SIZE = 256 * 1024;
+
+        private static final ThreadLocal<ResponseBuffer> instances = ThreadLocal.withInitial(ResponseBuffer::new);
+
+        public static ResponseBuffer get() {
+            return instances.get();
+        }
+
+        // the encoder allocates a new char array for every write: chars are buffered before encoding
+        private final Writer writer = new BufferedWriter(new OutputStreamWriter(this, StandardCharsets.UTF_8), INITIAL_SIZE);
+
+        private ResponseBuffer() {
+            super(INITIAL_SIZE);
+        }
+
+        public JsonWriter newJsonWriter() {
+            // Same settings of JsonElement.toString()
+            JsonWriter writer = new JsonWriter(this.writer);
+            writer.setLenient(true);
+            return writer;
+        }
+
+        public String head(int length) {
+            return new String(buf, 0, Math.min(count, length), StandardCharsets.UTF_8);
+        }
+
+        public void release() {
+            if (buf.length > MAX_RETAINED_SIZE) {
+                instances.remove();
+            } else {
+                try {
+                    writer.flush(); // discard any char left by a failed response
+                } catch (IOException e) {
+                    // Ignore
+                }
+
+                reset();
+            }
+        }
+
+    }
+
     protected final Logger logger = LogManager.getLogger(getClass());
 
     private HttpServletResponse response;
-    private JsonObject content = null;
+    private String content = null;
+    private boolean written = false;
 
     public RESTResponse(HttpServletResponse response) {
         this.response = response;
     }
 
     public void apiNotFound() {
-        output(HttpServletResponse.SC_NOT_FOUND, null, new ApiNotFoundException());
+        outputQuietly(HttpServletResponse.SC_NOT_FOUND, null, new ApiNotFoundException());
     }
 
     public void resourceNotFound() {
-        output(HttpServletResponse.SC_NOT_FOUND, null, new NotFoundException());
+        outputQuietly(HttpServletResponse.SC_NOT_FOUND, null, new NotFoundException());
     }
 
     public void badRequest() {
@@ -47,15 +114,44 @@ public class RESTResponse {
     }
 
     public void badRequest(Throwable e) {
-        output(HttpServletResponse.SC_BAD_REQUEST, null, e);
+        outputQuietly(HttpServletResponse.SC_BAD_REQUEST, null, e);
     }
 
     public void ok() {
-        ok(new JsonObject());
+        outputQuietly(HttpServletResponse.SC_OK, writer -> writer.beginObject().endObject(), null);
     }
 
     public void ok(JsonElement json) {
-        output(HttpServletResponse.SC_OK, json, null);
+        outputQuietly(HttpServletResponse.SC_OK, json == null ? null : writer -> JSONSerializer.toJSON(json, writer), null);
+    }
+
+    /**
+     * Writes a successful response, whose data is streamed by the given content.
+     * If the content throws an exception, nothing is written and the response can be still set.
+     */
+    public void ok(JSONContent content) throws IOException {
+        output(HttpServletResponse.SC_OK, content, null);
+    }
+
+    /**
+     * Writes a successful response with a non-JSON content
+     *
+     * @param contentType the MIME type of the content
+     * @param text        the response content
+     */
+    public void ok(String contentType, String text) {
+        if (written)
+            throw new IllegalStateException("Output has been already set");
+        written = true;
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+
+        try {
+            response.getOutputStream().write(text.getBytes("UTF-8"));
+        } catch (IOException e) {
+            logger.error("unable to write response", e);
+        }
     }
 
     public void forbidden() {
@@ -63,7 +159,7 @@ public class RESTResponse {
     }
 
     public void forbidden(Throwable e) {
-        output(HttpServletResponse.SC_FORBIDDEN, null, e);
+        outputQuietly(HttpServletResponse.SC_FORBIDDEN, null, e);
     }
 
     public void unexpectedError() {
@@ -71,7 +167,7 @@ public class RESTResponse {
     }
 
     public void unexpectedError(Throwable e) {
-        output(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, null, e);
+        outputQuietly(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, null, e);
     }
 
     public void unavailable() {
@@ -79,35 +175,87 @@ public class RESTResponse {
     }
 
     public void unavailable(Throwable e) {
-        output(HttpServletResponse.SC_SERVICE_UNAVAILABLE, null, e);
+        outputQuietly(HttpServletResponse.SC_SERVICE_UNAVAILABLE, null, e);
     }
 
-    private void output(int httpStatus, JsonElement json, Throwable throwable) {
-        if (content != null)
-            throw new IllegalStateException("Output has been already set");
-
-        content = new JsonObject();
-        content.addProperty("status", httpStatus);
+    /**
+     * @param retryAfter the time (in milliseconds) after which the client can retry, 0 if unknown
+     */
+    public void unavailable(Throwable e, long retryAfter) {
+        setRetryAfter(retryAfter);
+        outputQuietly(HttpServletResponse.SC_SERVICE_UNAVAILABLE, null, e);
+    }
 
-        if (throwable != null)
-            content.add("error", encode(throwable));
-        else if (json != null)
-            content.add("data", json);
+    /**
+     * @param retryAfter the time (in milliseconds) after which the client can retry, 0 if unknown
+     */
+    public void tooManyRequests(Throwable e, long retryAfter) {
+        setRetryAfter(retryAfter);
+        outputQuietly(SC_TOO_MANY_REQUESTS, null, e);
+    }
 
-        response.setStatus(httpStatus);
-        response.setContentType("application/json; charset=utf-8");
+    private void setRetryAfter(long retryAfter) {
+        // Retry-After is expressed in seconds: round up, in order not to invite retries that are too early
+        if (retryAfter > 0)
+            response.setHeader("Retry-After", Long.toString((retryAfter + 999) / 1000));
+    }
 
+    private void outputQuietly(int httpStatus, JSONContent data, Throwable throwable) {
         try {
-            if (content != null) {
-                String rawContent = content.toString() + '\n';
-                response.getOutputStream().write(rawContent.getBytes("UTF-8"));
-            }
+            output(httpStatus, data, throwable);
         } catch (IOException e) {
             logger.error("unable to write response", e);
         }
     }
 
-    private static JsonObject encode(Throwable e) {
+    private void output(int httpStatus, JSONContent data, Throwable throwable) throws IOException {
+        if (written)
+            throw new IllegalStateException("Output has been already set");
+
+        ResponseBuffer buffer = ResponseBuffer.get();
+
+        try {
+            JsonWriter writer = buffer.newJsonWriter();
+            writer.beginObject();
+            writer.name("status").value(httpStatus);
+
+            if (throwable != null) {
+                writer.name("error");
+                encode(throwable, writer);
+            } else if (data != null) {
+                writer.name("data");
+                data.write(writer);
+            }
+
+            writer.endObject();
+            writer.flush();
+            buffer.write('\n');
+
+            written = true;
+
+            int length = buffer.size();
+
+            // the content is logged only at debug level: do not decode it for every response
+            if (logger.isDebugEnabled()) {
+                content = length > MAX_LOGGED_CONTENT_LENGTH ?
+                        (buffer.head(MAX_LOGGED_CONTENT_LENGTH - 1) + "[...]") : buffer.head(length - 1);
+            }
+
+            response.setStatus(httpStatus);
+            response.setContentType("application/json; charset=utf-8");
+            response.setContentLength(length);
+
+            try {
+                buffer.writeTo(response.getOutputStream());
+            } catch (IOException e) {
+                logger.error("unable to write response", e);
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void encode(Throwable e, JsonWriter writer) throws IOException {
         // Message
         String msg = e.getMessage();
         if (msg == null || msg.trim().isEmpty()) {
@@ -122,20 +270,31 @@ public class RESTResponse {
         String type = e.getClass().getSimpleName();
 
         // Encoding
-        JsonObject error = new JsonObject();
+        writer.beginObject();
 
-        error.addProperty("type", type);
+        writer.name("type").value(type);
         if (msg != null)
-            error.addProperty("message", msg);
+            writer.name("message").value(msg);
+
+        writer.endObject();
+    }
 
-        return error;
+    /**
+     * Sends the response to the client, before the request has been completed
+     */
+    public void flush() throws IOException {
+        response.flushBuffer();
     }
 
     public int getHttpStatus() {
         return response.getStatus();
     }
 
-    public JsonElement getContent() {
+    /**
+     * @return the beginning of the JSON content written to the client (for logging purposes),
+     * or null if debug logging is disabled
+     */
+    public String getContent() {
         return content;
     }
 
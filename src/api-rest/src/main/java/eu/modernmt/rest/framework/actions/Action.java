@@ -3,6 +3,10 @@ package eu.modernmt.rest.framework.actions;
 import eu.modernmt.rest.framework.RESTRequest;
 import eu.modernmt.rest.framework.RESTResponse;
 
+/**
+ * Actions are instantiated once, when the router is initialized, and the same instance
+ * serves all the requests of its routes: implementations must be thread-safe.
+ */
 public interface Action {
 
     void execute(RESTRequest request, RESTResponse response);
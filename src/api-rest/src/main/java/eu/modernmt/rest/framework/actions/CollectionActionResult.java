@@ -3,10 +3,12 @@ package eu.modernmt.rest.framework.actions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import eu.modernmt.rest.framework.JSONSerializer;
 import eu.modernmt.rest.framework.Parameters;
 import eu.modernmt.rest.framework.RESTRequest;
 
+import java.io.IOException;
 import java.util.Collection;
 
 public class CollectionActionResult<M> extends JSONActionResult {
@@ -32,4 +34,16 @@ public class CollectionActionResult<M> extends JSONActionResult {
         return array;
     }
 
+    @Override
+    public void write(JSONAction action, RESTRequest req, Parameters params, JsonWriter writer) throws IOException {
+        if (action.isDecorated()) {
+            super.write(action, req, params, writer);
+        } else {
+            writer.beginArray();
+            for (Object element : collection)
+                JSONSerializer.toJSON(element, type, writer);
+            writer.endArray();
+        }
+    }
+
 }
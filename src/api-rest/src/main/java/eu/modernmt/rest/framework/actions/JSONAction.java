@@ -3,6 +3,7 @@ package eu.modernmt.rest.framework.actions;
 import com.google.gson.JsonElement;
 import eu.modernmt.cluster.error.SystemShutdownException;
 import eu.modernmt.facade.exceptions.AuthenticationException;
+import eu.modernmt.facade.exceptions.TranslationBudgetExceededException;
 import eu.modernmt.facade.exceptions.TranslationRejectedException;
 import eu.modernmt.lang.UnsupportedLanguageException;
 import eu.modernmt.rest.framework.Parameters;
@@ -12,8 +13,13 @@ import eu.modernmt.rest.framework.routing.TemplateException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
 public abstract class JSONAction implements Action {
 
+    private static final ConcurrentHashMap<Class<?>, Boolean> decoratedActions = new ConcurrentHashMap<>();
+
     protected final Logger logger = LogManager.getLogger(getClass());
 
     @Override
@@ -38,7 +44,11 @@ public abstract class JSONAction implements Action {
             if (logger.isDebugEnabled())
                 logger.debug("Unable to complete action " + this + ": system is shutting down", e);
             resp.unavailable(e);
+        } catch (TranslationBudgetExceededException e) {
+            resp.tooManyRequests(e, e.getRetryAfter());
         } catch (TranslationRejectedException e) {
+            resp.unavailable(e, e.getRetryAfter());
+        } catch (RejectedExecutionException e) {
             resp.unavailable(e);
         } catch (Throwable e) {
             logger.error("Internal error while executing action " + this, e);
@@ -53,13 +63,38 @@ public abstract class JSONAction implements Action {
         if (result == null) {
             resp.resourceNotFound();
         } else {
-            result.beforeDump(req, params);
-            JsonElement json = result.dump(this, req, params);
+            try {
+                result.beforeDump(req, params);
+                resp.ok(writer -> result.write(this, req, params, writer));
+            } catch (Throwable e) {
+                discardResult(req, params);
+                throw e;
+            }
 
-            resp.ok(json);
+            try {
+                afterResponse(req, resp, params);
+            } catch (Throwable e) {
+                // The response has been already sent
+                logger.error("Error while completing action " + this + " after the response", e);
+            }
         }
     }
 
+    /**
+     * Called after a successful response has been written, for the work the client does not wait for:
+     * the request is still open, exceptions are only logged.
+     */
+    protected void afterResponse(RESTRequest req, RESTResponse resp, Parameters params) throws Throwable {
+        // Default implementation does nothing
+    }
+
+    /**
+     * Called when a result could not be sent to the client, for the work that afterResponse() would have completed.
+     */
+    protected void discardResult(RESTRequest req, Parameters params) {
+        // Default implementation does nothing
+    }
+
     protected Parameters getParameters(RESTRequest req) throws Parameters.ParameterParsingException, TemplateException {
         return new Parameters(req);
     }
@@ -70,6 +105,25 @@ public abstract class JSONAction implements Action {
         // Default implementation does nothing
     }
 
+    /**
+     * @return true if this action overrides decorate(), so that its results
+     * must be converted to a JSON tree before being written
+     */
+    final boolean isDecorated() {
+        return decoratedActions.computeIfAbsent(getClass(), clazz -> {
+            for (Class<?> c = clazz; c != JSONAction.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("decorate", JsonElement.class);
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // Continue with superclass
+                }
+            }
+
+            return false;
+        });
+    }
+
     @Override
     public final String toString() {
         return getClass().getSimpleName();
@@ -2,9 +2,13 @@ package eu.modernmt.rest.framework.actions;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import eu.modernmt.rest.framework.JSONSerializer;
 import eu.modernmt.rest.framework.Parameters;
 import eu.modernmt.rest.framework.RESTRequest;
 
+import java.io.IOException;
+
 public abstract class JSONActionResult {
 
     public void beforeDump(RESTRequest req, Parameters params) throws Throwable {
@@ -13,4 +17,12 @@ public abstract class JSONActionResult {
 
     public abstract JsonElement dump(JSONAction action, RESTRequest req, Parameters params) throws JsonParseException;
 
+    /**
+     * Writes the result to the response writer. The default implementation writes the JSON tree
+     * returned by dump(), subclasses can override this method to stream the result instead.
+     */
+    public void write(JSONAction action, RESTRequest req, Parameters params, JsonWriter writer) throws IOException {
+        JSONSerializer.toJSON(dump(action, req, params), writer);
+    }
+
 }
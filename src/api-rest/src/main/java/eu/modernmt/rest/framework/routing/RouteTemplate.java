@@ -9,15 +9,16 @@ import java.util.List;
 public class RouteTemplate {
 
     private final String template;
-    private final Class<? extends Action> actionClass;
+    private final Action action;
     private final List<String> tokens;
     private final HttpMethod method;
+    private final boolean log;
 
-    public RouteTemplate(String template, Class<? extends Action> actionClass,
-                         HttpMethod method) {
+    public RouteTemplate(String template, Action action, HttpMethod method, boolean log) {
         this.template = template;
-        this.actionClass = actionClass;
+        this.action = action;
         this.method = method;
+        this.log = log;
         this.tokens = tokenize(template);
     }
 
@@ -32,8 +33,16 @@ public class RouteTemplate {
         return tokens;
     }
 
+    public Action getAction() {
+        return action;
+    }
+
     public Class<? extends Action> getActionClass() {
-        return actionClass;
+        return action.getClass();
+    }
+
+    public boolean isLogEnabled() {
+        return log;
     }
 
     public HttpMethod getMethod() {
@@ -100,7 +109,7 @@ public class RouteTemplate {
 
     @Override
     public String toString() {
-        return method + " " + template + " > " + actionClass.getCanonicalName();
+        return method + " " + template + " > " + action.getClass().getCanonicalName();
     }
 
 }
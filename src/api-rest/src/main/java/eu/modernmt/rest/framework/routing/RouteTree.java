@@ -2,12 +2,16 @@ package eu.modernmt.rest.framework.routing;
 
 import eu.modernmt.rest.framework.HttpMethod;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.EnumMap;
 
+/**
+ * The tree is built once when the router is initialized; lookups scan the path
+ * segments in place and they do not allocate any object.
+ */
 public class RouteTree {
 
-    private Node root = new Node();
+    private final Node root;
 
     public RouteTree() {
         root = new Node();
@@ -27,9 +31,7 @@ public class RouteTree {
 
         boolean isVar = template.isTokenVariable(token);
 
-        String key = isVar ? "*" : token;
-
-        Node child = parent.childs.computeIfAbsent(key, k -> new Node());
+        Node child = isVar ? parent.getOrCreateVariableChild() : parent.getOrCreateChild(token);
 
         if (template.size() - 1 == depth)
             child.setValue(template);
@@ -38,35 +40,88 @@ public class RouteTree {
     }
 
     public RouteTemplate get(HttpMethod method, String path) {
-        ArrayList<Node> nodes = new ArrayList<>();
-        ArrayList<Node> newNodes = new ArrayList<>();
-        nodes.add(root);
-
-        for (String token : RouteTemplate.tokenize(path)) {
-            newNodes.clear();
-            for (Node node : nodes) {
-                Node child = node.childs.get(token);
-                if (child != null)
-                    newNodes.add(child);
-                child = node.childs.get("*");
-                if (child != null)
-                    newNodes.add(child);
-            }
+        Node node = find(root, path, 0);
+        return node == null ? null : node.getValue(method);
+    }
+
+    /*
+     * Returns the first node matching the whole path, giving priority
+     * to the constant segments over the variable ones.
+     */
+    private static Node find(Node node, String path, int offset) {
+        int length = path.length();
+
+        // Look for the next non-empty segment, trimmed as in RouteTemplate.tokenize()
+        int start = -1, end = -1, next = length;
+
+        while (offset < length) {
+            int slash = path.indexOf('/', offset);
+            next = slash < 0 ? length : slash;
+
+            start = offset;
+            end = next;
 
-            nodes.clear();
-            nodes.addAll(newNodes);
+            while (start < end && path.charAt(start) <= ' ')
+                start++;
+            while (end > start && path.charAt(end - 1) <= ' ')
+                end--;
+
+            if (start < end)
+                break;
+
+            offset = next + 1;
         }
 
-        if (nodes.isEmpty())
-            return null;
-        else
-            return nodes.get(0).getValue(method);
+        if (offset >= length)
+            return node;
+
+        Node child = node.getChild(path, start, end - start);
+        if (child != null) {
+            Node match = find(child, path, next + 1);
+            if (match != null)
+                return match;
+        }
+
+        return node.variableChild == null ? null : find(node.variableChild, path, next + 1);
     }
 
     protected static class Node {
 
-        public final HashMap<String, Node> childs = new HashMap<>();
-        private HashMap<HttpMethod, RouteTemplate> values = new HashMap<>();
+        private String[] keys = new String[0];
+        private Node[] childs = new Node[0];
+        private Node variableChild = null;
+        private final EnumMap<HttpMethod, RouteTemplate> values = new EnumMap<>(HttpMethod.class);
+
+        private Node getChild(String path, int offset, int length) {
+            for (int i = 0; i < keys.length; i++) {
+                String key = keys[i];
+                if (key.length() == length && key.regionMatches(0, path, offset, length))
+                    return childs[i];
+            }
+
+            return null;
+        }
+
+        private Node getOrCreateChild(String key) {
+            Node child = getChild(key, 0, key.length());
+
+            if (child == null) {
+                child = new Node();
+
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                childs = Arrays.copyOf(childs, childs.length + 1);
+                keys[keys.length - 1] = key;
+                childs[childs.length - 1] = child;
+            }
+
+            return child;
+        }
+
+        private Node getOrCreateVariableChild() {
+            if (variableChild == null)
+                variableChild = new Node();
+            return variableChild;
+        }
 
         public void setValue(RouteTemplate value) {
             this.values.put(value.getMethod(), value);
@@ -1,6 +1,5 @@
 package eu.modernmt.rest.framework.routing;
 
-import com.google.gson.JsonElement;
 import eu.modernmt.rest.framework.HttpMethod;
 import eu.modernmt.rest.framework.RESTRequest;
 import eu.modernmt.rest.framework.RESTResponse;
@@ -37,10 +36,17 @@ public abstract class RouterServlet extends HttpServlet {
 
             Route route = actionClass.getAnnotation(Route.class);
             if (route != null) {
+                Action action;
+                try {
+                    action = actionClass.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new ServletException("Unable to instantiate action " + actionClass.getName(), e);
+                }
+
                 HttpMethod method = route.method();
 
                 for (String path : route.aliases()) {
-                    RouteTemplate template = new RouteTemplate('/' + path, actionClass, method);
+                    RouteTemplate template = new RouteTemplate('/' + path, action, method, route.log());
                     routes.add(template);
                     logger.info("Action found: " + template);
                 }
@@ -70,47 +76,26 @@ public abstract class RouterServlet extends HttpServlet {
         RESTRequest restRequest = wrapRequest(req);
         RESTResponse restResponse = new RESTResponse(resp);
 
-        Route route = null;
+        RouteTemplate template = restRequest.getTemplate();
 
         try {
-            Class<? extends Action> actionClass = restRequest.getActionClass();
-            if (actionClass == null) {
+            if (template == null)
                 restResponse.apiNotFound();
-            } else {
-                route = actionClass.getAnnotation(Route.class);
-
-                Action action = actionClass.newInstance();
-                action.execute(restRequest, restResponse);
-            }
+            else
+                template.getAction().execute(restRequest, restResponse);
         } catch (Throwable e) {
             logger.error("Unexpected exceptions", e);
             restResponse.unexpectedError(e);
         } finally {
-            long elapsedTime = System.currentTimeMillis() - start;
-
-            if (logger.isInfoEnabled() && route != null && route.log()) {
-                StringBuilder log = new StringBuilder();
-                log.append('"');
-                log.append(restRequest);
-                log.append("\" ");
-                log.append(restResponse.getHttpStatus());
-                log.append(' ');
-                log.append(elapsedTime);
-
-                if (logger.isDebugEnabled()) {
-                    JsonElement json = restResponse.getContent();
-
-                    if (json != null) {
-                        String content = json.toString();
-                        if (content.length() > 500)
-                            content = content.substring(0, 499) + "[...]";
-
-                        log.append(' ');
-                        log.append(content);
-                    }
-                }
+            restRequest.close();
+
+            if (template != null && template.isLogEnabled()) {
+                long elapsedTime = System.currentTimeMillis() - start;
 
-                logger.info(log);
+                if (logger.isDebugEnabled() && restResponse.getContent() != null)
+                    logger.info("\"{}\" {} {} {}", restRequest, restResponse.getHttpStatus(), elapsedTime, restResponse.getContent());
+                else
+                    logger.info("\"{}\" {} {}", restRequest, restResponse.getHttpStatus(), elapsedTime);
             }
         }
     }
@@ -1,29 +1,28 @@
 package eu.modernmt.rest.serializers;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
 import eu.modernmt.model.Alignment;
+import eu.modernmt.rest.framework.JSONSerializer;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
 /**
  * Created by davide on 17/12/15.
  */
-public class AlignmentSerializer implements JsonSerializer<Alignment> {
+public class AlignmentSerializer implements JSONSerializer.StreamSerializer<Alignment> {
 
     @Override
-    public JsonElement serialize(Alignment src, Type typeOfSrc, JsonSerializationContext context) {
-        JsonArray array = new JsonArray();
+    public void write(JsonWriter writer, Alignment src) throws IOException {
+        writer.beginArray();
 
         for (int[] a : src) {
-            JsonArray ja = new JsonArray();
-            ja.add(a[0]);
-            ja.add(a[1]);
-            array.add(ja);
+            writer.beginArray();
+            writer.value(a[0]);
+            writer.value(a[1]);
+            writer.endArray();
         }
 
-        return array;
+        writer.endArray();
     }
+
 }
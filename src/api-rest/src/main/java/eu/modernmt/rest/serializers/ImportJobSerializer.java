@@ -20,6 +20,8 @@ public class ImportJobSerializer implements JsonSerializer<ImportJob> {
 
         if (src != null && src.getMemory() == 0L)
             json.remove("memory");
+        if (src != null && src.isFailed())
+            json.addProperty("failed", true);
 
         return json;
     }
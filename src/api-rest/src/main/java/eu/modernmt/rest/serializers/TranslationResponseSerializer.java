@@ -1,90 +1,95 @@
 package eu.modernmt.rest.serializers;
 
-import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
 import eu.modernmt.decoder.DecoderFeature;
 import eu.modernmt.decoder.HasFeatureScores;
 import eu.modernmt.model.*;
+import eu.modernmt.rest.framework.JSONSerializer;
 import eu.modernmt.rest.model.TranslationResponse;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.Map;
 
 /**
  * Created by davide on 30/12/15.
  */
-public class TranslationResponseSerializer implements JsonSerializer<TranslationResponse> {
+public class TranslationResponseSerializer implements JSONSerializer.StreamSerializer<TranslationResponse> {
 
     @Override
-    public JsonElement serialize(TranslationResponse src, Type typeOfSrc, JsonSerializationContext context) {
+    public void write(JsonWriter writer, TranslationResponse src) throws IOException {
         Sentence source = src.translation.getSource();
 
-        JsonObject json = new JsonObject();
-        json.addProperty("decodingTime", src.translation.getElapsedTime());
-        json.addProperty("translation", src.translation.toString());
-        json.addProperty("sourceWordCount", source.getWords().length);
-        json.addProperty("targetWordCount", src.translation.getWords().length);
+        writer.beginObject();
+        writer.name("decodingTime").value(src.translation.getElapsedTime());
+        writer.name("translation").value(src.translation.toString());
+        writer.name("sourceWordCount").value(source.getWords().length);
+        writer.name("targetWordCount").value(src.translation.getWords().length);
 
         if (src.verbose) {
-            json.add("translationTokens", serializeTokens(src.translation));
-            json.add("sentenceTokens", serializeTokens(source));
-            json.add("alignment", context.serialize(src.translation.getSentenceAlignment(), Alignment.class));
+            writer.name("translationTokens");
+            writeTokens(writer, src.translation);
+            writer.name("sentenceTokens");
+            writeTokens(writer, source);
+            writer.name("alignment");
+            JSONSerializer.toJSON(src.translation.getSentenceAlignment(), Alignment.class, writer);
         }
 
         if (src.translation.hasNbest()) {
-            JsonArray array = new JsonArray();
+            writer.name("nbest").beginArray();
             for (Translation hypothesis : src.translation.getNbest())
-                array.add(serializeHypothesis(context, hypothesis, src.verbose));
-            json.add("nbest", array);
+                writeHypothesis(writer, hypothesis, src.verbose);
+            writer.endArray();
         }
 
-        if (src.context != null)
-            json.add("contextVector", context.serialize(src.context, ContextVector.class));
+        if (src.context != null) {
+            writer.name("contextVector");
+            JSONSerializer.toJSON(src.context, ContextVector.class, writer);
+        }
 
-        return json;
+        writer.endObject();
     }
 
-    private static JsonElement serializeHypothesis(JsonSerializationContext context, Translation translation, boolean verbose) {
-        JsonObject json = new JsonObject();
-        json.addProperty("translation", translation.toString());
+    private static void writeHypothesis(JsonWriter writer, Translation translation, boolean verbose) throws IOException {
+        writer.beginObject();
+        writer.name("translation").value(translation.toString());
 
         if (verbose) {
-            json.add("translationTokens", serializeTokens(translation));
-            json.add("alignment", context.serialize(translation.getSentenceAlignment(), Alignment.class));
+            writer.name("translationTokens");
+            writeTokens(writer, translation);
+            writer.name("alignment");
+            JSONSerializer.toJSON(translation.getSentenceAlignment(), Alignment.class, writer);
 
             if (translation instanceof HasFeatureScores) {
                 HasFeatureScores src = (HasFeatureScores) translation;
-                json.addProperty("totalScore", src.getTotalScore());
-                json.add("scores", serializeScores(context, src.getScores()));
+                writer.name("totalScore").value((Number) src.getTotalScore());
+                writer.name("scores");
+                writeScores(writer, src.getScores());
             }
         }
 
-        return json;
-
+        writer.endObject();
     }
 
-    private static JsonElement serializeScores(JsonSerializationContext context, Map<DecoderFeature, float[]> scores) {
-        JsonObject json = new JsonObject();
+    private static void writeScores(JsonWriter writer, Map<DecoderFeature, float[]> scores) throws IOException {
+        writer.beginObject();
 
         for (Map.Entry<DecoderFeature, float[]> entry : scores.entrySet()) {
-            String name = entry.getKey().getName();
-            JsonElement value = context.serialize(entry.getValue());
-
-            json.add(name, value);
+            writer.name(entry.getKey().getName());
+            JSONSerializer.toJSON(entry.getValue(), float[].class, writer);
         }
 
-        return json;
+        writer.endObject();
     }
 
-    private static JsonArray serializeTokens(Sentence sentence) {
-        JsonArray array = new JsonArray();
+    private static void writeTokens(JsonWriter writer, Sentence sentence) throws IOException {
+        writer.beginArray();
         for (Token token : sentence) {
-            JsonArray jToken = new JsonArray();
-            jToken.add(token.toString());
-            jToken.add(token.hasRightSpace() ? token.getRightSpace() : "");
-
-            array.add(jToken);
+            writer.beginArray();
+            writer.value(token.toString());
+            writer.value(token.hasRightSpace() ? token.getRightSpace() : "");
+            writer.endArray();
         }
-        return array;
+        writer.endArray();
     }
 
 }
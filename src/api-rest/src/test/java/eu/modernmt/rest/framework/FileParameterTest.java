@@ -0,0 +1,116 @@
+package eu.modernmt.rest.framework;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class FileParameterTest {
+
+    private static final String CONTENT;
+
+    static {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            builder.append("line ").append(i).append('\n');
+        CONTENT = builder.toString();
+    }
+
+    private File file;
+    private FileParameter parameter;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("FileParameterTest", "");
+        parameter = new FileParameter("content", new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)), file);
+    }
+
+    @After
+    public void tearDown() {
+        parameter.delete();
+        assertFalse(file.exists());
+    }
+
+    private static String read(InputStream stream, int length) throws IOException {
+        byte[] buffer = new byte[length];
+        int read = IOUtils.read(stream, buffer);
+        return new String(buffer, 0, read, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void sequentialStreams() throws IOException {
+        InputStream first = parameter.getInputStream();
+        assertEquals(CONTENT, IOUtils.toString(first, StandardCharsets.UTF_8));
+        first.close();
+
+        InputStream second = parameter.getInputStream();
+        assertEquals(CONTENT, IOUtils.toString(second, StandardCharsets.UTF_8));
+        second.close();
+    }
+
+    @Test
+    public void secondStreamWhileFirstIsOpen() throws IOException {
+        InputStream first = parameter.getInputStream();
+        String head = read(first, 1000);
+        assertEquals(CONTENT.charAt(1000), first.read());
+
+        InputStream second = parameter.getInputStream();
+        assertEquals(CONTENT, IOUtils.toString(second, StandardCharsets.UTF_8));
+
+        // the first stream continues from the spool file
+        String tail = IOUtils.toString(first, StandardCharsets.UTF_8);
+        assertEquals(CONTENT, head + CONTENT.charAt(1000) + tail);
+
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void spoolWhileFirstIsOpen() throws IOException {
+        InputStream first = parameter.getInputStream();
+        String head = read(first, 12345);
+
+        // as when a part that follows this file is requested
+        parameter.spool();
+
+        assertEquals(CONTENT, head + IOUtils.toString(first, StandardCharsets.UTF_8));
+        assertEquals(-1, first.read());
+        first.close();
+    }
+
+    @Test
+    public void firstStreamClosedBeforeTheEnd() throws IOException {
+        InputStream first = parameter.getInputStream();
+        read(first, 100);
+        first.close();
+
+        try {
+            first.read();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        InputStream second = parameter.getInputStream();
+        assertEquals(CONTENT, IOUtils.toString(second, StandardCharsets.UTF_8));
+        second.close();
+    }
+
+    @Test
+    public void spooledBeforeOpening() throws IOException {
+        parameter.spool();
+
+        InputStream stream = parameter.getInputStream();
+        assertEquals(CONTENT, IOUtils.toString(stream, StandardCharsets.UTF_8));
+        stream.close();
+    }
+
+}
@@ -0,0 +1,281 @@
+package eu.modernmt.rest.framework;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MultipartStreamTest {
+
+    private static final String BOUNDARY = "----MMTBoundary7MA4YWxkTrZu0gW";
+
+    /**
+     * Returns at most chunkSize bytes for every read, as a request that arrives in small packets
+     */
+    private static class ChunkedInputStream extends InputStream {
+
+        private final InputStream stream;
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] data, int chunkSize) {
+            this.stream = new ByteArrayInputStream(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return stream.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return stream.read(b, off, Math.min(len, chunkSize));
+        }
+
+    }
+
+    private static class Body {
+
+        private final StringBuilder text = new StringBuilder();
+
+        Body preamble(String preamble) {
+            text.append(preamble).append("\r\n");
+            return this;
+        }
+
+        Body field(String name, String value) {
+            text.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n")
+                    .append("\r\n")
+                    .append(value).append("\r\n");
+            return this;
+        }
+
+        Body file(String name, String filename, String content) {
+            text.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(name)
+                    .append("\"; filename=\"").append(filename).append("\"\r\n")
+                    .append("Content-Type: application/octet-stream\r\n")
+                    .append("\r\n")
+                    .append(content).append("\r\n");
+            return this;
+        }
+
+        Body end(String epilogue) {
+            text.append("--").append(BOUNDARY).append("--");
+            if (epilogue != null)
+                text.append("\r\n").append(epilogue);
+            return this;
+        }
+
+        byte[] bytes() {
+            return text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+    }
+
+    private static String[] read(MultipartStream.Part part) throws IOException {
+        String content = IOUtils.toString(part.getInputStream(), StandardCharsets.UTF_8);
+        return new String[]{part.getName(), part.getFilename(), part.getContentType(), content};
+    }
+
+    private static List<String[]> parse(byte[] body, int chunkSize) throws IOException {
+        MultipartStream stream = new MultipartStream(new ChunkedInputStream(body, chunkSize), BOUNDARY, -1, -1);
+
+        List<String[]> parts = new ArrayList<>();
+        MultipartStream.Part part;
+        while ((part = stream.next()) != null)
+            parts.add(read(part));
+
+        return parts;
+    }
+
+    private static void assertPart(String name, String filename, String contentType, String content, String[] part) {
+        assertEquals(name, part[0]);
+        assertEquals(filename, part[1]);
+        assertEquals(contentType, part[2]);
+        assertEquals(content, part[3]);
+    }
+
+    @Test
+    public void getBoundary() {
+        assertEquals("abc", MultipartStream.getBoundary("multipart/form-data; boundary=abc"));
+        assertEquals("a b", MultipartStream.getBoundary("multipart/form-data; charset=utf-8; BOUNDARY=\"a b\""));
+        assertNull(MultipartStream.getBoundary("multipart/form-data"));
+        assertNull(MultipartStream.getBoundary("multipart/form-data; boundary="));
+        assertNull(MultipartStream.getBoundary(null));
+    }
+
+    @Test
+    public void fieldsAndFiles() throws IOException {
+        byte[] body = new Body()
+                .field("content_type", "COMPACT")
+                .field("compression", "")
+                .file("content", "corpus.txt", "line one\nline two")
+                .end(null).bytes();
+
+        List<String[]> parts = parse(body, Integer.MAX_VALUE);
+
+        assertEquals(3, parts.size());
+        assertPart("content_type", null, null, "COMPACT", parts.get(0));
+        assertPart("compression", null, null, "", parts.get(1));
+        assertPart("content", "corpus.txt", "application/octet-stream", "line one\nline two", parts.get(2));
+    }
+
+    @Test
+    public void preambleAndEpilogue() throws IOException {
+        byte[] body = new Body()
+                .preamble("This is the preamble, it must be ignored.\r\n--not the boundary")
+                .field("name", "value")
+                .end("This is the epilogue,\r\n--" + BOUNDARY + "\r\nit must be ignored too.").bytes();
+
+        List<String[]> parts = parse(body, Integer.MAX_VALUE);
+
+        assertEquals(1, parts.size());
+        assertPart("name", null, null, "value", parts.get(0));
+    }
+
+    @Test
+    public void contentWithLineBreaksAndBoundaryPrefixes() throws IOException {
+        String content = "\r\nfirst\r\n\r\n-- \r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) +
+                "\r\nlast\r\r\n-\n--" + BOUNDARY + "x\r";
+
+        byte[] body = new Body()
+                .file("content", "a.txt", content)
+                .file("empty", "b.txt", "")
+                .file("crlf", "c.txt", "\r\n")
+                .end(null).bytes();
+
+        List<String[]> parts = parse(body, Integer.MAX_VALUE);
+
+        assertEquals(3, parts.size());
+        assertEquals(content, parts.get(0)[3]);
+        assertEquals("", parts.get(1)[3]);
+        assertEquals("\r\n", parts.get(2)[3]);
+    }
+
+    @Test
+    public void boundarySplitAcrossReads() throws IOException {
+        byte[] body = new Body()
+                .preamble("preamble")
+                .field("source", "en")
+                .file("content", "a.txt", "a\r\nb\r\n--c")
+                .field("target", "it")
+                .end("epilogue").bytes();
+
+        List<String[]> expected = parse(body, Integer.MAX_VALUE);
+        assertEquals(3, expected.size());
+
+        // every possible split of the delimiters is exercised by the small chunk sizes
+        for (int chunkSize = 1; chunkSize <= BOUNDARY.length() + 8; chunkSize++) {
+            List<String[]> parts = parse(body, chunkSize);
+
+            assertEquals("chunk size " + chunkSize, expected.size(), parts.size());
+            for (int i = 0; i < parts.size(); i++)
+                assertArrayEquals("chunk size " + chunkSize, expected.get(i), parts.get(i));
+        }
+    }
+
+    @Test
+    public void contentLargerThanBuffer() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 300 * 1024) {
+            content.append(random.nextInt());
+            // delimiter prefixes spread everywhere, also across the buffer boundaries
+            content.append(random.nextBoolean() ? "\r\n--" + BOUNDARY.substring(0, random.nextInt(BOUNDARY.length())) : "\r\n");
+        }
+
+        byte[] body = new Body()
+                .file("content", "a.txt", content.toString())
+                .field("after", "value")
+                .end(null).bytes();
+
+        for (int chunkSize : new int[]{Integer.MAX_VALUE, 8191, 1000}) {
+            List<String[]> parts = parse(body, chunkSize);
+
+            assertEquals(2, parts.size());
+            assertEquals(content.toString(), parts.get(0)[3]);
+            assertPart("after", null, null, "value", parts.get(1));
+        }
+    }
+
+    @Test
+    public void unreadContentIsSkipped() throws IOException {
+        byte[] body = new Body()
+                .file("content", "a.txt", "skipped content")
+                .field("after", "value")
+                .end(null).bytes();
+
+        MultipartStream stream = new MultipartStream(new ChunkedInputStream(body, 3), BOUNDARY, -1, -1);
+
+        MultipartStream.Part file = stream.next();
+        assertEquals('s', file.getInputStream().read());
+
+        MultipartStream.Part field = stream.next();
+        assertPart("after", null, null, "value", read(field));
+        assertNull(stream.next());
+        assertNull(stream.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedContent() throws IOException {
+        byte[] body = new Body()
+                .field("name", "value")
+                .file("content", "a.txt", "this content is truncated")
+                .end(null).bytes();
+
+        byte[] truncated = new byte[body.length - BOUNDARY.length()];
+        System.arraycopy(body, 0, truncated, 0, truncated.length);
+
+        parse(truncated, 7);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedHeaders() throws IOException {
+        byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"na")
+                .getBytes(StandardCharsets.UTF_8);
+
+        parse(body, Integer.MAX_VALUE);
+    }
+
+    @Test(expected = IOException.class)
+    public void missingDelimiter() throws IOException {
+        parse("no multipart content here".getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void partSizeLimit() throws IOException {
+        byte[] body = new Body()
+                .file("content", "a.txt", "0123456789")
+                .end(null).bytes();
+
+        MultipartStream stream = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY, 5, -1);
+
+        try {
+            IOUtils.toString(stream.next().getInputStream(), StandardCharsets.UTF_8);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void requestSizeLimit() throws IOException {
+        byte[] body = new Body()
+                .file("content", "a.txt", "0123456789")
+                .end(null).bytes();
+
+        MultipartStream stream = new MultipartStream(new ChunkedInputStream(body, 10), BOUNDARY, -1, body.length - 1);
+        while (stream.next() != null) ;
+    }
+
+}
@@ -0,0 +1,187 @@
+package eu.modernmt.rest.serializers;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import eu.modernmt.model.*;
+import eu.modernmt.rest.framework.JSONSerializer;
+import eu.modernmt.rest.framework.RESTResponse;
+import eu.modernmt.rest.model.TranslationResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures time and bytes allocated per translation response, from the TranslationResponse to the bytes sent
+ * to the client: the response streamed by RESTResponse with the registered serializers is compared with
+ * the same response built as a JSON tree, converted to a String and encoded.
+ * <p>
+ * The translation has the given number of tokens, a context vector and, in verbose mode, tokens and alignments
+ * of the translation and of the n-best hypotheses.
+ * <p>
+ * Usage: TranslationResponseSerializerBenchmark [tokens] [nbest] [iterations]
+ */
+public class TranslationResponseSerializerBenchmark {
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Encoder {
+
+        long encode(TranslationResponse response) throws Exception;
+
+    }
+
+    private static class DiscardOutputStream extends ServletOutputStream {
+
+        private long count = 0;
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+    private static HttpServletResponse newServletResponse(DiscardOutputStream stream) {
+        return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                    if ("getOutputStream".equals(method.getName()))
+                        return stream;
+                    else if (method.getReturnType() == int.class)
+                        return 0;
+                    else if (method.getReturnType() == boolean.class)
+                        return false;
+                    else
+                        return null;
+                });
+    }
+
+    private static Word[] words(Random random, int length) {
+        Word[] words = new Word[length];
+        for (int i = 0; i < length; i++) {
+            String text = "word" + random.nextInt(1000) + (i % 7 == 0 ? "è" : "");
+            words[i] = new Word(text, i < length - 1 ? " " : null);
+        }
+        return words;
+    }
+
+    private static Alignment alignment(int length) {
+        int[] source = new int[length];
+        int[] target = new int[length];
+        for (int i = 0; i < length; i++)
+            source[i] = target[i] = i;
+        return new Alignment(source, target);
+    }
+
+    private static TranslationResponse response(int tokens, int nbest, boolean verbose) {
+        Random random = new Random(tokens);
+        Sentence source = new Sentence(words(random, tokens));
+
+        Translation translation = new Translation(words(random, tokens), source, alignment(tokens));
+        translation.setElapsedTime(123L);
+
+        if (nbest > 0) {
+            List<Translation> hypotheses = new ArrayList<>(nbest);
+            for (int i = 0; i < nbest; i++)
+                hypotheses.add(new Translation(words(random, tokens), source, alignment(tokens)));
+            translation.setNbest(hypotheses);
+        }
+
+        ContextVector.Builder context = new ContextVector.Builder();
+        for (int i = 0; i < 10; i++)
+            context.add(i + 1, random.nextFloat());
+
+        TranslationResponse response = new TranslationResponse();
+        response.translation = translation;
+        response.context = context.build();
+        response.verbose = verbose;
+
+        return response;
+    }
+
+    private static long streamed(TranslationResponse response) throws Exception {
+        DiscardOutputStream stream = new DiscardOutputStream();
+        new RESTResponse(newServletResponse(stream))
+                .ok(writer -> JSONSerializer.toJSON(response, TranslationResponse.class, writer));
+        return stream.count;
+    }
+
+    private static long tree(TranslationResponse response) {
+        JsonObject json = new JsonObject();
+        json.addProperty("status", 200);
+        json.add("data", JSONSerializer.toJSON(response, TranslationResponse.class));
+
+        return (json.toString() + '\n').getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * @return {nanoseconds, allocated bytes, encoded bytes} of the encoder on the response, iterations times
+     */
+    private static long[] run(Encoder encoder, TranslationResponse response, int iterations) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+
+        long length = 0;
+        for (int i = 0; i < iterations; i++)
+            length += encoder.encode(response);
+
+        long elapsed = System.nanoTime() - begin;
+        allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+
+        return new long[]{elapsed, allocated, length};
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int tokens = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int nbest = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+        JSONSerializer.registerCustomSerializer(TranslationResponse.class, new TranslationResponseSerializer());
+        JSONSerializer.registerCustomSerializer(Alignment.class, new AlignmentSerializer());
+
+        System.out.printf("%-20s %12s %12s %12s%n", "", "ns/resp", "B/resp", "resp bytes");
+
+        for (boolean verbose : new boolean[]{false, true}) {
+            TranslationResponse response = response(tokens, nbest, verbose);
+
+            Encoder[] encoders = {
+                    TranslationResponseSerializerBenchmark::tree,
+                    TranslationResponseSerializerBenchmark::streamed
+            };
+            String[] names = {"tree", "streamed"};
+
+            for (int i = 0; i < encoders.length; i++) {
+                run(encoders[i], response, iterations); // warm-up
+                long[] result = run(encoders[i], response, iterations);
+
+                String name = names[i] + (verbose ? " (verbose)" : "");
+                System.out.printf("%-20s %12.0f %12.0f %12d%n", name,
+                        (double) result[0] / iterations, (double) result[1] / iterations, result[2] / iterations);
+            }
+        }
+    }
+
+}
@@ -1,7 +1,9 @@
 package eu.modernmt.cli;
 
 import eu.modernmt.cli.log4j.Log4jConfiguration;
+import eu.modernmt.decoder.neural.memory.TranslationMemory;
 import eu.modernmt.decoder.neural.memory.lucene.LuceneTranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.ShardedTranslationMemory;
 import eu.modernmt.lang.Language;
 import eu.modernmt.lang.LanguageIndex;
 import eu.modernmt.lang.LanguagePair;
@@ -31,18 +33,21 @@ public class TranslationMemoryMain {
             Option corpora = Option.builder("c").longOpt("corpora").hasArgs().required().build();
             Option source = Option.builder("s").longOpt("source").hasArg().required().build();
             Option target = Option.builder("t").longOpt("target").hasArg().required().build();
+            Option shards = Option.builder().longOpt("shards").hasArg().build();
 
             cliOptions = new Options();
             cliOptions.addOption(index);
             cliOptions.addOption(corpora);
             cliOptions.addOption(source);
             cliOptions.addOption(target);
+            cliOptions.addOption(shards);
         }
 
         public final File modelPath;
         public final File[] corporaRoots;
         public final Language sourceLanguage;
         public final Language targetLanguage;
+        public final int shards;
 
         public Args(String[] args) throws ParseException {
             CommandLineParser parser = new DefaultParser();
@@ -51,6 +56,7 @@ public class TranslationMemoryMain {
             sourceLanguage = Language.fromString(cli.getOptionValue('s'));
             targetLanguage = Language.fromString(cli.getOptionValue('t'));
             modelPath = new File(cli.getOptionValue('m'));
+            shards = cli.hasOption("shards") ? Integer.parseInt(cli.getOptionValue("shards")) : 0;
 
             String[] roots = cli.getOptionValues('c');
             corporaRoots = new File[roots.length];
@@ -79,9 +85,13 @@ public class TranslationMemoryMain {
         LanguagePair direction = new LanguagePair(args.sourceLanguage, args.targetLanguage);
         LanguageIndex languages = new LanguageIndex(Collections.singleton(direction));
 
-        LuceneTranslationMemory memory = null;
+        TranslationMemory memory = null;
         try {
-            memory = new LuceneTranslationMemory(languages, args.modelPath, 10);
+            if (args.shards > 0)
+                memory = new ShardedTranslationMemory(languages, args.modelPath, 10, args.shards);
+            else
+                memory = new LuceneTranslationMemory(languages, args.modelPath, 10);
+
             memory.bulkInsert(memory2corpus);
         } finally {
             IOUtils.closeQuietly(memory);
@@ -0,0 +1,187 @@
+package eu.modernmt.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a file in chunks that start right after a '\n' (so that every chunk contains whole lines)
+ * and scans them concurrently; used by LineCounter and WordCounter to count a single large file with many threads.
+ */
+class FileChunks {
+
+    static final long MIN_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    interface ChunkCounter {
+
+        long count(FileChannel channel, long start, long end) throws IOException;
+
+    }
+
+    static int getChunkCount(long size, int threads, long minChunkSize) {
+        return (int) Math.max(1, Math.min(threads, size / Math.max(1, minChunkSize)));
+    }
+
+    /**
+     * Returns the boundaries of the chunks: chunk i spans from boundaries[i] (inclusive)
+     * to boundaries[i + 1] (exclusive); chunks are never empty.
+     */
+    static long[] split(FileChannel channel, long size, int chunks) throws IOException {
+        long chunkSize = (size + chunks - 1) / chunks;
+        long[] boundaries = new long[chunks + 1];
+        int count = 1;
+
+        for (int i = 1; i < chunks; i++) {
+            long boundary = nextLine(channel, Math.max(boundaries[count - 1], i * chunkSize), size);
+            if (boundary > boundaries[count - 1] && boundary < size)
+                boundaries[count++] = boundary;
+        }
+
+        boundaries[count] = size;
+
+        long[] result = new long[count + 1];
+        System.arraycopy(boundaries, 0, result, 0, count + 1);
+        return result;
+    }
+
+    /**
+     * Returns the position that follows the first '\n' found at or after (position - 1), or size if there is none
+     */
+    private static long nextLine(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0)
+            return 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        byte[] bytes = buffer.array();
+
+        position--;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                break;
+
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n')
+                    return position + i + 1;
+            }
+
+            position += read;
+        }
+
+        return size;
+    }
+
+    /**
+     * Sums the counts of every chunk, scanning the chunks concurrently with one thread per chunk
+     */
+    static long count(FileChannel channel, long[] boundaries, ChunkCounter counter) throws IOException {
+        int chunks = boundaries.length - 1;
+
+        if (chunks == 1)
+            return counter.count(channel, boundaries[0], boundaries[1]);
+
+        ExecutorService executor = Executors.newFixedThreadPool(chunks);
+
+        try {
+            ArrayList<Future<Long>> futures = new ArrayList<>(chunks);
+
+            for (int i = 0; i < chunks; i++) {
+                final long start = boundaries[i];
+                final long end = boundaries[i + 1];
+                futures.add(executor.submit(() -> counter.count(channel, start, end)));
+            }
+
+            long count = 0;
+
+            for (Future<Long> future : futures) {
+                try {
+                    count += future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+
+                    if (cause instanceof IOException)
+                        throw (IOException) cause;
+                    else if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    else
+                        throw new Error("Unexpected exception", cause);
+                } catch (InterruptedException e) {
+                    throw new IOException("Execution interrupted", e);
+                }
+            }
+
+            return count;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns a stream over a portion of the file that uses positional reads,
+     * so that many chunks can be read concurrently from the same channel
+     */
+    static InputStream newInputStream(FileChannel channel, long start, long end) {
+        return new ChunkInputStream(channel, start, end);
+    }
+
+    /**
+     * Returns a buffer for a chunk scan, never larger than the chunk itself
+     */
+    static ByteBuffer newBuffer(long start, long end) {
+        return ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(1, end - start)));
+    }
+
+    private static class ChunkInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private ChunkInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (position >= end)
+                return -1;
+
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, end - position));
+            int read = channel.read(buffer, position);
+            if (read > 0)
+                position += read;
+
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public void close() {
+            // the channel is shared by all the chunks and closed by the owner
+        }
+
+    }
+
+}
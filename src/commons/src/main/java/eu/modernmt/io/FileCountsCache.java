@@ -0,0 +1,152 @@
+package eu.modernmt.io;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Persistent cache of the counts (lines, words) of corpus files, shared by all the processes of the machine.
+ * <p>
+ * Every counted file has an entry in the cache folder, keyed by its absolute path: the entry holds the size
+ * and the last-modified time of the file when it was counted, and the counts are valid as long as they do not change.
+ * The cache folder is "mmt-counts" under the system temp folder, unless the "mmt.counts.cache" system property
+ * specifies another one; the corpus folders are never written.
+ * <p>
+ * Entries are replaced atomically, so a reader never sees a partial entry; two processes that store a different
+ * count of the same file at the same time may lose one of the two, that will be counted again.
+ */
+class FileCountsCache {
+
+    private static final String SYSPROP_CACHE_PATH = "mmt.counts.cache";
+
+    private static final String PATH = "path";
+    private static final String SIZE = "size";
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static File _folder = null;
+
+    private static synchronized File getFolder() {
+        if (_folder == null) {
+            String path = System.getProperty(SYSPROP_CACHE_PATH);
+            _folder = path == null ? new File(System.getProperty("java.io.tmpdir"), "mmt-counts") : new File(path);
+        }
+
+        return _folder;
+    }
+
+    /**
+     * @param file the counted file
+     * @param key  the name of the count
+     * @return the cached count, or -1 if the file has never been counted or it has changed since
+     */
+    public static long get(File file, String key) {
+        file = file.getAbsoluteFile();
+
+        Properties entry = read(getEntryFile(file));
+        if (entry == null || !isValid(entry, file, file.length(), file.lastModified()))
+            return -1L;
+
+        String value = entry.getProperty(key);
+
+        try {
+            return value == null ? -1L : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Stores a count of a file; failures are ignored, the count will be computed again.
+     *
+     * @param file         the counted file
+     * @param size         the size of the file before counting
+     * @param lastModified the last-modified time of the file before counting
+     * @param key          the name of the count
+     * @param value        the count
+     */
+    public static void put(File file, long size, long lastModified, String key, long value) {
+        file = file.getAbsoluteFile();
+
+        // the file has changed while counting: do not cache the result
+        if (file.length() != size || file.lastModified() != lastModified)
+            return;
+
+        File entryFile = getEntryFile(file);
+
+        Properties entry = read(entryFile);
+        if (entry == null || !isValid(entry, file, size, lastModified)) {
+            entry = new Properties();
+            entry.setProperty(PATH, file.getPath());
+            entry.setProperty(SIZE, Long.toString(size));
+            entry.setProperty(LAST_MODIFIED, Long.toString(lastModified));
+        }
+
+        entry.setProperty(key, Long.toString(value));
+
+        try {
+            write(entryFile, entry);
+        } catch (IOException e) {
+            // the cache is optional
+        }
+    }
+
+    private static boolean isValid(Properties entry, File file, long size, long lastModified) {
+        return file.getPath().equals(entry.getProperty(PATH)) &&
+                Long.toString(size).equals(entry.getProperty(SIZE)) &&
+                Long.toString(lastModified).equals(entry.getProperty(LAST_MODIFIED));
+    }
+
+    private static File getEntryFile(File file) {
+        String path = file.getPath();
+        // different paths with the same hash overwrite each other, the path in the entry tells them apart
+        return new File(getFolder(), String.format("%08x.properties", path.hashCode()));
+    }
+
+    private static Properties read(File entryFile) {
+        if (!entryFile.isFile())
+            return null;
+
+        InputStream stream = null;
+
+        try {
+            stream = new FileInputStream(entryFile);
+            Properties entry = new Properties();
+            entry.load(stream);
+            return entry;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private static void write(File entryFile, Properties entry) throws IOException {
+        File folder = entryFile.getParentFile();
+        FileUtils.forceMkdir(folder);
+
+        File temp = File.createTempFile(entryFile.getName(), ".tmp", folder);
+        OutputStream stream = null;
+
+        try {
+            stream = new FileOutputStream(temp);
+            entry.store(stream, null);
+            stream.close();
+            stream = null;
+
+            try {
+                Files.move(temp.toPath(), entryFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            IOUtils.closeQuietly(stream);
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+}
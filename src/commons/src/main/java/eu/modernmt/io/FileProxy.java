@@ -15,6 +15,14 @@ public interface FileProxy {
 
     OutputStream getOutputStream(boolean append) throws IOException;
 
+    /**
+     * @return the local file whose bytes are exactly the content of this proxy,
+     * or null if the content is not stored as a plain local file (for example if it is gzipped)
+     */
+    default File getFile() {
+        return null;
+    }
+
     static FileProxy wrap(final File file) {
         return wrap(file, false);
     }
@@ -42,6 +50,11 @@ public interface FileProxy {
                 return stream;
             }
 
+            @Override
+            public File getFile() {
+                return gzipped ? null : file;
+            }
+
             @Override
             public String toString() {
                 return file.toString();
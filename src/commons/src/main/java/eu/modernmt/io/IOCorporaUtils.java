@@ -3,16 +3,12 @@ package eu.modernmt.io;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.corpus.Corpus;
 import eu.modernmt.model.corpus.MultilingualCorpus;
+import eu.modernmt.model.corpus.impl.parallel.ParallelFileCorpus;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Created by davide on 04/05/17.
@@ -23,6 +19,8 @@ public class IOCorporaUtils {
 
     // Word count ------------------------------------------------------------------------------------------------------
 
+    private static final int WORD_COUNT_BATCH_SIZE = 10000;
+
     private static class Counter {
 
         public long value = 0;
@@ -30,7 +28,7 @@ public class IOCorporaUtils {
     }
 
     public static Map<LanguagePair, Long> wordCount(MultilingualCorpus corpus) throws IOException {
-        Map<LanguagePair, Counter> counts = doWordCount(corpus);
+        Map<LanguagePair, Counter> counts = doWordCount(corpus, 1, null, null);
         return getCounts(counts);
     }
 
@@ -38,70 +36,149 @@ public class IOCorporaUtils {
         return wordCount(corpora, 1);
     }
 
+    /**
+     * Counts the words of the given corpora: up to MAX_IO_THREADS corpora are read concurrently,
+     * while the lines are counted in batches by a pool of "threads" workers,
+     * so that also a single large corpus can use all the available threads.
+     * Parallel corpora in plain files are not read line by line: each reader splits the files
+     * in up to threads / readers chunks that are counted concurrently.
+     */
     public static Map<LanguagePair, Long> wordCount(Collection<? extends MultilingualCorpus> corpora, int threads) throws IOException {
-        threads = Math.min(threads, MAX_IO_THREADS);
+        if (threads <= 1) {
+            Map<LanguagePair, Counter> accumulator = new HashMap<>();
+            for (MultilingualCorpus corpus : corpora)
+                merge(accumulator, doWordCount(corpus, 1, null, null));
+
+            return getCounts(accumulator);
+        }
+
+        int readers = Math.max(1, Math.min(Math.min(threads, MAX_IO_THREADS), corpora.size()));
+        int fileThreads = Math.max(1, threads / readers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        ExecutorService counters = Executors.newFixedThreadPool(threads);
+        Semaphore pendingBatches = new Semaphore(threads * 2);
 
-        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : Executors.newSingleThreadExecutor();
         ExecutorCompletionService<Map<LanguagePair, Counter>> results = new ExecutorCompletionService<>(executor);
 
         for (MultilingualCorpus corpus : corpora)
-            results.submit(() -> doWordCount(corpus));
+            results.submit(() -> doWordCount(corpus, fileThreads, counters, pendingBatches));
 
-        Map<LanguagePair, Counter> accumulator = null;
+        Map<LanguagePair, Counter> accumulator = new HashMap<>();
 
         try {
-
-            for (int i = 0; i < corpora.size(); i++) {
-                try {
-                    Map<LanguagePair, Counter> result = results.take().get();
-
-                    if (accumulator == null) {
-                        accumulator = result;
-                    } else {
-                        for (Map.Entry<LanguagePair, Counter> e : result.entrySet())
-                            accumulator.computeIfAbsent(e.getKey(), key -> new Counter()).value += e.getValue().value;
-                    }
-                } catch (ExecutionException e) {
-                    Throwable cause = e.getCause();
-
-                    if (cause instanceof IOException) {
-                        throw (IOException) cause;
-                    } else if (cause instanceof RuntimeException) {
-                        throw (RuntimeException) cause;
-                    } else {
-                        throw new Error("Unexpected exception", cause);
-                    }
-                } catch (InterruptedException e) {
-                    throw new IOException("Execution interrupted", e);
-                }
-            }
+            for (int i = 0; i < corpora.size(); i++)
+                merge(accumulator, getResult(results.take()));
+        } catch (InterruptedException e) {
+            throw new IOException("Execution interrupted", e);
         } finally {
             executor.shutdownNow();
+            counters.shutdownNow();
         }
 
         return getCounts(accumulator);
     }
 
-    private static Map<LanguagePair, Counter> doWordCount(MultilingualCorpus corpus) throws IOException {
+    private static Map<LanguagePair, Counter> doWordCount(MultilingualCorpus corpus, int fileThreads,
+                                                          ExecutorService counters, Semaphore pendingBatches) throws IOException {
         HashMap<LanguagePair, Counter> counts = new HashMap<>();
 
+        /*the words of a parallel corpus in plain files are counted (and cached) per file*/
+        if (corpus instanceof ParallelFileCorpus) {
+            ParallelFileCorpus fileCorpus = (ParallelFileCorpus) corpus;
+            long words = fileCorpus.getWordCount(true, fileThreads);
+
+            if (words >= 0) {
+                LanguagePair language = fileCorpus.getLanguage();
+                if (fileCorpus.getLineCount(language) > 0)
+                    counts.computeIfAbsent(language, key -> new Counter()).value = words;
+                return counts;
+            }
+        }
+        ArrayList<Future<Map<LanguagePair, Counter>>> batches = new ArrayList<>();
+
         MultilingualCorpus.MultilingualLineReader reader = null;
 
         try {
             reader = corpus.getContentReader();
 
+            ArrayList<MultilingualCorpus.StringPair> batch = new ArrayList<>(WORD_COUNT_BATCH_SIZE);
+
             MultilingualCorpus.StringPair pair;
             while ((pair = reader.read()) != null) {
-                Counter counter = counts.computeIfAbsent(pair.language, key -> new Counter());
-                counter.value += WordCounter.count(pair.source, pair.language.source);
+                if (counters == null) {
+                    Counter counter = counts.computeIfAbsent(pair.language, key -> new Counter());
+                    counter.value += WordCounter.count(pair.source, pair.language.source);
+                } else {
+                    batch.add(pair);
+
+                    if (batch.size() == WORD_COUNT_BATCH_SIZE) {
+                        batches.add(submitBatch(batch, counters, pendingBatches));
+                        batch = new ArrayList<>(WORD_COUNT_BATCH_SIZE);
+                    }
+                }
             }
 
+            if (!batch.isEmpty())
+                batches.add(submitBatch(batch, counters, pendingBatches));
+
+            for (Future<Map<LanguagePair, Counter>> future : batches)
+                merge(counts, getResult(future));
+
             return counts;
+        } catch (InterruptedException e) {
+            throw new IOException("Execution interrupted", e);
         } finally {
             IOUtils.closeQuietly(reader);
         }
     }
 
+    private static Future<Map<LanguagePair, Counter>> submitBatch(List<MultilingualCorpus.StringPair> batch,
+                                                                 ExecutorService counters, Semaphore pendingBatches) throws InterruptedException {
+        pendingBatches.acquire();
+
+        try {
+            return counters.submit(() -> {
+                try {
+                    HashMap<LanguagePair, Counter> counts = new HashMap<>();
+
+                    for (MultilingualCorpus.StringPair pair : batch) {
+                        Counter counter = counts.computeIfAbsent(pair.language, key -> new Counter());
+                        counter.value += WordCounter.count(pair.source, pair.language.source);
+                    }
+
+                    return counts;
+                } finally {
+                    pendingBatches.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingBatches.release();
+            throw e;
+        }
+    }
+
+    private static <V> V getResult(Future<V> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new Error("Unexpected exception", cause);
+            }
+        }
+    }
+
+    private static void merge(Map<LanguagePair, Counter> accumulator, Map<LanguagePair, Counter> counts) {
+        for (Map.Entry<LanguagePair, Counter> e : counts.entrySet())
+            accumulator.computeIfAbsent(e.getKey(), key -> new Counter()).value += e.getValue().value;
+    }
+
     private static Map<LanguagePair, Long> getCounts(Map<LanguagePair, Counter> counts) {
         HashMap<LanguagePair, Long> result = new HashMap<>(counts.size());
         for (Map.Entry<LanguagePair, Counter> entry : counts.entrySet())
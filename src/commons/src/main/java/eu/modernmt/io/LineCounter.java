@@ -0,0 +1,102 @@
+package eu.modernmt.io;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Counts the lines of a file with the same semantic of UnixLineReader:
+ * the number of '\n' plus one if the file does not end with '\n'.
+ * <p>
+ * Large files can be split in chunks that are scanned concurrently; results are stored in the
+ * FileCountsCache, so they are reused (also by other processes) as long as the size and the last-modified time
+ * of the file do not change.
+ */
+public class LineCounter {
+
+    private static final String CACHE_KEY = "lines";
+
+    /**
+     * Counts the lines of a file with the calling thread only: this is the method to use
+     * when many files are counted concurrently.
+     */
+    public static long count(File file) throws IOException {
+        return count(file, 1);
+    }
+
+    /**
+     * Counts the lines of a file splitting it in up to "threads" chunks that are scanned concurrently.
+     */
+    public static long count(File file, int threads) throws IOException {
+        file = file.getAbsoluteFile();
+
+        long cached = FileCountsCache.get(file, CACHE_KEY);
+        if (cached >= 0)
+            return cached;
+
+        long size = file.length();
+        long lastModified = file.lastModified();
+
+        long count = doCount(file, size, threads, FileChunks.MIN_CHUNK_SIZE);
+        FileCountsCache.put(file, size, lastModified, CACHE_KEY, count);
+
+        return count;
+    }
+
+    static long doCount(File file, long size, int threads, long minChunkSize) throws IOException {
+        if (!file.isFile())
+            throw new IOException("File not found: " + file);
+
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+            int chunks = FileChunks.getChunkCount(size, threads, minChunkSize);
+            long count = FileChunks.count(channel, FileChunks.split(channel, size, chunks), LineCounter::countNewlines);
+
+            if (size > 0 && !endsWithNewline(channel, size))
+                count++;
+
+            return count;
+        } finally {
+            IOUtils.closeQuietly(channel);
+        }
+    }
+
+    private static long countNewlines(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = FileChunks.newBuffer(start, end);
+        byte[] bytes = buffer.array();
+
+        long count = 0;
+        long position = start;
+
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                break;
+
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n')
+                    count++;
+            }
+
+            position += read;
+        }
+
+        return count;
+    }
+
+    private static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        return channel.read(buffer, size - 1) == 1 && buffer.get(0) == '\n';
+    }
+
+}
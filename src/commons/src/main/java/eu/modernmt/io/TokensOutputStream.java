@@ -39,7 +39,10 @@ public class TokensOutputStream implements Closeable {
     }
 
     public static String serialize(Sentence sentence, boolean printTags, boolean printPlaceholders) {
-        String[] parts = tokens(sentence, printTags, printPlaceholders);
+        return join(tokens(sentence, printTags, printPlaceholders));
+    }
+
+    public static String join(String[] parts) {
         if (parts.length == 0)
             return "";
 
@@ -5,44 +5,127 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Created by davide on 24/02/16.
+ * <p>
+ * Lines are terminated by '\n' only: a '\r' is removed if it immediately precedes the '\n'
+ * and it is kept in any other position.
+ * UTF-8 streams are scanned directly at byte level and every line is decoded
+ * into its String without intermediate char buffers.
  */
 public class UnixLineReader implements LineReader {
 
-    private Reader reader;
+    private static final int defaultCharBufferSize = 8192;
+    private static final int defaultByteBufferSize = 65536;
+    private static final int defaultExpectedLineLength = 80;
+
+    private final Reader reader;
+    private final InputStream stream;
+
     private char[] buffer;
     private int nextChar = 0;
     private int bufferLen = 0;
 
-    private static final int defaultCharBufferSize = 8192;
-    private static final int defaultExpectedLineLength = 80;
+    private byte[] bytes;
+    private int nextByte = 0;
+    private int bytesLen = 0;
+    private boolean eof = false;
 
     public UnixLineReader(InputStream stream, Charset charset) {
-        this(new InputStreamReader(stream, charset));
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            this.reader = null;
+            this.stream = stream;
+            this.bytes = new byte[defaultByteBufferSize];
+        } else {
+            this.reader = new InputStreamReader(stream, charset);
+            this.stream = null;
+            this.buffer = new char[defaultCharBufferSize];
+        }
     }
 
     public UnixLineReader(Reader reader) {
         this.reader = reader;
+        this.stream = null;
         this.buffer = new char[defaultCharBufferSize];
     }
 
-    private boolean fillFromBuffer(StringBuffer s) {
+    @Override
+    public String readLine() throws IOException {
+        return stream == null ? readCharLine() : readByteLine();
+    }
+
+    // UTF-8 byte stream ---------------------------------------------------------------------------------------------
+
+    private String readByteLine() throws IOException {
+        int scanned = nextByte;
+
+        for (; ; ) {
+            for (int i = scanned; i < bytesLen; i++) {
+                if (bytes[i] == '\n') {
+                    int offset = nextByte;
+                    int length = i - offset;
+                    if (length > 0 && bytes[i - 1] == '\r')
+                        length--;
+
+                    nextByte = i + 1;
+                    return new String(bytes, offset, length, StandardCharsets.UTF_8);
+                }
+            }
+
+            if (eof) {
+                if (nextByte >= bytesLen)
+                    return null;
+
+                String line = new String(bytes, nextByte, bytesLen - nextByte, StandardCharsets.UTF_8);
+                nextByte = bytesLen;
+                return line;
+            }
+
+            scanned = bytesLen - nextByte;
+            fillBytes();
+        }
+    }
+
+    /*
+     * Moves the pending line at the beginning of the buffer (growing it
+     * if the line does not fit) and appends new bytes from the stream
+     */
+    private void fillBytes() throws IOException {
+        int pending = bytesLen - nextByte;
+
+        if (nextByte > 0) {
+            System.arraycopy(bytes, nextByte, bytes, 0, pending);
+        } else if (pending == bytes.length) {
+            byte[] newBytes = new byte[bytes.length * 2];
+            System.arraycopy(bytes, 0, newBytes, 0, pending);
+            bytes = newBytes;
+        }
+
+        nextByte = 0;
+        bytesLen = pending;
+
+        int read = stream.read(bytes, bytesLen, bytes.length - bytesLen);
+        if (read < 0)
+            eof = true;
+        else
+            bytesLen += read;
+    }
+
+    // Char stream ---------------------------------------------------------------------------------------------------
+
+    private boolean fillFromBuffer(StringBuilder s) {
         boolean stop = false;
         int offset = nextChar;
         int len = 0;
 
-        boolean lastWasCarriageReturn = false;
-
         for (; nextChar < bufferLen; nextChar++) {
             if (buffer[nextChar] == '\n') {
                 stop = true;
                 nextChar++;
-                if (lastWasCarriageReturn) len--;
                 break;
             } else {
-                lastWasCarriageReturn = buffer[nextChar] == '\r';
                 len++;
             }
         }
@@ -53,12 +136,11 @@ public class UnixLineReader implements LineReader {
         return stop;
     }
 
-    @Override
-    public String readLine() throws IOException {
+    private String readCharLine() throws IOException {
         if (bufferLen < 0)
             return null;
 
-        StringBuffer s = new StringBuffer(defaultExpectedLineLength);
+        StringBuilder s = new StringBuilder(defaultExpectedLineLength);
 
         for (; ; ) {
             boolean stop = fillFromBuffer(s);
@@ -70,12 +152,19 @@ public class UnixLineReader implements LineReader {
                 return s.length() > 0 ? s.toString() : null;
         }
 
+        int length = s.length();
+        if (length > 0 && s.charAt(length - 1) == '\r')
+            s.setLength(length - 1);
+
         return s.toString();
     }
 
     @Override
     public void close() throws IOException {
-        reader.close();
+        if (stream != null)
+            stream.close();
+        else
+            reader.close();
     }
 
 }
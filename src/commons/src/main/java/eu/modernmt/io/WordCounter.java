@@ -1,86 +1,170 @@
 package eu.modernmt.io;
 
 import eu.modernmt.lang.Language;
+import org.apache.commons.io.IOUtils;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Created by davide on 26/08/17.
  */
 public class WordCounter {
 
-    private static final Pattern DELIMITERS_REGEX = Pattern.compile("[\\s\\p{Punct}\\u00A0]+");
-    private static final Pattern CJK_REGEX = Pattern.compile("[\\p{IsHan}\\p{IsKatakana}\\p{IsHiragana}]");
+    private static final String CACHE_KEY = "words";
 
     /**
-     * Count the amount of words in a corpus line
+     * Count the amount of words in a corpus file with the calling thread only: this is the method to use
+     * when many files are counted concurrently.
      *
-     * @param line     the corpus line to count the lines of which
-     * @param language the language of the corpus line
+     * @param file the corpus file, in the default charset
      * @return the words count
+     * @throws IOException if an error occurs while reading the file
      */
-    public static int count(String line, Language language) {
-        int wordCount = 0;
+    public static long count(File file) throws IOException {
+        return count(file, 1);
+    }
 
-        Matcher delimitersMatcher = DELIMITERS_REGEX.matcher(line);
+    /**
+     * Count the amount of words in a corpus file, as the sum of the words of its lines;
+     * large files are split in up to "threads" chunks of whole lines that are read concurrently.
+     * The count does not depend on the language of the file, so it is stored in the FileCountsCache
+     * and reused (also by other processes) as long as the size and the last-modified time of the file do not change.
+     *
+     * @param file    the corpus file, in the default charset
+     * @param threads the maximum number of threads reading the file
+     * @return the words count
+     * @throws IOException if an error occurs while reading the file
+     */
+    public static long count(File file, int threads) throws IOException {
+        file = file.getAbsoluteFile();
 
-        int wordStart = 0;
+        long cached = FileCountsCache.get(file, CACHE_KEY);
+        if (cached >= 0)
+            return cached;
 
-        while (delimitersMatcher.find()) {
-            int wordEnd = delimitersMatcher.start();
+        long size = file.length();
+        long lastModified = file.lastModified();
 
-            if (wordStart == wordEnd)
-                continue;
-            wordCount += countWordsInToken(line.substring(wordStart, wordEnd));
-            wordStart = delimitersMatcher.end();
+        long count = doCount(file, size, threads, FileChunks.MIN_CHUNK_SIZE);
+        FileCountsCache.put(file, size, lastModified, CACHE_KEY, count);
+
+        return count;
+    }
+
+    static long doCount(File file, long size, int threads, long minChunkSize) throws IOException {
+        if (!file.isFile())
+            throw new IOException("File not found: " + file);
+
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+            int chunks = FileChunks.getChunkCount(size, threads, minChunkSize);
+            return FileChunks.count(channel, FileChunks.split(channel, size, chunks), WordCounter::countWords);
+        } finally {
+            IOUtils.closeQuietly(channel);
         }
+    }
+
+    private static long countWords(FileChannel channel, long start, long end) throws IOException {
+        long count = 0;
+        LineReader reader = null;
 
-        if (wordStart != line.length()) {
-            wordCount += countWordsInToken(line.substring(wordStart, line.length()));
+        try {
+            reader = new UnixLineReader(FileChunks.newInputStream(channel, start, end), DefaultCharset.get());
+
+            String line;
+            while ((line = reader.readLine()) != null)
+                count += count(line, null);
+        } finally {
+            IOUtils.closeQuietly(reader);
         }
 
-        return wordCount;
+        return count;
     }
 
-
     /**
-     * this private method counts the amount of words
-     * in a token delimited by ponctuation symbols,
-     * considering each CJK character as a separate word
+     * Count the amount of words in a corpus line.
+     * Words are sequences of characters delimited by whitespaces, ASCII punctuation
+     * and non-breaking spaces; moreover every CJK character (Han, Katakana or Hiragana)
+     * counts as a separate word.
      *
-     * @param token the amount of words
-     * @return the amount of words in token
+     * @param line     the corpus line to count the lines of which
+     * @param language the language of the corpus line
+     * @return the words count
      */
-    private static int countWordsInToken(String token) {
+    public static int count(String line, Language language) {
         int wordCount = 0;
 
-        //start index of previous CJK in token
-        int prev = -1;
-        //start index of current CJK in token
-        int cur = 0;
+        boolean inToken = false;
+        // end index of the last CJK character in the current token (or token start)
+        int prevEnd = 0;
 
-        Matcher cjkMatcher = CJK_REGEX.matcher(token);
-        while (cjkMatcher.find()) {
-            // if the matcher finds a CJK character, it is a separate word
-            // so increment the word count
-            wordCount++;
+        int length = line.length();
+        for (int i = 0; i < length; ) {
+            char c = line.charAt(i);
+
+            if (isDelimiter(c)) {
+                // if the last CJK character is not the last character of the token,
+                // there is one last word to count
+                if (inToken && prevEnd < i)
+                    wordCount++;
+
+                inToken = false;
+                i++;
+                continue;
+            }
+
+            if (!inToken) {
+                inToken = true;
+                prevEnd = i;
+            }
 
-            // moreover, if the previous CJK is more distant than 1 from the current one,
-            // it means there is another word in between
-            // so increment the word count
-            cur = cjkMatcher.start();
-            if (cur > prev + 1)
+            int codePoint = Character.codePointAt(line, i);
+            int next = i + Character.charCount(codePoint);
+
+            if (isCJK(codePoint)) {
+                // a CJK character is a separate word; moreover, if the previous CJK
+                // is not adjacent to the current one, there is another word in between
                 wordCount++;
-            prev = cur;
+                if (i > prevEnd)
+                    wordCount++;
+                prevEnd = next;
+            }
+
+            i = next;
         }
 
-        // if the last CJK character is not the last character,
-        // it means that there is one last word to count
-        // so increment the word count
-        if (prev < token.length() - 1)
+        if (inToken && prevEnd < length)
             wordCount++;
 
         return wordCount;
     }
+
+    // Equivalent to Pattern.compile("[\\s\\p{Punct}\\u00A0]")
+    private static boolean isDelimiter(char c) {
+        if (c < 128) {
+            return (c >= '\t' && c <= '\r') || c == ' ' ||
+                    (c >= '!' && c <= '/') || (c >= ':' && c <= '@') ||
+                    (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+        } else {
+            return c == '\u00A0';
+        }
+    }
+
+    // Equivalent to Pattern.compile("[\\p{IsHan}\\p{IsKatakana}\\p{IsHiragana}]")
+    private static boolean isCJK(int codePoint) {
+        if (codePoint < 0x2E80) // first Han character
+            return false;
+
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN ||
+                script == Character.UnicodeScript.KATAKANA ||
+                script == Character.UnicodeScript.HIRAGANA;
+    }
+
 }
@@ -0,0 +1,133 @@
+package eu.modernmt.metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A LatencyHistogram records latency values (in microseconds) in log-linear buckets,
+ * with a relative precision of about 6%. Recording a value is wait-free: it only
+ * updates two counters, so the histogram can be used on the translation hot path.
+ * <p>
+ * Percentiles are computed on immutable snapshots, that can also be merged together
+ * in order to aggregate histograms coming from different cluster members.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    private static final int MAX_MAGNITUDE = 36; // about 19 hours in microseconds
+    private static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private static final int SUM_INDEX = BUCKETS;
+
+    private final AtomicLongArray counters = new AtomicLongArray(BUCKETS + 1);
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS)
+            return (int) value;
+
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return the highest value that falls in the bucket with the given index
+     */
+    static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS)
+            return index;
+
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public void record(long micros) {
+        if (micros < 0)
+            micros = 0;
+        else if (micros > MAX_VALUE)
+            micros = MAX_VALUE;
+
+        counters.incrementAndGet(indexOf(micros));
+        counters.addAndGet(SUM_INDEX, micros);
+    }
+
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = counters.get(i);
+
+        // the count is computed from the buckets, so that percentiles are always consistent
+        long count = 0;
+        for (long c : buckets)
+            count += c;
+
+        return new Snapshot(buckets, count, counters.get(SUM_INDEX));
+    }
+
+    public static final class Snapshot implements Serializable {
+
+        private final long[] buckets;
+        private long count;
+        private long sum;
+
+        public Snapshot() {
+            this(new long[BUCKETS], 0L, 0L);
+        }
+
+        private Snapshot(long[] buckets, long count, long sum) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public void merge(Snapshot other) {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] += other.buckets[i];
+            count += other.count;
+            sum += other.sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the sum of the recorded values, in microseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @param quantile the quantile to compute, in the range [0, 1]
+         * @return the value (in microseconds) below which falls the given quantile of the recorded values
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0)
+                return 0L;
+
+            long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+            long seen = 0;
+
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank)
+                    return valueOf(i);
+            }
+
+            return valueOf(buckets.length - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{count=" + count + ", sum=" + sum + '}';
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package eu.modernmt.metrics;
+
+import eu.modernmt.lang.LanguagePair;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LatencyMetrics is the process-wide registry of the translation latency histograms.
+ * Every stage of a translation is recorded in a separate histogram for each language direction
+ * and priority; the priority is taken from the current thread, so that components that do not
+ * know it (like decoders) can record their own stages too.
+ * <p>
+ * Lookups do not allocate and histograms are lock-free, so recording is cheap enough
+ * to be done for every translation.
+ */
+public class LatencyMetrics {
+
+    public enum Stage {
+        QUEUE, PREPROCESSING, DECODING, MEMORY_SEARCH, NEURAL_PROCESS, ALIGNMENT, POSTPROCESSING, TOTAL
+    }
+
+    public static final int UNKNOWN_PRIORITY = -1;
+    private static final int MAX_PRIORITY = 6;
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final ConcurrentHashMap<LanguagePair, LatencyHistogram[][]> histograms = new ConcurrentHashMap<>();
+    private static final LatencyHistogram[][] undirected = newTable();
+    private static final ThreadLocal<Integer> priority = new ThreadLocal<>();
+
+    private static LatencyHistogram[][] newTable() {
+        LatencyHistogram[][] table = new LatencyHistogram[STAGES.length][MAX_PRIORITY + 2];
+        for (LatencyHistogram[] row : table) {
+            for (int i = 0; i < row.length; i++)
+                row[i] = new LatencyHistogram();
+        }
+        return table;
+    }
+
+    /**
+     * Sets the priority of the translation currently served by this thread.
+     *
+     * @param value the translation priority
+     */
+    public static void setCurrentPriority(int value) {
+        priority.set(value);
+    }
+
+    public static void clearCurrentPriority() {
+        priority.remove();
+    }
+
+    /**
+     * Records the time spent by the current translation in a stage.
+     *
+     * @param stage     the translation stage
+     * @param direction the language direction, or null if the stage does not depend on it
+     * @param nanos     the elapsed time in nanoseconds
+     */
+    public static void record(Stage stage, LanguagePair direction, long nanos) {
+        Integer value = priority.get();
+        record(stage, direction, value == null ? UNKNOWN_PRIORITY : value, nanos);
+    }
+
+    public static void record(Stage stage, LanguagePair direction, int priority, long nanos) {
+        LatencyHistogram[][] table = direction == null ? undirected : histograms.get(direction);
+        if (table == null)
+            table = histograms.computeIfAbsent(direction, key -> newTable());
+
+        if (priority < UNKNOWN_PRIORITY || priority > MAX_PRIORITY)
+            priority = UNKNOWN_PRIORITY;
+
+        table[stage.ordinal()][priority + 1].record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public static Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.add(null, undirected);
+
+        for (Map.Entry<LanguagePair, LatencyHistogram[][]> entry : histograms.entrySet())
+            snapshot.add(entry.getKey(), entry.getValue());
+
+        return snapshot;
+    }
+
+    public static final class Key implements Serializable {
+
+        public final Stage stage;
+        public final LanguagePair direction;
+        public final int priority;
+
+        private Key(Stage stage, LanguagePair direction, int priority) {
+            this.stage = stage;
+            this.direction = direction;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (priority != key.priority) return false;
+            if (stage != key.stage) return false;
+            return direction != null ? direction.equals(key.direction) : key.direction == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = stage.hashCode();
+            result = 31 * result + (direction != null ? direction.hashCode() : 0);
+            result = 31 * result + priority;
+            return result;
+        }
+    }
+
+    /**
+     * A copy of the non-empty histograms of the registry; snapshots taken
+     * on different cluster members can be merged together.
+     */
+    public static final class Snapshot implements Serializable {
+
+        private final HashMap<Key, LatencyHistogram.Snapshot> entries = new HashMap<>();
+
+        private void add(LanguagePair direction, LatencyHistogram[][] table) {
+            for (int s = 0; s < table.length; s++) {
+                for (int p = 0; p < table[s].length; p++) {
+                    LatencyHistogram.Snapshot histogram = table[s][p].snapshot();
+
+                    if (histogram.getCount() > 0)
+                        entries.put(new Key(STAGES[s], direction, p - 1), histogram);
+                }
+            }
+        }
+
+        public void merge(Snapshot other) {
+            for (Map.Entry<Key, LatencyHistogram.Snapshot> entry : other.entries.entrySet())
+                entries.computeIfAbsent(entry.getKey(), key -> new LatencyHistogram.Snapshot()).merge(entry.getValue());
+        }
+
+        public Map<Key, LatencyHistogram.Snapshot> getEntries() {
+            return Collections.unmodifiableMap(entries);
+        }
+    }
+
+}
@@ -93,6 +93,22 @@ public class ContextVector implements Iterable<ContextVector.Entry>, Serializabl
         return entries.length;
     }
 
+    /**
+     * Returns a deep copy of this vector: entries and memories are new instances,
+     * so that the memories of the copy can be modified (i.e. their names) without affecting this vector.
+     *
+     * @return a deep copy of this vector
+     */
+    public ContextVector copy() {
+        Entry[] copy = new Entry[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            copy[i] = new Entry(new Memory(entry.memory.getId(), entry.memory.getName()), entry.score);
+        }
+
+        return new ContextVector(copy);
+    }
+
     @Override
     public Iterator<Entry> iterator() {
         return new Iterator<Entry>() {
@@ -110,4 +126,19 @@ public class ContextVector implements Iterable<ContextVector.Entry>, Serializabl
             }
         };
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ContextVector that = (ContextVector) o;
+
+        return Arrays.equals(entries, that.entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(entries);
+    }
 }
@@ -9,6 +9,8 @@ import java.util.UUID;
 public class ImportJob {
 
     private static final short EPHEMERAL_JOB_HEADER = (short) 0x8000;
+    private static final long PENDING_OFFSET = -1L;
+    private static final long FAILED_OFFSET = -2L;
 
     public static ImportJob createEphemeralJob(long memory, long offset, short dataChannel) {
         ByteBuffer buffer = ByteBuffer.allocate(16);
@@ -31,6 +33,34 @@ public class ImportJob {
         return job;
     }
 
+    /**
+     * Creates a job for an import whose content is still being sent to the data stream:
+     * its offsets are unknown (-1) until the last pair has been sent.
+     */
+    public static ImportJob createPendingJob(long memory, short dataChannel) {
+        ImportJob job = new ImportJob();
+        job.memory = memory;
+        job.size = 0;
+        job.begin = job.end = PENDING_OFFSET;
+        job.dataChannel = dataChannel;
+
+        return job;
+    }
+
+    /**
+     * Creates a job for an import that could not be completed, because its content ended abnormally
+     * or the data stream failed: its offsets are invalid (-2), the pairs sent before the failure are not tracked.
+     */
+    public static ImportJob createFailedJob(long memory, short dataChannel) {
+        ImportJob job = new ImportJob();
+        job.memory = memory;
+        job.size = 0;
+        job.begin = job.end = FAILED_OFFSET;
+        job.dataChannel = dataChannel;
+
+        return job;
+    }
+
     public static ImportJob fromEphemeralUUID(UUID id) {
         ByteBuffer buffer = ByteBuffer.allocate(16);
         buffer.putLong(id.getMostSignificantBits())
@@ -81,6 +111,14 @@ public class ImportJob {
         this.id = new UUID(0L, id);
     }
 
+    public boolean isPending() {
+        return end == PENDING_OFFSET;
+    }
+
+    public boolean isFailed() {
+        return end == FAILED_OFFSET;
+    }
+
     public float getProgress() {
         return progress;
     }
@@ -81,20 +81,20 @@ public class CompactFileCorpus extends BaseMultilingualCorpus {
         }
 
         private StringPair parse(String metadata, String source, String target) throws IOException {
-            String[] parts = metadata.split(",");
-            if (parts.length != 2)
+            int comma = metadata.indexOf(',');
+            if (comma < 0 || comma == metadata.length() - 1 || metadata.indexOf(',', comma + 1) >= 0)
                 throw new IOException("Invalid metadata found: " + metadata);
 
             Date timestamp = null;
             try {
-                long date = Long.parseLong(parts[0]);
+                long date = Long.parseLong(metadata.substring(0, comma));
                 if (date > 0)
                     timestamp = new Date(date);
             } catch (NumberFormatException e) {
                 throw new IOException("Invalid metadata found: " + metadata, e);
             }
 
-            LanguagePair language = cachedLanguagePairs.computeIfAbsent(parts[1], key -> {
+            LanguagePair language = cachedLanguagePairs.computeIfAbsent(metadata.substring(comma + 1), key -> {
                 String[] langs = key.split(" ");
                 return new LanguagePair(Language.fromString(langs[0]), Language.fromString(langs[1]));
             });
@@ -10,6 +10,8 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Created by davide on 24/02/16.
@@ -62,6 +64,80 @@ public class ParallelFileCorpus extends BaseMultilingualCorpus {
         return name;
     }
 
+    @Override
+    public Set<LanguagePair> getLanguages() {
+        int count = countLines();
+        if (count < 0)
+            return super.getLanguages();
+
+        return count > 0 ? Collections.singleton(language) : Collections.emptySet();
+    }
+
+    @Override
+    public int getLineCount(LanguagePair language) {
+        int count = countLines();
+        if (count < 0)
+            return super.getLineCount(language);
+
+        return this.language.equals(language) ? count : 0;
+    }
+
+    /*
+     * Counts the lines directly from the files (if available) without reading the
+     * corpus content; returns -1 if the files are not accessible or 0 if source and target
+     * have a different number of lines, like BaseMultilingualCorpus does for an invalid corpus
+     */
+    private int countLines() {
+        File sourceFile = source.getFile();
+        File targetFile = target.getFile();
+
+        if (sourceFile == null || targetFile == null)
+            return -1;
+
+        try {
+            long sourceLines = LineCounter.count(sourceFile);
+            long targetLines = LineCounter.count(targetFile);
+
+            return sourceLines == targetLines ? (int) sourceLines : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Counts the words of one side of the corpus directly from its file (if available),
+     * see WordCounter.count(File); the result is cached together with the line counts.
+     *
+     * @param source true to count the words of the source file, false for the target file
+     * @return the number of words, or -1 if the files are not accessible
+     * @throws IOException if the files have a different number of lines, like the content reader does
+     */
+    public long getWordCount(boolean source) throws IOException {
+        return getWordCount(source, 1);
+    }
+
+    /**
+     * Like getWordCount(boolean), but every file is split in up to "threads" chunks that are counted concurrently:
+     * this is the method to use when a single large corpus is counted.
+     *
+     * @param source  true to count the words of the source file, false for the target file
+     * @param threads the maximum number of threads reading each file
+     * @return the number of words, or -1 if the files are not accessible
+     * @throws IOException if the files have a different number of lines, like the content reader does
+     */
+    public long getWordCount(boolean source, int threads) throws IOException {
+        File sourceFile = this.source.getFile();
+        File targetFile = this.target.getFile();
+
+        if (sourceFile == null || targetFile == null)
+            return -1;
+
+        if (LineCounter.count(sourceFile, threads) != LineCounter.count(targetFile, threads))
+            throw new IOException("Invalid parallel corpus: unmatched lines in " + name);
+
+        return WordCounter.count(source ? sourceFile : targetFile, threads);
+    }
+
     @Override
     public MultilingualLineReader getContentReader() throws IOException {
         return new ParallelFileLineReader(language, source, target);
@@ -5,8 +5,8 @@ import eu.modernmt.model.corpus.MultilingualCorpus;
 import eu.modernmt.xml.XMLUtils;
 import org.apache.commons.io.IOUtils;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
@@ -21,7 +21,7 @@ class TMXLineReader implements MultilingualCorpus.MultilingualLineReader {
 
     private final FileProxy tmx;
     private final InputStream stream;
-    private final XMLEventReader reader;
+    private final XMLStreamReader reader;
 
     private List<MultilingualCorpus.StringPair> cachedPairs = Collections.emptyList();
 
@@ -29,11 +29,11 @@ class TMXLineReader implements MultilingualCorpus.MultilingualLineReader {
         this.tmx = tmx;
 
         InputStream stream = null;
-        XMLEventReader reader = null;
+        XMLStreamReader reader = null;
 
         try {
             stream = tmx.getInputStream();
-            reader = XMLUtils.createEventReader(stream);
+            reader = XMLUtils.createStreamReader(stream);
         } catch (XMLStreamException e) {
             throw new IOException("Error while creating XMLStreamReader for TMX " + tmx, e);
         } finally {
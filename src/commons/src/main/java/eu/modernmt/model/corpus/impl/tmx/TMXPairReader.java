@@ -4,12 +4,9 @@ import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.corpus.MultilingualCorpus;
 import eu.modernmt.xml.XMLUtils;
 
-import javax.xml.stream.Location;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -24,37 +21,28 @@ class TMXPairReader {
 
     private final LanguageCache languageCache = new LanguageCache();
     private final ArrayList<MultilingualCorpus.StringPair> resultCache = new ArrayList<>(8);
+    private final StringBuilder contentBuffer = new StringBuilder(1024);
+    private final TMXDateParser dateParser = new TMXDateParser();
 
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat(TMXCorpus.TMX_DATE_FORMAT);
     private boolean decodeSegments = true;
     private String headerSourceLanguage = null;
 
-    TMXPairReader() {
-        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-    }
-
-    public List<MultilingualCorpus.StringPair> read(XMLEventReader reader) throws XMLStreamException {
+    public List<MultilingualCorpus.StringPair> read(XMLStreamReader reader) throws XMLStreamException {
         while (reader.hasNext()) {
-            XMLEvent event = reader.nextEvent();
-
-            switch (event.getEventType()) {
-                case XMLStreamConstants.START_ELEMENT:
-                    StartElement element = event.asStartElement();
-                    String name = XMLUtils.getLocalName(element);
-                    if ("header".equals(name)) {
-                        readHeader(element);
-                    } else if ("tu".equals(name)) {
-                        return readTu(reader, element);
-                    }
-
-                    break;
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("header".equals(name)) {
+                    readHeader(reader);
+                } else if ("tu".equals(name)) {
+                    return readTu(reader);
+                }
             }
         }
 
         return null;
     }
 
-    private void readHeader(StartElement header) throws XMLStreamException {
+    private void readHeader(XMLStreamReader header) {
         this.headerSourceLanguage = XMLUtils.getAttributeValue(header, null, "srclang");
 
         String datatype = XMLUtils.getAttributeValue(header, null, "datatype");
@@ -64,36 +52,33 @@ class TMXPairReader {
             decodeSegments = false;
     }
 
-    private List<MultilingualCorpus.StringPair> readTu(XMLEventReader reader, StartElement tu) throws XMLStreamException {
+    private List<MultilingualCorpus.StringPair> readTu(XMLStreamReader reader) throws XMLStreamException {
         this.resultCache.clear();
 
-        Date tuTimestamp = getTimestamp(tu);
-        String tuSourceLanguage = XMLUtils.getAttributeValue(tu, null, "srclang");
+        int tuLine = XMLUtils.getLineNumber(reader);
+        Date tuTimestamp = getTimestamp(reader);
+        String tuSourceLanguage = XMLUtils.getAttributeValue(reader, null, "srclang");
 
         String sourceLanguage = tuSourceLanguage == null ? headerSourceLanguage : tuSourceLanguage;
         String sourceText = null;
 
         while (reader.hasNext()) {
-            XMLEvent event = reader.nextEvent();
-
-            switch (event.getEventType()) {
+            switch (reader.next()) {
                 case XMLStreamConstants.START_ELEMENT:
-                    StartElement element = event.asStartElement();
-
-                    if ("tuv".equals(XMLUtils.getLocalName(element))) {
-                        String lang = XMLUtils.getAttributeValue(element, TMXCorpus.XML_NAMESPACE, "lang");
+                    if ("tuv".equals(reader.getLocalName())) {
+                        String lang = XMLUtils.getAttributeValue(reader, TMXCorpus.XML_NAMESPACE, "lang");
                         if (lang == null)
-                            lang = XMLUtils.getAttributeValue(element, null, "lang");
+                            lang = XMLUtils.getAttributeValue(reader, null, "lang");
                         if (lang == null)
-                            throw new XMLStreamException(format("Missing language for 'tuv'", event));
+                            throw new XMLStreamException(format("Missing language for 'tuv'", reader));
 
                         if (sourceLanguage == null)
                             sourceLanguage = lang; // The first <TUV> element in a <TU> is expected to be the source.
 
-                        Date tuvTimestamp = getTimestamp(element);
+                        Date tuvTimestamp = getTimestamp(reader);
 
                         Date timestamp = tuvTimestamp == null ? tuTimestamp : tuvTimestamp;
-                        String text = readTuv(reader, element);
+                        String text = readTuv(reader);
 
                         if (lang.equals(sourceLanguage)) {
                             sourceText = text;
@@ -104,11 +89,11 @@ class TMXPairReader {
                     }
                     break;
                 case XMLStreamConstants.END_ELEMENT:
-                    if ("tu".equals(XMLUtils.getLocalName(event.asEndElement()))) {
+                    if ("tu".equals(reader.getLocalName())) {
                         if (sourceText == null)
-                            throw new XMLStreamException(format("Missing source text in <tu> element", event));
+                            throw new XMLStreamException(format("Missing source text in <tu> element", reader));
                         if (resultCache.isEmpty())
-                            throw new XMLStreamException(format("Not enough <tuv> elements found in <tu> element", event));
+                            throw new XMLStreamException(format("Not enough <tuv> elements found in <tu> element", reader));
 
                         for (MultilingualCorpus.StringPair pair : resultCache)
                             pair.source = sourceText;
@@ -119,49 +104,124 @@ class TMXPairReader {
             }
         }
 
-        throw new XMLStreamException(format("Missing closing tag for 'tuv' element", tu));
+        throw new XMLStreamException(format("Missing closing tag for 'tuv' element", tuLine));
     }
 
-    private String readTuv(XMLEventReader reader, StartElement tuv) throws XMLStreamException {
-        while (reader.hasNext()) {
-            XMLEvent event = reader.nextEvent();
+    private String readTuv(XMLStreamReader reader) throws XMLStreamException {
+        int tuvLine = XMLUtils.getLineNumber(reader);
 
-            switch (event.getEventType()) {
-                case XMLStreamConstants.START_ELEMENT:
-                    StartElement element = event.asStartElement();
-
-                    if ("seg".equals(XMLUtils.getLocalName(element))) {
-                        return XMLUtils.getXMLContent(reader, element, decodeSegments)
-                                .replace('\n', ' ');
-                    }
-                    break;
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "seg".equals(reader.getLocalName())) {
+                return XMLUtils.getXMLContent(reader, contentBuffer, decodeSegments)
+                        .replace('\n', ' ');
             }
         }
 
-        throw new XMLStreamException(format("Missing 'seg' inside 'tuv' element", tuv));
+        throw new XMLStreamException(format("Missing 'seg' inside 'tuv' element", tuvLine));
     }
 
-    private Date getTimestamp(StartElement tu) throws XMLStreamException {
-        Date timestamp = null;
+    private Date getTimestamp(XMLStreamReader element) throws XMLStreamException {
+        String date = XMLUtils.getAttributeValue(element, null, "changedate");
+        if (date == null)
+            date = XMLUtils.getAttributeValue(element, null, "creationdate");
 
-        String date = XMLUtils.getAttributeValue(tu, null, "changedate");
         if (date == null)
-            date = XMLUtils.getAttributeValue(tu, null, "creationdate");
+            return null;
 
-        if (date != null) {
-            try {
-                timestamp = dateFormat.parse(date);
-            } catch (ParseException | NumberFormatException e) {
-                throw new XMLStreamException(format("Invalid date '" + date + "'", tu), e);
-            }
+        try {
+            return dateParser.parse(date);
+        } catch (ParseException | NumberFormatException e) {
+            throw new XMLStreamException(format("Invalid date '" + date + "'", element), e);
         }
+    }
 
-        return timestamp;
+    private static String format(String message, XMLStreamReader reader) {
+        return format(message, XMLUtils.getLineNumber(reader));
     }
 
-    private static String format(String message, XMLEvent event) {
-        Location location = event == null ? null : event.getLocation();
-        return location == null ? message : (message + " at line " + location.getLineNumber());
+    private static String format(String message, int line) {
+        return line < 0 ? message : (message + " at line " + line);
+    }
+
+    /**
+     * Parser for TMX dates: the canonical form "YYYYMMDDThhmmssZ" is decoded directly,
+     * while any other string is delegated to a lenient SimpleDateFormat.
+     * The last parsed date is remembered, since consecutive units usually share the same timestamp.
+     */
+    static class TMXDateParser {
+
+        private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+        private SimpleDateFormat dateFormat = null;
+        private String lastDate = null;
+        private long lastTime = 0L;
+
+        public Date parse(String date) throws ParseException {
+            if (!date.equals(lastDate)) {
+                long time = parseCanonical(date);
+                if (time == Long.MIN_VALUE)
+                    time = getDateFormat().parse(date).getTime();
+
+                lastDate = date;
+                lastTime = time;
+            }
+
+            return new Date(lastTime);
+        }
+
+        private SimpleDateFormat getDateFormat() {
+            if (dateFormat == null) {
+                dateFormat = new SimpleDateFormat(TMXCorpus.TMX_DATE_FORMAT);
+                dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+            }
+
+            return dateFormat;
+        }
+
+        private static long parseCanonical(String date) {
+            if (date.length() != 16 || date.charAt(8) != 'T' || date.charAt(15) != 'Z')
+                return Long.MIN_VALUE;
+
+            int year = digits(date, 0, 4);
+            int month = digits(date, 4, 6);
+            int day = digits(date, 6, 8);
+            int hour = digits(date, 9, 11);
+            int minute = digits(date, 11, 13);
+            int second = digits(date, 13, 15);
+
+            // Out of range fields (including non-digits, that are -1) and dates before the epoch
+            // are left to SimpleDateFormat, that handles leniency and the Julian calendar
+            if (year < 1970 || month < 1 || month > 12 || day < 1 || day > 31 ||
+                    hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+                return Long.MIN_VALUE;
+
+            long days = daysFromEpoch(year, month, day);
+            return days * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * 1000L;
+        }
+
+        private static int digits(String string, int start, int end) {
+            int value = 0;
+
+            for (int i = start; i < end; i++) {
+                char c = string.charAt(i);
+                if (c < '0' || c > '9')
+                    return -1;
+                value = value * 10 + (c - '0');
+            }
+
+            return value;
+        }
+
+        // Days between 1970-01-01 and the given date in the proleptic Gregorian calendar
+        private static long daysFromEpoch(int year, int month, int day) {
+            int y = month <= 2 ? year - 1 : year;
+            int era = y / 400;
+            int yoe = y - era * 400;
+            int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+            int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+            return era * 146097L + doe - 719468L;
+        }
+
     }
 
 }
@@ -13,4 +13,6 @@ public interface ImportJobDAO {
 
     ImportJob store(ImportJob job) throws PersistenceException;
 
+    ImportJob update(ImportJob job) throws PersistenceException;
+
 }
@@ -52,6 +52,20 @@ public class XMLUtils {
         return factory.createXMLEventReader(new XMLFixInputStreamReader(new BOMInputStream(stream, false), DefaultCharset.get()));
     }
 
+    public static XMLStreamReader createStreamReader(InputStream stream) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        return factory.createXMLStreamReader(new XMLFixInputStreamReader(new BOMInputStream(stream, false), DefaultCharset.get()));
+    }
+
+    public static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null)
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Ignore
+            }
+    }
+
     public static void closeQuietly(XMLEventReader reader) {
         if (reader != null)
             try {
@@ -82,6 +96,168 @@ public class XMLUtils {
         return attribute == null ? null : attribute.getValue();
     }
 
+    /**
+     * Returns the value of the attribute of the current START_ELEMENT of the given reader.
+     * Unlike XMLStreamReader.getAttributeValue(), a null namespace matches only attributes without namespace.
+     */
+    public static String getAttributeValue(XMLStreamReader reader, String namespaceURI, String localPart) {
+        if (namespaceURI == null)
+            namespaceURI = XMLConstants.NULL_NS_URI;
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (!localPart.equals(reader.getAttributeLocalName(i)))
+                continue;
+
+            String uri = reader.getAttributeNamespace(i);
+            if (namespaceURI.equals(uri == null ? XMLConstants.NULL_NS_URI : uri))
+                return reader.getAttributeValue(i);
+        }
+
+        return null;
+    }
+
+    /**
+     * Cursor-based version of getXMLContent(): the reader must be positioned on the root START_ELEMENT
+     * and, when the method returns, it is positioned on the matching END_ELEMENT.
+     * The content is written in the given buffer, that is cleared first and can be reused by the caller.
+     */
+    public static String getXMLContent(XMLStreamReader reader, StringBuilder buffer, boolean decodeCharacters) throws XMLStreamException {
+        String rootElementName = reader.getLocalName();
+        int line = getLineNumber(reader);
+
+        buffer.setLength(0);
+
+        boolean pendingElement = false;
+        int depth = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (pendingElement) {
+                pendingElement = false;
+
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    buffer.append("/>"); // empty tag
+                    depth--;
+                    continue; // skip this end tag
+                } else {
+                    buffer.append('>');
+                }
+            }
+
+            switch (event) {
+                case XMLStreamConstants.END_ELEMENT:
+                    if (depth == 0)
+                        return buffer.toString();
+
+                    depth--;
+                    buffer.append("</");
+                    appendName(buffer, reader.getPrefix(), reader.getLocalName());
+                    buffer.append('>');
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    pendingElement = true;
+
+                    buffer.append('<');
+                    appendName(buffer, reader.getPrefix(), reader.getLocalName());
+
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        String prefix = reader.getNamespacePrefix(i);
+                        buffer.append(' ');
+                        appendName(buffer, XMLConstants.XMLNS_ATTRIBUTE, prefix);
+                        buffer.append("='").append(reader.getNamespaceURI(i)).append('\'');
+                    }
+
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        buffer.append(' ');
+                        appendName(buffer, reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+                        buffer.append("='").append(reader.getAttributeValue(i)).append('\'');
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    if (decodeCharacters)
+                        buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    else
+                        appendEncoded(buffer, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    if (decodeCharacters) {
+                        buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    } else {
+                        buffer.append("<![CDATA[");
+                        buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        buffer.append("]]>");
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    buffer.append("<!--").append(reader.getText()).append("-->");
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    buffer.append('&').append(reader.getLocalName()).append(';');
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    String target = reader.getPITarget();
+                    String data = reader.getPIData();
+
+                    buffer.append("<?");
+                    if (target != null)
+                        buffer.append(target);
+                    if (target != null && data != null)
+                        buffer.append(' ');
+                    if (data != null)
+                        buffer.append(data);
+                    buffer.append("?>");
+                    break;
+            }
+        }
+
+        throw new XMLStreamException(format("Missing closing tag for '" + rootElementName + "' element", line));
+    }
+
+    private static void appendName(StringBuilder buffer, String prefix, String localPart) {
+        if (prefix != null && prefix.length() > 0) {
+            buffer.append(prefix);
+            if (localPart != null && localPart.length() > 0)
+                buffer.append(':');
+        }
+
+        if (localPart != null)
+            buffer.append(localPart);
+    }
+
+    private static void appendEncoded(StringBuilder buffer, char[] chars, int start, int length) {
+        int end = start + length;
+
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+
+            switch (c) {
+                case '<':
+                    buffer.append("&lt;");
+                    break;
+                case '&':
+                    buffer.append("&amp;");
+                    break;
+                case '>':
+                    buffer.append("&gt;");
+                    break;
+                case '"':
+                    buffer.append("&quot;");
+                    break;
+                default:
+                    buffer.append(c);
+                    break;
+            }
+        }
+    }
+
+    public static int getLineNumber(XMLStreamReader reader) {
+        Location location = reader.getLocation();
+        return location == null ? -1 : location.getLineNumber();
+    }
+
     public static String getXMLContent(XMLEventReader reader, StartElement element, boolean decodeCharacters) throws XMLStreamException {
         String rootElementName = getLocalName(element);
 
@@ -185,6 +361,10 @@ public class XMLUtils {
         }
     }
 
+    private static String format(String message, int line) {
+        return line < 0 ? message : (message + " at line " + line);
+    }
+
     private static String format(String message, XMLEvent event) {
         Location location = event == null ? null : event.getLocation();
         return location == null ? message : (message + " at line " + location.getLineNumber());
@@ -0,0 +1,126 @@
+package eu.modernmt.io;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class FileChunksTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("FileChunksTest", ".txt");
+    }
+
+    @After
+    public void teardown() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    private void write(String content) throws IOException {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static String corpus(int lines) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append("Line ").append(i).append(", with 日本語 words");
+            for (int j = 0; j < i % 7; j++)
+                builder.append(" word");
+            builder.append(i % 5 == 0 ? "\r\n" : "\n");
+            if (i % 11 == 0)
+                builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private long[] split(int chunks) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return FileChunks.split(channel, file.length(), chunks);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void chunksContainWholeLines() throws IOException {
+        write(corpus(100));
+
+        byte[] bytes = FileUtils.readFileToByteArray(file);
+        long[] boundaries = split(8);
+
+        assertEquals(9, boundaries.length);
+        assertEquals(0L, boundaries[0]);
+        assertEquals(bytes.length, boundaries[boundaries.length - 1]);
+
+        for (int i = 1; i < boundaries.length - 1; i++) {
+            assertTrue(boundaries[i] > boundaries[i - 1]);
+            assertEquals('\n', bytes[(int) boundaries[i] - 1]);
+        }
+    }
+
+    @Test
+    public void emptyChunksAreSkipped() throws IOException {
+        write("a single long line without a newline\nshort\n");
+
+        long[] boundaries = split(8);
+
+        assertArrayEquals(new long[]{0, 37, file.length()}, boundaries);
+    }
+
+    @Test
+    public void chunkStreamIsBounded() throws IOException {
+        write("first\nsecond\nthird\n");
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            InputStream stream = FileChunks.newInputStream(channel, 6, 13);
+            assertEquals("second\n", IOUtils.toString(stream, StandardCharsets.UTF_8));
+            assertEquals(-1, stream.read());
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void chunkedCountsMatchSequentialCounts() throws IOException {
+        write(corpus(1000));
+
+        long size = file.length();
+        long lines = LineCounter.doCount(file, size, 1, FileChunks.MIN_CHUNK_SIZE);
+        long words = WordCounter.doCount(file, size, 1, FileChunks.MIN_CHUNK_SIZE);
+
+        assertEquals(1091L, lines);
+
+        for (int threads = 2; threads <= 16; threads *= 2) {
+            assertEquals(lines, LineCounter.doCount(file, size, threads, 1024));
+            assertEquals(words, WordCounter.doCount(file, size, threads, 1024));
+        }
+    }
+
+    @Test
+    public void chunkedCountsWithoutTrailingNewline() throws IOException {
+        write(corpus(1000) + "last line");
+
+        long size = file.length();
+
+        assertEquals(LineCounter.doCount(file, size, 1, FileChunks.MIN_CHUNK_SIZE),
+                LineCounter.doCount(file, size, 8, 1024));
+        assertEquals(WordCounter.doCount(file, size, 1, FileChunks.MIN_CHUNK_SIZE),
+                WordCounter.doCount(file, size, 8, 1024));
+    }
+
+}
@@ -0,0 +1,109 @@
+package eu.modernmt.io;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class FileCountsCacheTest {
+
+    private static File cacheFolder;
+
+    private File file;
+
+    @BeforeClass
+    public static void setupCache() throws IOException {
+        cacheFolder = Files.createTempDirectory("FileCountsCacheTest").toFile();
+        System.setProperty("mmt.counts.cache", cacheFolder.getAbsolutePath());
+    }
+
+    @Before
+    public void setup() throws IOException {
+        FileUtils.cleanDirectory(cacheFolder);
+        file = File.createTempFile("FileCountsCacheTest", ".txt");
+    }
+
+    @After
+    public void teardown() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    private void write(String content) throws IOException {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Simulates a count stored by another process
+     */
+    private void overwriteCache(String key, long value) {
+        FileCountsCache.put(file, file.length(), file.lastModified(), key, value);
+    }
+
+    @Test
+    public void countLines() throws IOException {
+        write("first\r\nsecond\n\nlast");
+        assertEquals(4L, LineCounter.count(file));
+
+        write("first\nsecond\n");
+        assertEquals(2L, LineCounter.count(file, 4));
+
+        write("");
+        assertEquals(0L, LineCounter.count(file));
+    }
+
+    @Test
+    public void countWords() throws IOException {
+        write("Hello, world!\n日本語 text\n");
+        assertEquals(6L, WordCounter.count(file));
+
+        write("Hello, world!\n日本語 text\nmore\n");
+        assertEquals(7L, WordCounter.count(file, 4));
+    }
+
+    @Test
+    public void countsArePersisted() throws IOException {
+        write("first\nsecond\n");
+
+        assertEquals(2L, LineCounter.count(file));
+        assertEquals(2L, WordCounter.count(file));
+        assertEquals(1, cacheFolder.list().length);
+
+        overwriteCache("lines", 42L);
+        overwriteCache("words", 84L);
+
+        assertEquals(42L, LineCounter.count(file));
+        assertEquals(84L, WordCounter.count(file));
+    }
+
+    @Test
+    public void changedFileIsCountedAgain() throws IOException {
+        write("first\nsecond\n");
+        assertEquals(2L, LineCounter.count(file));
+        overwriteCache("lines", 42L);
+
+        write("first\nsecond\nthird\n");
+        assertTrue(file.setLastModified(file.lastModified() + 2000L));
+
+        assertEquals(3L, LineCounter.count(file));
+        assertEquals(3L, WordCounter.count(file));
+    }
+
+    @Test
+    public void missingCount() throws IOException {
+        write("first\n");
+        assertEquals(-1L, FileCountsCache.get(file, "lines"));
+
+        LineCounter.count(file);
+        assertEquals(1L, FileCountsCache.get(file, "lines"));
+        assertEquals(-1L, FileCountsCache.get(file, "words"));
+    }
+
+}
@@ -0,0 +1,156 @@
+package eu.modernmt.io;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UnixLineReaderTest {
+
+    // 2, 3 and 4 bytes UTF-8 sequences
+    private static final String MULTIBYTE = "è€😀";
+
+    /**
+     * An InputStream that returns at most chunkSize bytes for every read,
+     * so that every sequence of bytes is split across reads.
+     */
+    private static class ChunkedInputStream extends FilterInputStream {
+
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] bytes, int chunkSize) {
+            super(new ByteArrayInputStream(bytes));
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, chunkSize));
+        }
+
+    }
+
+    /**
+     * A Reader that returns at most chunkSize chars for every read.
+     */
+    private static class ChunkedReader extends FilterReader {
+
+        private final int chunkSize;
+
+        ChunkedReader(String string, int chunkSize) {
+            super(new StringReader(string));
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, chunkSize));
+        }
+
+    }
+
+    private static List<String> readAll(LineReader reader) throws IOException {
+        try {
+            List<String> lines = new ArrayList<>();
+
+            String line;
+            while ((line = reader.readLine()) != null)
+                lines.add(line);
+
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertLines(String content, String... expected) throws IOException {
+        List<String> expectedLines = Arrays.asList(expected);
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+
+        for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+            String message = "chunk size " + chunkSize;
+
+            assertEquals(message, expectedLines,
+                    readAll(new UnixLineReader(new ChunkedInputStream(utf8, chunkSize), StandardCharsets.UTF_8)));
+            assertEquals(message, expectedLines,
+                    readAll(new UnixLineReader(new ChunkedReader(content, chunkSize))));
+        }
+
+        Charset utf16 = StandardCharsets.UTF_16;
+        assertEquals(expectedLines,
+                readAll(new UnixLineReader(new ByteArrayInputStream(content.getBytes(utf16)), utf16)));
+    }
+
+    @Test
+    public void lineFeed() throws IOException {
+        assertLines("first\nsecond\n", "first", "second");
+    }
+
+    @Test
+    public void crlfSplitAcrossReads() throws IOException {
+        assertLines("first\r\nsecond\r\nthird\r\n", "first", "second", "third");
+    }
+
+    @Test
+    public void carriageReturnNotBeforeLineFeed() throws IOException {
+        assertLines("a\rb\n\r\r\n\rc\n", "a\rb", "\r", "\rc");
+    }
+
+    @Test
+    public void multibyteSplitAcrossReads() throws IOException {
+        assertLines(MULTIBYTE + "\n" + MULTIBYTE + MULTIBYTE + "\r\n", MULTIBYTE, MULTIBYTE + MULTIBYTE);
+    }
+
+    @Test
+    public void missingFinalNewline() throws IOException {
+        assertLines("first\nsecond", "first", "second");
+        assertLines("first\r\n" + MULTIBYTE, "first", MULTIBYTE);
+    }
+
+    @Test
+    public void emptyLines() throws IOException {
+        assertLines("\n\r\n\n", "", "", "");
+        assertLines("");
+    }
+
+    @Test
+    public void linesLongerThanBuffer() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 200000)
+            builder.append(MULTIBYTE).append("abc");
+        String longLine = builder.toString();
+
+        String content = longLine + "\r\nshort\n" + longLine;
+        List<String> expected = Arrays.asList(longLine, "short", longLine);
+
+        assertEquals(expected, readAll(new UnixLineReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)));
+        assertEquals(expected, readAll(new UnixLineReader(new StringReader(content))));
+    }
+
+    @Test
+    public void crlfAndMultibyteAtBufferBoundary() throws IOException {
+        // the byte buffer is 64 KB and the char buffer 8 K chars: try every alignment around the boundaries
+        for (int boundary : new int[]{8192, 65536}) {
+            for (int shift = -4; shift <= 4; shift++) {
+                char[] padding = new char[boundary + shift];
+                Arrays.fill(padding, 'x');
+                String first = new String(padding);
+
+                String content = first + "\r\n" + MULTIBYTE + "\r\n" + first + MULTIBYTE + "\n" + MULTIBYTE;
+                List<String> expected = Arrays.asList(first, MULTIBYTE, first + MULTIBYTE, MULTIBYTE);
+
+                assertEquals(expected, readAll(new UnixLineReader(
+                        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)));
+                assertEquals(expected, readAll(new UnixLineReader(new StringReader(content))));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package eu.modernmt.model.corpus.impl.parallel;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompactFileCorpusTest {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+    private static final String MULTIBYTE = "è€😀";
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("CompactFileCorpusTest", ".cfc");
+    }
+
+    @After
+    public void teardown() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    private List<MultilingualCorpus.StringPair> read(String content) throws IOException {
+        FileUtils.writeByteArrayToFile(file, content.getBytes(StandardCharsets.UTF_8));
+
+        List<MultilingualCorpus.StringPair> pairs = new ArrayList<>();
+        MultilingualCorpus.MultilingualLineReader reader = new CompactFileCorpus(file).getContentReader();
+        try {
+            MultilingualCorpus.StringPair pair;
+            while ((pair = reader.read()) != null)
+                pairs.add(pair);
+        } finally {
+            reader.close();
+        }
+
+        return pairs;
+    }
+
+    private static void assertPair(MultilingualCorpus.StringPair pair, String source, String target, Date timestamp) {
+        assertEquals(EN_IT, pair.language);
+        assertEquals(source, pair.source);
+        assertEquals(target, pair.target);
+        assertEquals(timestamp, pair.timestamp);
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        MultilingualCorpus.MultilingualLineWriter writer = new CompactFileCorpus(file).getContentWriter(false);
+        try {
+            writer.write(new MultilingualCorpus.StringPair(EN_IT, "Hello", "Ciao " + MULTIBYTE, new Date(1234L)));
+            writer.write(new MultilingualCorpus.StringPair(EN_IT, "World", "Mondo", null));
+        } finally {
+            writer.close();
+        }
+
+        MultilingualCorpus.MultilingualLineReader reader = new CompactFileCorpus(file).getContentReader();
+        try {
+            assertPair(reader.read(), "Hello", "Ciao " + MULTIBYTE, new Date(1234L));
+            assertPair(reader.read(), "World", "Mondo", null);
+            assertNull(reader.read());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void crlf() throws IOException {
+        List<MultilingualCorpus.StringPair> pairs = read("Hello\r\nCiao\r\n1234,en it\r\nWorld\r\nMondo\r\n0,en it\r\n");
+
+        assertEquals(2, pairs.size());
+        assertPair(pairs.get(0), "Hello", "Ciao", new Date(1234L));
+        assertPair(pairs.get(1), "World", "Mondo", null);
+    }
+
+    @Test
+    public void missingFinalNewline() throws IOException {
+        List<MultilingualCorpus.StringPair> pairs = read("Hello\nCiao\n1234,en it");
+
+        assertEquals(1, pairs.size());
+        assertPair(pairs.get(0), "Hello", "Ciao", new Date(1234L));
+    }
+
+    @Test
+    public void crlfAndMultibyteAtBufferBoundary() throws IOException {
+        // the file is read in blocks of 64 KB: try every alignment of CRLF and multibyte chars around the boundary
+        for (int shift = -4; shift <= 4; shift++) {
+            char[] padding = new char[65536 + shift];
+            Arrays.fill(padding, 'x');
+            String source = new String(padding);
+
+            List<MultilingualCorpus.StringPair> pairs = read(source + "\r\n" + MULTIBYTE + "\r\n0,en it\r\n" +
+                    source + MULTIBYTE + "\n" + MULTIBYTE + "\n1234,en it");
+
+            assertEquals(2, pairs.size());
+            assertPair(pairs.get(0), source, MULTIBYTE, null);
+            assertPair(pairs.get(1), source + MULTIBYTE, MULTIBYTE, new Date(1234L));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void missingMetadata() throws IOException {
+        read("Hello\nCiao\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidMetadata() throws IOException {
+        read("Hello\nCiao\n1234;en it\n");
+    }
+
+}
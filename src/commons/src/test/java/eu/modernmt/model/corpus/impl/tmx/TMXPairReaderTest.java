@@ -0,0 +1,89 @@
+package eu.modernmt.model.corpus.impl.tmx;
+
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import eu.modernmt.xml.XMLUtils;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class TMXPairReaderTest {
+
+    private static List<MultilingualCorpus.StringPair> readTu(String changedate) throws XMLStreamException {
+        String tmx = "<tmx version=\"1.4\"><header srclang=\"en\"/><body>" +
+                "<tu changedate=\"" + changedate + "\">" +
+                "<tuv xml:lang=\"en\"><seg>Hello</seg></tuv>" +
+                "<tuv xml:lang=\"it\"><seg>Ciao</seg></tuv>" +
+                "</tu></body></tmx>";
+
+        XMLStreamReader reader = XMLUtils.createStreamReader(new ByteArrayInputStream(tmx.getBytes(StandardCharsets.UTF_8)));
+        try {
+            return new TMXPairReader().read(reader);
+        } finally {
+            XMLUtils.closeQuietly(reader);
+        }
+    }
+
+    private static Date parseWithDateFormat(String date) throws Throwable {
+        SimpleDateFormat format = new SimpleDateFormat(TMXCorpus.TMX_DATE_FORMAT);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.parse(date);
+    }
+
+    @Test
+    public void canonicalDate() throws Throwable {
+        List<MultilingualCorpus.StringPair> pairs = readTu("20200229T235958Z");
+
+        assertEquals(1, pairs.size());
+        assertEquals("Hello", pairs.get(0).source);
+        assertEquals("Ciao", pairs.get(0).target);
+        assertEquals(parseWithDateFormat("20200229T235958Z"), pairs.get(0).timestamp);
+    }
+
+    @Test
+    public void canonicalDateMatchesDateFormat() throws Throwable {
+        TMXPairReader.TMXDateParser parser = new TMXPairReader.TMXDateParser();
+        String[] dates = {"19700101T000000Z", "19991231T235959Z", "20000229T120000Z", "21000301T010203Z"};
+
+        for (String date : dates)
+            assertEquals(date, parseWithDateFormat(date), parser.parse(date));
+    }
+
+    @Test
+    public void datesOutOfRangeAreLenient() throws Throwable {
+        TMXPairReader.TMXDateParser parser = new TMXPairReader.TMXDateParser();
+        String[] dates = {"19650101T000000Z", "20200101T240000Z", "20200132T000000Z"};
+
+        for (String date : dates)
+            assertEquals(date, parseWithDateFormat(date), parser.parse(date));
+    }
+
+    @Test
+    public void nonDigitInTime() {
+        try {
+            readTu("20200101T1a0000Z");
+            fail("Expected XMLStreamException");
+        } catch (XMLStreamException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Invalid date '20200101T1a0000Z'"));
+        }
+    }
+
+    @Test
+    public void nonDigitInDate() {
+        try {
+            readTu("2020x101T100000Z");
+            fail("Expected XMLStreamException");
+        } catch (XMLStreamException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Invalid date"));
+        }
+    }
+
+}
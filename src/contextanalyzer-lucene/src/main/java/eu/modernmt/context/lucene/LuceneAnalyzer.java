@@ -3,6 +3,7 @@ package eu.modernmt.context.lucene;
 import eu.modernmt.context.ContextAnalyzer;
 import eu.modernmt.context.ContextAnalyzerException;
 import eu.modernmt.context.lucene.analysis.ContextAnalyzerIndex;
+import eu.modernmt.context.lucene.analysis.ContextVectorCache;
 import eu.modernmt.context.lucene.storage.CorporaStorage;
 import eu.modernmt.context.lucene.storage.Options;
 import eu.modernmt.data.DataBatch;
@@ -20,6 +21,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,7 +42,7 @@ public class LuceneAnalyzer implements ContextAnalyzer {
     }
 
     public LuceneAnalyzer(LanguageIndex languages, File indexPath, Options options) throws IOException {
-        this.index = new ContextAnalyzerIndex(new File(indexPath, "index"));
+        this.index = new ContextAnalyzerIndex(new File(indexPath, "index"), options.cacheSize);
         this.storage = new CorporaStorage(new File(indexPath, "storage"), options, this.index, languages);
     }
 
@@ -57,6 +59,10 @@ public class LuceneAnalyzer implements ContextAnalyzer {
         return storage;
     }
 
+    public ContextVectorCache getCache() {
+        return index.getCache();
+    }
+
     @Override
     public void add(Memory memory, MultilingualCorpus corpus) throws ContextAnalyzerException {
         HashMap<Memory, MultilingualCorpus> map = new HashMap<>(1);
@@ -143,12 +149,16 @@ public class LuceneAnalyzer implements ContextAnalyzer {
         }
 
         try {
+            ArrayList<Long> memories = new ArrayList<>(deletions.size());
+
             for (Deletion deletion : deletions) {
                 index.delete(deletion.memory);
+                memories.add(deletion.memory);
                 logger.info("Memory deleted from ContextAnalyzer index: " + deletion.memory);
             }
 
             index.flush();
+            index.invalidateCache(memories);
 
             indexUpdated = true;
         } catch (IOException e) {
@@ -5,6 +5,7 @@ import eu.modernmt.context.lucene.analysis.rescoring.Rescorer;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.ContextVector;
 import eu.modernmt.model.corpus.Corpus;
+import eu.modernmt.model.corpus.impl.StringCorpus;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.lucene.analysis.Analyzer;
@@ -22,6 +23,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Collection;
 
 /**
  * Created by davide on 10/07/15.
@@ -29,11 +31,13 @@ import java.io.Reader;
 public class ContextAnalyzerIndex implements Closeable {
 
     private static final int MIN_RESULT_BATCH = 20;
+    public static final int DEFAULT_CACHE_SIZE = 1000;
 
     private final Directory indexDirectory;
     private final Analyzer analyzer;
     private final IndexWriter indexWriter;
     private final Rescorer rescorer;
+    private final ContextVectorCache cache;
 
     private DirectoryReader _indexReader;
     private IndexSearcher _indexSearcher;
@@ -45,7 +49,11 @@ public class ContextAnalyzerIndex implements Closeable {
     }
 
     public ContextAnalyzerIndex(File indexPath) throws IOException {
-        this(indexPath, new CosineSimilarityRescorer());
+        this(indexPath, DEFAULT_CACHE_SIZE);
+    }
+
+    public ContextAnalyzerIndex(File indexPath, int cacheSize) throws IOException {
+        this(FSDirectory.open(forceMkdir(indexPath)), new CosineSimilarityRescorer(), cacheSize);
     }
 
     public ContextAnalyzerIndex(Directory directory) throws IOException {
@@ -57,9 +65,14 @@ public class ContextAnalyzerIndex implements Closeable {
     }
 
     public ContextAnalyzerIndex(Directory directory, Rescorer rescorer) throws IOException {
+        this(directory, rescorer, DEFAULT_CACHE_SIZE);
+    }
+
+    public ContextAnalyzerIndex(Directory directory, Rescorer rescorer, int cacheSize) throws IOException {
         this.indexDirectory = directory;
         this.analyzer = new CorpusAnalyzer();
         this.rescorer = rescorer;
+        this.cache = cacheSize > 0 ? new ContextVectorCache(cacheSize) : null;
 
         // Index writer setup
         IndexWriterConfig indexConfig = new IndexWriterConfig(Version.LUCENE_4_10_4, this.analyzer);
@@ -105,8 +118,22 @@ public class ContextAnalyzerIndex implements Closeable {
         return this._indexSearcher;
     }
 
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    public ContextVectorCache getCache() {
+        return cache;
+    }
+
     public void invalidateCache() {
-        // Do nothing.
+        if (cache != null)
+            cache.invalidate();
+    }
+
+    public void invalidateCache(Collection<Long> memories) {
+        if (cache != null)
+            cache.invalidate(memories);
     }
 
     public void update(Document document) throws IOException {
@@ -131,7 +158,27 @@ public class ContextAnalyzerIndex implements Closeable {
     }
 
     public ContextVector getContextVector(LanguagePair direction, Corpus queryDocument, int limit) throws IOException {
-        return this.getContextVector(direction, queryDocument, limit, this.rescorer);
+        if (cache == null)
+            return this.getContextVector(direction, queryDocument, limit, this.rescorer);
+
+        String content;
+        Reader reader = queryDocument.getRawContentReader();
+
+        try {
+            content = IOUtils.toString(reader);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        ContextVectorCache.Key key = cache.key(direction, limit, content);
+        ContextVector vector = cache.get(key);
+
+        if (vector == null) {
+            vector = this.getContextVector(direction, new StringCorpus(null, direction.source, content), limit, this.rescorer);
+            cache.put(key, vector);
+        }
+
+        return vector;
     }
 
     public ContextVector getContextVector(LanguagePair direction, Corpus queryDocument, int limit, Rescorer rescorer) throws IOException {
@@ -0,0 +1,153 @@
+package eu.modernmt.context.lucene.analysis;
+
+import eu.modernmt.io.DefaultCharset;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.ContextVector;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of the context vectors computed by ContextAnalyzerIndex.
+ * Entries are keyed by direction, limit and a SHA-1 hash of the query document,
+ * and they can be invalidated either all at once or by memory.
+ * Callers are free to modify the vectors they put and get (i.e. to resolve the names of the memories):
+ * the cache stores its own copy and returns a new copy on every hit.
+ */
+public class ContextVectorCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, ContextVector> entries;
+    private final AtomicLong hits = new AtomicLong(0L);
+    private final AtomicLong misses = new AtomicLong(0L);
+
+    private long generation = 0L;
+
+    public ContextVectorCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, ContextVector>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ContextVector> eldest) {
+                return size() > ContextVectorCache.this.maxSize;
+            }
+        };
+    }
+
+    public Key key(LanguagePair direction, int limit, String content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error("Unsupported hash algorithm SHA-1", e);
+        }
+
+        byte[] hash = digest.digest(content.getBytes(DefaultCharset.get()));
+
+        synchronized (this) {
+            return new Key(direction, limit, hash, generation);
+        }
+    }
+
+    public ContextVector get(Key key) {
+        ContextVector vector;
+
+        synchronized (this) {
+            vector = entries.get(key);
+        }
+
+        if (vector == null) {
+            misses.incrementAndGet();
+            return null;
+        } else {
+            hits.incrementAndGet();
+            return vector.copy();
+        }
+    }
+
+    public synchronized void put(Key key, ContextVector vector) {
+        // Skip results computed before the latest invalidation
+        if (key.generation == generation)
+            entries.put(key, vector.copy());
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized void invalidate(Collection<Long> memories) {
+        if (memories.isEmpty())
+            return;
+
+        generation++;
+
+        HashSet<Long> ids = new HashSet<>(memories);
+        for (Iterator<ContextVector> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            ContextVector vector = iterator.next();
+
+            for (ContextVector.Entry entry : vector) {
+                if (ids.contains(entry.memory.getId())) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + this.misses.get();
+
+        return total == 0 ? 0. : ((double) hits) / total;
+    }
+
+    public static final class Key {
+
+        private final LanguagePair direction;
+        private final int limit;
+        private final byte[] hash;
+        private final long generation;
+
+        private Key(LanguagePair direction, int limit, byte[] hash, long generation) {
+            this.direction = direction;
+            this.limit = limit;
+            this.hash = hash;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (limit != key.limit) return false;
+            if (!direction.equals(key.direction)) return false;
+            return Arrays.equals(hash, key.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = direction.hashCode();
+            result = 31 * result + limit;
+            result = 31 * result + Arrays.hashCode(hash);
+            return result;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package eu.modernmt.context.lucene.analysis;
 import eu.modernmt.lang.Language;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.corpus.Corpus;
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongField;
@@ -85,6 +86,16 @@ public class DocumentBuilder {
         return document;
     }
 
+    public static Document createDocument(LanguagePair direction, long memory, TokenStream contentStream) {
+        Document document = new Document();
+        document.add(new StringField(DOCID_FIELD, makeDocumentId(direction, memory), Field.Store.NO));
+        document.add(new LongField(MEMORY_FIELD, memory, Field.Store.YES));
+        document.add(new StringField(LANGUAGE_FIELD, makeLanguageTag(direction), Field.Store.NO));
+        document.add(new CorpusContentField(getContentFieldName(direction), contentStream));
+
+        return document;
+    }
+
     // Utils
 
     private static String makeDocumentId(LanguagePair direction, long memory) {
@@ -0,0 +1,194 @@
+package eu.modernmt.context.lucene.analysis;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Persistent term-frequency state of a corpus document. It allows to add new content
+ * to an already analyzed document by tokenizing only the new data, and to rebuild
+ * the document content field directly from the stored frequencies.
+ */
+public class TermFrequencies {
+
+    private static final int MAX_INDEXED_WORDS_PER_DOCUMENT = 100000000;
+
+    private final HashMap<String, Counter> terms;
+    private long offset;
+    private long size;
+
+    public static TermFrequencies load(File file) throws IOException {
+        if (!file.isFile())
+            return null;
+
+        DataInputStream input = null;
+
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+            long offset = input.readLong();
+            long size = input.readLong();
+            int length = input.readInt();
+
+            HashMap<String, Counter> terms = new HashMap<>(length);
+
+            for (int i = 0; i < length; i++) {
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+
+                Counter counter = new Counter();
+                counter.value = input.readInt();
+
+                terms.put(new String(bytes, StandardCharsets.UTF_8), counter);
+            }
+
+            return new TermFrequencies(terms, offset, size);
+        } catch (EOFException e) {
+            // Truncated file: the state must be rebuilt from scratch
+            return null;
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    public TermFrequencies() {
+        this(new HashMap<>(), 0L, 0L);
+    }
+
+    private TermFrequencies(HashMap<String, Counter> terms, long offset, long size) {
+        this.terms = terms;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * @return the offset (in bytes) of the source content analyzed so far
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public void add(Analyzer analyzer, String fieldName, Reader content, long newOffset) throws IOException {
+        TokenStream stream = null;
+
+        try {
+            stream = analyzer.tokenStream(fieldName, content);
+            CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+
+            stream.reset();
+            while (size < MAX_INDEXED_WORDS_PER_DOCUMENT && stream.incrementToken()) {
+                terms.computeIfAbsent(termAttribute.toString(), key -> new Counter()).value++;
+                size++;
+            }
+
+            stream.end();
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+
+        this.offset = newOffset;
+    }
+
+    public void store(File file) throws IOException {
+        File swapFile = new File(file.getParentFile(), "~" + file.getName());
+        DataOutputStream output = null;
+
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(swapFile, false)));
+
+            output.writeLong(offset);
+            output.writeLong(size);
+            output.writeInt(terms.size());
+
+            for (Map.Entry<String, Counter> entry : terms.entrySet()) {
+                byte[] bytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                output.writeInt(entry.getValue().value);
+            }
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+
+        Files.move(swapFile.toPath(), file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+        FileUtils.deleteQuietly(swapFile);
+    }
+
+    /**
+     * Creates a TokenStream that emits every term as many times as its frequency;
+     * the stream does not need any further analysis.
+     *
+     * @return a pre-analyzed TokenStream with the content of this object
+     */
+    public TokenStream getTokenStream() {
+        return new FrequenciesTokenStream(terms);
+    }
+
+    private static final class Counter {
+
+        public int value = 0;
+
+    }
+
+    private static final class FrequenciesTokenStream extends TokenStream {
+
+        private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+        private final HashMap<String, Counter> terms;
+
+        private Iterator<Map.Entry<String, Counter>> iterator = null;
+        private String term = null;
+        private int remaining = 0;
+
+        public FrequenciesTokenStream(HashMap<String, Counter> terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            this.iterator = terms.entrySet().iterator();
+            this.term = null;
+            this.remaining = 0;
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            clearAttributes();
+
+            if (remaining == 0) {
+                Map.Entry<String, Counter> entry = null;
+
+                while (iterator.hasNext()) {
+                    entry = iterator.next();
+
+                    if (entry.getValue().value > 0)
+                        break;
+                    else
+                        entry = null;
+                }
+
+                if (entry == null)
+                    return false;
+
+                term = entry.getKey();
+                remaining = entry.getValue().value;
+            }
+
+            termAttribute.append(term);
+            remaining--;
+            return true;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package eu.modernmt.context.lucene.storage;
 
 import eu.modernmt.context.lucene.analysis.ContextAnalyzerIndex;
 import eu.modernmt.context.lucene.analysis.DocumentBuilder;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
 import eu.modernmt.io.DefaultCharset;
 import eu.modernmt.lang.LanguagePair;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.document.Document;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -34,19 +37,39 @@ class AnalysisTask implements Callable<Void> {
         long memory = bucket.getMemory();
         LanguagePair direction = bucket.getLanguageDirection();
 
-        logger.info("Indexing bucket " + bucket);
+        File termFrequenciesPath = bucket.getTermFrequenciesPath();
+        long begin = bucket.getAnalyzerOffset();
+        long end = bucket.getCurrentOffset();
 
-        try {
-            Reader reader = new InputStreamReader(bucket.getContentStream(), DefaultCharset.get());
+        // Incremental analysis is possible only if the stored state
+        // matches exactly the content analyzed so far
+        TermFrequencies frequencies = TermFrequencies.load(termFrequenciesPath);
+        if (frequencies == null || frequencies.getOffset() != begin) {
+            frequencies = new TermFrequencies();
+            begin = 0L;
+        }
 
-            Document document = DocumentBuilder.createDocument(direction, memory, reader);
-            index.update(document);
+        logger.info("Indexing bucket " + bucket + " from offset " + begin);
 
-            bucket.onAnalysisCompleted();
+        Reader reader = null;
+
+        try {
+            reader = new InputStreamReader(bucket.getContentStream(begin, end), DefaultCharset.get());
+            frequencies.add(index.getAnalyzer(), DocumentBuilder.getContentFieldName(direction), reader, end);
         } catch (FileNotFoundException e) {
             // Missing file? Ignore it!
+            return null;
+        } finally {
+            IOUtils.closeQuietly(reader);
         }
 
+        frequencies.store(termFrequenciesPath);
+
+        Document document = DocumentBuilder.createDocument(direction, memory, frequencies.getTokenStream());
+        index.update(document);
+
+        bucket.onAnalysisCompleted();
+
         return null;
     }
 }
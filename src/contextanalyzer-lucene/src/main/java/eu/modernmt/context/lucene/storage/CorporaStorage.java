@@ -214,11 +214,17 @@ public class CorporaStorage {
             return;
 
         ArrayList<Future<Void>> pendingAnalysis = new ArrayList<>(buckets.size());
+        HashSet<Long> updatedMemories = new HashSet<>(buckets.size());
+        boolean newDocuments = false;
 
         for (CorpusBucket bucket : buckets) {
             if (bucket.isDeleted())
                 continue;
 
+            updatedMemories.add(bucket.getMemory());
+            if (bucket.getAnalyzerOffset() == 0L)
+                newDocuments = true;
+
             AnalysisTask task = new AnalysisTask(contextAnalyzer, bucket);
             try {
                 pendingAnalysis.add(analysisExecutor.submit(task));
@@ -246,7 +252,13 @@ public class CorporaStorage {
         }
 
         this.contextAnalyzer.flush();
-        this.contextAnalyzer.invalidateCache();
+
+        // A new document can enter any cached result, while an updated one
+        // only affects the cached results that already contain it
+        if (newDocuments)
+            this.contextAnalyzer.invalidateCache();
+        else
+            this.contextAnalyzer.invalidateCache(updatedMemories);
     }
 
     public void shutdown() {
@@ -5,6 +5,7 @@ import eu.modernmt.lang.Language;
 import eu.modernmt.lang.LanguagePair;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 
 import java.io.*;
 import java.nio.channels.FileChannel;
@@ -57,6 +58,7 @@ public class CorpusBucket implements Closeable {
     private boolean deleted;
 
     private final File path;
+    private final File termFrequenciesPath;
     private FileOutputStream stream = null;
 
     private static String toString(Language locale) {
@@ -71,6 +73,7 @@ public class CorpusBucket implements Closeable {
         this.direction = direction;
         this.memory = memory;
         this.path = new File(folder, memory + "_" + toString(direction.source) + "__" + toString(direction.target));
+        this.termFrequenciesPath = new File(folder, this.path.getName() + ".tf");
         this.analysisOptions = analysisOptions;
 
         this.analyzerOffset = analyzerOffset;
@@ -100,6 +103,23 @@ public class CorpusBucket implements Closeable {
         return new FileInputStream(path);
     }
 
+    public InputStream getContentStream(long begin, long end) throws IOException {
+        FileInputStream stream = new FileInputStream(path);
+
+        try {
+            stream.getChannel().position(begin);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(stream);
+            throw e;
+        }
+
+        return new BoundedInputStream(stream, end - begin);
+    }
+
+    public File getTermFrequenciesPath() {
+        return termFrequenciesPath;
+    }
+
     public void flush() throws IOException {
         stream.flush();
         currentOffset = stream.getChannel().position();
@@ -108,6 +128,7 @@ public class CorpusBucket implements Closeable {
     public void delete() throws IOException {
         IOUtils.closeQuietly(stream);
         FileUtils.deleteQuietly(path);
+        FileUtils.deleteQuietly(termFrequenciesPath);
 
         stream = null;
         analyzerOffset = 0L;
@@ -122,6 +143,14 @@ public class CorpusBucket implements Closeable {
         return direction;
     }
 
+    public long getAnalyzerOffset() {
+        return analyzerOffset;
+    }
+
+    public long getCurrentOffset() {
+        return currentOffset;
+    }
+
     public boolean hasUnanalyzedContent() {
         return analyzerOffset < currentOffset;
     }
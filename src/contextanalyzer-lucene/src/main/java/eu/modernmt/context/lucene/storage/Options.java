@@ -8,6 +8,7 @@ public class Options {
     public static Options prepareForBulkLoad() {
         Options options = new Options();
         options.writeBehindDelay = Long.MAX_VALUE;
+        options.cacheSize = 0;
 
         options.analysisOptions.minOffset = Long.MAX_VALUE;
         options.analysisOptions.maxToleratedMisalignment = Long.MAX_VALUE;
@@ -23,6 +24,10 @@ public class Options {
     // This value controls the maximum write behind delay
     public long writeBehindDelay = 10000L; // 10s (10000 ms)
 
+    // Maximum number of context vectors kept in cache,
+    // a value of 0 disables the cache
+    public int cacheSize = 1000;
+
     public static class AnalysisOptions {
         // Prevent storing memory in the context analyzer if
         // it has been written less than 'minOffset' bytes
@@ -8,8 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static eu.modernmt.context.lucene.TestData.*;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 /**
  * Created by davide on 07/08/17.
@@ -108,4 +107,52 @@ public class LuceneAnalyzerTest_getContextVector {
         assertEquals(0, result.size());
     }
 
+    @Test
+    public void repeatedSearchHitsCache() throws Throwable {
+        ContextVector first = analyzer.getContextVector(EN__IT, "hello world", 100);
+        ContextVector second = analyzer.getContextVector(EN__IT, "hello world", 100);
+        ContextVector other = analyzer.getContextVector(EN__IT, "hello world", 1);
+
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(1, other.size());
+        assertEquals(1, analyzer.getCache().getHitCount());
+        assertEquals(2, analyzer.getCache().getMissCount());
+    }
+
+    @Test
+    public void cachedVectorIsNotShared() throws Throwable {
+        ContextVector first = analyzer.getContextVector(EN__IT, "hello world", 100);
+        for (ContextVector.Entry entry : first)
+            entry.memory.setName("first");
+
+        ContextVector second = analyzer.getContextVector(EN__IT, "hello world", 100);
+        for (ContextVector.Entry entry : second) {
+            assertNull(entry.memory.getName());
+            entry.memory.setName("second");
+        }
+
+        ContextVector third = analyzer.getContextVector(EN__IT, "hello world", 100);
+        for (ContextVector.Entry entry : third)
+            assertNull(entry.memory.getName());
+
+        for (ContextVector.Entry entry : first)
+            assertEquals("first", entry.memory.getName());
+
+        assertEquals(2, analyzer.getCache().getHitCount());
+    }
+
+    @Test
+    public void deletionInvalidatesCache() throws Throwable {
+        ContextVector result = analyzer.getContextVector(EN__IT, "hello world", 100);
+        assertTrue(contains(result, 1));
+
+        analyzer.onDelete(TestData.deletion(1));
+
+        result = analyzer.getContextVector(EN__IT, "hello world", 100);
+        assertEquals(2, result.size());
+        assertFalse(contains(result, 1));
+        assertEquals(0, analyzer.getCache().getHitCount());
+    }
+
 }
@@ -1,16 +1,24 @@
 package eu.modernmt.context.lucene;
 
+import eu.modernmt.context.lucene.analysis.DocumentBuilder;
+import eu.modernmt.context.lucene.analysis.LuceneUtils;
 import eu.modernmt.data.TranslationUnit;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.Memory;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.junit.After;
 import org.junit.Test;
 
+import java.io.StringReader;
 import java.util.*;
 
 import static eu.modernmt.context.lucene.TestData.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by davide on 06/08/17.
@@ -289,4 +297,32 @@ public class LuceneAnalyzerTest_onDataReceived {
         assertNull(analyzer.getEntry(2, EN__FR));
     }
 
+    @Test
+    public void incrementalAnalysisMatchesFullAnalysis() throws Throwable {
+        setup(EN__IT);
+
+        List<TranslationUnit> units1 = TestData.tuList(0, 0L, 1L, EN__IT, 4);
+        List<TranslationUnit> units2 = TestData.tuList(0, 4L, 1L, EN__IT, 6);
+
+        analyzer.onDataReceived(units1);
+        analyzer.flush();
+        analyzer.onDataReceived(units2);
+        analyzer.flush();
+
+        TLuceneAnalyzer.Entry entry = analyzer.getEntry(1, EN__IT);
+        String fieldName = DocumentBuilder.getContentFieldName(EN__IT);
+
+        Document reference = DocumentBuilder.createDocument(EN__IT, 1L, new StringReader(entry.content));
+        Map<String, Float> expectedFrequencies = LuceneUtils.getTermFrequencies(analyzer.getIndex().getAnalyzer(), reference, fieldName);
+
+        IndexSearcher searcher = analyzer.getIndex().getIndexSearcher();
+        TopDocs docs = searcher.search(new TermQuery(DocumentBuilder.makeDocumentIdTerm(1L, EN__IT)), 1);
+        Map<String, Float> frequencies = LuceneUtils.getTermFrequencies(searcher.getIndexReader(), docs.scoreDocs[0].doc, fieldName);
+
+        assertEquals(1, analyzer.getIndexSize());
+        assertEquals(TestData.channels(0, 9), analyzer.getLatestChannelPositions());
+        assertEquals(expectedFrequencies, frequencies);
+        assertTrue(analyzer.getStorage().getBucket(1L, EN__IT).getTermFrequenciesPath().isFile());
+    }
+
 }
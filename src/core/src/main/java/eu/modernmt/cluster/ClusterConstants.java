@@ -7,5 +7,7 @@ public class ClusterConstants {
 
     public static final String TRANSLATION_SERVICE_NAME = "TranslationService";
     public static final String DECODER_WEIGHTS_TOPIC_NAME = "DecoderWeightsTopic";
+    public static final String METRICS_EXECUTOR_NAME = "MetricsExecutor";
+    public static final String MEMORY_CHANGES_TOPIC_NAME = "MemoryChangesTopic";
 
 }
@@ -9,6 +9,8 @@ import eu.modernmt.cluster.db.EmbeddedCassandra;
 import eu.modernmt.cluster.error.FailedToJoinClusterException;
 import eu.modernmt.cluster.kafka.EmbeddedKafka;
 import eu.modernmt.cluster.kafka.KafkaDataManager;
+import eu.modernmt.cluster.services.AdmissionController;
+import eu.modernmt.cluster.services.MultiLevelPriorityBlockingQueue;
 import eu.modernmt.cluster.services.TranslationService;
 import eu.modernmt.cluster.services.TranslationServiceProxy;
 import eu.modernmt.config.*;
@@ -30,8 +32,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.Closeable;
 import java.util.*;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
  * Created by davide on 18/04/16.
@@ -57,6 +58,9 @@ public class ClusterNode {
         void onStatusChanged(ClusterNode node, Status currentStatus, Status previousStatus);
     }
 
+    /* min time (in milliseconds) between two updates of the channels positions in the cluster */
+    private static final long CHANNELS_POSITIONS_UPDATE_INTERVAL = 1000L;
+
     private final Logger logger = LogManager.getLogger(ClusterNode.class);
 
     private Engine engine;
@@ -69,6 +73,18 @@ public class ClusterNode {
     private DataManager dataManager;
     private Database database;
     private ITopic<Map<String, float[]>> decoderWeightsTopic;
+    private ITopic<Long> memoryChangesTopic;
+    private final MemoryCache memoryCache = new MemoryCache();
+    private final NodeInfoCache nodeInfoCache = new NodeInfoCache();
+
+    private final HashMap<Short, Long> channelsPositions = new HashMap<>();
+    private long channelsPositionsUpdateTime = 0L;
+    private boolean channelsPositionsUpdatePending = false;
+    private final ScheduledExecutorService channelsPositionsUpdater = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ChannelsPositionsUpdater");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private TranslationServiceProxy translationService;
 
@@ -84,6 +100,7 @@ public class ClusterNode {
 //            } catch (IOException e) {
 //                // Ignore exception
 //            }
+            channelsPositionsUpdater.shutdownNow();
             forcefullyClose(hazelcast);
 
             // Close engine resources
@@ -146,6 +163,10 @@ public class ClusterNode {
         return database;
     }
 
+    public MemoryCache getMemoryCache() {
+        return memoryCache;
+    }
+
     public void addStatusListener(StatusListener listener) {
         this.statusListeners.add(listener);
     }
@@ -166,6 +187,7 @@ public class ClusterNode {
             if (this.hazelcast != null) {
                 Member localMember = this.hazelcast.getCluster().getLocalMember();
                 NodeInfo.updateStatusInMember(localMember, status);
+                nodeInfoCache.update(localMember);
             }
 
             if (logger.isDebugEnabled())
@@ -246,7 +268,9 @@ public class ClusterNode {
                 .setThreads(threads)
                 .setHighPriorityQueueSize(queueConfig.getHighPrioritySize())
                 .setNormalPriorityQueueSize(queueConfig.getNormalPrioritySize())
-                .setBackgroundPriorityQueueSize(queueConfig.getBackgroundPrioritySize());
+                .setBackgroundPriorityQueueSize(queueConfig.getBackgroundPrioritySize())
+                .setAgingThreshold(queueConfig.getAgingThreshold())
+                .setTimeout(queueConfig.getTimeout());
 
         return hazelcastConfig;
     }
@@ -268,6 +292,9 @@ public class ClusterNode {
         try {
             hazelcast = Hazelcast.newHazelcastInstance(hazelcastConfig);
             uuid = hazelcast.getCluster().getLocalMember().getUuid();
+
+            hazelcast.getCluster().addMembershipListener(nodeInfoCache);
+            nodeInfoCache.load(hazelcast.getCluster());
         } catch (IllegalStateException e) {
             TcpIpConfig tcpIpConfig = hazelcastConfig.getNetworkConfig().getJoin().getTcpIpConfig();
             throw new FailedToJoinClusterException(tcpIpConfig.getRequiredMember());
@@ -413,6 +440,9 @@ public class ClusterNode {
         decoderWeightsTopic = hazelcast.getTopic(ClusterConstants.DECODER_WEIGHTS_TOPIC_NAME);
         decoderWeightsTopic.addMessageListener(this::onDecoderWeightsChanged);
 
+        memoryChangesTopic = hazelcast.getTopic(ClusterConstants.MEMORY_CHANGES_TOPIC_NAME);
+        memoryChangesTopic.addMessageListener(message -> memoryCache.invalidate(message.getMessageObject()));
+
         setStatus(Status.READY);
 
         logger.info("Node started in " + (globalTimer.time() / 1000.) + "s");
@@ -422,20 +452,61 @@ public class ClusterNode {
         return Collections.unmodifiableList(services);
     }
 
+    /*
+     * Positions are updated after every data batch: updates are merged and published
+     * at most once every CHANNELS_POSITIONS_UPDATE_INTERVAL, so that the member attributes
+     * (and the events they fire on every member) do not change at the rate of the batches.
+     */
     private void updateChannelsPositions(Map<Short, Long> positions) {
-        Member localMember = hazelcast.getCluster().getLocalMember();
-        NodeInfo.updateChannelsPositionsInMember(localMember, positions);
+        synchronized (channelsPositions) {
+            channelsPositions.putAll(positions);
+
+            if (channelsPositionsUpdatePending)
+                return;
+
+            long delay = channelsPositionsUpdateTime + CHANNELS_POSITIONS_UPDATE_INTERVAL - System.currentTimeMillis();
+
+            if (delay > 0) {
+                channelsPositionsUpdatePending = true;
+                channelsPositionsUpdater.schedule(this::publishChannelsPositions, delay, TimeUnit.MILLISECONDS);
+            } else {
+                publishChannelsPositions();
+            }
+        }
+    }
+
+    private void publishChannelsPositions() {
+        synchronized (channelsPositions) {
+            channelsPositionsUpdatePending = false;
+            channelsPositionsUpdateTime = System.currentTimeMillis();
+
+            Member localMember = hazelcast.getCluster().getLocalMember();
+            NodeInfo.updateChannelsPositionsInMember(localMember, channelsPositions);
+            nodeInfoCache.update(localMember);
+        }
     }
 
     private void updateDecoderTranslationDirections(Set<LanguagePair> directions) {
         Member localMember = hazelcast.getCluster().getLocalMember();
         NodeInfo.updateTranslationDirections(localMember, directions);
+        nodeInfoCache.update(localMember);
     }
 
     public void notifyDecoderWeightsChanged(Map<String, float[]> weights) {
         this.decoderWeightsTopic.publish(weights);
     }
 
+    /**
+     * Invalidates the cached metadata of a memory on all the cluster members;
+     * it must be called every time a memory is created, updated or deleted.
+     *
+     * @param id the id of the memory
+     */
+    public void notifyMemoryChanged(long id) {
+        memoryCache.invalidate(id);
+        this.memoryChangesTopic.publish(id);
+    }
+
     private void onDecoderWeightsChanged(Message<Map<String, float[]>> message) {
         logger.info("Received decoder weights changed notification");
 
@@ -454,14 +525,40 @@ public class ClusterNode {
     }
 
     public Collection<NodeInfo> getClusterNodes() {
-        Set<Member> members = hazelcast.getCluster().getMembers();
-        ArrayList<NodeInfo> nodes = new ArrayList<>(members.size());
+        return nodeInfoCache.getNodes();
+    }
+
+    public MultiLevelPriorityBlockingQueue<Runnable> getTranslationQueue() {
+        return translationService == null ? null : translationService.getLocalQueue();
+    }
+
+    public AdmissionController getAdmissionController() {
+        return translationService == null ? null : translationService.getLocalAdmissionController();
+    }
 
-        for (Member member : hazelcast.getCluster().getMembers()) {
-            nodes.add(NodeInfo.fromMember(member));
+    /**
+     * This method collects the metrics of all the members of the cluster and merges them together.
+     * Members that fail to answer within the given timeout are not taken into account.
+     *
+     * @param timeout the maximum time to wait for every member
+     * @param unit    the time unit of the timeout argument
+     * @return the cluster-wide metrics
+     */
+    public NodeMetrics getClusterMetrics(long timeout, TimeUnit unit) throws InterruptedException {
+        IExecutorService executor = hazelcast.getExecutorService(ClusterConstants.METRICS_EXECUTOR_NAME);
+        Map<Member, Future<NodeMetrics>> futures = executor.submitToAllMembers(new NodeMetrics.CollectTask());
+
+        NodeMetrics metrics = new NodeMetrics();
+
+        for (Map.Entry<Member, Future<NodeMetrics>> entry : futures.entrySet()) {
+            try {
+                metrics.merge(entry.getValue().get(timeout, unit));
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("Unable to collect metrics from member " + entry.getKey(), e);
+            }
         }
 
-        return nodes;
+        return metrics;
     }
 
     /**
@@ -472,7 +569,7 @@ public class ClusterNode {
      * @param task the translationTask with all the information on the translation job to execute
      * @return the resulting Translation object.
      */
-    public Future<Translation> submit(TranslationTask task, LanguagePair direction) throws TranslationException {
+    public ICompletableFuture<Translation> submit(TranslationTask task, LanguagePair direction) throws TranslationException {
         Member member = this.getRandomMember(direction);
         return member != null ? translationService.submit(task, member.getAddress()) : null;
     }
@@ -484,7 +581,7 @@ public class ClusterNode {
      * @param task the translationTask with all the information on the translation job to execute
      * @return the resulting Translation object.
      */
-    public Future<Translation> submit(TranslationTask task) {
+    public ICompletableFuture<Translation> submit(TranslationTask task) {
         Member member = this.getRandomMember();
         return translationService.submit(task, member.getAddress());
     }
@@ -510,18 +607,13 @@ public class ClusterNode {
      * @return the obtained Member, or null if in the cluster there is no member supporting the passed language pair
      */
     private Member getRandomMember(LanguagePair languagePair) {
-        Set<Member> allMembers = hazelcast.getCluster().getMembers();
-        ArrayList<Member> candidates = new ArrayList<>();
-
-        for (Member member : allMembers)
-            if (NodeInfo.hasTranslationDirection(member, languagePair))
-                candidates.add(member);
+        Member[] candidates = nodeInfoCache.getMembers(languagePair);
 
-        if (candidates.size() == 0) {
+        if (candidates.length == 0) {
             return null;
         } else {
-            int randomIndex = new Random().nextInt(candidates.size());
-            return candidates.get(randomIndex);
+            int randomIndex = ThreadLocalRandom.current().nextInt(candidates.length);
+            return candidates[randomIndex];
         }
     }
 
@@ -0,0 +1,174 @@
+package eu.modernmt.cluster;
+
+import eu.modernmt.model.Memory;
+
+import java.util.*;
+
+/**
+ * Bounded LRU cache of the Memory metadata stored in the database.
+ * Entries expire after a fixed time; unknown ids are cached too (as negative entries),
+ * so that repeated lookups of a missing memory do not hit the database.
+ * <p>
+ * Every node has its own cache: changes to a memory are propagated
+ * by the ClusterNode with a Hazelcast topic, that invalidates the entry on all the members.
+ * Values read from the database must be stored with the generation returned by
+ * getGeneration() before the read, so that a value that has been invalidated
+ * in the meantime is never cached.
+ */
+public class MemoryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    public static final long DEFAULT_TTL = 60 * 1000L;
+
+    /**
+     * The result of a cache lookup: either a hit, that can carry a null memory if the memory
+     * does not exist (negative entry), or a miss, that carries the generation of the cache at the time of the lookup.
+     */
+    public static final class Lookup {
+
+        private final boolean hit;
+        private final Memory memory;
+        private final long generation;
+
+        private Lookup(boolean hit, Memory memory, long generation) {
+            this.hit = hit;
+            this.memory = memory;
+            this.generation = generation;
+        }
+
+        public boolean isHit() {
+            return hit;
+        }
+
+        /**
+         * @return a copy of the cached memory, or null if the memory does not exist or the lookup is a miss
+         */
+        public Memory getMemory() {
+            return memory;
+        }
+
+        /**
+         * @return the generation of the cache at the time of the lookup, to be passed to put()
+         * together with the value read from the database after a miss.
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Memory memory;
+        private final long expiration;
+
+        private Entry(Memory memory, long expiration) {
+            this.memory = memory;
+            this.expiration = expiration;
+        }
+
+    }
+
+    private final int maxSize;
+    private final long ttl;
+    private final LinkedHashMap<Long, Entry> entries;
+    private long generation = 0L;
+
+    public MemoryCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * @param maxSize the max number of entries
+     * @param ttl     the time (in milliseconds) after which an entry expires
+     */
+    public MemoryCache(int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<Long, Entry>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > MemoryCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Looks up a memory with a single atomic operation: unlike contains() followed by get(),
+     * the entry cannot expire or be invalidated between the two calls.
+     *
+     * @param id the id of the memory
+     * @return the result of the lookup
+     */
+    public synchronized Lookup lookup(long id) {
+        Entry entry = getEntry(id);
+
+        if (entry == null)
+            return new Lookup(false, null, generation);
+        else
+            return new Lookup(true, entry.memory == null ? null : copy(entry.memory), generation);
+    }
+
+    /**
+     * Returns true if the cache contains a valid entry for the given id,
+     * even if the entry says that the memory does not exist.
+     */
+    public synchronized boolean contains(long id) {
+        return getEntry(id) != null;
+    }
+
+    /**
+     * @return a copy of the cached memory, or null if the memory is not in cache or it does not exist
+     * (use lookup() to distinguish the two cases)
+     */
+    public synchronized Memory get(long id) {
+        Entry entry = getEntry(id);
+        return entry == null || entry.memory == null ? null : copy(entry.memory);
+    }
+
+    private Entry getEntry(long id) {
+        Entry entry = entries.get(id);
+
+        if (entry != null && entry.expiration < System.currentTimeMillis()) {
+            entries.remove(id);
+            entry = null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Stores a memory read from the database.
+     *
+     * @param id         the id of the memory
+     * @param memory     the memory, or null if it does not exist
+     * @param generation the generation of the cache before the database was read
+     */
+    public synchronized void put(long id, Memory memory, long generation) {
+        if (this.generation == generation)
+            entries.put(id, new Entry(memory == null ? null : copy(memory), System.currentTimeMillis() + ttl));
+    }
+
+    public synchronized void invalidate(long id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static Memory copy(Memory memory) {
+        return new Memory(memory.getId(), memory.getName());
+    }
+
+}
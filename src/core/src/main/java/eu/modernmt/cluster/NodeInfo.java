@@ -4,16 +4,31 @@ import com.hazelcast.core.Member;
 import eu.modernmt.lang.Language;
 import eu.modernmt.lang.LanguagePair;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * Created by davide on 15/12/16.
+ * <p>
+ * Channels positions and translation directions are stored in the member attributes
+ * with a compact binary encoding (Base64 encoded, as Hazelcast supports only primitive attributes)
+ * that starts with the version of the encoding; values that cannot be decoded are considered empty.
+ * <p>
+ * The binary values have their own (versioned) attribute keys: the legacy keys still contain the legacy
+ * text encoding, so that nodes of older versions in the same cluster keep parsing them; they are read
+ * only if a member does not publish the binary values.
  */
 public class NodeInfo {
 
     private static final String STATUS_ATTRIBUTE = "NodeInfo.STATUS_ATTRIBUTE";
-    private static final String DATA_CHANNELS_ATTRIBUTE = "NodeInfo.DATA_CHANNELS_ATTRIBUTE";
-    private static final String TRANSLATION_DIRECTIONS_ATTRIBUTE = "NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE";
+    private static final String DATA_CHANNELS_ATTRIBUTE = "NodeInfo.DATA_CHANNELS_ATTRIBUTE.v1";
+    private static final String TRANSLATION_DIRECTIONS_ATTRIBUTE = "NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE.v1";
+    private static final String LEGACY_DATA_CHANNELS_ATTRIBUTE = "NodeInfo.DATA_CHANNELS_ATTRIBUTE";
+    private static final String LEGACY_TRANSLATION_DIRECTIONS_ATTRIBUTE = "NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE";
+
+    private static final byte ENCODING_VERSION = 1;
 
     public final String uuid;
     public final ClusterNode.Status status;
@@ -23,9 +38,19 @@ public class NodeInfo {
 
     static NodeInfo fromMember(Member member) {
         String uuid = member.getUuid();
-        ClusterNode.Status status = ClusterNode.Status.valueOf(member.getStringAttribute(STATUS_ATTRIBUTE));
-        Map<Short, Long> positions = deserializeChannels(member.getStringAttribute(DATA_CHANNELS_ATTRIBUTE));
-        Set<LanguagePair> languages = deserializeLanguages(member.getStringAttribute(TRANSLATION_DIRECTIONS_ATTRIBUTE));
+        String encodedStatus = member.getStringAttribute(STATUS_ATTRIBUTE);
+        ClusterNode.Status status = encodedStatus == null ? null : ClusterNode.Status.valueOf(encodedStatus);
+
+        String encodedChannels = member.getStringAttribute(DATA_CHANNELS_ATTRIBUTE);
+        Map<Short, Long> positions = encodedChannels == null ?
+                deserializeLegacyChannels(member.getStringAttribute(LEGACY_DATA_CHANNELS_ATTRIBUTE)) :
+                deserializeChannels(encodedChannels);
+
+        String encodedLanguages = member.getStringAttribute(TRANSLATION_DIRECTIONS_ATTRIBUTE);
+        Set<LanguagePair> languages = encodedLanguages == null ?
+                deserializeLegacyLanguages(member.getStringAttribute(LEGACY_TRANSLATION_DIRECTIONS_ATTRIBUTE)) :
+                deserializeLanguages(encodedLanguages);
+
         String address = member.getAddress().getHost();
 
         return new NodeInfo(uuid, status, positions, languages, address);
@@ -34,35 +59,27 @@ public class NodeInfo {
     private NodeInfo(String uuid, ClusterNode.Status status, Map<Short, Long> channels, Set<LanguagePair> languages, String address) {
         this.uuid = uuid;
         this.status = status;
-        this.channels = channels;
-        this.languages = languages;
+        this.channels = Collections.unmodifiableMap(channels);
+        this.languages = Collections.unmodifiableSet(languages);
         this.address = address;
     }
 
     // Utils
 
-    static boolean hasTranslationDirection(Member member, LanguagePair direction) {
-        String encoded = member.getStringAttribute(TRANSLATION_DIRECTIONS_ATTRIBUTE);
-        if (encoded == null || encoded.isEmpty())
-            return false;
-
-        String search = '[' + direction.source.toLanguageTag() + ':' + direction.target.toLanguageTag() + ']';
-        return encoded.contains(search);
-    }
-
     static void updateStatusInMember(Member member, ClusterNode.Status status) {
         member.setStringAttribute(STATUS_ATTRIBUTE, status.name());
     }
 
     static void updateTranslationDirections(Member member, Set<LanguagePair> directions) {
+        member.setStringAttribute(LEGACY_TRANSLATION_DIRECTIONS_ATTRIBUTE, serializeLegacy(directions));
         member.setStringAttribute(TRANSLATION_DIRECTIONS_ATTRIBUTE, serialize(directions));
     }
 
-    static void updateChannelsPositionsInMember(Member member, Map<Short, Long> update) {
-        HashMap<Short, Long> positions = deserializeChannels(member.getStringAttribute(DATA_CHANNELS_ATTRIBUTE));
-        for (Map.Entry<Short, Long> position : update.entrySet()) {
-            positions.put(position.getKey(), position.getValue());
-        }
+    /**
+     * Replaces the channels positions of the member: positions must contain all the channels.
+     */
+    static void updateChannelsPositionsInMember(Member member, Map<Short, Long> positions) {
+        member.setStringAttribute(LEGACY_DATA_CHANNELS_ATTRIBUTE, serializeLegacy(positions));
         member.setStringAttribute(DATA_CHANNELS_ATTRIBUTE, serialize(positions));
     }
 
@@ -72,6 +89,50 @@ public class NodeInfo {
         if (directions == null || directions.isEmpty())
             return "";
 
+        ArrayList<byte[]> tags = new ArrayList<>(directions.size() * 2);
+        int size = 1 + 2;
+
+        for (LanguagePair direction : directions) {
+            byte[] source = direction.source.toLanguageTag().getBytes(StandardCharsets.UTF_8);
+            byte[] target = direction.target.toLanguageTag().getBytes(StandardCharsets.UTF_8);
+
+            tags.add(source);
+            tags.add(target);
+            size += 2 + source.length + 2 + target.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(ENCODING_VERSION);
+        buffer.putShort((short) directions.size());
+
+        for (byte[] tag : tags) {
+            buffer.putShort((short) tag.length);
+            buffer.put(tag);
+        }
+
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static String serialize(Map<Short, Long> positions) {
+        if (positions == null || positions.isEmpty())
+            return "";
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + positions.size() * (2 + 8));
+        buffer.put(ENCODING_VERSION);
+        buffer.putShort((short) positions.size());
+
+        for (Map.Entry<Short, Long> entry : positions.entrySet()) {
+            buffer.putShort(entry.getKey());
+            buffer.putLong(entry.getValue());
+        }
+
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static String serializeLegacy(Set<LanguagePair> directions) {
+        if (directions == null || directions.isEmpty())
+            return "";
+
         StringBuilder builder = new StringBuilder();
 
         for (LanguagePair direction : directions) {
@@ -86,7 +147,7 @@ public class NodeInfo {
         return builder.substring(0, builder.length() - 1);
     }
 
-    private static String serialize(Map<Short, Long> positions) {
+    private static String serializeLegacy(Map<Short, Long> positions) {
         if (positions == null || positions.isEmpty())
             return "";
 
@@ -104,40 +165,118 @@ public class NodeInfo {
 
     // Deserializers
 
-    private static Set<LanguagePair> deserializeLanguages(String encoded) {
+    private static ByteBuffer decode(String encoded) {
         if (encoded == null || encoded.isEmpty())
-            return Collections.emptySet();
+            return null;
 
-        String[] elements = encoded.split(",");
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (bytes.length < 3 || bytes[0] != ENCODING_VERSION)
+            return null;
 
-        HashSet<LanguagePair> result = new HashSet<>(elements.length);
-        for (String element : elements) {
-            String[] tags = element.split(":");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(1);
+        return buffer;
+    }
 
-            String sourceTag = tags[0].substring(1);
-            String targetTag = tags[1].substring(0, tags[1].length() - 1);
+    private static Set<LanguagePair> deserializeLanguages(String encoded) {
+        ByteBuffer buffer = decode(encoded);
+        if (buffer == null)
+            return Collections.emptySet();
 
-            Language source = Language.fromString(sourceTag);
-            Language target = Language.fromString(targetTag);
+        try {
+            int size = buffer.getShort();
 
-            result.add(new LanguagePair(source, target));
+            HashSet<LanguagePair> result = new HashSet<>(size);
+            for (int i = 0; i < size; i++) {
+                Language source = Language.fromString(readString(buffer));
+                Language target = Language.fromString(readString(buffer));
+
+                result.add(new LanguagePair(source, target));
+            }
+
+            return result;
+        } catch (BufferUnderflowException e) {
+            return Collections.emptySet();
         }
+    }
 
-        return result;
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        String string = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+
+        return string;
     }
 
     private static HashMap<Short, Long> deserializeChannels(String encoded) {
-        if (encoded == null || encoded.isEmpty())
+        ByteBuffer buffer = decode(encoded);
+        if (buffer == null)
+            return new HashMap<>();
+
+        try {
+            int size = buffer.getShort();
+
+            HashMap<Short, Long> result = new HashMap<>(size);
+            for (int i = 0; i < size; i++)
+                result.put(buffer.getShort(), buffer.getLong());
+
+            return result;
+        } catch (BufferUnderflowException e) {
             return new HashMap<>();
+        }
+    }
+
+    private static Set<LanguagePair> deserializeLegacyLanguages(String encoded) {
+        if (encoded == null || encoded.isEmpty())
+            return Collections.emptySet();
+
+        try {
+            String[] elements = encoded.split(",");
 
-        String[] elements = encoded.split(",");
+            HashSet<LanguagePair> result = new HashSet<>(elements.length);
+            for (String element : elements) {
+                String[] tags = element.split(":");
 
-        HashMap<Short, Long> result = new HashMap<>(elements.length);
-        for (String element : elements) {
-            String[] keyvalue = element.split(":");
-            result.put(Short.parseShort(keyvalue[0]), Long.parseLong(keyvalue[1]));
+                String sourceTag = tags[0].substring(1);
+                String targetTag = tags[1].substring(0, tags[1].length() - 1);
+
+                Language source = Language.fromString(sourceTag);
+                Language target = Language.fromString(targetTag);
+
+                result.add(new LanguagePair(source, target));
+            }
+
+            return result;
+        } catch (RuntimeException e) {
+            return Collections.emptySet();
         }
+    }
+
+    private static HashMap<Short, Long> deserializeLegacyChannels(String encoded) {
+        if (encoded == null || encoded.isEmpty())
+            return new HashMap<>();
 
-        return result;
+        try {
+            String[] elements = encoded.split(",");
+
+            HashMap<Short, Long> result = new HashMap<>(elements.length);
+            for (String element : elements) {
+                String[] keyvalue = element.split(":");
+                result.put(Short.parseShort(keyvalue[0]), Long.parseLong(keyvalue[1]));
+            }
+
+            return result;
+        } catch (RuntimeException e) {
+            return new HashMap<>();
+        }
     }
 }
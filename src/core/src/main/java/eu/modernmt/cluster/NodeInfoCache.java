@@ -0,0 +1,107 @@
+package eu.modernmt.cluster;
+
+import com.hazelcast.core.*;
+import eu.modernmt.lang.LanguagePair;
+
+import java.util.*;
+
+/**
+ * Cache of the NodeInfo of all the cluster members, with an index of the members
+ * that support every translation direction.
+ * <p>
+ * The cache is rebuilt only when Hazelcast notifies a membership change or
+ * a change in the attributes of a member; lookups never decode member attributes.
+ */
+class NodeInfoCache implements MembershipListener {
+
+    private static final Member[] EMPTY = new Member[0];
+
+    private static final class Entry {
+
+        private final Member member;
+        private final NodeInfo info;
+
+        private Entry(Member member) {
+            this.member = member;
+            this.info = NodeInfo.fromMember(member);
+        }
+
+    }
+
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private volatile Collection<NodeInfo> nodes = Collections.emptyList();
+    private volatile Map<LanguagePair, Member[]> directions = Collections.emptyMap();
+
+    /**
+     * Reloads all the entries from the current members of the cluster; it must be called
+     * after the cache has been registered as membership listener.
+     */
+    public synchronized void load(Cluster cluster) {
+        entries.clear();
+
+        for (Member member : cluster.getMembers())
+            entries.put(member.getUuid(), new Entry(member));
+
+        rebuild();
+    }
+
+    /**
+     * Updates the entry of a member that is already part of the cache
+     */
+    public synchronized void update(Member member) {
+        if (entries.containsKey(member.getUuid())) {
+            entries.put(member.getUuid(), new Entry(member));
+            rebuild();
+        }
+    }
+
+    public Collection<NodeInfo> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the members that support the given direction, or an empty array if none of them does
+     */
+    public Member[] getMembers(LanguagePair direction) {
+        Member[] members = directions.get(direction);
+        return members == null ? EMPTY : members;
+    }
+
+    private void rebuild() {
+        ArrayList<NodeInfo> nodes = new ArrayList<>(entries.size());
+        HashMap<LanguagePair, ArrayList<Member>> index = new HashMap<>();
+
+        for (Entry entry : entries.values()) {
+            nodes.add(entry.info);
+
+            for (LanguagePair direction : entry.info.languages)
+                index.computeIfAbsent(direction, key -> new ArrayList<>()).add(entry.member);
+        }
+
+        HashMap<LanguagePair, Member[]> directions = new HashMap<>(index.size());
+        for (Map.Entry<LanguagePair, ArrayList<Member>> entry : index.entrySet())
+            directions.put(entry.getKey(), entry.getValue().toArray(new Member[entry.getValue().size()]));
+
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.directions = directions;
+    }
+
+    @Override
+    public synchronized void memberAdded(MembershipEvent event) {
+        Member member = event.getMember();
+        entries.put(member.getUuid(), new Entry(member));
+        rebuild();
+    }
+
+    @Override
+    public synchronized void memberRemoved(MembershipEvent event) {
+        if (entries.remove(event.getMember().getUuid()) != null)
+            rebuild();
+    }
+
+    @Override
+    public void memberAttributeChanged(MemberAttributeEvent event) {
+        update(event.getMember());
+    }
+
+}
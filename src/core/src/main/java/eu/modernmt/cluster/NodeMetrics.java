@@ -0,0 +1,205 @@
+package eu.modernmt.cluster;
+
+import eu.modernmt.cluster.services.AdmissionController;
+import eu.modernmt.cluster.services.MultiLevelPriorityBlockingQueue;
+import eu.modernmt.context.ContextAnalyzer;
+import eu.modernmt.context.lucene.LuceneAnalyzer;
+import eu.modernmt.context.lucene.analysis.ContextVectorCache;
+import eu.modernmt.facade.ModernMT;
+import eu.modernmt.metrics.LatencyMetrics;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * NodeMetrics is a serializable snapshot of the performance metrics of a cluster member:
+ * the translation latency histograms, the depth of the translation queues, the state of the admission control,
+ * the statistics of the context vector cache and of the coalescing of identical translations. Snapshots of different members can be merged in order to
+ * obtain cluster-wide metrics.
+ */
+public class NodeMetrics implements Serializable {
+
+    private final LatencyMetrics.Snapshot latencies;
+    private long[] queueDepth;
+    private double serviceTime;
+    private double[] estimatedWaitTime;
+    private long[] shedTranslations;
+    private long[] overflowTranslations;
+    private long contextCacheHits;
+    private long contextCacheMisses;
+    private long contextCacheSize;
+    private long coalescedTranslations;
+    private long submittedTranslations;
+
+    public NodeMetrics() {
+        this(new LatencyMetrics.Snapshot());
+    }
+
+    private NodeMetrics(LatencyMetrics.Snapshot latencies) {
+        this.latencies = latencies;
+        this.queueDepth = new long[0];
+        this.estimatedWaitTime = new double[0];
+        this.shedTranslations = new long[0];
+        this.overflowTranslations = new long[0];
+    }
+
+    /**
+     * Collects the metrics of the given cluster node
+     *
+     * @param node the local cluster node
+     * @return the snapshot of the node metrics
+     */
+    public static NodeMetrics collect(ClusterNode node) {
+        NodeMetrics metrics = new NodeMetrics(LatencyMetrics.snapshot());
+
+        MultiLevelPriorityBlockingQueue<Runnable> queue = node.getTranslationQueue();
+        if (queue != null) {
+            metrics.queueDepth = new long[queue.getLevels()];
+            for (int i = 0; i < metrics.queueDepth.length; i++)
+                metrics.queueDepth[i] = queue.size(i);
+        }
+
+        AdmissionController admissionController = node.getAdmissionController();
+        if (admissionController != null) {
+            int levels = admissionController.getLevels();
+
+            metrics.serviceTime = admissionController.getServiceTime();
+            metrics.estimatedWaitTime = new double[levels];
+            metrics.shedTranslations = new long[levels];
+            metrics.overflowTranslations = new long[levels];
+
+            for (int i = 0; i < levels; i++) {
+                metrics.estimatedWaitTime[i] = admissionController.getEstimatedWaitTime(i);
+                metrics.shedTranslations[i] = admissionController.getShedCount(i);
+                metrics.overflowTranslations[i] = admissionController.getOverflowCount(i);
+            }
+        }
+
+        ContextAnalyzer analyzer = node.getEngine().getContextAnalyzer();
+        if (analyzer instanceof LuceneAnalyzer) {
+            ContextVectorCache cache = ((LuceneAnalyzer) analyzer).getCache();
+
+            if (cache != null) {
+                metrics.contextCacheHits = cache.getHitCount();
+                metrics.contextCacheMisses = cache.getMissCount();
+                metrics.contextCacheSize = cache.size();
+            }
+        }
+
+        metrics.coalescedTranslations = ModernMT.translation.getCoalescedTranslationsCount();
+        metrics.submittedTranslations = ModernMT.translation.getSubmittedTranslationsCount();
+
+        return metrics;
+    }
+
+    public void merge(NodeMetrics other) {
+        latencies.merge(other.latencies);
+
+        queueDepth = sum(queueDepth, other.queueDepth);
+        shedTranslations = sum(shedTranslations, other.shedTranslations);
+        overflowTranslations = sum(overflowTranslations, other.overflowTranslations);
+
+        // Waits are not additive: the cluster is reported as busy as its busiest member
+        serviceTime = Math.max(serviceTime, other.serviceTime);
+
+        if (other.estimatedWaitTime.length > estimatedWaitTime.length)
+            estimatedWaitTime = Arrays.copyOf(estimatedWaitTime, other.estimatedWaitTime.length);
+        for (int i = 0; i < other.estimatedWaitTime.length; i++)
+            estimatedWaitTime[i] = Math.max(estimatedWaitTime[i], other.estimatedWaitTime[i]);
+
+        contextCacheHits += other.contextCacheHits;
+        contextCacheMisses += other.contextCacheMisses;
+        contextCacheSize += other.contextCacheSize;
+        coalescedTranslations += other.coalescedTranslations;
+        submittedTranslations += other.submittedTranslations;
+    }
+
+    private static long[] sum(long[] values, long[] other) {
+        if (other.length > values.length)
+            values = Arrays.copyOf(values, other.length);
+
+        for (int i = 0; i < other.length; i++)
+            values[i] += other[i];
+
+        return values;
+    }
+
+    public LatencyMetrics.Snapshot getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return the number of pending translations for every priority level
+     */
+    public long[] getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the moving average of the time (in milliseconds) spent serving a translation
+     */
+    public double getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * @return the estimated time (in milliseconds) before a new translation starts, for every priority level
+     */
+    public double[] getEstimatedWaitTime() {
+        return estimatedWaitTime;
+    }
+
+    /**
+     * @return the number of translations rejected because they would exceed their time budget, for every priority level
+     */
+    public long[] getShedTranslations() {
+        return shedTranslations;
+    }
+
+    /**
+     * @return the number of translations rejected because the queue was full, for every priority level
+     */
+    public long[] getOverflowTranslations() {
+        return overflowTranslations;
+    }
+
+    public long getContextCacheHits() {
+        return contextCacheHits;
+    }
+
+    public long getContextCacheMisses() {
+        return contextCacheMisses;
+    }
+
+    public long getContextCacheSize() {
+        return contextCacheSize;
+    }
+
+    /**
+     * @return the number of translation requests that shared the result of an identical in-flight request
+     */
+    public long getCoalescedTranslations() {
+        return coalescedTranslations;
+    }
+
+    /**
+     * @return the number of translation requests that have been submitted to the translation service
+     */
+    public long getSubmittedTranslations() {
+        return submittedTranslations;
+    }
+
+    /**
+     * A CollectTask is sent to every cluster member in order to collect its metrics.
+     */
+    static class CollectTask implements Callable<NodeMetrics>, Serializable {
+
+        @Override
+        public NodeMetrics call() {
+            return collect(ModernMT.getNode());
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package eu.modernmt.cluster;
 
 import eu.modernmt.cluster.services.Prioritizable;
+import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.Translation;
 
 import java.io.Serializable;
@@ -13,4 +14,14 @@ public interface TranslationTask extends Callable<Translation>, Serializable, Pr
     /* A TranslationTask must also extends Prioritizable, in order to define which task has higher priority.
      * Tasks can be sent across the MMT cluster, thus requiring TranslationTasks to extend Serializable too.*/
 
+    /**
+     * @return the time budget (in milliseconds) of the translation, 0 to use the default of the executing member
+     */
+    /**
+     * @return the language direction of the translation
+     */
+    LanguagePair getDirection();
+
+    long getTimeout();
+
 }
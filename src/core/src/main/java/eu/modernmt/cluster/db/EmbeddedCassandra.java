@@ -28,15 +28,48 @@ public class EmbeddedCassandra extends EmbeddedService {
 
     public static EmbeddedCassandra start(Engine engine, int port) throws BootstrapException {
         try {
-            EmbeddedCassandra instance = new EmbeddedCassandra(engine);
-            instance.start(port);
+            File db = Paths.join(engine.getModelsPath(), "db", "cassandra");
+            File runtime = engine.getRuntimeFolder("cassandra", true);
+            File logFile = engine.getLogFile("embedded-cassandra.log");
 
-            return instance;
+            return start(db, runtime, logFile, port);
         } catch (IOException e) {
             throw new BootstrapException(e);
         }
     }
 
+    /**
+     * Starts a Cassandra process that is not bound to an engine (e.g. for tests).
+     *
+     * @param db      the folder of the data files
+     * @param runtime the folder of the runtime files, such as the configuration
+     * @param logFile the log file of the process
+     * @param port    the port of the CQL clients
+     * @return the running instance
+     * @throws IOException if the process cannot be started
+     */
+    public static EmbeddedCassandra start(File db, File runtime, File logFile, int port) throws IOException {
+        EmbeddedCassandra instance = new EmbeddedCassandra(db, runtime, logFile);
+        instance.start(port);
+
+        return instance;
+    }
+
+    /**
+     * @return true if the Cassandra binaries are installed in the vendor folder
+     */
+    public static boolean isInstalled() {
+        try {
+            return getBinary().canExecute();
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static File getBinary() {
+        return Paths.join(FileConst.getVendorPath(), "cassandra-" + VERSION, "bin", "cassandra");
+    }
+
     public static final int MAX_HEAP_SIZE_IN_MB = 1024;
 
     private final String clusterName;
@@ -48,16 +81,14 @@ public class EmbeddedCassandra extends EmbeddedService {
 
     private Process process;
 
-    private EmbeddedCassandra(Engine engine) throws IOException {
+    private EmbeddedCassandra(File db, File runtime, File logFile) {
         this.clusterName = "mmt-cluster";
-        this.db = Paths.join(engine.getModelsPath(), "db", "cassandra");
-        this.runtime = engine.getRuntimeFolder("cassandra", true);
-        this.logFile = engine.getLogFile("embedded-cassandra.log");
-
-        File cassandraHome = Paths.join(FileConst.getVendorPath(), "cassandra-" + VERSION);
+        this.db = db;
+        this.runtime = runtime;
+        this.logFile = logFile;
 
-        this.bin = Paths.join(cassandraHome, "bin", "cassandra");
-        this.configTemplate = Paths.join(cassandraHome, "conf", "cassandra.yaml");
+        this.bin = getBinary();
+        this.configTemplate = Paths.join(FileConst.getVendorPath(), "cassandra-" + VERSION, "conf", "cassandra.yaml");
     }
 
     private void start(int port) throws IOException {
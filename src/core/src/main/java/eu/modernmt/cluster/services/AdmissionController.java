@@ -0,0 +1,190 @@
+package eu.modernmt.cluster.services;
+
+import eu.modernmt.facade.exceptions.TranslationBudgetExceededException;
+import eu.modernmt.facade.exceptions.TranslationRejectedException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An AdmissionController decides whether a new translation can enter the queue of a TranslationService:
+ * a translation that, given the current load, would not complete within its time budget is rejected
+ * immediately, instead of waiting in the queue for a result that would be useless once available.
+ * <p>
+ * The service time is the moving average of the recent translations; the wait time of a new translation
+ * is estimated from the number of translations that will be served before it (the running ones and the queued
+ * ones with the same or a higher priority) and the number of threads of the service.
+ * Aging is not taken into account, so for the lower priorities the estimate is optimistic:
+ * that is why the budget is checked again when a translation leaves the queue (see checkDeadline()).
+ */
+public class AdmissionController {
+
+    /**
+     * The weight of the past in the moving average of the service time: every sample counts for 1/8
+     */
+    private static final int HISTORY_WEIGHT = 8;
+
+    private final MultiLevelPriorityBlockingQueue<?> queue;
+    private final int threads;
+    private final long defaultTimeout;
+
+    private final AtomicInteger active = new AtomicInteger(0);
+    private final AtomicLong serviceTime = new AtomicLong(0L);
+    private final AtomicLongArray shed;
+    private final AtomicLongArray overflows;
+
+    /**
+     * @param queue          the queue of the translation service
+     * @param threads        the number of threads serving the queue
+     * @param defaultTimeout the time budget of the translations that do not specify one;
+     *                       zero or a negative value means no budget.
+     * @param unit           the time unit of the defaultTimeout argument
+     */
+    public AdmissionController(MultiLevelPriorityBlockingQueue<?> queue, int threads, long defaultTimeout, TimeUnit unit) {
+        if (threads <= 0)
+            throw new IllegalArgumentException();
+
+        this.queue = queue;
+        this.threads = threads;
+        this.defaultTimeout = defaultTimeout > 0 ? unit.toNanos(defaultTimeout) : 0L;
+        this.shed = new AtomicLongArray(queue.getLevels());
+        this.overflows = new AtomicLongArray(queue.getLevels());
+    }
+
+    /**
+     * Checks that a new translation can complete within its time budget.
+     *
+     * @param priority the priority of the translation
+     * @param timeout  the time budget (in milliseconds) of the translation, zero for the default one
+     * @throws TranslationBudgetExceededException if the translation is not expected to complete in time
+     */
+    public void admit(int priority, long timeout) throws TranslationBudgetExceededException {
+        long budget = timeout > 0 ? TimeUnit.MILLISECONDS.toNanos(timeout) : defaultTimeout;
+        if (budget <= 0)
+            return;
+
+        long estimate = estimateWaitTime(priority) + serviceTime.get();
+
+        if (estimate > budget) {
+            shed.incrementAndGet(priority);
+            throw new TranslationBudgetExceededException(TimeUnit.NANOSECONDS.toMillis(estimate),
+                    TimeUnit.NANOSECONDS.toMillis(budget), toRetryAfter(estimate - budget));
+        }
+    }
+
+    /**
+     * Checks that an admitted translation, that has just left the queue, can still complete within its time budget;
+     * a translation that has spent its budget waiting is dropped instead of keeping a thread busy for a useless result.
+     *
+     * @param priority the priority of the translation
+     * @param timeout  the time budget (in milliseconds) of the translation, zero for the default one
+     * @param waited   the time (in nanoseconds) the translation has spent in the queue
+     * @throws TranslationBudgetExceededException if the translation is not expected to complete in time
+     */
+    public void checkDeadline(int priority, long timeout, long waited) throws TranslationBudgetExceededException {
+        long budget = timeout > 0 ? TimeUnit.MILLISECONDS.toNanos(timeout) : defaultTimeout;
+        if (budget <= 0)
+            return;
+
+        long estimate = waited + serviceTime.get();
+
+        if (estimate > budget) {
+            shed.incrementAndGet(priority);
+            throw new TranslationBudgetExceededException(TimeUnit.NANOSECONDS.toMillis(estimate),
+                    TimeUnit.NANOSECONDS.toMillis(budget), toRetryAfter(estimate - budget));
+        }
+    }
+
+    /**
+     * Records that an admitted translation has been rejected because its queue level is full.
+     *
+     * @param priority the priority of the translation
+     * @return the exception to return to the client
+     */
+    public TranslationRejectedException overflow(int priority) {
+        overflows.incrementAndGet(priority);
+        return new TranslationRejectedException(toRetryAfter(estimateWaitTime(priority)));
+    }
+
+    /**
+     * Must be invoked when a thread starts serving a translation.
+     */
+    public void onStart() {
+        active.incrementAndGet();
+    }
+
+    /**
+     * Must be invoked when a thread completes a translation, either successfully or not.
+     *
+     * @param elapsed the time (in nanoseconds) spent serving the translation
+     */
+    public void onComplete(long elapsed) {
+        active.decrementAndGet();
+
+        long current;
+        long next;
+        do {
+            current = serviceTime.get();
+            next = current == 0 ? elapsed : current + (elapsed - current) / HISTORY_WEIGHT;
+        } while (!serviceTime.compareAndSet(current, next));
+    }
+
+    /**
+     * @return the estimated time (in nanoseconds) before a new translation with the given priority starts
+     */
+    private long estimateWaitTime(int priority) {
+        long service = serviceTime.get();
+        if (service == 0)
+            return 0L;
+
+        long ahead = active.get();
+        for (int i = 0; i <= priority; i++)
+            ahead += queue.size(i);
+
+        // translations that must complete before a thread is available
+        long waiting = ahead - threads + 1;
+        return waiting > 0 ? waiting * service / threads : 0L;
+    }
+
+    private static long toRetryAfter(long nanos) {
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    // Gauges
+
+    public int getLevels() {
+        return shed.length();
+    }
+
+    /**
+     * @return the moving average of the time (in milliseconds) spent serving a translation
+     */
+    public double getServiceTime() {
+        return TimeUnit.NANOSECONDS.toMicros(serviceTime.get()) / 1000.;
+    }
+
+    /**
+     * @return the estimated time (in milliseconds) before a new translation with the given priority starts
+     */
+    public double getEstimatedWaitTime(int priority) {
+        return TimeUnit.NANOSECONDS.toMicros(estimateWaitTime(priority)) / 1000.;
+    }
+
+    /**
+     * @return the number of translations with the given priority rejected because they would exceed their time budget,
+     * either when they were submitted or when they left the queue
+     */
+    public long getShedCount(int priority) {
+        return shed.get(priority);
+    }
+
+    /**
+     * @return the number of translations with the given priority rejected because the queue was full
+     */
+    public long getOverflowCount(int priority) {
+        return overflows.get(priority);
+    }
+
+}
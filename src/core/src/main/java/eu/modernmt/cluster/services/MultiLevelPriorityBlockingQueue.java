@@ -0,0 +1,402 @@
+package eu.modernmt.cluster.services;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A MultiLevelPriorityBlockingQueue is a bounded BlockingQueue with a separate sub-queue (or level)
+ * for each priority value, where priority 0 is the highest one.
+ * <p>
+ * Every level is a non-blocking concurrent queue with its own capacity: producers and consumers
+ * do not share any lock, they are only coordinated by two kinds of semaphores (the free slots
+ * of every level and the total number of available elements).
+ * <p>
+ * Elements are normally extracted in strict priority order; however, if an aging threshold is set,
+ * the lower priority elements that have been waiting for longer than the threshold get a guaranteed share
+ * of the dequeues: one every AGED_TURN, the oldest of them first. This way lower priority levels cannot starve
+ * indefinitely, while the higher priority levels keep most of the throughput even under sustained overload.
+ * <p>
+ * The queue also keeps track of the depth and the wait time of every level.
+ */
+public class MultiLevelPriorityBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * A Node wraps an element of the queue together with its insertion time.
+     */
+    private static class Node {
+
+        final Object item;
+        final long timestamp;
+
+        Node(Object item, long timestamp) {
+            this.item = item;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+    /**
+     * A Level is the sub-queue for a specific priority value.
+     */
+    private static class Level {
+
+        final int capacity;
+        final ConcurrentLinkedQueue<Node> items = new ConcurrentLinkedQueue<>();
+
+        /**
+         * the number of free slots in this level
+         */
+        final Semaphore slots;
+
+        /**
+         * the number of elements in this level
+         */
+        final AtomicInteger depth = new AtomicInteger(0);
+
+        final AtomicLong dequeued = new AtomicLong(0L);
+        final AtomicLong totalWaitTime = new AtomicLong(0L);
+        final AtomicLong maxWaitTime = new AtomicLong(0L);
+
+        Level(int capacity) {
+            this.capacity = capacity;
+            this.slots = new Semaphore(capacity);
+        }
+
+    }
+
+    /**
+     * Every AGED_TURN dequeues, an aged element of a lower priority level is served (if any)
+     */
+    private static final int AGED_TURN = 4;
+
+    private static final int MAX_SPINS = 16;
+    private static final long MAX_BACKOFF = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Level[] levels;
+    private final long agingThreshold;
+    private final AtomicLong turns = new AtomicLong(0L);
+
+    /**
+     * the number of elements that can be taken from the queue
+     */
+    private final Semaphore available;
+
+    public MultiLevelPriorityBlockingQueue(int... capacities) {
+        this(0L, TimeUnit.MILLISECONDS, capacities);
+    }
+
+    /**
+     * @param agingThreshold the time after which a waiting element of a lower priority level takes part
+     *                       in the guaranteed share of the aged elements; zero or a negative value disables aging.
+     * @param unit           the time unit of the agingThreshold argument
+     * @param capacities     the capacity of every priority level, from the highest priority to the lowest
+     */
+    public MultiLevelPriorityBlockingQueue(long agingThreshold, TimeUnit unit, int... capacities) {
+        if (capacities == null || capacities.length == 0)
+            throw new IllegalArgumentException();
+        for (int c : capacities) {
+            if (c <= 0)
+                throw new IllegalArgumentException();
+        }
+
+        this.levels = new Level[capacities.length];
+        for (int i = 0; i < this.levels.length; i++)
+            this.levels[i] = new Level(capacities[i]);
+
+        this.agingThreshold = agingThreshold > 0 ? unit.toNanos(agingThreshold) : 0L;
+        this.available = new Semaphore(0);
+    }
+
+    // Internal helper methods
+
+    private static void checkNotNull(Object v) {
+        if (v == null)
+            throw new NullPointerException();
+    }
+
+    private Level getLevel(Object e) {
+        int priority = e instanceof Prioritizable ? ((Prioritizable) e).getPriority() : 0;
+        if (priority < 0 || priority >= levels.length)
+            throw new ArrayIndexOutOfBoundsException(priority);
+
+        return levels[priority];
+    }
+
+    /**
+     * Inserts the element in its level; the caller must have already acquired a free slot.
+     */
+    private void enqueue(Level level, E e) {
+        level.items.add(new Node(e, System.nanoTime()));
+        level.depth.incrementAndGet();
+        available.release();
+    }
+
+    /**
+     * Extracts the next element; the caller must have already acquired an available element.
+     */
+    @SuppressWarnings("unchecked")
+    private E dequeue() {
+        boolean agedTurn = agingThreshold > 0 && turns.incrementAndGet() % AGED_TURN == 0;
+        int misses = 0;
+
+        while (true) {
+            long now = System.nanoTime();
+
+            Level level = agedTurn ? getAgedLevel(now) : null;
+            Node node = level == null ? null : level.items.poll();
+
+            if (node == null) {
+                for (Level l : levels) {
+                    node = l.items.poll();
+                    if (node != null) {
+                        level = l;
+                        break;
+                    }
+                }
+            }
+
+            // Another consumer may have taken the element we are entitled to from the level
+            // we were looking at: an element is surely available in some other level,
+            // so retry as soon as the other consumers have completed their extraction
+            if (node == null) {
+                backoff(++misses);
+                continue;
+            }
+
+            level.depth.decrementAndGet();
+            level.slots.release();
+
+            long wait = now - node.timestamp;
+            level.dequeued.incrementAndGet();
+            level.totalWaitTime.addAndGet(wait);
+
+            long max;
+            while (wait > (max = level.maxWaitTime.get()) && !level.maxWaitTime.compareAndSet(max, wait)) ;
+
+            return (E) node.item;
+        }
+    }
+
+    private static void backoff(int misses) {
+        if (misses <= MAX_SPINS)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(Math.min(MAX_BACKOFF, 1000L << Math.min(misses - MAX_SPINS, 10)));
+    }
+
+    /**
+     * Returns the lower priority level whose first element has been waiting the most,
+     * if its wait time exceeds the aging threshold.
+     */
+    private Level getAgedLevel(long now) {
+        Level result = null;
+        long oldest = now - agingThreshold;
+
+        for (int i = 1; i < levels.length; i++) {
+            Node head = levels[i].items.peek();
+            if (head != null && head.timestamp <= oldest) {
+                oldest = head.timestamp;
+                result = levels[i];
+            }
+        }
+
+        return result;
+    }
+
+    // Gauges
+
+    public int getLevels() {
+        return levels.length;
+    }
+
+    public int size(int priority) {
+        return levels[priority].depth.get();
+    }
+
+    public long getDequeuedCount(int priority) {
+        return levels[priority].dequeued.get();
+    }
+
+    /**
+     * @return the average time (in milliseconds) spent in the queue by the elements of the given priority
+     */
+    public double getAverageWaitTime(int priority) {
+        Level level = levels[priority];
+        long count = level.dequeued.get();
+
+        return count == 0 ? 0. : TimeUnit.NANOSECONDS.toMicros(level.totalWaitTime.get()) / (count * 1000.);
+    }
+
+    /**
+     * @return the maximum time (in milliseconds) spent in the queue by an element of the given priority
+     */
+    public long getMaxWaitTime(int priority) {
+        return TimeUnit.NANOSECONDS.toMillis(levels[priority].maxWaitTime.get());
+    }
+
+    // BlockingQueue
+
+    public boolean offer(E e) {
+        checkNotNull(e);
+        Level level = getLevel(e);
+
+        if (!level.slots.tryAcquire())
+            return false;
+
+        enqueue(level, e);
+        return true;
+    }
+
+    public void put(E e) throws InterruptedException {
+        checkNotNull(e);
+        Level level = getLevel(e);
+
+        level.slots.acquire();
+        enqueue(level, e);
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(e);
+        Level level = getLevel(e);
+
+        if (!level.slots.tryAcquire(timeout, unit))
+            return false;
+
+        enqueue(level, e);
+        return true;
+    }
+
+    public E poll() {
+        return available.tryAcquire() ? dequeue() : null;
+    }
+
+    public E take() throws InterruptedException {
+        available.acquire();
+        return dequeue();
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return available.tryAcquire(timeout, unit) ? dequeue() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (Level level : levels) {
+            Node node = level.items.peek();
+            if (node != null)
+                return (E) node.item;
+        }
+
+        return null;
+    }
+
+    public int size() {
+        int count = 0;
+        for (Level level : levels) count += level.depth.get();
+        return count;
+    }
+
+    public int remainingCapacity() {
+        int capacity = 0;
+        for (Level level : levels) capacity += level.slots.availablePermits();
+        return capacity;
+    }
+
+    public boolean remove(Object o) {
+        if (o == null)
+            return false;
+
+        // Reserve an element first, so that no consumer can be left without one
+        if (!available.tryAcquire())
+            return false;
+
+        for (Level level : levels) {
+            for (Node node : level.items) {
+                if (o.equals(node.item) && level.items.remove(node)) {
+                    level.depth.decrementAndGet();
+                    level.slots.release();
+                    return true;
+                }
+            }
+        }
+
+        available.release();
+        return false;
+    }
+
+    public boolean contains(Object o) {
+        if (o == null)
+            return false;
+
+        for (Level level : levels) {
+            for (Node node : level.items) {
+                if (o.equals(node.item))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void clear() {
+        while (poll() != null) ;
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+
+        int count = 0;
+        E e;
+        while (count < maxElements && (e = poll()) != null) {
+            c.add(e);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements of the queue,
+     * from the highest priority level to the lowest one. The iterator does not support removal.
+     */
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+
+            private int index = 0;
+            private Iterator<Node> current = levels[0].items.iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (++index == levels.length)
+                        return false;
+                    current = levels[index].items.iterator();
+                }
+
+                return true;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return (E) current.next().item;
+            }
+
+        };
+    }
+
+}
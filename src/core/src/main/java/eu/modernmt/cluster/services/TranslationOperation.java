@@ -7,11 +7,13 @@ import com.hazelcast.spi.impl.operationservice.impl.OperationServiceImpl;
 import com.hazelcast.spi.impl.operationservice.impl.responses.ErrorResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse;
 import eu.modernmt.cluster.TranslationTask;
+import eu.modernmt.metrics.LatencyMetrics;
 import eu.modernmt.model.Translation;
 import org.apache.commons.lang.SerializationUtils;
 
 import java.io.IOException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A TranslationOperation is an Hazelcast Operation for performing translations.
@@ -33,20 +35,43 @@ class TranslationOperation extends Operation {
     public class TranslationRunnable implements Runnable, Prioritizable {
 
         private final TranslationTask task;
+        private final long creationTime;
 
         public TranslationRunnable(TranslationTask task) {
             this.task = task;
+            this.creationTime = System.nanoTime();
         }
 
         @Override
         public void run() {
+            int priority = task.getPriority();
+            long waited = System.nanoTime() - creationTime;
+            LatencyMetrics.record(LatencyMetrics.Stage.QUEUE, task.getDirection(), priority, waited);
+            LatencyMetrics.setCurrentPriority(priority);
+
+            TranslationService translationService = getService();
+            AdmissionController admissionController = translationService.getAdmissionController();
+            boolean started = false;
+            long begin = 0L;
+
             try {
                 startAsyncOperation();
+
+                /*the budget may have been spent in the queue: fail fast instead of translating*/
+                admissionController.checkDeadline(priority, task.getTimeout(), waited);
+
+                admissionController.onStart();
+                started = true;
+                begin = System.nanoTime();
+
                 Translation translation = task.call();
                 sendResponse(new NormalResponse(translation, getCallId(), 0, false));
             } catch (Throwable e) {
                 sendResponse(new ErrorResponse(e, getCallId(), false));
             } finally {
+                if (started)
+                    admissionController.onComplete(System.nanoTime() - begin);
+                LatencyMetrics.clearCurrentPriority();
                 completeAsyncOperation();
             }
         }
@@ -74,9 +99,13 @@ class TranslationOperation extends Operation {
     public void run() throws Exception {
         TranslationService translationService = getService();
         ExecutorService executor = translationService.getExecutor();
+        AdmissionController admissionController = translationService.getAdmissionController();
 
         try {
+            admissionController.admit(task.getPriority(), task.getTimeout());
             executor.submit(new TranslationRunnable(task));
+        } catch (RejectedExecutionException e) {
+            submitException = admissionController.overflow(task.getPriority());
         } catch (Throwable e) {
             submitException = e;
         }
@@ -25,6 +25,8 @@ public class TranslationService implements ManagedService, RemoteService {
     public static final String SERVICE_NAME = "mmt:cluster:TranslationService";
 
     private NodeEngine nodeEngine;
+    private MultiLevelPriorityBlockingQueue<Runnable> queue;
+    private AdmissionController admissionController;
     private ExecutorService executor;
 
     @Override
@@ -35,9 +37,12 @@ public class TranslationService implements ManagedService, RemoteService {
         int highPriorityQueueSize = config.getHighPriorityQueueSize();
         int normalPriorityQueueSize = config.getNormalPriorityQueueSize();
         int backgroundPriorityQueueSize = config.getBackgroundPriorityQueueSize();
+        long agingThreshold = config.getAgingThreshold();
+        long timeout = config.getTimeout();
 
-        BlockingQueue<Runnable> queue = new PriorityBucketBlockingQueue<>(
+        this.queue = new MultiLevelPriorityBlockingQueue<>(agingThreshold, TimeUnit.MILLISECONDS,
                 highPriorityQueueSize, normalPriorityQueueSize, backgroundPriorityQueueSize);
+        this.admissionController = new AdmissionController(queue, threads, timeout, TimeUnit.MILLISECONDS);
 
         this.nodeEngine = nodeEngine;
 
@@ -89,6 +94,20 @@ public class TranslationService implements ManagedService, RemoteService {
         return executor;
     }
 
+    /**
+     * @return the queue of the pending translations of this member, it can be used to monitor its state
+     */
+    public MultiLevelPriorityBlockingQueue<Runnable> getQueue() {
+        return queue;
+    }
+
+    /**
+     * @return the controller that decides which translations enter the queue of this member
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
     @Override
     public void reset() {
 
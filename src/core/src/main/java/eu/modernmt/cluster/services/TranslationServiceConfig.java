@@ -13,6 +13,8 @@ public class TranslationServiceConfig {
 
 
     private static final int DEFAULT_QUEUE_SIZE = 1024;
+    private static final long DEFAULT_AGING_THRESHOLD = 10000L;
+    private static final long DEFAULT_TIMEOUT = 0L;
 
     private final Properties properties;
 
@@ -47,6 +49,16 @@ public class TranslationServiceConfig {
         return this;
     }
 
+    public TranslationServiceConfig setAgingThreshold(long agingThreshold) {
+        properties.setProperty("agingThreshold", Long.toString(agingThreshold));
+        return this;
+    }
+
+    public TranslationServiceConfig setTimeout(long timeout) {
+        properties.setProperty("timeout", Long.toString(timeout));
+        return this;
+    }
+
     /**
      * Get the amount of threads explicitly set in the Properties for this TranslationService.
      * If no "threads" property was set in the Properties,
@@ -101,4 +113,33 @@ public class TranslationServiceConfig {
             return DEFAULT_QUEUE_SIZE;
     }
 
+    /**
+     * Get the time (in milliseconds) after which a waiting translation takes part in the guaranteed share
+     * of the aged translations, regardless of its priority.
+     * If no "agingThreshold" property is set in the Properties this method will return the DEFAULT_AGING_THRESHOLD;
+     * zero disables aging.
+     *
+     * @return the aging threshold to use for the queues of this TranslationExecutor
+     */
+    public long getAgingThreshold() {
+        if (properties.containsKey("agingThreshold"))
+            return Long.parseLong(properties.getProperty("agingThreshold"));
+        else
+            return DEFAULT_AGING_THRESHOLD;
+    }
+
+    /**
+     * Get the time budget (in milliseconds) of the translations that do not specify one.
+     * If no "timeout" property is set in the Properties this method will return the DEFAULT_TIMEOUT,
+     * that admits every translation as long as there is room in the queues.
+     *
+     * @return the default time budget of the translations of this TranslationExecutor
+     */
+    public long getTimeout() {
+        if (properties.containsKey("timeout"))
+            return Long.parseLong(properties.getProperty("timeout"));
+        else
+            return DEFAULT_TIMEOUT;
+    }
+
 }
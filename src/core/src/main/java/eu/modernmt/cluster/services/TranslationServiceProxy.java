@@ -1,5 +1,6 @@
 package eu.modernmt.cluster.services;
 
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.nio.Address;
 import com.hazelcast.spi.AbstractDistributedObject;
 import com.hazelcast.spi.NodeEngine;
@@ -7,8 +8,6 @@ import com.hazelcast.spi.OperationService;
 import eu.modernmt.cluster.TranslationTask;
 import eu.modernmt.model.Translation;
 
-import java.util.concurrent.Future;
-
 /**
  * A TranslationServiceProxy is an Hazelcast proxy for a TranslationService service.
  *
@@ -47,9 +46,27 @@ public class TranslationServiceProxy extends AbstractDistributedObject<Translati
      * @param address the Address of the Member that should run this task
      * @return a Future for the Translation that this task will output
      */
-    public Future<Translation> submit(TranslationTask task, Address address) {
+    public ICompletableFuture<Translation> submit(TranslationTask task, Address address) {
         OperationService localOperationService = getNodeEngine().getOperationService();
         TranslationOperation operation = new TranslationOperation(task);
         return localOperationService.invokeOnTarget(getServiceName(), operation, address);
     }
-}
\ No newline at end of file
+
+    /**
+     * This method returns the queue of the pending translations of the local TranslationService.
+     *
+     * @return the local translation queue
+     */
+    public MultiLevelPriorityBlockingQueue<Runnable> getLocalQueue() {
+        return getService().getQueue();
+    }
+
+    /**
+     * This method returns the admission controller of the local TranslationService.
+     *
+     * @return the local admission controller
+     */
+    public AdmissionController getLocalAdmissionController() {
+        return getService().getAdmissionController();
+    }
+}
@@ -14,6 +14,9 @@ public class NeuralDecoderConfig extends DecoderConfig {
     private static final int[] DEFAULT_GPUS = new int[0];
 
     private int[] gpus = DEFAULT_GPUS;
+    private int maxThreads = -1;
+    private int standbyThreads = 0;
+    private long timeout = 60000L;
 
     public int[] getGPUs() {
         if (gpus == DEFAULT_GPUS) {
@@ -48,10 +51,46 @@ public class NeuralDecoderConfig extends DecoderConfig {
         }
     }
 
+    /**
+     * @return the max number of decoder processes running on CPU; the pool grows from
+     * getThreads() up to this value when translations wait for a free process
+     */
+    public int getMaxThreads() {
+        return Math.max(threads, maxThreads);
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * @return the number of idle decoder processes kept ready to replace failed processes
+     * or to grow the pool (CPU only)
+     */
+    public int getStandbyThreads() {
+        return standbyThreads;
+    }
+
+    public void setStandbyThreads(int standbyThreads) {
+        this.standbyThreads = standbyThreads;
+    }
+
+    /**
+     * @return the time (in milliseconds) after which a decoder process that has not
+     * completed a translation is considered stuck and restarted
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
     @Override
     public int getParallelismDegree() {
         int[] gpus = this.getGPUs();
-        return (gpus != null && gpus.length != 0) ? gpus.length : threads;
+        return (gpus != null && gpus.length != 0) ? gpus.length : getMaxThreads();
     }
 
     public boolean isUsingGPUs() {
@@ -63,6 +102,9 @@ public class NeuralDecoderConfig extends DecoderConfig {
     public String toString() {
         return "[Neural decoder]\n" +
                 "  threads = " + threads + "\n" +
+                "  max-threads = " + getMaxThreads() + "\n" +
+                "  standby-threads = " + standbyThreads + "\n" +
+                "  timeout = " + timeout + "\n" +
                 "  gpus = " + Arrays.toString(gpus) + "\n" +
                 "  enabled = " + enabled;
     }
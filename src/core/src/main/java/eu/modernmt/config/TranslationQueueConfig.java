@@ -8,6 +8,8 @@ public class TranslationQueueConfig {
     private int highPrioritySize = 512;
     private int normalPrioritySize = 1024;
     private int backgroundPrioritySize = 4096;
+    private long agingThreshold = 10000L;
+    private long timeout = 0L;
 
     public int getHighPrioritySize() {
         return highPrioritySize;
@@ -33,11 +35,36 @@ public class TranslationQueueConfig {
         this.backgroundPrioritySize = backgroundPrioritySize;
     }
 
+    /**
+     * @return the time (in milliseconds) after which a waiting translation takes part in the guaranteed share
+     * of the aged translations, regardless of its priority; 0 disables aging
+     */
+    public long getAgingThreshold() {
+        return agingThreshold;
+    }
+
+    public void setAgingThreshold(long agingThreshold) {
+        this.agingThreshold = agingThreshold;
+    }
+
+    /**
+     * @return the time budget (in milliseconds) of the translations that do not specify one, 0 for no budget
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
     @Override
     public String toString() {
         return "[TranslationQueue]\n" +
                 "  high = " + highPrioritySize + "\n" +
                 "  normal = " + normalPrioritySize + "\n" +
-                "  background = " + backgroundPrioritySize;
+                "  background = " + backgroundPrioritySize + "\n" +
+                "  aging = " + agingThreshold + "\n" +
+                "  timeout = " + timeout;
     }
 }
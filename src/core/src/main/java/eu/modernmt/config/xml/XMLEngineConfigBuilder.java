@@ -101,8 +101,17 @@ class XMLEngineConfigBuilder extends XMLAbstractBuilder {
                 if (hasAttribute("gpus"))
                     neuralConfig.setGPUs(getIntArrayAttribute("gpus"));
 
-                if (neuralConfig.isUsingGPUs() && hasAttribute("threads"))
-                    throw new ConfigException("In order to specify 'threads', you have to add gpus='none'");
+                if (hasAttribute("max-threads"))
+                    neuralConfig.setMaxThreads(getIntAttribute("max-threads"));
+
+                if (hasAttribute("standby-threads"))
+                    neuralConfig.setStandbyThreads(getIntAttribute("standby-threads"));
+
+                if (hasAttribute("timeout"))
+                    neuralConfig.setTimeout(getIntAttribute("timeout"));
+
+                if (neuralConfig.isUsingGPUs() && (hasAttribute("threads") || hasAttribute("max-threads") || hasAttribute("standby-threads")))
+                    throw new ConfigException("In order to specify 'threads', 'max-threads' or 'standby-threads', you have to add gpus='none'");
             }
 
             return config;
@@ -17,6 +17,10 @@ class XMLTranslationQueueConfigBuilder extends XMLAbstractBuilder {
             config.setNormalPrioritySize(getIntAttribute("normal-priority-size"));
         if (this.hasAttribute("background-priority-size"))
             config.setBackgroundPrioritySize(getIntAttribute("background-priority-size"));
+        if (this.hasAttribute("aging-threshold"))
+            config.setAgingThreshold(getIntAttribute("aging-threshold"));
+        if (this.hasAttribute("timeout"))
+            config.setTimeout(getIntAttribute("timeout"));
 
         return config;
     }
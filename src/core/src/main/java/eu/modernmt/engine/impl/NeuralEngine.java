@@ -28,9 +28,11 @@ public class NeuralEngine extends Engine {
         try {
             NeuralDecoderConfig decoderConfig = (NeuralDecoderConfig) config.getDecoderConfig();
             if (decoderConfig.isEnabled()) {
+                File model = new File(this.models, "decoder");
                 this.decoder = decoderConfig.isUsingGPUs() ?
-                        new NeuralDecoder(new File(this.models, "decoder"), decoderConfig.getGPUs()) :
-                        new NeuralDecoder(new File(this.models, "decoder"), decoderConfig.getThreads());
+                        new NeuralDecoder(model, decoderConfig.getGPUs(), decoderConfig.getTimeout()) :
+                        new NeuralDecoder(model, decoderConfig.getThreads(), decoderConfig.getMaxThreads(),
+                                decoderConfig.getStandbyThreads(), decoderConfig.getTimeout());
             } else {
                 this.decoder = null;
             }
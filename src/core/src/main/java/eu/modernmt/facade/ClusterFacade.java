@@ -1,8 +1,10 @@
 package eu.modernmt.facade;
 
 import eu.modernmt.cluster.NodeInfo;
+import eu.modernmt.cluster.NodeMetrics;
 
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by davide on 15/12/16.
@@ -13,4 +15,8 @@ public class ClusterFacade {
         return ModernMT.getNode().getClusterNodes();
     }
 
+    public NodeMetrics getMetrics() throws InterruptedException {
+        return ModernMT.getNode().getClusterMetrics(5, TimeUnit.SECONDS);
+    }
+
 }
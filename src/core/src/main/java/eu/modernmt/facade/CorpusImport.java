@@ -0,0 +1,255 @@
+package eu.modernmt.facade;
+
+import eu.modernmt.data.DataManager;
+import eu.modernmt.model.ImportJob;
+import eu.modernmt.model.corpus.BaseMultilingualCorpus;
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import eu.modernmt.persistence.Connection;
+import eu.modernmt.persistence.Database;
+import eu.modernmt.persistence.ImportJobDAO;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.*;
+
+/**
+ * An import of a corpus into a memory that starts before the content of the corpus is read,
+ * as for a corpus that is still arriving with the request that started the import.
+ * The ImportJob is stored as pending when the import starts, so that its id can be returned immediately.
+ * <p>
+ * The content is read by the caller with feed(): the pairs pass through a bounded buffer to a background thread
+ * that sends them to the data stream, so the reader waits for the data stream only when the buffer is full.
+ * Once the last pair has been sent, the job is updated with its offsets.
+ * A job is never completed with a partial content: if the corpus cannot be read to the end, or the data stream
+ * fails, the job is marked as failed (the pairs sent before the failure are already in the memory).
+ * <p>
+ * Every import holds a permit of the import executor from its start, that is released when the import ends:
+ * if the import is not fed, it must be discarded.
+ */
+public class CorpusImport {
+
+    private static final Logger logger = LogManager.getLogger(CorpusImport.class);
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final MultilingualCorpus.StringPair END = new MultilingualCorpus.StringPair(null, null, null);
+
+    private final ImportJob job;
+    private final MultilingualCorpus corpus;
+    private final DataManager dataManager;
+    private final Database database;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    private final BlockingQueue<MultilingualCorpus.StringPair> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+    private volatile boolean aborted = false;
+    private volatile boolean closed = false;
+    private boolean fed = false;
+
+    /**
+     * @param permits the permits of the executor, one of them has been already acquired for this import
+     */
+    CorpusImport(ImportJob job, MultilingualCorpus corpus, DataManager dataManager, Database database,
+                 ExecutorService executor, Semaphore permits) {
+        this.job = job;
+        this.corpus = corpus;
+        this.dataManager = dataManager;
+        this.database = database;
+        this.executor = executor;
+        this.permits = permits;
+    }
+
+    /**
+     * @return the pending job of this import
+     */
+    public ImportJob getJob() {
+        return job;
+    }
+
+    /**
+     * Reads the corpus and passes its pairs to the background thread that sends them to the data stream;
+     * it returns when the corpus has been read, the last pairs may still be in the buffer.
+     *
+     * @throws IOException if the corpus cannot be read to the end, or the data stream has failed
+     */
+    public synchronized void feed() throws IOException {
+        if (fed)
+            throw new IllegalStateException("Corpus already imported");
+        fed = true;
+
+        Future<?> sender;
+
+        try {
+            sender = executor.submit(this::send);
+        } catch (RejectedExecutionException e) {
+            fail();
+            permits.release();
+            throw new IOException("Import job " + job.getId() + " failed: import executor is not available", e);
+        }
+
+        MultilingualCorpus.MultilingualLineReader reader = null;
+        boolean success = false;
+
+        try {
+            reader = corpus.getContentReader();
+
+            MultilingualCorpus.StringPair pair;
+            while ((pair = reader.read()) != null) {
+                while (!buffer.offer(pair, 1, TimeUnit.SECONDS)) {
+                    if (sender.isDone())
+                        throw new IOException("Import job " + job.getId() + " failed: data stream is no longer available");
+                }
+            }
+
+            success = true;
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Import job " + job.getId() + " interrupted");
+        } finally {
+            IOUtils.closeQuietly(reader);
+
+            aborted = !success;
+            closed = true;
+            buffer.offer(END); // if the buffer is full, the sender finds it closed after the last pair
+        }
+    }
+
+    /**
+     * Ends an import that will not be fed, as when its job could not be returned to the client:
+     * the job is marked as failed.
+     */
+    public synchronized void discard() {
+        if (fed)
+            return;
+        fed = true;
+
+        fail();
+        permits.release();
+    }
+
+    private void send() {
+        try {
+            ImportJob result;
+
+            try {
+                result = dataManager.upload(job.getMemory(), new BufferCorpus(), job.getDataChannel());
+            } catch (Throwable e) {
+                logger.error("Failed to send corpus of import job " + job.getId() + " to the data stream", e);
+                fail();
+                return;
+            }
+
+            complete(result);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void complete(ImportJob result) {
+        ImportJob completed = new ImportJob();
+        completed.setId(job.getId());
+        completed.setMemory(job.getMemory());
+        completed.setDataChannel(job.getDataChannel());
+
+        if (result == null) {
+            logger.warn("Import job " + job.getId() + " completed with an empty corpus");
+
+            completed.setSize(0);
+            completed.setBegin(0L);
+            completed.setEnd(0L);
+        } else {
+            completed.setSize(result.getSize());
+            completed.setBegin(result.getBegin());
+            completed.setEnd(result.getEnd());
+        }
+
+        update(completed);
+    }
+
+    private void fail() {
+        ImportJob failed = ImportJob.createFailedJob(job.getMemory(), job.getDataChannel());
+        failed.setId(job.getId());
+
+        update(failed);
+    }
+
+    private void update(ImportJob result) {
+        Connection connection = null;
+
+        try {
+            connection = database.getConnection();
+
+            ImportJobDAO jobDAO = database.getImportJobDAO(connection);
+            if (jobDAO.update(result) == null)
+                logger.error("Unable to update import job " + job.getId() + ": job not found");
+        } catch (Throwable e) {
+            logger.error("Unable to update import job " + job.getId(), e);
+        } finally {
+            IOUtils.closeQuietly(connection);
+        }
+    }
+
+    /**
+     * The pairs in the buffer, until the reader has finished: if the reader has failed,
+     * the content ends with an exception, so that the data stream does not complete the upload
+     */
+    private class BufferCorpus extends BaseMultilingualCorpus {
+
+        @Override
+        public String getName() {
+            return corpus.getName();
+        }
+
+        @Override
+        public MultilingualLineReader getContentReader() {
+            return new MultilingualLineReader() {
+
+                private boolean ended = false;
+
+                @Override
+                public StringPair read() throws IOException {
+                    if (ended)
+                        return null;
+
+                    try {
+                        StringPair pair;
+                        while ((pair = buffer.poll(1, TimeUnit.SECONDS)) == null) {
+                            if (closed) {
+                                // every pair was put before closing
+                                pair = buffer.poll();
+                                break;
+                            }
+                        }
+
+                        if (pair == null || pair == END) {
+                            ended = true;
+
+                            if (aborted)
+                                throw new IOException("Import job " + job.getId() + " failed: corpus content ended abnormally");
+
+                            return null;
+                        }
+
+                        return pair;
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException("Import job " + job.getId() + " interrupted");
+                    }
+                }
+
+                @Override
+                public void close() {
+                    // Nothing to close
+                }
+
+            };
+        }
+
+        @Override
+        public MultilingualLineWriter getContentWriter(boolean append) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package eu.modernmt.facade;
 
 import eu.modernmt.cleaning.CorporaCleaning;
 import eu.modernmt.cluster.ClusterNode;
+import eu.modernmt.cluster.MemoryCache;
 import eu.modernmt.cluster.NodeInfo;
 import eu.modernmt.data.DataManager;
 import eu.modernmt.data.DataManagerException;
@@ -14,6 +15,10 @@ import eu.modernmt.persistence.*;
 import org.apache.commons.io.IOUtils;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -21,6 +26,18 @@ import java.util.stream.Collectors;
  */
 public class MemoryFacade {
 
+    /**
+     * The max number of corpus imports that are running at the same time: every import holds one thread
+     */
+    private static final int MAX_CONCURRENT_IMPORTS = 16;
+
+    private final Semaphore importPermits = new Semaphore(MAX_CONCURRENT_IMPORTS);
+    private final ExecutorService importExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_IMPORTS, r -> {
+        Thread thread = new Thread(r, "CorpusImport");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public Collection<Memory> list() throws PersistenceException {
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
@@ -36,6 +53,12 @@ public class MemoryFacade {
     }
 
     public Memory get(long id) throws PersistenceException {
+        MemoryCache cache = ModernMT.getNode().getMemoryCache();
+
+        MemoryCache.Lookup lookup = cache.lookup(id);
+        if (lookup.isHit())
+            return lookup.getMemory();
+
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
 
@@ -43,7 +66,10 @@ public class MemoryFacade {
             connection = db.getConnection();
 
             MemoryDAO memoryDAO = db.getMemoryDAO(connection);
-            return memoryDAO.retrieve(id);
+            Memory memory = memoryDAO.retrieve(id);
+
+            cache.put(id, memory, lookup.getGeneration());
+            return memory;
         } finally {
             IOUtils.closeQuietly(connection);
         }
@@ -58,6 +84,30 @@ public class MemoryFacade {
     }
 
     public Map<Long, Memory> get(Collection<Long> ids) throws PersistenceException {
+        MemoryCache cache = ModernMT.getNode().getMemoryCache();
+
+        HashMap<Long, Memory> result = new HashMap<>(ids.size());
+        ArrayList<Long> missing = new ArrayList<>();
+        long generation = 0L;
+
+        for (long id : ids) {
+            MemoryCache.Lookup lookup = cache.lookup(id);
+
+            if (lookup.isHit()) {
+                Memory memory = lookup.getMemory();
+                if (memory != null)
+                    result.put(id, memory);
+            } else {
+                /*the generation of the first miss: an invalidation after it discards all the values read*/
+                if (missing.isEmpty())
+                    generation = lookup.getGeneration();
+                missing.add(id);
+            }
+        }
+
+        if (missing.isEmpty())
+            return result;
+
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
 
@@ -65,12 +115,25 @@ public class MemoryFacade {
             connection = db.getConnection();
 
             MemoryDAO memoryDAO = db.getMemoryDAO(connection);
-            return memoryDAO.retrieve(ids);
+            Map<Long, Memory> memories = memoryDAO.retrieve(missing);
+
+            for (Long id : missing)
+                cache.put(id, memories.get(id), generation);
+
+            result.putAll(memories);
+            return result;
         } finally {
             IOUtils.closeQuietly(connection);
         }
     }
 
+    /**
+     * @return true if the memory exists; the check is served by the memory cache whenever possible
+     */
+    private boolean exists(long id) throws PersistenceException {
+        return get(id) != null;
+    }
+
     public Memory create(String name) throws PersistenceException {
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
@@ -83,6 +146,9 @@ public class MemoryFacade {
             MemoryDAO memoryDAO = db.getMemoryDAO(connection);
             memory = memoryDAO.store(memory);
 
+            // the id may be cached as missing on some nodes
+            ModernMT.getNode().notifyMemoryChanged(memory.getId());
+
             return memory;
         } finally {
             IOUtils.closeQuietly(connection);
@@ -105,6 +171,8 @@ public class MemoryFacade {
             IOUtils.closeQuietly(connection);
         }
 
+        ModernMT.getNode().notifyMemoryChanged(id);
+
         this.empty(id);
 
         return true;
@@ -116,55 +184,58 @@ public class MemoryFacade {
     }
 
     public ImportJob add(LanguagePair direction, long memoryId, String source, String target) throws DataManagerException, PersistenceException {
-        Connection connection = null;
-        Database db = ModernMT.getNode().getDatabase();
-
-        try {
-            connection = db.getConnection();
-
-            MemoryDAO memoryDAO = db.getMemoryDAO(connection);
-            Memory memory = memoryDAO.retrieve(memoryId);
-
-            if (memory == null)
-                return null;
+        if (!exists(memoryId))
+            return null;
 
-            DataManager dataManager = ModernMT.getNode().getDataManager();
-            ImportJob job = dataManager.upload(direction, memoryId, source, target, new Date(), DataManager.CONTRIBUTIONS_CHANNEL_ID);
+        DataManager dataManager = ModernMT.getNode().getDataManager();
+        ImportJob job = dataManager.upload(direction, memoryId, source, target, new Date(), DataManager.CONTRIBUTIONS_CHANNEL_ID);
 
-            if (job == null)
-                return null;
+        if (job == null)
+            return null;
 
-            // Don't store ephemeral ImportJob!
+        // Don't store ephemeral ImportJob!
 
-            return job;
-        } finally {
-            IOUtils.closeQuietly(connection);
-        }
+        return job;
     }
 
     public ImportJob replace(LanguagePair direction, long memoryId, String sentence, String translation,
                              String previousSentence, String previousTranslation)
             throws DataManagerException, PersistenceException {
+        if (!exists(memoryId))
+            return null;
+
+        DataManager dataManager = ModernMT.getNode().getDataManager();
+        ImportJob job = dataManager.replace(direction, memoryId, sentence, translation,
+                previousSentence, previousTranslation, new Date(), DataManager.CONTRIBUTIONS_CHANNEL_ID);
+
+        if (job == null)
+            return null;
+
+        // Don't store ephemeral ImportJob!
+
+        return job;
+    }
+
+    public ImportJob add(long memoryId, MultilingualCorpus corpus) throws PersistenceException, DataManagerException {
+        if (!exists(memoryId))
+            return null;
+
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
 
         try {
             connection = db.getConnection();
 
-            MemoryDAO memoryDAO = db.getMemoryDAO(connection);
-            Memory memory = memoryDAO.retrieve(memoryId);
-
-            if (memory == null)
-                return null;
+            corpus = CorporaCleaning.wrap(corpus);
 
             DataManager dataManager = ModernMT.getNode().getDataManager();
-            ImportJob job = dataManager.replace(direction, memoryId, sentence, translation,
-                    previousSentence, previousTranslation, new Date(), DataManager.CONTRIBUTIONS_CHANNEL_ID);
+            ImportJob job = dataManager.upload(memoryId, corpus, DataManager.MEMORY_UPLOAD_CHANNEL_ID);
 
             if (job == null)
-                return null;
+                throw new EmptyCorpusException();
 
-            // Don't store ephemeral ImportJob!
+            ImportJobDAO jobDAO = db.getImportJobDAO(connection);
+            job = jobDAO.store(job);
 
             return job;
         } finally {
@@ -172,33 +243,44 @@ public class MemoryFacade {
         }
     }
 
-    public ImportJob add(long memoryId, MultilingualCorpus corpus) throws PersistenceException, DataManagerException {
+    /**
+     * Starts the import of a corpus whose content has not been read yet: the returned import
+     * has a pending job already stored, the corpus is read and sent to the data stream by CorpusImport.feed(),
+     * or the import must be discarded with CorpusImport.discard().
+     *
+     * @param memoryId the memory to import the corpus into
+     * @param corpus   the corpus to import
+     * @return the import or null if the memory does not exist
+     * @throws RejectedExecutionException if too many imports are running
+     */
+    public CorpusImport startImport(long memoryId, MultilingualCorpus corpus) throws PersistenceException {
+        if (!exists(memoryId))
+            return null;
+
+        if (!importPermits.tryAcquire())
+            throw new RejectedExecutionException("Too many corpus imports running: " + MAX_CONCURRENT_IMPORTS);
+
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
+        boolean started = false;
 
         try {
             connection = db.getConnection();
 
-            MemoryDAO memoryDAO = db.getMemoryDAO(connection);
-            Memory memory = memoryDAO.retrieve(memoryId);
-
-            if (memory == null)
-                return null;
-
-            corpus = CorporaCleaning.wrap(corpus);
+            ImportJobDAO jobDAO = db.getImportJobDAO(connection);
+            ImportJob job = jobDAO.store(ImportJob.createPendingJob(memoryId, DataManager.MEMORY_UPLOAD_CHANNEL_ID));
 
             DataManager dataManager = ModernMT.getNode().getDataManager();
-            ImportJob job = dataManager.upload(memoryId, corpus, DataManager.MEMORY_UPLOAD_CHANNEL_ID);
-
-            if (job == null)
-                throw new EmptyCorpusException();
-
-            ImportJobDAO jobDAO = db.getImportJobDAO(connection);
-            job = jobDAO.store(job);
+            CorpusImport corpusImport = new CorpusImport(job, CorporaCleaning.wrap(corpus), dataManager, db,
+                    importExecutor, importPermits);
+            started = true;
 
-            return job;
+            return corpusImport;
         } finally {
             IOUtils.closeQuietly(connection);
+
+            if (!started)
+                importPermits.release();
         }
     }
 
@@ -210,10 +292,15 @@ public class MemoryFacade {
             connection = db.getConnection();
             MemoryDAO memoryDAO = db.getMemoryDAO(connection);
 
-            return memoryDAO.update(memory);
+            memory = memoryDAO.update(memory);
         } finally {
             IOUtils.closeQuietly(connection);
         }
+
+        if (memory != null)
+            ModernMT.getNode().notifyMemoryChanged(memory.getId());
+
+        return memory;
     }
 
     public ImportJob getImportJob(UUID id) throws PersistenceException {
@@ -236,6 +323,11 @@ public class MemoryFacade {
         if (job == null)
             return null;
 
+        if (job.isPending() || job.isFailed()) {
+            job.setProgress(0.f);
+            return job;
+        }
+
         List<NodeInfo> nodes = ModernMT.getNode().getClusterNodes().stream()
                 .filter(node -> node.status == ClusterNode.Status.READY)
                 .collect(Collectors.toList());
@@ -19,6 +19,7 @@ import org.apache.commons.io.FileUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -86,10 +87,27 @@ public class TrainingFacade {
 
     public void reduce(LanguageIndex languages, List<MultilingualCorpus> originalCorpora, File outputDirectory, long maxWordCount) throws IOException {
         ArrayList<ReducedMultilingualCorpus> corpora = new ArrayList<>(originalCorpora.size());
-        for (MultilingualCorpus corpus : originalCorpora)
-            corpora.add(new ReducedMultilingualCorpus(new MultilingualCorpusMask(languages, corpus)));
+        ArrayList<ReducedMultilingualCorpus> unknownCounts = new ArrayList<>();
+        HashMap<LanguagePair, Long> counts = new HashMap<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (MultilingualCorpus corpus : originalCorpora) {
+            MultilingualCorpusMask mask = new MultilingualCorpusMask(languages, corpus);
+            ReducedMultilingualCorpus reduced = new ReducedMultilingualCorpus(mask);
+            corpora.add(reduced);
+
+            /*the words of the corpora in plain files are counted once per file (in parallel chunks) and cached, the others are read*/
+            Map<LanguagePair, Long> fileCounts = mask.getFileWordCount(threads);
+            if (fileCounts == null)
+                unknownCounts.add(reduced);
+            else
+                fileCounts.forEach((language, count) -> counts.merge(language, count, Long::sum));
+        }
 
-        Map<LanguagePair, Long> counts = IOCorporaUtils.wordCount(corpora, Runtime.getRuntime().availableProcessors());
+        if (!unknownCounts.isEmpty()) {
+            Map<LanguagePair, Long> readCounts = IOCorporaUtils.wordCount(unknownCounts, threads);
+            readCounts.forEach((language, count) -> counts.merge(language, count, Long::sum));
+        }
 
         for (Map.Entry<LanguagePair, Long> e : counts.entrySet()) {
             LanguagePair language = e.getKey();
@@ -0,0 +1,203 @@
+package eu.modernmt.facade;
+
+import eu.modernmt.facade.exceptions.TranslationException;
+import eu.modernmt.facade.exceptions.TranslationRejectedException;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Translation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A TranslationCoalescer merges identical translation requests that are in flight at the same time:
+ * the first request is submitted to the cluster, while the following ones attach to its result
+ * instead of occupying a slot in the translation queue and a decoder.
+ * <p>
+ * Requests are attached only to an in-flight request with the same or a higher priority.
+ * A request leaves the coalescer as soon as it completes, so results are never cached,
+ * and a failure is shared only with the requests that were attached to it.
+ * A rejection is never shared: it is an admission decision about the request that was submitted,
+ * so the requests attached to a rejected one are submitted again, each on its own.
+ * Every caller receives its own future: cancelling it, or being interrupted while waiting,
+ * never affects the other callers or the shared translation.
+ */
+class TranslationCoalescer {
+
+    public interface Submitter {
+
+        CompletableFuture<Translation> submit() throws TranslationException;
+
+    }
+
+    /**
+     * The attributes that identify identical translations; the time budget is part of them,
+     * since requests with different budgets are not admitted in the same way.
+     */
+    public static final class Key {
+
+        private final LanguagePair direction;
+        private final String text;
+        private final ContextVector context;
+        private final int nbest;
+        private final String variant;
+        private final long timeout;
+        private final int hash;
+
+        /**
+         * @param timeout the time budget (in milliseconds) of the translation, 0 for the default one
+         */
+        public Key(LanguagePair direction, String text, ContextVector context, int nbest, String variant, long timeout) {
+            this.direction = direction;
+            this.text = text;
+            this.context = context;
+            this.nbest = nbest;
+            this.variant = variant;
+            this.timeout = timeout;
+
+            int hash = direction.hashCode();
+            hash = 31 * hash + text.hashCode();
+            hash = 31 * hash + (context != null ? context.hashCode() : 0);
+            hash = 31 * hash + nbest;
+            hash = 31 * hash + (variant != null ? variant.hashCode() : 0);
+            hash = 31 * hash + Long.hashCode(timeout);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (hash != key.hash) return false;
+            if (nbest != key.nbest) return false;
+            if (timeout != key.timeout) return false;
+            if (!direction.equals(key.direction)) return false;
+            if (!text.equals(key.text)) return false;
+            if (context != null ? !context.equals(key.context) : key.context != null) return false;
+            return variant != null ? variant.equals(key.variant) : key.variant == null;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Flight {
+
+        private final int priority;
+        private final CompletableFuture<Translation> result = new CompletableFuture<>();
+
+        private Flight(int priority) {
+            this.priority = priority;
+        }
+
+    }
+
+    private final ConcurrentHashMap<Key, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Returns the result of the translation identified by key: if an identical translation
+     * with the same or a higher priority is in flight, its result is shared, otherwise
+     * the translation is submitted with the given submitter.
+     *
+     * @param key       the key of the translation
+     * @param priority  the priority of the translation (lower values have higher priority)
+     * @param submitter the function that submits the translation
+     * @return a future for the translation, owned by the caller
+     * @throws TranslationException if the submitter fails
+     */
+    public Future<Translation> submit(Key key, int priority, Submitter submitter) throws TranslationException {
+        Flight flight;
+
+        for (; ; ) {
+            Flight current = flights.get(key);
+
+            if (current != null && current.priority <= priority) {
+                hits.increment();
+                return attach(current, submitter);
+            }
+
+            // a request with higher priority replaces the current one for the following requests
+            flight = new Flight(priority);
+            if (current == null ? flights.putIfAbsent(key, flight) == null : flights.replace(key, current, flight))
+                break;
+        }
+
+        misses.increment();
+
+        Flight submitted = flight;
+        CompletableFuture<Translation> future;
+
+        try {
+            future = submitter.submit();
+        } catch (TranslationException | RuntimeException e) {
+            flights.remove(key, submitted);
+            submitted.result.completeExceptionally(e);
+            throw e;
+        }
+
+        future.whenComplete((translation, error) -> {
+            flights.remove(key, submitted);
+
+            if (error == null)
+                submitted.result.complete(translation);
+            else
+                submitted.result.completeExceptionally(error);
+        });
+
+        return submitted.result.thenApply(Function.identity());
+    }
+
+    private CompletableFuture<Translation> attach(Flight flight, Submitter submitter) {
+        CompletableFuture<Translation> result = new CompletableFuture<>();
+
+        flight.result.whenComplete((translation, error) -> {
+            if (error == null) {
+                result.complete(translation);
+            } else if (error instanceof TranslationRejectedException) {
+                // not coalesced again: a new flight could be rejected as well
+                misses.increment();
+
+                try {
+                    submitter.submit().whenComplete((t, e) -> {
+                        if (e == null)
+                            result.complete(t);
+                        else
+                            result.completeExceptionally(e);
+                    });
+                } catch (TranslationException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * @return the number of requests that have been attached to an identical in-flight request
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of requests that have been submitted to the cluster,
+     * including the ones submitted again after the rejection of the request they were attached to
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+}
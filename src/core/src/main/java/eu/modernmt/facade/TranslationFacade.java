@@ -1,5 +1,7 @@
 package eu.modernmt.facade;
 
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
 import eu.modernmt.aligner.Aligner;
 import eu.modernmt.aligner.AlignerException;
 import eu.modernmt.cluster.ClusterNode;
@@ -15,6 +17,7 @@ import eu.modernmt.lang.Language;
 import eu.modernmt.lang.LanguageIndex;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.lang.UnsupportedLanguageException;
+import eu.modernmt.metrics.LatencyMetrics;
 import eu.modernmt.model.*;
 import eu.modernmt.processing.Postprocessor;
 import eu.modernmt.processing.Preprocessor;
@@ -25,6 +28,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
@@ -36,6 +40,7 @@ public class TranslationFacade {
 
     private static final Logger logger = LogManager.getLogger(TranslationFacade.class);
     private LanguagePair lastTranslationLanguage = null;
+    private final TranslationCoalescer coalescer = new TranslationCoalescer();
 
     public enum Priority {
         HIGH(0), NORMAL(1), BACKGROUND(2);  //three priority values are allowed
@@ -82,19 +87,29 @@ public class TranslationFacade {
     // =============================
 
     public Translation get(LanguagePair direction, String sentence, Priority priority, String variant) throws TranslationException {
-        return get(new TranslationTaskImpl(direction, sentence, null, 0, priority, variant));
+        return get(new TranslationTaskImpl(direction, sentence, null, 0, priority, variant, 0L));
     }
 
     public Translation get(LanguagePair direction, String sentence, ContextVector translationContext, Priority priority, String variant) throws TranslationException {
-        return get(new TranslationTaskImpl(direction, sentence, translationContext, 0, priority, variant));
+        return get(new TranslationTaskImpl(direction, sentence, translationContext, 0, priority, variant, 0L));
     }
 
     public Translation get(LanguagePair direction, String sentence, int nbest, Priority priority, String variant) throws TranslationException {
-        return get(new TranslationTaskImpl(direction, sentence, null, nbest, priority, variant));
+        return get(new TranslationTaskImpl(direction, sentence, null, nbest, priority, variant, 0L));
     }
 
     public Translation get(LanguagePair direction, String sentence, ContextVector translationContext, int nbest, Priority priority, String variant) throws TranslationException {
-        return get(new TranslationTaskImpl(direction, sentence, translationContext, nbest, priority, variant));
+        return get(new TranslationTaskImpl(direction, sentence, translationContext, nbest, priority, variant, 0L));
+    }
+
+    /**
+     * Translates a sentence within a time budget: if the translation service is too busy to complete it in time,
+     * the translation is rejected immediately with a TranslationBudgetExceededException.
+     *
+     * @param timeout the time budget (in milliseconds) of the translation, 0 to use the default one
+     */
+    public Translation get(LanguagePair direction, String sentence, ContextVector translationContext, int nbest, Priority priority, String variant, long timeout) throws TranslationException {
+        return get(new TranslationTaskImpl(direction, sentence, translationContext, nbest, priority, variant, timeout));
     }
 
     private Translation get(TranslationTaskImpl task) throws TranslationException {
@@ -104,11 +119,8 @@ public class TranslationFacade {
             ensureDecoderSupportsNBest();
 
         try {
-            ClusterNode node = ModernMT.getNode();
-
-            Future<Translation> future = node.submit(task, task.direction);
-            if (future == null)
-                future = node.submit(task);
+            TranslationCoalescer.Key key = new TranslationCoalescer.Key(task.direction, task.text, task.context, task.nbest, task.variant, task.timeout);
+            Future<Translation> future = coalescer.submit(key, task.getPriority(), () -> submit(task));
 
             Translation translation = future.get();
 
@@ -123,12 +135,49 @@ public class TranslationFacade {
         }
     }
 
+    private static CompletableFuture<Translation> submit(TranslationTaskImpl task) throws TranslationException {
+        ClusterNode node = ModernMT.getNode();
+
+        ICompletableFuture<Translation> future = node.submit(task, task.direction);
+        if (future == null)
+            future = node.submit(task);
+
+        CompletableFuture<Translation> result = new CompletableFuture<>();
+        future.andThen(new ExecutionCallback<Translation>() {
+            @Override
+            public void onResponse(Translation translation) {
+                result.complete(translation);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * @return the number of translation requests that shared the result of an identical in-flight request
+     */
+    public long getCoalescedTranslationsCount() {
+        return coalescer.getHitCount();
+    }
+
+    /**
+     * @return the number of translation requests that have been submitted to the cluster
+     */
+    public long getSubmittedTranslationsCount() {
+        return coalescer.getMissCount();
+    }
+
     public void test() throws TranslationException {
         LanguagePair language = selectForTest();
         String text = "Translation test " + new Random().nextInt();
 
 
-        TranslationTaskImpl task = new TranslationTaskImpl(language, text, null, 0, TranslationFacade.Priority.HIGH, null);
+        TranslationTaskImpl task = new TranslationTaskImpl(language, text, null, 0, TranslationFacade.Priority.HIGH, null, 0L);
         Translation translation = task.call();
         if (!translation.hasWords())
             throw new TranslationException("Empty translation for test sentence '" + text + "'");
@@ -279,14 +328,16 @@ public class TranslationFacade {
         public final int nbest;
         public final Priority priority;
         public final String variant;
+        public final long timeout;
 
-        public TranslationTaskImpl(LanguagePair direction, String text, ContextVector context, int nbest, Priority priority, String variant) {
+        public TranslationTaskImpl(LanguagePair direction, String text, ContextVector context, int nbest, Priority priority, String variant, long timeout) {
             this.direction = direction;
             this.text = text;
             this.context = context;
             this.nbest = nbest;
             this.priority = priority;
             this.variant = variant;
+            this.timeout = timeout;
         }
 
         @Override
@@ -302,8 +353,12 @@ public class TranslationFacade {
 
             try {
                 long begin = System.currentTimeMillis();
+                long start = System.nanoTime();
+                long stageBegin = start;
 
                 Sentence sentence = preprocessor.process(direction, text);
+                stageBegin = record(LatencyMetrics.Stage.PREPROCESSING, stageBegin);
+
                 Translation translation;
 
                 if (decoder.supportsSentenceSplit()) {
@@ -317,14 +372,19 @@ public class TranslationFacade {
                     translation = translate(sentence, engine);
                 }
 
+                stageBegin = record(LatencyMetrics.Stage.DECODING, stageBegin);
+
                 // Alignment
                 if (!translation.hasAlignment()) {
                     Aligner aligner = engine.getAligner();
                     Alignment alignment = aligner.getAlignment(direction, sentence, translation);
                     translation.setWordAlignment(alignment);
+
+                    stageBegin = record(LatencyMetrics.Stage.ALIGNMENT, stageBegin);
                 }
 
                 postprocessor.process(direction, translation);
+                stageBegin = record(LatencyMetrics.Stage.POSTPROCESSING, stageBegin);
 
                 // NBest list
                 if (translation.hasNbest()) {
@@ -343,11 +403,15 @@ public class TranslationFacade {
                             hypothesis.setWordAlignment(alignments[i]);
                             i++;
                         }
+
+                        stageBegin = record(LatencyMetrics.Stage.ALIGNMENT, stageBegin);
                     }
                     postprocessor.process(direction, hypotheses);
+                    record(LatencyMetrics.Stage.POSTPROCESSING, stageBegin);
                 }
 
                 translation.setElapsedTime(System.currentTimeMillis() - begin);
+                LatencyMetrics.record(LatencyMetrics.Stage.TOTAL, direction, System.nanoTime() - start);
 
                 return translation;
             } catch (ProcessingException e) {
@@ -359,6 +423,19 @@ public class TranslationFacade {
             }
         }
 
+        /**
+         * Records the time elapsed since the given instant in the latency histogram of a stage.
+         *
+         * @param stage the translation stage that has just completed
+         * @param begin the instant (in nanoseconds) at which the stage began
+         * @return the current instant, that is the beginning of the next stage
+         */
+        private long record(LatencyMetrics.Stage stage, long begin) {
+            long now = System.nanoTime();
+            LatencyMetrics.record(stage, direction, now - begin);
+            return now;
+        }
+
         /**
          * This private method asks the passed Engine to translate one single sentence
          *
@@ -523,5 +600,15 @@ public class TranslationFacade {
         public int getPriority() {
             return this.priority.intValue;
         }
+
+        @Override
+        public long getTimeout() {
+            return this.timeout;
+        }
+
+        @Override
+        public LanguagePair getDirection() {
+            return this.direction;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package eu.modernmt.facade.exceptions;
+
+/**
+ * Thrown when a translation is not even queued because, given the current load of the
+ * translation service, it would not complete within the time budget of the request.
+ */
+public class TranslationBudgetExceededException extends TranslationRejectedException {
+
+    public TranslationBudgetExceededException(long estimatedTime, long budget, long retryAfter) {
+        super("Estimated translation time of " + estimatedTime + "ms exceeds the budget of " + budget + "ms", retryAfter);
+    }
+
+}
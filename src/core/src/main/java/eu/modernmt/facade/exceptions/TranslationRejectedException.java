@@ -2,7 +2,28 @@ package eu.modernmt.facade.exceptions;
 
 public class TranslationRejectedException extends TranslationException {
 
+    private final long retryAfter;
+
     public TranslationRejectedException() {
-        super("Failed to submit new translation: service temporarily overloaded");
+        this(0L);
+    }
+
+    /**
+     * @param retryAfter the time (in milliseconds) after which the translation is likely to be accepted, 0 if unknown
+     */
+    public TranslationRejectedException(long retryAfter) {
+        this("Failed to submit new translation: service temporarily overloaded", retryAfter);
+    }
+
+    protected TranslationRejectedException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the time (in milliseconds) after which the translation is likely to be accepted, 0 if unknown
+     */
+    public long getRetryAfter() {
+        return retryAfter;
     }
 }
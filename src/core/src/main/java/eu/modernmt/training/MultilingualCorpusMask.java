@@ -6,8 +6,11 @@ import eu.modernmt.lang.UnsupportedLanguageException;
 import eu.modernmt.model.corpus.BaseMultilingualCorpus;
 import eu.modernmt.model.corpus.MultilingualCorpus;
 import eu.modernmt.model.corpus.MultilingualCorpusWrapper;
+import eu.modernmt.model.corpus.impl.parallel.ParallelFileCorpus;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Created by davide on 18/08/17.
@@ -99,6 +102,55 @@ public class MultilingualCorpusMask extends BaseMultilingualCorpus implements Mu
         };
     }
 
+    /**
+     * Counts the words of the corpus as read through this mask, using the cached counts of the files
+     * (see ParallelFileCorpus.getWordCount()) instead of reading the content.
+     *
+     * @return the word count of every language, or null if the wrapped corpus is not a parallel corpus in plain files
+     * @throws IOException if an error occurs while counting the words
+     */
+    public Map<LanguagePair, Long> getFileWordCount() throws IOException {
+        return getFileWordCount(1);
+    }
+
+    /**
+     * Like getFileWordCount(), but the files are split in up to "threads" chunks that are counted concurrently.
+     *
+     * @param threads the maximum number of threads reading each file
+     * @return the word count of every language, or null if the wrapped corpus is not a parallel corpus in plain files
+     * @throws IOException if an error occurs while counting the words
+     */
+    public Map<LanguagePair, Long> getFileWordCount(int threads) throws IOException {
+        if (!(corpus instanceof ParallelFileCorpus))
+            return null;
+
+        ParallelFileCorpus fileCorpus = (ParallelFileCorpus) corpus;
+        LanguagePair language = languages.map(fileCorpus.getLanguage());
+
+        if (language == null)
+            return Collections.emptyMap();
+
+        /*same rules of the content reader: if the reversed language is supported, the target becomes the source*/
+        boolean source;
+        if (languages.isSupported(language)) {
+            source = true;
+        } else if (languages.isSupported(language.reversed())) {
+            source = false;
+            language = language.reversed();
+        } else {
+            return Collections.emptyMap();
+        }
+
+        long words = fileCorpus.getWordCount(source, threads);
+        if (words < 0)
+            return null;
+
+        if (fileCorpus.getLineCount(fileCorpus.getLanguage()) == 0)
+            return Collections.emptyMap();
+
+        return Collections.singletonMap(language, words);
+    }
+
     @Override
     public MultilingualCorpus getWrappedCorpus() {
         return corpus;
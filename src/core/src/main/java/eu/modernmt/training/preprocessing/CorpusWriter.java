@@ -25,6 +25,14 @@ public abstract class CorpusWriter {
 
     protected abstract void doWrite(Sentence[] batch, LineWriter writer) throws IOException;
 
+    /**
+     * Called by the writer thread of an instance after its last batch has been written,
+     * so that subclasses can release any thread-confined state.
+     */
+    protected void onInstanceClosed() throws IOException {
+        // Default empty implementation
+    }
+
     public class Instance implements Closeable {
 
         private final SynchronousQueue<Sentence[]> queue = new SynchronousQueue<>();
@@ -94,6 +102,14 @@ public abstract class CorpusWriter {
                         error = e;
                     }
                 }
+
+                if (error == null) {
+                    try {
+                        onInstanceClosed();
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
             }
 
         }
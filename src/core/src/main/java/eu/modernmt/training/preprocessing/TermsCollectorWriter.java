@@ -1,68 +1,257 @@
 package eu.modernmt.training.preprocessing;
 
-import eu.modernmt.io.DefaultCharset;
-import eu.modernmt.io.LineWriter;
-import eu.modernmt.io.TokensOutputStream;
-import eu.modernmt.io.UnixLineWriter;
+import eu.modernmt.io.*;
 import eu.modernmt.model.Sentence;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
 
 /**
  * Created by davide on 22/08/16.
+ * <p>
+ * Every writer thread collects its terms (and their frequencies) in a private map,
+ * that is merged in the shared dictionary when the corpus is closed or when it grows too much.
+ * When the shared dictionary exceeds the max number of terms in memory, it is sorted and spilled
+ * to a temporary file; flush() merges the spilled runs and writes the dictionary in sorted order.
  */
 public class TermsCollectorWriter extends CorpusWriter {
 
-    private final ConcurrentHashMap<String, Boolean> terms;
+    public static final int DEFAULT_MAX_TERMS_IN_MEMORY = 5000000;
+
+    private static final class Counter {
+
+        public long value = 0;
+
+    }
+
     private final File file;
+    private final boolean writeFrequencies;
+    private final long minFrequency;
+    private final int maxTermsInMemory;
+
+    private final ThreadLocal<HashMap<String, Counter>> localTerms = ThreadLocal.withInitial(HashMap::new);
+    private final HashMap<String, Counter> terms = new HashMap<>();
+    private final ArrayList<File> runs = new ArrayList<>();
 
     public TermsCollectorWriter(File file) {
-        this.terms = new ConcurrentHashMap<>(1000000);
+        this(file, false, 1);
+    }
+
+    /**
+     * @param file             the output dictionary
+     * @param writeFrequencies if true every line contains the term and its frequency separated by a tab
+     * @param minFrequency     terms that occur less than minFrequency times are not written
+     */
+    public TermsCollectorWriter(File file, boolean writeFrequencies, long minFrequency) {
+        this(file, writeFrequencies, minFrequency, DEFAULT_MAX_TERMS_IN_MEMORY);
+    }
+
+    public TermsCollectorWriter(File file, boolean writeFrequencies, long minFrequency, int maxTermsInMemory) {
         this.file = file;
+        this.writeFrequencies = writeFrequencies;
+        this.minFrequency = minFrequency;
+        this.maxTermsInMemory = maxTermsInMemory;
     }
 
     @Override
     protected void doWrite(Sentence[] batch, LineWriter writer) throws IOException {
-        StringBuilder builder = new StringBuilder();
+        HashMap<String, Counter> local = localTerms.get();
 
         for (Sentence sentence : batch) {
             String[] line = TokensOutputStream.tokens(sentence, false, true);
 
-            for (int i = 0; i < line.length; i++) {
-                terms.put(line[i], Boolean.TRUE);
+            for (String term : line) {
+                Counter counter = local.get(term);
+                if (counter == null) {
+                    counter = new Counter();
+                    local.put(term, counter);
+                }
 
-                if (i > 0)
-                    builder.append(' ');
-                builder.append(line[i]);
+                counter.value++;
             }
 
-            writer.writeLine(builder.toString());
-            builder.setLength(0);
+            writer.writeLine(TokensOutputStream.join(line));
         }
+
+        if (local.size() >= maxTermsInMemory)
+            merge(local);
     }
 
     @Override
-    public void flush() throws IOException {
-        File parent = file.getParentFile();
+    protected void onInstanceClosed() throws IOException {
+        HashMap<String, Counter> local = localTerms.get();
+        localTerms.remove();
+
+        merge(local);
+    }
+
+    private synchronized void merge(HashMap<String, Counter> local) throws IOException {
+        for (Map.Entry<String, Counter> entry : local.entrySet()) {
+            Counter counter = terms.get(entry.getKey());
+
+            if (counter == null)
+                terms.put(entry.getKey(), entry.getValue());
+            else
+                counter.value += entry.getValue().value;
+        }
+
+        local.clear();
+
+        if (terms.size() >= maxTermsInMemory)
+            spill();
+    }
+
+    private String[] sortedTerms() {
+        String[] words = terms.keySet().toArray(new String[terms.size()]);
+        Arrays.sort(words);
+        return words;
+    }
+
+    private void spill() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
         if (!parent.isDirectory())
             FileUtils.forceMkdir(parent);
 
-        String[] words = terms.keySet().toArray(new String[terms.size()]);
+        File run = File.createTempFile(file.getName() + '.', ".run", parent);
+        runs.add(run);
+
+        UnixLineWriter writer = null;
+
+        try {
+            writer = new UnixLineWriter(new FileOutputStream(run, false), DefaultCharset.get());
+
+            for (String word : sortedTerms())
+                writer.writeLine(Long.toString(terms.get(word).value) + '\t' + word);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+
+        terms.clear();
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory())
+            FileUtils.forceMkdir(parent);
 
         UnixLineWriter writer = null;
 
         try {
             writer = new UnixLineWriter(new FileOutputStream(file, false), DefaultCharset.get());
 
-            for (String word : words)
-                writer.writeLine(word);
+            if (runs.isEmpty()) {
+                for (String word : sortedTerms())
+                    write(writer, word, terms.get(word).value);
+            } else {
+                if (!terms.isEmpty())
+                    spill();
+
+                mergeRuns(writer);
+            }
         } finally {
             IOUtils.closeQuietly(writer);
+
+            for (File run : runs)
+                FileUtils.deleteQuietly(run);
+            runs.clear();
+            terms.clear();
+        }
+    }
+
+    private void write(LineWriter writer, String word, long frequency) throws IOException {
+        if (frequency < minFrequency)
+            return;
+
+        if (writeFrequencies)
+            writer.writeLine(word + '\t' + frequency);
+        else
+            writer.writeLine(word);
+    }
+
+    private void mergeRuns(LineWriter writer) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size());
+
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.next())
+                    queue.add(reader);
+                else
+                    reader.close();
+            }
+
+            while (!queue.isEmpty()) {
+                RunReader head = queue.poll();
+                String word = head.term;
+                long frequency = head.frequency;
+
+                if (head.next())
+                    queue.add(head);
+                else
+                    head.close();
+
+                while (!queue.isEmpty() && queue.peek().term.equals(word)) {
+                    RunReader reader = queue.poll();
+                    frequency += reader.frequency;
+
+                    if (reader.next())
+                        queue.add(reader);
+                    else
+                        reader.close();
+                }
+
+                write(writer, word, frequency);
+            }
+        } finally {
+            for (RunReader reader : queue)
+                IOUtils.closeQuietly(reader);
+        }
+    }
+
+    private static final class RunReader implements Comparable<RunReader>, Closeable {
+
+        private final File run;
+        private final UnixLineReader reader;
+
+        private String term = null;
+        private long frequency = 0;
+
+        private RunReader(File run) throws IOException {
+            this.run = run;
+            this.reader = new UnixLineReader(new FileInputStream(run), DefaultCharset.get());
+        }
+
+        public boolean next() throws IOException {
+            String line = reader.readLine();
+            if (line == null)
+                return false;
+
+            int tab = line.indexOf('\t');
+            if (tab < 0)
+                throw new IOException("Invalid line in terms file " + run + ": " + line);
+
+            frequency = Long.parseLong(line.substring(0, tab));
+            term = line.substring(tab + 1);
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader o) {
+            return term.compareTo(o.term);
         }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
     }
+
 }
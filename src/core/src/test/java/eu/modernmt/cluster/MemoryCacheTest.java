@@ -0,0 +1,138 @@
+package eu.modernmt.cluster;
+
+import eu.modernmt.model.Memory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MemoryCacheTest {
+
+    @Test
+    public void testReadThrough() {
+        MemoryCache cache = new MemoryCache();
+        assertFalse(cache.contains(1L));
+
+        cache.put(1L, new Memory(1L, "first"), cache.getGeneration());
+
+        assertTrue(cache.contains(1L));
+        assertEquals("first", cache.get(1L).getName());
+    }
+
+    @Test
+    public void testNegativeEntry() {
+        MemoryCache cache = new MemoryCache();
+        cache.put(2L, null, cache.getGeneration());
+
+        assertTrue(cache.contains(2L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    public void testReturnedCopies() {
+        MemoryCache cache = new MemoryCache();
+        Memory memory = new Memory(1L, "first");
+        cache.put(1L, memory, cache.getGeneration());
+
+        memory.setName("changed");
+        cache.get(1L).setName("changed");
+
+        assertEquals("first", cache.get(1L).getName());
+    }
+
+    @Test
+    public void testInvalidate() {
+        MemoryCache cache = new MemoryCache();
+        cache.put(1L, new Memory(1L, "first"), cache.getGeneration());
+        cache.put(2L, new Memory(2L, "second"), cache.getGeneration());
+
+        cache.invalidate(1L);
+
+        assertFalse(cache.contains(1L));
+        assertTrue(cache.contains(2L));
+    }
+
+    @Test
+    public void testStaleValueNotCached() {
+        MemoryCache cache = new MemoryCache();
+
+        long generation = cache.getGeneration();
+        // memory is updated while the database is being read
+        cache.invalidate(1L);
+        cache.put(1L, new Memory(1L, "old name"), generation);
+
+        assertFalse(cache.contains(1L));
+    }
+
+    @Test
+    public void testMaxSize() {
+        MemoryCache cache = new MemoryCache(2, MemoryCache.DEFAULT_TTL);
+        cache.put(1L, new Memory(1L), cache.getGeneration());
+        cache.put(2L, new Memory(2L), cache.getGeneration());
+        cache.get(1L);
+        cache.put(3L, new Memory(3L), cache.getGeneration());
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(1L));
+        assertFalse(cache.contains(2L));
+        assertTrue(cache.contains(3L));
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        MemoryCache cache = new MemoryCache(10, 20L);
+        cache.put(1L, new Memory(1L), cache.getGeneration());
+
+        Thread.sleep(50L);
+
+        assertFalse(cache.contains(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLookup() {
+        MemoryCache cache = new MemoryCache();
+
+        MemoryCache.Lookup miss = cache.lookup(1L);
+        assertFalse(miss.isHit());
+        assertNull(miss.getMemory());
+
+        cache.put(1L, new Memory(1L, "first"), miss.getGeneration());
+
+        MemoryCache.Lookup hit = cache.lookup(1L);
+        assertTrue(hit.isHit());
+        assertEquals("first", hit.getMemory().getName());
+    }
+
+    @Test
+    public void testNegativeLookup() {
+        MemoryCache cache = new MemoryCache();
+        cache.put(2L, null, cache.lookup(2L).getGeneration());
+
+        MemoryCache.Lookup lookup = cache.lookup(2L);
+        assertTrue(lookup.isHit());
+        assertNull(lookup.getMemory());
+    }
+
+    @Test
+    public void testLookupExpiration() throws InterruptedException {
+        MemoryCache cache = new MemoryCache(10, 20L);
+        cache.put(1L, new Memory(1L), cache.getGeneration());
+
+        Thread.sleep(50L);
+
+        assertFalse(cache.lookup(1L).isHit());
+    }
+
+    @Test
+    public void testStaleValueNotCachedAfterMiss() {
+        MemoryCache cache = new MemoryCache();
+
+        MemoryCache.Lookup miss = cache.lookup(1L);
+        // memory is updated while the database is being read
+        cache.invalidate(1L);
+        cache.put(1L, new Memory(1L, "old name"), miss.getGeneration());
+
+        assertFalse(cache.lookup(1L).isHit());
+    }
+
+}
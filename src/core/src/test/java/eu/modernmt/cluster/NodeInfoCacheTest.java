@@ -0,0 +1,168 @@
+package eu.modernmt.cluster;
+
+import com.hazelcast.cluster.MemberAttributeOperationType;
+import com.hazelcast.core.*;
+import com.hazelcast.nio.Address;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.UnknownHostException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NodeInfoCacheTest {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+    private static final LanguagePair EN_FR = new LanguagePair(Language.ENGLISH, Language.FRENCH);
+
+    private static final Cluster cluster = (Cluster) Proxy.newProxyInstance(Cluster.class.getClassLoader(),
+            new Class<?>[]{Cluster.class}, (proxy, method, args) -> {
+                throw new UnsupportedOperationException();
+            });
+
+    private static Member member(String uuid) throws UnknownHostException {
+        Address address = new Address("127.0.0.1", 5016);
+        HashMap<String, Object> attributes = new HashMap<>();
+
+        return (Member) Proxy.newProxyInstance(Member.class.getClassLoader(), new Class<?>[]{Member.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUuid":
+                            return uuid;
+                        case "getAddress":
+                            return address;
+                        case "getStringAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setStringAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        case "hashCode":
+                            return uuid.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static void add(NodeInfoCache cache, Member member) {
+        cache.memberAdded(new MembershipEvent(cluster, member, MembershipEvent.MEMBER_ADDED, Collections.emptySet()));
+    }
+
+    private static void changed(NodeInfoCache cache, Member member) {
+        cache.memberAttributeChanged(new MemberAttributeEvent(cluster, member, MemberAttributeOperationType.PUT, "key", "value"));
+    }
+
+    @Test
+    public void testEncoding() throws Throwable {
+        Member member = member("a");
+
+        HashMap<Short, Long> positions = new HashMap<>();
+        positions.put((short) 0, 12L);
+        positions.put((short) 1, Long.MAX_VALUE);
+
+        NodeInfo.updateStatusInMember(member, ClusterNode.Status.READY);
+        NodeInfo.updateChannelsPositionsInMember(member, positions);
+        NodeInfo.updateTranslationDirections(member, new HashSet<>(Arrays.asList(EN_IT, EN_FR)));
+
+        NodeInfo info = NodeInfo.fromMember(member);
+
+        assertEquals("a", info.uuid);
+        assertEquals(ClusterNode.Status.READY, info.status);
+        assertEquals(positions, info.channels);
+        assertEquals(new HashSet<>(Arrays.asList(EN_IT, EN_FR)), info.languages);
+    }
+
+    @Test
+    public void testUndecodableAttributes() throws Throwable {
+        Member member = member("a");
+        member.setStringAttribute("NodeInfo.DATA_CHANNELS_ATTRIBUTE.v1", "0:12,1:35");
+        member.setStringAttribute("NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE.v1", "[en:it]");
+
+        NodeInfo info = NodeInfo.fromMember(member);
+
+        assertNull(info.status);
+        assertTrue(info.channels.isEmpty());
+        assertTrue(info.languages.isEmpty());
+    }
+
+    @Test
+    public void testLegacyMember() throws Throwable {
+        // a node of an older version publishes only the legacy attributes
+        Member member = member("a");
+        member.setStringAttribute("NodeInfo.DATA_CHANNELS_ATTRIBUTE", "0:12,1:35");
+        member.setStringAttribute("NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE", "[en:it],[en:fr]");
+
+        NodeInfo info = NodeInfo.fromMember(member);
+
+        HashMap<Short, Long> positions = new HashMap<>();
+        positions.put((short) 0, 12L);
+        positions.put((short) 1, 35L);
+
+        assertEquals(positions, info.channels);
+        assertEquals(new HashSet<>(Arrays.asList(EN_IT, EN_FR)), info.languages);
+    }
+
+    @Test
+    public void testLegacyAttributesArePublished() throws Throwable {
+        Member member = member("a");
+
+        NodeInfo.updateChannelsPositionsInMember(member, Collections.singletonMap((short) 0, 12L));
+        NodeInfo.updateTranslationDirections(member, Collections.singleton(EN_IT));
+
+        assertEquals("0:12", member.getStringAttribute("NodeInfo.DATA_CHANNELS_ATTRIBUTE"));
+        assertEquals("[en:it]", member.getStringAttribute("NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE"));
+    }
+
+    @Test
+    public void testDirectionsIndex() throws Throwable {
+        Member a = member("a");
+        Member b = member("b");
+        NodeInfo.updateTranslationDirections(a, Collections.singleton(EN_IT));
+        NodeInfo.updateTranslationDirections(b, new HashSet<>(Arrays.asList(EN_IT, EN_FR)));
+
+        NodeInfoCache cache = new NodeInfoCache();
+        add(cache, a);
+        add(cache, b);
+
+        assertEquals(2, cache.getNodes().size());
+        assertEquals(2, cache.getMembers(EN_IT).length);
+        assertArrayEquals(new Member[]{b}, cache.getMembers(EN_FR));
+        assertEquals(0, cache.getMembers(EN_IT.reversed()).length);
+    }
+
+    @Test
+    public void testAttributeChanged() throws Throwable {
+        Member a = member("a");
+        NodeInfoCache cache = new NodeInfoCache();
+        add(cache, a);
+
+        NodeInfo.updateTranslationDirections(a, Collections.singleton(EN_IT));
+        assertEquals(0, cache.getMembers(EN_IT).length);
+
+        changed(cache, a);
+        assertArrayEquals(new Member[]{a}, cache.getMembers(EN_IT));
+    }
+
+    @Test
+    public void testRemovedMember() throws Throwable {
+        Member a = member("a");
+        NodeInfo.updateTranslationDirections(a, Collections.singleton(EN_IT));
+
+        NodeInfoCache cache = new NodeInfoCache();
+        add(cache, a);
+        cache.memberRemoved(new MembershipEvent(cluster, a, MembershipEvent.MEMBER_REMOVED, Collections.emptySet()));
+
+        assertTrue(cache.getNodes().isEmpty());
+        assertEquals(0, cache.getMembers(EN_IT).length);
+
+        // late attribute changes do not resurrect removed members
+        changed(cache, a);
+        assertTrue(cache.getNodes().isEmpty());
+    }
+
+}
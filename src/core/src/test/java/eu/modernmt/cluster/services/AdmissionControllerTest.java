@@ -0,0 +1,174 @@
+package eu.modernmt.cluster.services;
+
+import eu.modernmt.facade.exceptions.TranslationBudgetExceededException;
+import eu.modernmt.facade.exceptions.TranslationRejectedException;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControllerTest {
+
+    private static final long SERVICE_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static class Item implements Prioritizable {
+
+        private final int priority;
+
+        Item(int priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+    }
+
+    private static MultiLevelPriorityBlockingQueue<Item> queue(int high, int normal, int background) {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(16, 16, 16);
+        for (int i = 0; i < high; i++)
+            assertTrue(queue.offer(new Item(0)));
+        for (int i = 0; i < normal; i++)
+            assertTrue(queue.offer(new Item(1)));
+        for (int i = 0; i < background; i++)
+            assertTrue(queue.offer(new Item(2)));
+        return queue;
+    }
+
+    private static void serve(AdmissionController controller, long elapsed) {
+        controller.onStart();
+        controller.onComplete(elapsed);
+    }
+
+    @Test
+    public void admitEverythingWithoutHistory() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(16, 16, 16), 1, 0L, TimeUnit.MILLISECONDS);
+
+        controller.admit(2, 1);
+        assertEquals(0., controller.getEstimatedWaitTime(2), 0.);
+    }
+
+    @Test
+    public void admitEverythingWithoutBudget() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(16, 16, 16), 1, 0L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+
+        controller.admit(2, 0L);
+        assertEquals(0L, controller.getShedCount(2));
+    }
+
+    @Test
+    public void estimateFromQueueDepthAndThreads() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(0, 4, 8), 2, 0L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+
+        assertEquals(100., controller.getServiceTime(), 0.);
+
+        // Free threads: no wait for high priority
+        assertEquals(0., controller.getEstimatedWaitTime(0), 0.);
+        // 4 queued translations ahead, 3 must complete before a thread is free
+        assertEquals(150., controller.getEstimatedWaitTime(1), 0.);
+        // also the 8 background translations are ahead
+        assertEquals(550., controller.getEstimatedWaitTime(2), 0.);
+
+        controller.onStart();
+        controller.onStart();
+        // Busy threads: the running translations are ahead too
+        assertEquals(50., controller.getEstimatedWaitTime(0), 0.);
+        assertEquals(250., controller.getEstimatedWaitTime(1), 0.);
+    }
+
+    @Test
+    public void shedTranslationsOverBudget() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(0, 4, 0), 2, 0L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+
+        // 150ms of wait plus 100ms of service
+        controller.admit(1, 250L);
+        controller.admit(0, 200L);
+
+        try {
+            controller.admit(1, 200L);
+            fail("Expected TranslationBudgetExceededException");
+        } catch (TranslationBudgetExceededException e) {
+            assertEquals(50L, e.getRetryAfter());
+        }
+
+        assertEquals(0L, controller.getShedCount(0));
+        assertEquals(1L, controller.getShedCount(1));
+    }
+
+    @Test
+    public void defaultBudget() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(0, 4, 0), 2, 200L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+
+        controller.admit(1, 300L);
+
+        try {
+            controller.admit(1, 0L);
+            fail("Expected TranslationBudgetExceededException");
+        } catch (TranslationBudgetExceededException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void dropTranslationsThatSpentTheirBudgetInTheQueue() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(0, 0, 0), 1, 0L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+
+        // 100ms of wait plus 100ms of service
+        controller.checkDeadline(1, 200L, SERVICE_TIME);
+        controller.checkDeadline(1, 0L, SERVICE_TIME * 10);
+
+        try {
+            controller.checkDeadline(1, 200L, SERVICE_TIME * 2);
+            fail("Expected TranslationBudgetExceededException");
+        } catch (TranslationBudgetExceededException e) {
+            assertEquals(100L, e.getRetryAfter());
+        }
+
+        assertEquals(1L, controller.getShedCount(1));
+    }
+
+    @Test
+    public void defaultBudgetAtDequeue() throws Throwable {
+        AdmissionController controller = new AdmissionController(queue(0, 0, 0), 1, 200L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+
+        controller.checkDeadline(1, 300L, SERVICE_TIME * 2);
+
+        try {
+            controller.checkDeadline(1, 0L, SERVICE_TIME * 2);
+            fail("Expected TranslationBudgetExceededException");
+        } catch (TranslationBudgetExceededException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void serviceTimeMovingAverage() {
+        AdmissionController controller = new AdmissionController(queue(0, 0, 0), 1, 0L, TimeUnit.MILLISECONDS);
+        serve(controller, SERVICE_TIME);
+        serve(controller, SERVICE_TIME * 9);
+
+        assertEquals(200., controller.getServiceTime(), 0.);
+    }
+
+    @Test
+    public void overflow() {
+        AdmissionController controller = new AdmissionController(queue(0, 0, 4), 1, 0L, TimeUnit.MILLISECONDS);
+
+        TranslationRejectedException e = controller.overflow(2);
+        assertEquals(1L, e.getRetryAfter());
+        assertFalse(e instanceof TranslationBudgetExceededException);
+
+        serve(controller, SERVICE_TIME);
+        assertEquals(400L, controller.overflow(2).getRetryAfter());
+        assertEquals(2L, controller.getOverflowCount(2));
+    }
+
+}
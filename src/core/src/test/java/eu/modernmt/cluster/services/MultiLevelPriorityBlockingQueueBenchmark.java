@@ -0,0 +1,230 @@
+package eu.modernmt.cluster.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contention benchmark of the translation queue: many producers put elements with mixed priorities
+ * (10% high, 60% normal, 30% background) while a few consumers take them, as the translation threads do.
+ * <p>
+ * The MultiLevelPriorityBlockingQueue (with and without aging) is compared with a single-lock queue that has
+ * the design of the former PriorityBucketBlockingQueue: fixed-size ring buckets guarded by one lock and two conditions.
+ * For every queue it reports the throughput and, for every priority, the share of the taken elements and
+ * the average and max time spent in the queue.
+ * <p>
+ * Usage: MultiLevelPriorityBlockingQueueBenchmark [producers] [consumers] [seconds]
+ */
+public class MultiLevelPriorityBlockingQueueBenchmark {
+
+    private static final int[] CAPACITIES = new int[]{512, 1024, 4096};
+    private static final int LEVELS = CAPACITIES.length;
+
+    private static class Item implements Prioritizable {
+
+        private final int priority;
+        private final long timestamp;
+
+        Item(int priority) {
+            this.priority = priority;
+            this.timestamp = System.nanoTime();
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+    }
+
+    private interface Channel {
+
+        void put(Item item) throws InterruptedException;
+
+        Item take() throws InterruptedException;
+
+    }
+
+    /**
+     * One lock and two conditions guarding a ring buffer for every priority.
+     */
+    private static class SingleLockQueue implements Channel {
+
+        private final Item[][] items = new Item[LEVELS][];
+        private final int[] takeIndex = new int[LEVELS];
+        private final int[] putIndex = new int[LEVELS];
+        private final int[] count = new int[LEVELS];
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+
+        SingleLockQueue() {
+            for (int i = 0; i < LEVELS; i++)
+                items[i] = new Item[CAPACITIES[i]];
+        }
+
+        @Override
+        public void put(Item item) throws InterruptedException {
+            int level = item.getPriority();
+
+            lock.lockInterruptibly();
+            try {
+                while (count[level] == items[level].length)
+                    notFull.await();
+
+                items[level][putIndex[level]] = item;
+                putIndex[level] = (putIndex[level] + 1) % items[level].length;
+                count[level]++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Item take() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (true) {
+                    for (int level = 0; level < LEVELS; level++) {
+                        if (count[level] > 0) {
+                            Item item = items[level][takeIndex[level]];
+                            items[level][takeIndex[level]] = null;
+                            takeIndex[level] = (takeIndex[level] + 1) % items[level].length;
+                            count[level]--;
+                            notFull.signalAll();
+                            return item;
+                        }
+                    }
+
+                    notEmpty.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static Channel multiLevel(long agingThreshold) {
+        MultiLevelPriorityBlockingQueue<Item> queue =
+                new MultiLevelPriorityBlockingQueue<>(agingThreshold, TimeUnit.MILLISECONDS, CAPACITIES);
+
+        return new Channel() {
+            @Override
+            public void put(Item item) throws InterruptedException {
+                queue.put(item);
+            }
+
+            @Override
+            public Item take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    private static int randomPriority(Random random) {
+        int value = random.nextInt(10);
+        return value < 1 ? 0 : (value < 7 ? 1 : 2);
+    }
+
+    private static void run(String name, Channel channel, int producers, int consumers, long duration) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean(false);
+        long[][] taken = new long[consumers][LEVELS];
+        long[][] waitTime = new long[consumers][LEVELS];
+        long[][] maxWaitTime = new long[consumers][LEVELS];
+
+        List<Thread> threads = new ArrayList<>(producers + consumers);
+
+        for (int i = 0; i < producers; i++) {
+            long seed = i;
+
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+
+                try {
+                    while (!stop.get())
+                        channel.put(new Item(randomPriority(random)));
+                } catch (InterruptedException e) {
+                    // Stop
+                }
+            }));
+        }
+
+        for (int i = 0; i < consumers; i++) {
+            int id = i;
+
+            threads.add(new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        Item item = channel.take();
+                        long wait = System.nanoTime() - item.timestamp;
+
+                        taken[id][item.priority]++;
+                        waitTime[id][item.priority] += wait;
+                        maxWaitTime[id][item.priority] = Math.max(maxWaitTime[id][item.priority], wait);
+                    }
+                } catch (InterruptedException e) {
+                    // Stop
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        for (Thread thread : threads)
+            thread.start();
+
+        Thread.sleep(duration);
+        stop.set(true);
+
+        for (Thread thread : threads)
+            thread.interrupt();
+        for (Thread thread : threads)
+            thread.join();
+
+        long elapsed = System.nanoTime() - begin;
+
+        long total = 0;
+        long[] levelTaken = new long[LEVELS];
+        long[] levelWait = new long[LEVELS];
+        long[] levelMaxWait = new long[LEVELS];
+
+        for (int i = 0; i < consumers; i++) {
+            for (int level = 0; level < LEVELS; level++) {
+                levelTaken[level] += taken[i][level];
+                levelWait[level] += waitTime[i][level];
+                levelMaxWait[level] = Math.max(levelMaxWait[level], maxWaitTime[i][level]);
+                total += taken[i][level];
+            }
+        }
+
+        System.out.printf("%-24s %12.0f ops/s%n", name, total * 1e9 / elapsed);
+        for (int level = 0; level < LEVELS; level++) {
+            double share = total == 0 ? 0. : 100. * levelTaken[level] / total;
+            double avgWait = levelTaken[level] == 0 ? 0. : levelWait[level] / 1e6 / levelTaken[level];
+
+            System.out.printf("    priority %d %6.2f%% of taken, wait avg %10.3f ms, max %10.3f ms%n",
+                    level, share, avgWait, levelMaxWait[level] / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int consumers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long duration = TimeUnit.SECONDS.toMillis(args.length > 2 ? Long.parseLong(args[2]) : 5);
+
+        System.out.println(producers + " producers, " + consumers + " consumers");
+
+        // warm-up
+        run("warm-up", new SingleLockQueue(), producers, consumers, duration / 2);
+        run("warm-up", multiLevel(0L), producers, consumers, duration / 2);
+        System.out.println();
+
+        run("single-lock", new SingleLockQueue(), producers, consumers, duration);
+        run("multi-level", multiLevel(0L), producers, consumers, duration);
+        run("multi-level, aging 50ms", multiLevel(50L), producers, consumers, duration);
+    }
+
+}
@@ -0,0 +1,193 @@
+package eu.modernmt.cluster.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MultiLevelPriorityBlockingQueueTest {
+
+    private static class Item implements Prioritizable {
+
+        private final int priority;
+        private final int id;
+
+        Item(int priority, int id) {
+            this.priority = priority;
+            this.id = id;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public String toString() {
+            return priority + ":" + id;
+        }
+    }
+
+    @Test
+    public void strictPriorityOrder() throws Throwable {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(4, 4, 4);
+
+        Item background = new Item(2, 0);
+        Item normal1 = new Item(1, 1);
+        Item normal2 = new Item(1, 2);
+        Item high = new Item(0, 3);
+
+        assertTrue(queue.offer(background));
+        assertTrue(queue.offer(normal1));
+        assertTrue(queue.offer(normal2));
+        assertTrue(queue.offer(high));
+
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.size(1));
+
+        assertSame(high, queue.take());
+        assertSame(normal1, queue.take());
+        assertSame(normal2, queue.take());
+        assertSame(background, queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void capacityPerLevel() {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(1, 2);
+
+        assertTrue(queue.offer(new Item(0, 0)));
+        assertFalse(queue.offer(new Item(0, 1)));
+        assertTrue(queue.offer(new Item(1, 2)));
+        assertTrue(queue.offer(new Item(1, 3)));
+        assertFalse(queue.offer(new Item(1, 4)));
+
+        assertEquals(0, queue.remainingCapacity());
+        assertNotNull(queue.poll());
+        assertEquals(1, queue.remainingCapacity());
+        assertTrue(queue.offer(new Item(0, 5)));
+    }
+
+    @Test
+    public void agedElementsGetAShareOfTheDequeues() throws Throwable {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(50, TimeUnit.MILLISECONDS, 16, 16);
+
+        for (int i = 0; i < 4; i++)
+            queue.offer(new Item(1, i));
+        Thread.sleep(100);
+
+        for (int i = 0; i < 12; i++)
+            queue.offer(new Item(0, i));
+
+        // one aged element every 4 dequeues, the high priority elements keep the rest
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 16; i++)
+            order.append(queue.take().priority);
+
+        assertEquals("0001000100010001", order.toString());
+        assertTrue(queue.getMaxWaitTime(1) >= 50);
+    }
+
+    @Test
+    public void agedElementsKeepTheirOrder() throws Throwable {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(50, TimeUnit.MILLISECONDS, 16, 16, 16);
+
+        Item background = new Item(2, 0);
+        Item normal = new Item(1, 1);
+        queue.offer(background);
+        Thread.sleep(10);
+        queue.offer(normal);
+        Thread.sleep(100);
+
+        for (int i = 0; i < 3; i++)
+            queue.offer(new Item(0, i));
+
+        // the aged turn serves the oldest aged element first
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, queue.take().priority);
+        assertSame(background, queue.take());
+        assertSame(normal, queue.take());
+    }
+
+    @Test
+    public void freshElementsDoNotAge() throws Throwable {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(10000, TimeUnit.MILLISECONDS, 16, 16);
+
+        for (int i = 0; i < 4; i++)
+            queue.offer(new Item(1, i));
+        for (int i = 0; i < 8; i++)
+            queue.offer(new Item(0, i));
+
+        for (int i = 0; i < 8; i++)
+            assertEquals(0, queue.take().priority);
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, queue.take().priority);
+    }
+
+    @Test
+    public void removeAndDrain() {
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(4, 4);
+
+        Item a = new Item(0, 0);
+        Item b = new Item(1, 1);
+        Item c = new Item(1, 2);
+        queue.offer(a);
+        queue.offer(b);
+        queue.offer(c);
+
+        assertTrue(queue.remove(b));
+        assertFalse(queue.remove(b));
+        assertFalse(queue.contains(b));
+
+        ArrayList<Item> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained));
+        assertSame(a, drained.get(0));
+        assertSame(c, drained.get(1));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void concurrentProducersAndConsumers() throws Throwable {
+        final int producers = 16;
+        final int itemsPerProducer = 1000;
+
+        MultiLevelPriorityBlockingQueue<Item> queue = new MultiLevelPriorityBlockingQueue<>(64, 64, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 4);
+        AtomicInteger consumed = new AtomicInteger(0);
+
+        try {
+            ArrayList<Future<?>> futures = new ArrayList<>();
+
+            for (int p = 0; p < producers; p++) {
+                final int priority = p % 3;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < itemsPerProducer; i++)
+                        queue.put(new Item(priority, i));
+                    return null;
+                }));
+            }
+
+            for (int c = 0; c < 4; c++) {
+                futures.add(executor.submit(() -> {
+                    while (queue.poll(1, TimeUnit.SECONDS) != null)
+                        consumed.incrementAndGet();
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(producers * itemsPerProducer, consumed.get());
+        assertEquals(0, queue.size());
+        assertEquals(192, queue.remainingCapacity());
+    }
+
+}
@@ -0,0 +1,384 @@
+package eu.modernmt.facade;
+
+import eu.modernmt.data.DataManager;
+import eu.modernmt.data.DataManagerException;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.ImportJob;
+import eu.modernmt.model.corpus.BaseMultilingualCorpus;
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import eu.modernmt.persistence.*;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CorpusImportTest {
+
+    private static final LanguagePair LANGUAGE = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+    private static final long MEMORY = 7L;
+    private static final UUID JOB_ID = new UUID(0L, 42L);
+
+    private interface Uploader {
+
+        ImportJob upload(long memory, MultilingualCorpus corpus, short channel) throws Exception;
+
+    }
+
+    /**
+     * A corpus of the given size, that fails after failAfter pairs (if not negative)
+     */
+    private static class TestCorpus extends BaseMultilingualCorpus {
+
+        private final int size;
+        private final int failAfter;
+        private final AtomicInteger read = new AtomicInteger(0);
+
+        TestCorpus(int size, int failAfter) {
+            this.size = size;
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public MultilingualLineReader getContentReader() {
+            return new MultilingualLineReader() {
+
+                private int index = 0;
+
+                @Override
+                public StringPair read() throws IOException {
+                    if (index == failAfter)
+                        throw new IOException("Unexpected end of multipart stream");
+                    if (index == size)
+                        return null;
+
+                    read.incrementAndGet();
+                    index++;
+                    return new StringPair(LANGUAGE, "source " + index, "target " + index);
+                }
+
+                @Override
+                public void close() {
+                }
+
+            };
+        }
+
+        @Override
+        public MultilingualLineWriter getContentWriter(boolean append) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final BlockingQueue<ImportJob> updates = new LinkedBlockingQueue<>();
+    private final Semaphore permits = new Semaphore(0);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private Database database() {
+        ImportJobDAO dao = new ImportJobDAO() {
+
+            @Override
+            public ImportJob retrieve(UUID id) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ImportJob store(ImportJob job) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ImportJob update(ImportJob job) {
+                updates.add(job);
+                return job;
+            }
+
+        };
+
+        return new Database() {
+
+            @Override
+            public Connection getConnection(boolean cached) {
+                return () -> {
+                };
+            }
+
+            @Override
+            public MemoryDAO getMemoryDAO(Connection connection) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ImportJobDAO getImportJobDAO(Connection connection) {
+                return dao;
+            }
+
+            @Override
+            public void create() {
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public boolean initialize() {
+                return false;
+            }
+
+            @Override
+            public void testConnection() {
+            }
+
+            @Override
+            public void close() {
+            }
+
+        };
+    }
+
+    private static DataManager dataManager(Uploader uploader) {
+        return (DataManager) Proxy.newProxyInstance(DataManager.class.getClassLoader(), new Class<?>[]{DataManager.class},
+                (proxy, method, args) -> {
+                    if ("upload".equals(method.getName()) && args.length == 3 && args[2] instanceof Short)
+                        return uploader.upload((Long) args[0], (MultilingualCorpus) args[1], (Short) args[2]);
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Reads every pair of the corpus, as the data stream does
+     */
+    private static ImportJob upload(long memory, MultilingualCorpus corpus, short channel, List<MultilingualCorpus.StringPair> sent) throws IOException {
+        MultilingualCorpus.MultilingualLineReader reader = corpus.getContentReader();
+
+        MultilingualCorpus.StringPair pair;
+        while ((pair = reader.read()) != null)
+            sent.add(pair);
+
+        reader.close();
+
+        if (sent.isEmpty())
+            return null;
+
+        ImportJob job = new ImportJob();
+        job.setMemory(memory);
+        job.setDataChannel(channel);
+        job.setSize(sent.size());
+        job.setBegin(100L);
+        job.setEnd(100L + sent.size() - 1);
+        return job;
+    }
+
+    private CorpusImport newImport(MultilingualCorpus corpus, Uploader uploader) {
+        ImportJob job = ImportJob.createPendingJob(MEMORY, DataManager.MEMORY_UPLOAD_CHANNEL_ID);
+        job.setId(JOB_ID);
+
+        return new CorpusImport(job, corpus, dataManager(uploader), database(), executor, permits);
+    }
+
+    private ImportJob poll() throws InterruptedException {
+        ImportJob job = updates.poll(5, TimeUnit.SECONDS);
+        assertNotNull(job);
+
+        assertEquals(JOB_ID, job.getId());
+        assertEquals(MEMORY, job.getMemory());
+        assertEquals(DataManager.MEMORY_UPLOAD_CHANNEL_ID, job.getDataChannel());
+
+        // the permit of the import is released once the job has been updated
+        assertTrue(permits.tryAcquire(5, TimeUnit.SECONDS));
+
+        return job;
+    }
+
+    private void assertCompleted(int size, long begin, long end) throws InterruptedException {
+        ImportJob job = poll();
+
+        assertFalse(job.isPending());
+        assertFalse(job.isFailed());
+        assertEquals(size, job.getSize());
+        assertEquals(begin, job.getBegin());
+        assertEquals(end, job.getEnd());
+    }
+
+    private void assertFailed() throws InterruptedException {
+        ImportJob job = poll();
+
+        assertFalse(job.isPending());
+        assertTrue(job.isFailed());
+    }
+
+    @Test
+    public void importCorpus() throws Throwable {
+        List<MultilingualCorpus.StringPair> sent = new ArrayList<>();
+        CorpusImport corpusImport = newImport(new TestCorpus(5000, -1),
+                (memory, corpus, channel) -> upload(memory, corpus, channel, sent));
+
+        assertTrue(corpusImport.getJob().isPending());
+        corpusImport.feed();
+
+        assertCompleted(5000, 100L, 5099L);
+        assertEquals(5000, sent.size());
+        for (int i = 0; i < sent.size(); i++)
+            assertEquals("source " + (i + 1), sent.get(i).source);
+
+        // the job returned to the client is not modified
+        assertTrue(corpusImport.getJob().isPending());
+    }
+
+    @Test
+    public void emptyCorpus() throws Throwable {
+        CorpusImport corpusImport = newImport(new TestCorpus(0, -1),
+                (memory, corpus, channel) -> upload(memory, corpus, channel, new ArrayList<>()));
+
+        corpusImport.feed();
+        assertCompleted(0, 0L, 0L);
+    }
+
+    @Test
+    public void bufferIsBounded() throws Throwable {
+        CountDownLatch release = new CountDownLatch(1);
+        List<MultilingualCorpus.StringPair> sent = new ArrayList<>();
+        TestCorpus testCorpus = new TestCorpus(10000, -1);
+
+        CorpusImport corpusImport = newImport(testCorpus, (memory, corpus, channel) -> {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return upload(memory, corpus, channel, sent);
+        });
+
+        Future<?> feeder = executor.submit(() -> {
+            corpusImport.feed();
+            return null;
+        });
+
+        Thread.sleep(500);
+
+        // the reader waits for the data stream, with a full buffer
+        assertFalse(feeder.isDone());
+        assertEquals(1025, testCorpus.read.get());
+
+        release.countDown();
+        feeder.get(10, TimeUnit.SECONDS);
+
+        assertCompleted(10000, 100L, 10099L);
+        assertEquals(10000, sent.size());
+    }
+
+    @Test
+    public void readFailureFailsTheJob() throws Throwable {
+        List<MultilingualCorpus.StringPair> sent = new ArrayList<>();
+        CorpusImport corpusImport = newImport(new TestCorpus(100, 10), (memory, corpus, channel) -> {
+            try {
+                return upload(memory, corpus, channel, sent);
+            } catch (IOException e) {
+                throw new DataManagerException("Corpus upload failed", e);
+            }
+        });
+
+        try {
+            corpusImport.feed();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // the truncated corpus is never completed
+        assertFailed();
+        assertEquals(10, sent.size());
+        assertNull(updates.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void dataStreamFailure() throws Throwable {
+        CorpusImport corpusImport = newImport(new TestCorpus(10000, -1), (memory, corpus, channel) -> {
+            corpus.getContentReader().read();
+            throw new DataManagerException("Data stream unavailable");
+        });
+
+        try {
+            corpusImport.feed();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        assertFailed();
+        assertNull(updates.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void discard() throws Throwable {
+        CorpusImport corpusImport = newImport(new TestCorpus(1, -1),
+                (memory, corpus, channel) -> upload(memory, corpus, channel, new ArrayList<>()));
+
+        corpusImport.discard();
+        assertFailed();
+
+        // discarding twice does not release the permit twice
+        corpusImport.discard();
+        assertEquals(0, permits.availablePermits());
+
+        try {
+            corpusImport.feed();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void discardAfterFeed() throws Throwable {
+        CorpusImport corpusImport = newImport(new TestCorpus(1, -1),
+                (memory, corpus, channel) -> upload(memory, corpus, channel, new ArrayList<>()));
+
+        corpusImport.feed();
+        assertCompleted(1, 100L, 100L);
+
+        corpusImport.discard();
+        assertNull(updates.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, permits.availablePermits());
+    }
+
+    @Test
+    public void feedTwice() throws Throwable {
+        CorpusImport corpusImport = newImport(new TestCorpus(1, -1),
+                (memory, corpus, channel) -> upload(memory, corpus, channel, new ArrayList<>()));
+
+        corpusImport.feed();
+        assertCompleted(1, 100L, 100L);
+
+        try {
+            corpusImport.feed();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+}
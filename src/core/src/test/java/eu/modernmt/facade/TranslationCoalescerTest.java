@@ -0,0 +1,238 @@
+package eu.modernmt.facade;
+
+import eu.modernmt.facade.exceptions.TranslationBudgetExceededException;
+import eu.modernmt.facade.exceptions.TranslationException;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Translation;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TranslationCoalescerTest {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+    private static final int HIGH = TranslationFacade.Priority.HIGH.intValue;
+    private static final int NORMAL = TranslationFacade.Priority.NORMAL.intValue;
+
+    private final TranslationCoalescer coalescer = new TranslationCoalescer();
+    private final AtomicInteger submissions = new AtomicInteger(0);
+
+    private static TranslationCoalescer.Key key(String text) {
+        return new TranslationCoalescer.Key(EN_IT, text, null, 0, null, 0L);
+    }
+
+    private static ContextVector context(long memory, float score) {
+        ContextVector.Builder builder = new ContextVector.Builder();
+        builder.add(memory, score);
+        return builder.build();
+    }
+
+    private Future<Translation> submit(TranslationCoalescer.Key key, int priority, CompletableFuture<Translation> future) throws TranslationException {
+        return coalescer.submit(key, priority, () -> {
+            submissions.incrementAndGet();
+            return future;
+        });
+    }
+
+    @Test
+    public void testIdenticalRequestsShareSubmission() throws Throwable {
+        CompletableFuture<Translation> pending = new CompletableFuture<>();
+        Future<Translation> first = submit(key("hello"), NORMAL, pending);
+        Future<Translation> second = submit(key("hello"), NORMAL, new CompletableFuture<>());
+
+        assertEquals(1, submissions.get());
+        assertFalse(second.isDone());
+
+        Translation translation = Translation.emptyTranslation(null);
+        pending.complete(translation);
+
+        assertSame(translation, first.get());
+        assertSame(translation, second.get());
+        assertEquals(1, coalescer.getHitCount());
+        assertEquals(1, coalescer.getMissCount());
+    }
+
+    @Test
+    public void testCompletedRequestsAreNotCached() throws Throwable {
+        CompletableFuture<Translation> pending = new CompletableFuture<>();
+        submit(key("hello"), NORMAL, pending);
+        pending.complete(Translation.emptyTranslation(null));
+
+        submit(key("hello"), NORMAL, new CompletableFuture<>());
+
+        assertEquals(2, submissions.get());
+        assertEquals(0, coalescer.getHitCount());
+    }
+
+    @Test
+    public void testDifferentRequestsAreNotCoalesced() throws Throwable {
+        submit(key("hello"), NORMAL, new CompletableFuture<>());
+        submit(key("world"), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", null, 5, null, 0L), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", null, 0, "formal", 0L), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT.reversed(), "hello", null, 0, null, 0L), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", context(1, .5f), 0, null, 0L), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", context(1, .6f), 0, null, 0L), NORMAL, new CompletableFuture<>());
+
+        assertEquals(7, submissions.get());
+
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", context(1, .5f), 0, null, 0L), NORMAL, new CompletableFuture<>());
+        assertEquals(7, submissions.get());
+    }
+
+    @Test
+    public void testDifferentBudgetsAreNotCoalesced() throws Throwable {
+        submit(key("hello"), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", null, 0, null, 500L), NORMAL, new CompletableFuture<>());
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", null, 0, null, 1000L), NORMAL, new CompletableFuture<>());
+
+        assertEquals(3, submissions.get());
+
+        submit(new TranslationCoalescer.Key(EN_IT, "hello", null, 0, null, 500L), NORMAL, new CompletableFuture<>());
+        assertEquals(3, submissions.get());
+    }
+
+    @Test
+    public void testRejectionIsNotShared() throws Throwable {
+        CompletableFuture<Translation> rejected = new CompletableFuture<>();
+        CompletableFuture<Translation> resubmitted = new CompletableFuture<>();
+        ArrayDeque<CompletableFuture<Translation>> futures = new ArrayDeque<>(Arrays.asList(rejected, resubmitted));
+
+        TranslationCoalescer.Submitter submitter = () -> {
+            submissions.incrementAndGet();
+            return futures.poll();
+        };
+
+        Future<Translation> first = coalescer.submit(key("hello"), NORMAL, submitter);
+        Future<Translation> second = coalescer.submit(key("hello"), NORMAL, submitter);
+        assertEquals(1, submissions.get());
+
+        TranslationBudgetExceededException error = new TranslationBudgetExceededException(2000L, 1000L, 1000L);
+        rejected.completeExceptionally(error);
+
+        try {
+            first.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+
+        // the attached request is submitted again, with its own admission
+        assertEquals(2, submissions.get());
+        assertFalse(second.isDone());
+
+        Translation translation = Translation.emptyTranslation(null);
+        resubmitted.complete(translation);
+        assertSame(translation, second.get());
+
+        assertEquals(1, coalescer.getHitCount());
+        assertEquals(2, coalescer.getMissCount());
+    }
+
+    @Test
+    public void testResubmittedRequestIsRejectedOnItsOwn() throws Throwable {
+        CompletableFuture<Translation> pending = new CompletableFuture<>();
+        Future<Translation> first = submit(key("hello"), NORMAL, pending);
+
+        TranslationBudgetExceededException error = new TranslationBudgetExceededException(2000L, 1000L, 1000L);
+        Future<Translation> second = coalescer.submit(key("hello"), NORMAL, () -> {
+            throw error;
+        });
+
+        pending.completeExceptionally(new TranslationBudgetExceededException(3000L, 1000L, 2000L));
+
+        try {
+            second.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+
+        assertTrue(first.isDone());
+    }
+
+    @Test
+    public void testHigherPriorityIsNotAttachedToLowerPriority() throws Throwable {
+        CompletableFuture<Translation> normal = new CompletableFuture<>();
+        CompletableFuture<Translation> high = new CompletableFuture<>();
+
+        Future<Translation> first = submit(key("hello"), NORMAL, normal);
+        Future<Translation> second = submit(key("hello"), HIGH, high);
+        Future<Translation> third = submit(key("hello"), NORMAL, new CompletableFuture<>());
+
+        assertEquals(2, submissions.get());
+
+        // the following requests are attached to the request with higher priority
+        Translation translation = Translation.emptyTranslation(null);
+        high.complete(translation);
+
+        assertFalse(first.isDone());
+        assertSame(translation, second.get());
+        assertSame(translation, third.get());
+    }
+
+    @Test
+    public void testFailureIsShared() throws Throwable {
+        CompletableFuture<Translation> pending = new CompletableFuture<>();
+        Future<Translation> first = submit(key("hello"), NORMAL, pending);
+        Future<Translation> second = submit(key("hello"), NORMAL, new CompletableFuture<>());
+
+        TranslationException error = new TranslationException("failure");
+        pending.completeExceptionally(error);
+
+        for (Future<Translation> future : Arrays.asList(first, second)) {
+            try {
+                future.get();
+                fail("Expected ExecutionException");
+            } catch (ExecutionException e) {
+                assertSame(error, e.getCause());
+            }
+        }
+
+        // failures are not remembered
+        submit(key("hello"), NORMAL, new CompletableFuture<>());
+        assertEquals(2, submissions.get());
+    }
+
+    @Test
+    public void testSubmitterFailure() throws Throwable {
+        try {
+            coalescer.submit(key("hello"), NORMAL, () -> {
+                throw new TranslationException("failure");
+            });
+            fail("Expected TranslationException");
+        } catch (TranslationException e) {
+            // expected
+        }
+
+        submit(key("hello"), NORMAL, new CompletableFuture<>());
+        assertEquals(1, submissions.get());
+        assertEquals(0, coalescer.getHitCount());
+    }
+
+    @Test
+    public void testCancellationIsNotShared() throws Throwable {
+        CompletableFuture<Translation> pending = new CompletableFuture<>();
+        Future<Translation> first = submit(key("hello"), NORMAL, pending);
+        Future<Translation> second = submit(key("hello"), NORMAL, new CompletableFuture<>());
+
+        assertTrue(first.cancel(true));
+        assertFalse(pending.isCancelled());
+
+        Translation translation = Translation.emptyTranslation(null);
+        pending.complete(translation);
+
+        assertTrue(first.isCancelled());
+        assertSame(translation, second.get());
+    }
+
+}
@@ -0,0 +1,161 @@
+package eu.modernmt.persistence.cassandra;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CassandraIdGeneratorTest {
+
+    private static final int TABLE = CassandraDatabase.MEMORIES_TABLE_ID;
+
+    private CassandraDatabase database;
+    private CassandraConnection connection;
+
+    @Before
+    public void setup() throws Throwable {
+        database = EmbeddedCassandraDatabase.create();
+        connection = database.getConnection(false);
+    }
+
+    @After
+    public void teardown() {
+        IOUtils.closeQuietly(connection);
+        IOUtils.closeQuietly(database);
+    }
+
+    private long getCounter() throws Throwable {
+        return CassandraUtils.checkedExecute(connection, "SELECT table_counter FROM " + CassandraDatabase.COUNTERS_TABLE +
+                " WHERE table_id = " + TABLE + ";").one().getLong("table_counter");
+    }
+
+    @Test
+    public void reserveBlocks() throws Throwable {
+        CassandraIdGenerator generator = new CassandraIdGenerator(10);
+
+        assertEquals(1L, generator.generate(connection, TABLE));
+        assertEquals(10L, getCounter());
+
+        for (long id = 2L; id <= 25L; id++)
+            assertEquals(id, generator.generate(connection, TABLE));
+        assertEquals(30L, getCounter());
+    }
+
+    @Test
+    public void reserveBlocksPerTable() throws Throwable {
+        CassandraIdGenerator generator = new CassandraIdGenerator(10);
+
+        assertEquals(1L, generator.generate(connection, CassandraDatabase.MEMORIES_TABLE_ID));
+        assertEquals(1L, generator.generate(connection, CassandraDatabase.IMPORT_JOBS_TABLE_ID));
+        assertEquals(2L, generator.generate(connection, CassandraDatabase.MEMORIES_TABLE_ID));
+    }
+
+    @Test
+    public void interleavedGenerators() throws Throwable {
+        CassandraIdGenerator a = new CassandraIdGenerator(10);
+        CassandraIdGenerator b = new CassandraIdGenerator(10);
+
+        assertEquals(1L, a.generate(connection, TABLE));
+        assertEquals(11L, b.generate(connection, TABLE));
+        assertEquals(2L, a.generate(connection, TABLE));
+
+        for (int i = 0; i < 9; i++)
+            b.generate(connection, TABLE);
+
+        // b has exhausted its block, a has not
+        assertEquals(21L, b.generate(connection, TABLE));
+        assertEquals(3L, a.generate(connection, TABLE));
+    }
+
+    @Test
+    public void uniqueAcrossConcurrentGenerators() throws Throwable {
+        CassandraIdGenerator[] generators = {new CassandraIdGenerator(7), new CassandraIdGenerator(7)};
+        int threads = 8;
+        int idsPerThread = 100;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                CassandraIdGenerator generator = generators[i % generators.length];
+
+                futures.add(executor.submit(() -> {
+                    List<Long> ids = new ArrayList<>(idsPerThread);
+                    for (int j = 0; j < idsPerThread; j++)
+                        ids.add(generator.generate(connection, TABLE));
+                    return ids;
+                }));
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                for (long id : future.get())
+                    assertTrue("Duplicated id: " + id, ids.add(id));
+            }
+
+            assertEquals(threads * idsPerThread, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void forcedIdInCurrentBlock() throws Throwable {
+        CassandraIdGenerator generator = new CassandraIdGenerator(10);
+
+        assertEquals(1L, generator.generate(connection, TABLE));
+
+        generator.notifyForcedId(connection, TABLE, 5L);
+        assertEquals(10L, getCounter());
+        assertEquals(6L, generator.generate(connection, TABLE));
+
+        // a forced id below the current one changes nothing
+        generator.notifyForcedId(connection, TABLE, 3L);
+        assertEquals(7L, generator.generate(connection, TABLE));
+    }
+
+    @Test
+    public void forcedIdAfterCurrentBlock() throws Throwable {
+        CassandraIdGenerator generator = new CassandraIdGenerator(10);
+        CassandraIdGenerator other = new CassandraIdGenerator(10);
+
+        assertEquals(1L, generator.generate(connection, TABLE));
+
+        generator.notifyForcedId(connection, TABLE, 50L);
+        assertEquals(50L, getCounter());
+
+        // the rest of the current block is skipped, as well as the forced id
+        assertEquals(51L, generator.generate(connection, TABLE));
+        // the other generators reserve blocks after the forced id
+        assertEquals(61L, other.generate(connection, TABLE));
+    }
+
+    @Test
+    public void forcedIdWithoutBlock() throws Throwable {
+        CassandraIdGenerator generator = new CassandraIdGenerator(10);
+
+        generator.notifyForcedId(connection, TABLE, 5L);
+        assertEquals(5L, getCounter());
+        assertEquals(6L, generator.generate(connection, TABLE));
+    }
+
+    @Test
+    public void resetDiscardsReservedIds() throws Throwable {
+        CassandraIdGenerator generator = new CassandraIdGenerator(10);
+
+        assertEquals(1L, generator.generate(connection, TABLE));
+        generator.reset();
+        assertEquals(11L, generator.generate(connection, TABLE));
+    }
+
+}
@@ -0,0 +1,95 @@
+package eu.modernmt.persistence.cassandra;
+
+import eu.modernmt.model.ImportJob;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CassandraImportJobDAOTest {
+
+    private CassandraDatabase database;
+    private CassandraConnection connection;
+    private CassandraImportJobDAO dao;
+
+    @Before
+    public void setup() throws Throwable {
+        database = EmbeddedCassandraDatabase.create();
+        connection = database.getConnection(false);
+        dao = new CassandraImportJobDAO(connection, new CassandraIdGenerator(10));
+    }
+
+    @After
+    public void teardown() {
+        IOUtils.closeQuietly(connection);
+        IOUtils.closeQuietly(database);
+    }
+
+    private static ImportJob job(long memory, long begin, long end, short channel, int size) {
+        ImportJob job = new ImportJob();
+        job.setMemory(memory);
+        job.setBegin(begin);
+        job.setEnd(end);
+        job.setDataChannel(channel);
+        job.setSize(size);
+        return job;
+    }
+
+    private static void assertJob(ImportJob expected, ImportJob job) {
+        assertNotNull(job);
+        assertEquals(expected.getId(), job.getId());
+        assertEquals(expected.getMemory(), job.getMemory());
+        assertEquals(expected.getBegin(), job.getBegin());
+        assertEquals(expected.getEnd(), job.getEnd());
+        assertEquals(expected.getDataChannel(), job.getDataChannel());
+        assertEquals(expected.getSize(), job.getSize());
+    }
+
+    @Test
+    public void storeAndRetrieve() throws Throwable {
+        ImportJob first = dao.store(job(1L, 100L, 199L, (short) 1, 100));
+        ImportJob second = dao.store(job(2L, 200L, 209L, (short) 0, 10));
+
+        assertEquals(1L, ImportJob.getLongId(first.getId()));
+        assertEquals(2L, ImportJob.getLongId(second.getId()));
+
+        assertJob(first, dao.retrieve(first.getId()));
+        assertJob(second, dao.retrieve(second.getId()));
+    }
+
+    @Test
+    public void retrieveMissing() throws Throwable {
+        ImportJob job = new ImportJob();
+        job.setId(99L);
+
+        assertNull(dao.retrieve(job.getId()));
+    }
+
+    @Test
+    public void completePendingJob() throws Throwable {
+        ImportJob pending = dao.store(ImportJob.createPendingJob(7L, (short) 1));
+        assertTrue(dao.retrieve(pending.getId()).isPending());
+
+        ImportJob completed = job(7L, 1000L, 1499L, (short) 1, 500);
+        completed.setId(pending.getId());
+
+        assertSame(completed, dao.update(completed));
+
+        ImportJob job = dao.retrieve(pending.getId());
+        assertFalse(job.isPending());
+        assertJob(completed, job);
+    }
+
+    @Test
+    public void updateMissingJob() throws Throwable {
+        ImportJob job = job(7L, 0L, 0L, (short) 1, 0);
+        job.setId(99L);
+
+        // the update does not create missing jobs
+        assertNull(dao.update(job));
+        assertNull(dao.retrieve(job.getId()));
+    }
+
+}
@@ -0,0 +1,141 @@
+package eu.modernmt.persistence.cassandra;
+
+import eu.modernmt.model.Memory;
+import eu.modernmt.persistence.PersistenceException;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CassandraMemoryDAOTest {
+
+    private CassandraDatabase database;
+    private CassandraConnection connection;
+
+    @Before
+    public void setup() throws Throwable {
+        database = EmbeddedCassandraDatabase.create();
+        connection = database.getConnection(false);
+    }
+
+    @After
+    public void teardown() {
+        IOUtils.closeQuietly(connection);
+        IOUtils.closeQuietly(database);
+    }
+
+    @Test
+    public void storeWithGeneratedIds() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+
+        assertEquals(1L, dao.store(new Memory(0L, "first")).getId());
+        assertEquals(2L, dao.store(new Memory(0L, "second")).getId());
+
+        assertEquals("first", dao.retrieve(1L).getName());
+        assertEquals("second", dao.retrieve(2L).getName());
+    }
+
+    @Test
+    public void storeSkipsIdsUsedByOtherNodes() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+        CassandraMemoryDAO otherNode = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+
+        assertEquals(1L, dao.store(new Memory(0L, "first")).getId());
+
+        // another node forces the ids of the block reserved by dao: the counter is already past them
+        otherNode.store(new Memory(2L, "forced-2"), true);
+        otherNode.store(new Memory(3L, "forced-3"), true);
+
+        // the insert of the generated ids 2 and 3 fails, the memory is stored with the next free id
+        assertEquals(4L, dao.store(new Memory(0L, "second")).getId());
+
+        assertEquals("forced-2", dao.retrieve(2L).getName());
+        assertEquals("forced-3", dao.retrieve(3L).getName());
+        assertEquals("second", dao.retrieve(4L).getName());
+    }
+
+    @Test
+    public void storeForcedId() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+
+        assertEquals(42L, dao.store(new Memory(42L, "forced"), true).getId());
+        assertEquals(43L, dao.store(new Memory(0L, "generated")).getId());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void storeDuplicatedForcedId() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+
+        dao.store(new Memory(42L, "forced"), true);
+        dao.store(new Memory(42L, "duplicated"), true);
+    }
+
+    @Test
+    public void retrieveIn() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+
+        dao.store(new Memory(0L, "first"));
+        dao.store(new Memory(0L, "second"));
+        dao.store(new Memory(0L, "third"));
+
+        Map<Long, Memory> memories = dao.retrieve(Arrays.asList(1L, 3L, 99L));
+
+        assertEquals(2, memories.size());
+        assertEquals("first", memories.get(1L).getName());
+        assertEquals("third", memories.get(3L).getName());
+
+        assertTrue(dao.retrieve(Collections.emptyList()).isEmpty());
+        assertTrue(dao.retrieve(Collections.singleton(99L)).isEmpty());
+    }
+
+    @Test
+    public void retrieveMissing() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+
+        assertNull(dao.retrieve(1L));
+    }
+
+    @Test
+    public void retrieveAll() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+        assertTrue(dao.retrieveAll().isEmpty());
+
+        dao.store(new Memory(0L, "first"));
+        dao.store(new Memory(0L, "second"));
+
+        Set<String> names = new HashSet<>();
+        for (Memory memory : dao.retrieveAll())
+            names.add(memory.getName());
+
+        assertEquals(new HashSet<>(Arrays.asList("first", "second")), names);
+    }
+
+    @Test
+    public void update() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+        long id = dao.store(new Memory(0L, "before")).getId();
+
+        Memory memory = new Memory(id, "after");
+        assertSame(memory, dao.update(memory));
+        assertEquals("after", dao.retrieve(id).getName());
+
+        // the update does not create missing memories
+        assertNull(dao.update(new Memory(99L, "missing")));
+        assertNull(dao.retrieve(99L));
+    }
+
+    @Test
+    public void delete() throws Throwable {
+        CassandraMemoryDAO dao = new CassandraMemoryDAO(connection, new CassandraIdGenerator(10));
+        long id = dao.store(new Memory(0L, "deleted")).getId();
+
+        assertTrue(dao.delete(id));
+        assertNull(dao.retrieve(id));
+        assertFalse(dao.delete(id));
+    }
+
+}
@@ -0,0 +1,67 @@
+package eu.modernmt.persistence.cassandra;
+
+import eu.modernmt.cluster.db.EmbeddedCassandra;
+import eu.modernmt.hw.NetworkUtils;
+import eu.modernmt.persistence.PersistenceException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * A Cassandra process shared by all the tests of the JVM: it is started by the first test that needs it
+ * and stopped when the JVM exits. The tests are skipped if Cassandra is not installed in the vendor folder
+ * (see the "mmt.home" system property).
+ */
+class EmbeddedCassandraDatabase {
+
+    private static final String KEYSPACE = "test";
+
+    private static EmbeddedCassandra cassandra = null;
+    private static int port;
+
+    private static synchronized int getPort() throws IOException {
+        if (cassandra == null) {
+            File home = Files.createTempDirectory("embedded-cassandra").toFile();
+            File db = new File(home, "db");
+            File runtime = new File(home, "runtime");
+            FileUtils.forceMkdir(runtime);
+
+            port = NetworkUtils.getAvailablePort();
+            cassandra = EmbeddedCassandra.start(db, runtime, new File(home, "cassandra.log"), port);
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                cassandra.shutdown();
+                FileUtils.deleteQuietly(home);
+            }));
+        }
+
+        return port;
+    }
+
+    /**
+     * @return a new database with an empty "test" keyspace
+     */
+    public static CassandraDatabase create() throws IOException, PersistenceException {
+        assumeTrue("Cassandra is not installed", EmbeddedCassandra.isInstalled());
+
+        CassandraDatabase database = new CassandraDatabase("localhost", getPort(), KEYSPACE);
+
+        boolean success = false;
+        try {
+            database.drop();
+            database.create();
+            success = true;
+        } finally {
+            if (!success)
+                IOUtils.closeQuietly(database);
+        }
+
+        return database;
+    }
+
+}
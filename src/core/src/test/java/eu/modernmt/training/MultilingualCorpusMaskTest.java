@@ -0,0 +1,82 @@
+package eu.modernmt.training;
+
+import eu.modernmt.io.IOCorporaUtils;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.corpus.impl.parallel.ParallelFileCorpus;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MultilingualCorpusMaskTest {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+    private static final LanguagePair IT_EN = EN_IT.reversed();
+
+    private File folder;
+    private ParallelFileCorpus corpus;
+
+    @Before
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("MultilingualCorpusMaskTest").toFile();
+        FileUtils.writeStringToFile(new File(folder, "corpus.en"), "Hello world\nThis is a test\n", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(folder, "corpus.it"), "Ciao mondo\nQuesto è un piccolo test\n", StandardCharsets.UTF_8);
+
+        corpus = new ParallelFileCorpus(folder, "corpus", EN_IT);
+    }
+
+    @After
+    public void teardown() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    private void assertSameAsContent(MultilingualCorpusMask mask) throws IOException {
+        Map<LanguagePair, Long> expected = IOCorporaUtils.wordCount(Collections.singleton(new ReducedMultilingualCorpus(mask)), 1);
+        assertEquals(expected, mask.getFileWordCount());
+    }
+
+    @Test
+    public void fileWordCount() throws IOException {
+        MultilingualCorpusMask mask = new MultilingualCorpusMask(new LanguageIndex(EN_IT), corpus);
+
+        assertEquals(Collections.singletonMap(EN_IT, 6L), mask.getFileWordCount());
+        assertSameAsContent(mask);
+    }
+
+    @Test
+    public void reversedFileWordCount() throws IOException {
+        MultilingualCorpusMask mask = new MultilingualCorpusMask(new LanguageIndex(IT_EN), corpus);
+
+        assertEquals(Collections.singletonMap(IT_EN, 7L), mask.getFileWordCount());
+        assertSameAsContent(mask);
+    }
+
+    @Test
+    public void unsupportedFileWordCount() throws IOException {
+        LanguagePair enFr = new LanguagePair(Language.ENGLISH, Language.FRENCH);
+        MultilingualCorpusMask mask = new MultilingualCorpusMask(new LanguageIndex(enFr), corpus);
+
+        assertTrue(mask.getFileWordCount().isEmpty());
+        assertSameAsContent(mask);
+    }
+
+    @Test
+    public void nonFileCorpus() throws IOException {
+        MultilingualCorpusMask mask = new MultilingualCorpusMask(new LanguageIndex(EN_IT),
+                new MultilingualCorpusMask(new LanguageIndex(EN_IT), corpus));
+
+        assertNull(mask.getFileWordCount());
+    }
+
+}
@@ -0,0 +1,92 @@
+package eu.modernmt.training.preprocessing;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Word;
+import eu.modernmt.model.corpus.impl.StringCorpus;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TermsCollectorWriterTest {
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("TermsCollectorWriterTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    private static Sentence sentence(String text) {
+        String[] tokens = text.split(" ");
+        Word[] words = new Word[tokens.length];
+        for (int i = 0; i < tokens.length; i++)
+            words[i] = new Word(tokens[i], " ");
+        return new Sentence(words);
+    }
+
+    private static StringCorpus write(CorpusWriter writer, String... lines) throws IOException {
+        Sentence[] batch = new Sentence[lines.length];
+        for (int i = 0; i < lines.length; i++)
+            batch[i] = sentence(lines[i]);
+
+        StringCorpus corpus = new StringCorpus("test", Language.ENGLISH, "");
+        CorpusWriter.Instance instance = writer.forCorpus(corpus);
+        instance.write(batch);
+        instance.close();
+
+        return corpus;
+    }
+
+    private List<String> collect(CorpusWriter writer, File vocabulary) throws IOException {
+        StringCorpus first = write(writer, "the cat", "the dog");
+        write(writer, "a dog", "the bird");
+        write(writer, "zebra", "the cat");
+
+        assertEquals("the cat\nthe dog\n", first.toString());
+
+        writer.flush();
+        return Files.readAllLines(vocabulary.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSortedTerms() throws IOException {
+        File vocabulary = new File(folder, "vocabulary");
+        List<String> terms = collect(new TermsCollectorWriter(vocabulary), vocabulary);
+
+        assertEquals(Arrays.asList("a", "bird", "cat", "dog", "the", "zebra"), terms);
+    }
+
+    @Test
+    public void testFrequencies() throws IOException {
+        File vocabulary = new File(folder, "vocabulary");
+        List<String> terms = collect(new TermsCollectorWriter(vocabulary, true, 2), vocabulary);
+
+        assertEquals(Arrays.asList("cat\t2", "dog\t2", "the\t4"), terms);
+    }
+
+    @Test
+    public void testSpillToDisk() throws IOException {
+        File vocabulary = new File(folder, "vocabulary");
+        List<String> terms = collect(new TermsCollectorWriter(vocabulary, true, 1, 2), vocabulary);
+
+        assertEquals(Arrays.asList("a\t1", "bird\t1", "cat\t2", "dog\t2", "the\t4", "zebra\t1"), terms);
+        assertEquals(1, folder.list().length);
+    }
+
+}
@@ -0,0 +1,192 @@
+package eu.modernmt.xml;
+
+import eu.modernmt.model.*;
+import eu.modernmt.processing.xml.XMLTagProjector;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Differential test: XMLTagProjector must place tags exactly like
+ * the original set-based implementation, included here as reference.
+ */
+public class XMLTagProjectorRandomTest {
+
+    private static final String[] TAGS = new String[]{"<a>", "</a>", "<b>", "</b>", "<br/>", "<c>"};
+
+    private static Tag[] reference(Translation translation) {
+        Tag[] sourceTags = translation.getSource().getTags();
+        Token[] targetTokens = translation.getWords();
+        Alignment alignment = translation.getWordAlignment();
+        List<Object[]> translationTags = new ArrayList<>();
+        Map<Integer, Integer> closing2opening = new HashMap<>();
+        Set<Integer> alignedTags = new HashSet<>();
+
+        for (int tagIndex = 0; tagIndex < sourceTags.length; tagIndex++) {
+            Tag sourceTag = sourceTags[tagIndex];
+            if (alignedTags.contains(tagIndex))
+                continue;
+
+            int sourcePosition = sourceTag.getPosition();
+            boolean singleTag = false;
+
+            int closingTagIndex = getClosingTagIndex(sourceTag, tagIndex, sourceTags);
+            if (closingTagIndex != -1) {
+                Tag closingTag = sourceTags[closingTagIndex];
+                int closePosition = closingTag.getPosition();
+                int minPos = Integer.MAX_VALUE;
+                int maxPos = -1;
+
+                for (int[] align : alignment) {
+                    if (align[0] >= sourcePosition && align[0] < closePosition) {
+                        minPos = Math.min(minPos, align[1]);
+                        maxPos = Math.max(maxPos, align[1]);
+                    }
+                }
+
+                if (minPos == Integer.MAX_VALUE || maxPos == -1) {
+                    singleTag = true;
+                } else {
+                    translationTags.add(new Object[]{position(sourceTag, minPos), tagIndex});
+                    translationTags.add(new Object[]{position(closingTag, maxPos + 1), closingTagIndex});
+                    alignedTags.add(tagIndex);
+                    alignedTags.add(closingTagIndex);
+                }
+            } else {
+                singleTag = true;
+            }
+
+            if (singleTag) {
+                Set<Integer> sourceLeftToken = new HashSet<>();
+                Set<Integer> sourceRightToken = new HashSet<>();
+                for (int[] align : alignment) {
+                    if (align[0] < sourcePosition) {
+                        if (!sourceRightToken.contains(align[1]))
+                            sourceLeftToken.add(align[1]);
+                    } else {
+                        if (!sourceLeftToken.contains(align[1]))
+                            sourceRightToken.add(align[1]);
+                    }
+                }
+
+                boolean openingTag = sourceTag.isOpeningTag();
+                Set<Integer> targetLeftToken = new HashSet<>();
+                Set<Integer> targetRightToken = new HashSet<>();
+                for (int i = 0; i < targetTokens.length; i++)
+                    targetRightToken.add(i);
+
+                Set<Integer> intersection = new HashSet<>(sourceRightToken);
+                intersection.retainAll(targetRightToken);
+                int maxScore = intersection.size();
+                int bestPosition = 0;
+
+                for (int i = 0; i < targetTokens.length; i++) {
+                    targetLeftToken.add(i);
+                    targetRightToken.remove(i);
+
+                    Set<Integer> left = new HashSet<>(sourceLeftToken);
+                    left.retainAll(targetLeftToken);
+                    Set<Integer> right = new HashSet<>(sourceRightToken);
+                    right.retainAll(targetRightToken);
+                    int score = left.size() + right.size();
+
+                    if ((openingTag && score >= maxScore) || (!openingTag && score > maxScore)) {
+                        maxScore = score;
+                        bestPosition = i + 1;
+                    }
+                }
+
+                Integer openingPosition = closing2opening.get(tagIndex);
+                if (openingPosition != null)
+                    bestPosition = Math.max(openingPosition, bestPosition);
+                else if (closingTagIndex != -1)
+                    closing2opening.put(closingTagIndex, bestPosition);
+
+                translationTags.add(new Object[]{position(sourceTag, bestPosition), tagIndex});
+                alignedTags.add(tagIndex);
+            }
+        }
+
+        translationTags.sort((o1, o2) -> {
+            int c = ((Tag) o1[0]).compareTo((Tag) o2[0]);
+            return c == 0 ? (Integer) o1[1] - (Integer) o2[1] : c;
+        });
+
+        Tag[] result = new Tag[translationTags.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = (Tag) translationTags.get(i)[0];
+        return result;
+    }
+
+    private static Tag position(Tag tag, int position) {
+        Tag result = Tag.fromTag(tag);
+        result.setPosition(position);
+        return result;
+    }
+
+    private static int getClosingTagIndex(Tag openingTag, int tagIndex, Tag[] tags) {
+        int open = 1;
+        for (int index = tagIndex + 1; index < tags.length; index++) {
+            Tag tag = tags[index];
+            if (openingTag == tag)
+                continue;
+            if (openingTag.getName().equals(tag.getName()) && tag.isOpeningTag())
+                open++;
+            if (openingTag.opens(tag)) {
+                open--;
+                if (open == 0)
+                    return index;
+            }
+        }
+        return -1;
+    }
+
+    private static Translation randomTranslation(Random random) {
+        int sourceLength = 1 + random.nextInt(12);
+        int targetLength = 1 + random.nextInt(12);
+
+        Word[] sourceWords = new Word[sourceLength];
+        for (int i = 0; i < sourceLength; i++)
+            sourceWords[i] = new Word("s" + i, " ");
+
+        Word[] targetWords = new Word[targetLength];
+        for (int i = 0; i < targetLength; i++)
+            targetWords[i] = new Word("t" + i, " ");
+
+        int[] positions = new int[random.nextInt(8)];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = random.nextInt(sourceLength + 1);
+        Arrays.sort(positions);
+
+        Tag[] tags = new Tag[positions.length];
+        for (int i = 0; i < tags.length; i++)
+            tags[i] = Tag.fromText(TAGS[random.nextInt(TAGS.length)], random.nextBoolean(), null, positions[i]);
+
+        int[][] pairs = new int[random.nextInt(sourceLength * 2 + 1)][];
+        for (int i = 0; i < pairs.length; i++)
+            pairs[i] = new int[]{random.nextInt(sourceLength), random.nextInt(targetLength)};
+
+        return new Translation(targetWords, new Sentence(sourceWords, tags), Alignment.fromAlignmentPairs(pairs));
+    }
+
+    @Test
+    public void testRandomTranslations() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            Translation translation = randomTranslation(random);
+            if (!translation.getSource().hasTags())
+                continue;
+
+            Tag[] expected = reference(translation);
+            XMLTagProjector.mapTags(translation);
+
+            assertEquals(expected.length, translation.getTags().length);
+            assertArrayEquals(expected, translation.getTags());
+        }
+    }
+
+}
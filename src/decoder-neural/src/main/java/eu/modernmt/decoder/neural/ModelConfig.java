@@ -17,6 +17,8 @@ public class ModelConfig {
 
     private final int DEFAULT_SUGGESTIONS_LIMIT = 1;
     private final int DEFAULT_QUERY_MIN_RESULTS = 10;
+    private final boolean DEFAULT_MEMORY_SHARDING = false;
+    private final int DEFAULT_MEMORY_SHARDS_PER_DIRECTION = 1;
 
     private final HierarchicalINIConfiguration config;
 
@@ -73,6 +75,24 @@ public class ModelConfig {
         }
     }
 
+    public boolean isMemorySharded() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getBoolean("memory_sharding", DEFAULT_MEMORY_SHARDING);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_MEMORY_SHARDING;
+        }
+    }
+
+    public int getMemoryShardsPerDirection() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getInt("memory_shards_per_direction", DEFAULT_MEMORY_SHARDS_PER_DIRECTION);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_MEMORY_SHARDS_PER_DIRECTION;
+        }
+    }
+
     public Map<LanguagePair, Float> getAlignmentThresholds() {
         SubnodeConfiguration thresholds;
 
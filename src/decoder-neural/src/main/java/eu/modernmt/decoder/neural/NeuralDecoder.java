@@ -10,11 +10,13 @@ import eu.modernmt.decoder.neural.memory.AlignmentDataFilter;
 import eu.modernmt.decoder.neural.memory.ScoreEntry;
 import eu.modernmt.decoder.neural.memory.TranslationMemory;
 import eu.modernmt.decoder.neural.memory.lucene.LuceneTranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.ShardedTranslationMemory;
 import eu.modernmt.io.FileConst;
 import eu.modernmt.io.TokensOutputStream;
 import eu.modernmt.lang.LanguageIndex;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.lang.UnsupportedLanguageException;
+import eu.modernmt.metrics.LatencyMetrics;
 import eu.modernmt.model.ContextVector;
 import eu.modernmt.model.Sentence;
 import eu.modernmt.model.Translation;
@@ -56,7 +58,12 @@ public class NeuralDecoder implements Decoder, DecoderWithNBest, DataListenerPro
 
         File storageModelPath = new File(modelPath, "memory");
         try {
-            this.memory = new LuceneTranslationMemory(new LanguageIndex(this.directions), storageModelPath, config.getQueryMinimumResults());
+            LanguageIndex languages = new LanguageIndex(this.directions);
+
+            if (config.isMemorySharded())
+                this.memory = new ShardedTranslationMemory(languages, storageModelPath, config.getQueryMinimumResults(), config.getMemoryShardsPerDirection());
+            else
+                this.memory = new LuceneTranslationMemory(languages, storageModelPath, config.getQueryMinimumResults());
         } catch (IOException e) {
             throw new NeuralDecoderException("Failed to initialize memory", e);
         }
@@ -66,16 +73,16 @@ public class NeuralDecoder implements Decoder, DecoderWithNBest, DataListenerPro
             this.memory.setDataFilter(new AlignmentDataFilter(thresholds));
     }
 
-    public NeuralDecoder(File modelPath, int[] gpus) throws NeuralDecoderException {
+    public NeuralDecoder(File modelPath, int[] gpus, long timeout) throws NeuralDecoderException {
         this(modelPath);
         File pythonHome = new File(FileConst.getLibPath(), "pynmt");
-        this.executor = ExecutionQueue.newGPUInstance(pythonHome, modelPath, gpus);
+        this.executor = ExecutionQueue.newGPUInstance(pythonHome, modelPath, gpus, timeout);
     }
 
-    public NeuralDecoder(File modelPath, int cpus) throws NeuralDecoderException {
+    public NeuralDecoder(File modelPath, int cpus, int maxCpus, int standbyCpus, long timeout) throws NeuralDecoderException {
         this(modelPath);
         File pythonHome = new File(FileConst.getLibPath(), "pynmt");
-        this.executor = ExecutionQueue.newCPUInstance(pythonHome, modelPath, cpus);
+        this.executor = ExecutionQueue.newCPUInstance(pythonHome, modelPath, cpus, maxCpus, standbyCpus, timeout);
     }
 
 
@@ -111,11 +118,13 @@ public class NeuralDecoder implements Decoder, DecoderWithNBest, DataListenerPro
         if (text.hasWords()) {
             ScoreEntry[] suggestions;
 
+            long begin = System.nanoTime();
             try {
                 suggestions = memory.search(direction, text, contextVector, this.suggestionsLimit);
             } catch (IOException e) {
                 throw new NeuralDecoderException("Failed to retrieve suggestions from memory", e);
             }
+            LatencyMetrics.record(LatencyMetrics.Stage.MEMORY_SEARCH, direction, System.nanoTime() - begin);
 
             if (suggestions != null && suggestions.length > 0) {
                 // if perfect match, return suggestion instead
@@ -126,10 +135,14 @@ public class NeuralDecoder implements Decoder, DecoderWithNBest, DataListenerPro
 
                     translation = new Translation(words, text, null);
                 } else {
+                    begin = System.nanoTime();
                     translation = executor.execute(direction, variant, text, suggestions, nbestListSize);
+                    LatencyMetrics.record(LatencyMetrics.Stage.NEURAL_PROCESS, direction, System.nanoTime() - begin);
                 }
             } else {
+                begin = System.nanoTime();
                 translation = executor.execute(direction, variant, text, nbestListSize);
+                LatencyMetrics.record(LatencyMetrics.Stage.NEURAL_PROCESS, direction, System.nanoTime() - begin);
             }
 
             if (logger.isTraceEnabled()) {
@@ -19,29 +19,18 @@ public interface ExecutionQueue extends Closeable {
 
     Logger logger = LogManager.getLogger(ExecutionQueue.class);
 
-    static ExecutionQueue newGPUInstance(File home, File model, int[] gpus) throws NeuralDecoderException {
-        if (gpus.length > 1) {
-            ArrayList<StartNativeProcessGpuTask> startTasks = new ArrayList<>();
-            for (int i = 0; i < gpus.length; i++)
-                startTasks.add(i, new StartNativeProcessGpuTask(home, model, gpus[i]));
-            return ParallelExecutionQueue.forGPUs(startTasks);
-        } else {
-            return SingletonExecutionQueue.forGPU(new StartNativeProcessGpuTask(home, model, gpus[0]));
-        }
+    static ExecutionQueue newGPUInstance(File home, File model, int[] gpus, long timeout) throws NeuralDecoderException {
+        ArrayList<StartNativeProcessGpuTask> startTasks = new ArrayList<>(gpus.length);
+        for (int gpu : gpus)
+            startTasks.add(new StartNativeProcessGpuTask(home, model, gpu));
+        return ParallelExecutionQueue.forGPUs(startTasks, timeout);
     }
 
-    static ExecutionQueue newCPUInstance(File home, File model, int cpus) throws NeuralDecoderException {
-        if (cpus > 1) {
-            ArrayList<StartNativeProcessCpuTask> startTasks = new ArrayList<>();
-            for (int i = 0; i < cpus; i++)
-                startTasks.add(i, new StartNativeProcessCpuTask(home, model));
-            return ParallelExecutionQueue.forCPUs(startTasks);
-        } else {
-            return SingletonExecutionQueue.forCPU(new StartNativeProcessCpuTask(home, model));
-        }
+    static ExecutionQueue newCPUInstance(File home, File model, int cpus, int maxCpus, int standbyCpus, long timeout) throws NeuralDecoderException {
+        StartNativeProcessCpuTask startTask = new StartNativeProcessCpuTask(home, model);
+        return ParallelExecutionQueue.forCPUs(startTask, cpus, maxCpus, standbyCpus, timeout);
     }
 
-
     Translation execute(LanguagePair direction, String variant, Sentence sentence, int nBest) throws NeuralDecoderException;
 
     Translation execute(LanguagePair direction, String variant, Sentence sentence, ScoreEntry[] suggestions, int nBest) throws NeuralDecoderException;
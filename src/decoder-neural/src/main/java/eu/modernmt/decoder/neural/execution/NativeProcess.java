@@ -6,6 +6,7 @@ import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 import eu.modernmt.decoder.neural.NeuralDecoderException;
 import eu.modernmt.decoder.neural.NeuralDecoderRejectedExecutionException;
+import eu.modernmt.decoder.neural.NeuralDecoderTimeoutException;
 import eu.modernmt.decoder.neural.memory.ScoreEntry;
 import eu.modernmt.io.TokensOutputStream;
 import eu.modernmt.lang.LanguagePair;
@@ -31,6 +32,9 @@ import java.util.concurrent.TimeUnit;
  * A NativeProcess represents a separate process that is launched by an MMT engine to run an NeuralDecoder.
  * The NativeProcess object is thus to run and request translations to its specific decoder process.
  * If necessary, it also handles its close.
+ * <p>
+ * A NativeProcess serves one request at a time: the time of the pending request is exposed
+ * so that a supervisor can detect stuck processes and kill them.
  */
 class NativeProcess implements Closeable {
 
@@ -110,6 +114,10 @@ class NativeProcess implements Closeable {
     private final BufferedReader stdout;    // reader to the standard output that the decoder process will write
     private final LogThread logThread;      // separate thread for logging
 
+    private volatile long requestTime = 0L; // start time of the pending request, 0 if idle
+    private volatile boolean broken = false;
+    private volatile boolean killed = false;
+
     /**
      * Create a new NativeProcess that connects to a specific NeuralDecoder process.
      * After it is created, the NativeProcess allows communication with the decoder.
@@ -130,11 +138,14 @@ class NativeProcess implements Closeable {
         /*Wait for feedback from the engine: it can be either "ok" or an exception. */
         try {
             String line = this.stdout.readLine();
-            if (line == null || !line.trim().equals("ok"))
-                deserialize(null, line, false);
+            if (line == null)
+                throw new NeuralDecoderException("NMT process terminated during startup");
+            if (!line.trim().equals("ok"))
+                deserialize(null, parse(line), false);
         } catch (IOException | NeuralDecoderException e) {
             IOUtils.closeQuietly(this.stdin);
             IOUtils.closeQuietly(this.stdout);
+            decoder.destroyForcibly();
             throw e;
         }
 
@@ -164,30 +175,85 @@ class NativeProcess implements Closeable {
      * @throws NeuralDecoderException
      */
     public Translation translate(LanguagePair direction, String variant, Sentence sentence, ScoreEntry[] suggestions, int nBest) throws NeuralDecoderException {
-        if (!decoder.isAlive())
-            throw new NeuralDecoderRejectedExecutionException();
-
         String payload = serialize(direction, variant, sentence, suggestions, nBest);
+        JsonObject response = send(payload);
 
-        try {
-            this.stdin.write(payload.getBytes("UTF-8"));
-            this.stdin.write('\n');
-            this.stdin.flush();
-        } catch (IOException e) {
-            throw new NeuralDecoderException("Failed to send request to NMT decoder", e);
+        return deserialize(sentence, response, nBest > 0);
+    }
+
+    /**
+     * This method checks that the decoder process is still responsive.
+     *
+     * @throws NeuralDecoderException if the decoder process did not respond correctly
+     */
+    public void ping() throws NeuralDecoderException {
+        JsonObject response = send("{\"ping\":true}");
+
+        if (!response.has("pong")) {
+            broken = true;
+            throw new NeuralDecoderException("Invalid response from NMT decoder: " + response);
         }
+    }
+
+    private JsonObject send(String payload) throws NeuralDecoderException {
+        if (!isAlive())
+            throw new NeuralDecoderRejectedExecutionException();
+
+        requestTime = System.currentTimeMillis();
 
-        String line;
         try {
-            line = stdout.readLine();
-        } catch (IOException e) {
-            throw new NeuralDecoderException("Failed to read response from NMT decoder", e);
+            try {
+                this.stdin.write(payload.getBytes("UTF-8"));
+                this.stdin.write('\n');
+                this.stdin.flush();
+            } catch (IOException e) {
+                throw new NeuralDecoderException("Failed to send request to NMT decoder", e);
+            }
+
+            String line;
+            try {
+                line = stdout.readLine();
+            } catch (IOException e) {
+                throw new NeuralDecoderException("Failed to read response from NMT decoder", e);
+            }
+
+            if (line == null)
+                throw new NeuralDecoderException("No response from NMT process, request was '" + payload + "'");
+
+            return parse(line);
+        } catch (NeuralDecoderException e) {
+            broken = true;
+
+            if (killed)
+                throw new NeuralDecoderTimeoutException();
+            else
+                throw e;
+        } finally {
+            requestTime = 0L;
         }
+    }
 
-        if (line == null)
-            throw new NeuralDecoderException("No response from NMT process, request was '" + payload + "'");
+    /**
+     * @return the time (in milliseconds) at which the pending request has been sent, or 0 if the process is idle
+     */
+    public long getRequestTime() {
+        return requestTime;
+    }
 
-        return deserialize(sentence, line, nBest > 0);
+    /**
+     * @return true if the process is running and able to serve requests
+     */
+    public boolean isAlive() {
+        return !broken && decoder.isAlive();
+    }
+
+    /**
+     * This method forcibly destroys the decoder process, causing the pending request (if any) to fail
+     * with a NeuralDecoderTimeoutException.
+     */
+    public void kill() {
+        killed = true;
+        decoder.destroyForcibly();
     }
 
     private static String serialize(LanguagePair direction, String variant, Sentence sentence, ScoreEntry[] suggestions, int nBest) {
@@ -222,14 +288,15 @@ class NativeProcess implements Closeable {
         return json.toString().replace('\n', ' ');
     }
 
-    private static Translation deserialize(Sentence sentence, String response, boolean includeNBest) throws NeuralDecoderException {
-        JsonObject json;
+    private static JsonObject parse(String response) throws NeuralDecoderException {
         try {
-            json = parser.parse(response).getAsJsonObject();
-        } catch (JsonSyntaxException e) {
+            return parser.parse(response).getAsJsonObject();
+        } catch (JsonSyntaxException | IllegalStateException e) {
             throw new NeuralDecoderException("Invalid response from NMT decoder: " + response, e);
         }
+    }
 
+    private static Translation deserialize(Sentence sentence, JsonObject json, boolean includeNBest) throws NeuralDecoderException {
         if (json.has("error")) {
             JsonObject jsonError = json.getAsJsonObject("error");
             String type = jsonError.get("type").getAsString();
@@ -1,6 +1,8 @@
 package eu.modernmt.decoder.neural.execution;
 
 import eu.modernmt.decoder.neural.NeuralDecoderException;
+import eu.modernmt.decoder.neural.NeuralDecoderRejectedExecutionException;
+import eu.modernmt.decoder.neural.NeuralDecoderTimeoutException;
 import eu.modernmt.decoder.neural.memory.ScoreEntry;
 import eu.modernmt.lang.LanguagePair;
 import eu.modernmt.model.Sentence;
@@ -8,64 +10,137 @@ import eu.modernmt.model.Translation;
 import org.apache.commons.io.IOUtils;
 
 import java.util.ArrayList;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Created by davide on 23/05/17.
  * <p>
  * A ParallelExecutionQueue launches and manages a group of NeuralDecoder processes.
  * It assigns them translation jobs and, if necessary, closes the processes.
+ * <p>
+ * The processes are supervised by a background thread that:
+ * <ul>
+ * <li>kills the processes that do not complete a request within the timeout</li>
+ * <li>pings the idle processes and restarts the ones that are dead or unresponsive</li>
+ * <li>keeps a number of warm standby processes ready to replace failed ones</li>
+ * <li>grows the pool (up to maxSize) when translations wait for a free process,
+ * and shrinks it (down to minSize) when the extra processes stay idle</li>
+ * </ul>
  */
 class ParallelExecutionQueue implements ExecutionQueue {
 
+    static final long SUPERVISOR_INTERVAL = 1000L;
+    static final long PING_INTERVAL = 10000L;
+    static final long GROW_WAIT_TIME = 50L;
+    static final long SHRINK_IDLE_TIME = 60000L;
+    static final long RESTART_DELAY = 5000L;
+
     /**
-     * This method launches multiple NeuralDecoder processes that must be run on CPU
-     * and returns the list of NativeProcess objects to interact with them.
+     * This method launches the NeuralDecoder processes that must be run on CPU:
+     * all the processes are equivalent, so the same task is used to start every process.
      *
-     * @param tasks a list of StartNativeProcessCpuTask to execute
-     * @return the list of NativeProcess object resulting from the execution of all the passed tasks
-     * @throws NeuralDecoderException
+     * @param task    the task that starts a new decoder process
+     * @param minSize the number of processes that are always running
+     * @param maxSize the max number of processes that serve translations
+     * @param standby the number of idle processes kept ready in addition to the serving ones
+     * @param timeout the max time (in milliseconds) for a translation
+     * @return the ParallelExecutionQueue managing the processes
+     * @throws NeuralDecoderException if the initial processes could not be started
      */
-    public static ParallelExecutionQueue forCPUs(ArrayList<StartNativeProcessCpuTask> tasks) throws NeuralDecoderException {
-        return executeStartTasks(tasks);
+    public static ParallelExecutionQueue forCPUs(StartNativeProcessCpuTask task, int minSize, int maxSize, int standby, long timeout) throws NeuralDecoderException {
+        return new ParallelExecutionQueue(task, null, minSize, maxSize, standby, timeout);
     }
 
     /**
-     * This method launches multiple NeuralDecoder processes that must be run on GPU
-     * and returns the list of NativeProcess objects to interact with them.
+     * This method launches the NeuralDecoder processes that must be run on GPU:
+     * every task starts the process on a specific GPU, so the pool has a fixed size
+     * and a failed process is restarted on the same GPU.
      *
-     * @param tasks a list of StartNativeProcessGpuTask to execute
-     * @return the list of NativeProcess object resulting from the execution of all the passed tasks
+     * @param tasks   a list of StartNativeProcessGpuTask to execute
+     * @param timeout the max time (in milliseconds) for a translation
+     * @return the ParallelExecutionQueue managing the processes
+     * @throws NeuralDecoderException if the initial processes could not be started
      */
-    public static ParallelExecutionQueue forGPUs(ArrayList<StartNativeProcessGpuTask> tasks) throws NeuralDecoderException {
-        return executeStartTasks(tasks);
+    public static ParallelExecutionQueue forGPUs(List<StartNativeProcessGpuTask> tasks, long timeout) throws NeuralDecoderException {
+        return new ParallelExecutionQueue(null, tasks, tasks.size(), tasks.size(), 0, timeout);
     }
 
-    private static ParallelExecutionQueue executeStartTasks(ArrayList<? extends StartNativeProcessTask> tasks) throws NeuralDecoderException {
-        ExecutorService executor;
-        ArrayList<Future<NativeProcess>> futures;
+    private final StartNativeProcessTask sharedTask;    // starts every process, null if tasks are bound to slots
+    private final ConcurrentLinkedQueue<StartNativeProcessTask> freeTasks = new ConcurrentLinkedQueue<>();
+    private final int minSize;
+    private final int maxSize;
+    private final int standby;
+    private final long timeout;
+
+    private final LinkedBlockingDeque<Worker> idle = new LinkedBlockingDeque<>();      // serving processes ready for a request
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();                   // all the serving processes
+    private final ConcurrentLinkedQueue<Worker> standbys = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService supervisor;
+    private final ExecutorService background;
+
+    private final AtomicInteger waiting = new AtomicInteger(0);
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder pingCount = new LongAdder();
+
+    volatile long pingInterval = PING_INTERVAL;
+    volatile long shrinkIdleTime = SHRINK_IDLE_TIME;
+
+    private int size;               // target number of serving processes
+    private int starting = 0;       // number of processes being started
+    private long nextStartTime = 0L;
+    private volatile boolean closed = false;
+
+    ParallelExecutionQueue(StartNativeProcessTask sharedTask, List<? extends StartNativeProcessTask> tasks,
+                           int minSize, int maxSize, int standby, long timeout) throws NeuralDecoderException {
+        this.sharedTask = sharedTask;
+        if (tasks != null)
+            this.freeTasks.addAll(tasks);
 
-        /*start decoder processes using GPUs*/
-        futures = new ArrayList<>(tasks.size());
-        executor = Executors.newFixedThreadPool(tasks.size());
-        for (int i = 0; i < tasks.size(); i++)
-            futures.add(i, executor.submit(tasks.get(i)));
-        executor.shutdown();
-        NativeProcess[] processes = getProcesses(futures);
-        return new ParallelExecutionQueue(processes);
+        this.minSize = Math.max(1, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.standby = Math.max(0, standby);
+        this.timeout = timeout;
+        this.size = this.minSize;
+
+        this.background = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "NMT process starter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        start(this.minSize);
+
+        this.supervisor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NMT process supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.supervisor.scheduleWithFixedDelay(this::supervise, SUPERVISOR_INTERVAL, SUPERVISOR_INTERVAL, TimeUnit.MILLISECONDS);
     }
 
-    private static NativeProcess[] getProcesses(ArrayList<Future<NativeProcess>> futures) throws NeuralDecoderException {
-        NativeProcess[] processes = new NativeProcess[futures.size()];
+    /*
+     * Starts the initial processes in parallel: if any of them fails, all of them are closed
+     */
+    private void start(int count) throws NeuralDecoderException {
+        ArrayList<Future<NativeProcess>> futures = new ArrayList<>(count);
+        ArrayList<StartNativeProcessTask> tasks = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            StartNativeProcessTask task = pollTask();
+            tasks.add(task);
+            futures.add(background.submit(task));
+        }
+
+        NativeProcess[] processes = new NativeProcess[count];
         boolean success = true;
 
-        /*get all the NativeProcesses for all the futures.
-         * if an exception is thrown, mark that something has gone wrong
-         * and keep getting the processes (so it will be possible to stop them all later)*/
-        for (int i = 0; i < futures.size(); i++) {
+        for (int i = 0; i < count; i++) {
             try {
                 processes[i] = futures.get(i).get();
             } catch (Exception e) {
@@ -77,22 +152,15 @@ class ParallelExecutionQueue implements ExecutionQueue {
         if (!success) {
             for (NativeProcess process : processes)
                 IOUtils.closeQuietly(process);
+            background.shutdownNow();
             throw new NeuralDecoderException("Unable to start NMT process");
         }
 
-        return processes;
-    }
-
-
-    private final NativeProcess[] processes;    //the list of decoder NativeProcesses to manage
-    private final ArrayBlockingQueue<NativeProcess> queue;  //queue of NativeProcesses allowing round-robin access
-
-    private ParallelExecutionQueue(NativeProcess[] processes) {
-        this.processes = processes;
-        this.queue = new ArrayBlockingQueue<>(processes.length);
-
-        for (NativeProcess process : processes)
-            this.queue.offer(process);
+        for (int i = 0; i < count; i++) {
+            Worker worker = new Worker(tasks.get(i), processes[i]);
+            workers.add(worker);
+            idle.offerFirst(worker);
+        }
     }
 
     @Override
@@ -102,25 +170,289 @@ class ParallelExecutionQueue implements ExecutionQueue {
 
     @Override
     public Translation execute(LanguagePair direction, String variant, Sentence sentence, ScoreEntry[] suggestions, int nBest) throws NeuralDecoderException {
-        NativeProcess decoder = null;
+        Worker worker = acquire();
+        boolean healthy = false;
 
         try {
-            decoder = this.queue.take();
-            return decoder.translate(direction, variant, sentence, suggestions, nBest);
+            Translation translation = worker.process.translate(direction, variant, sentence, suggestions, nBest);
+            worker.lastUsed = System.currentTimeMillis();
+            healthy = true;
+            return translation;
+        } catch (NeuralDecoderException e) {
+            // errors reported by the decoder leave the process in a consistent state
+            healthy = worker.process.isAlive();
+            throw e;
+        } finally {
+            if (healthy)
+                release(worker);
+            else
+                discard(worker);
+        }
+    }
+
+    private Worker acquire() throws NeuralDecoderException {
+        if (closed)
+            throw new NeuralDecoderRejectedExecutionException();
+
+        Worker worker;
+        long begin = System.currentTimeMillis();
+
+        waiting.incrementAndGet();
+        try {
+            worker = idle.pollFirst(timeout, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             throw new NeuralDecoderException("No NMT processes available", e);
         } finally {
-            if (decoder != null)
-                this.queue.offer(decoder);
+            waiting.decrementAndGet();
+        }
+
+        waitTime.add(System.currentTimeMillis() - begin);
+        waitCount.increment();
+
+        if (worker == null) {
+            if (closed)
+                throw new NeuralDecoderRejectedExecutionException();
+            else
+                throw new NeuralDecoderTimeoutException();
+        }
+
+        return worker;
+    }
+
+    private void release(Worker worker) {
+        if (closed)
+            IOUtils.closeQuietly(worker.process);
+        else
+            idle.offerFirst(worker);
+    }
+
+    private void discard(Worker worker) {
+        if (workers.remove(worker)) {
+            logger.warn("NMT process failed, restarting it");
+            closeInBackground(worker);
+
+            synchronized (this) {
+                maintain();
+            }
+        }
+    }
+
+    private void closeInBackground(Worker worker) {
+        freeTasks.offer(worker.task);
+
+        try {
+            background.execute(() -> IOUtils.closeQuietly(worker.process));
+        } catch (RejectedExecutionException e) {
+            IOUtils.closeQuietly(worker.process);
+        }
+    }
+
+    // Supervision
+
+    private void supervise() {
+        long now = System.currentTimeMillis();
+
+        // Kill stuck processes: the pending request fails and the worker is discarded by its caller
+        for (Worker worker : workers) {
+            long requestTime = worker.process.getRequestTime();
+            if (requestTime > 0 && now - requestTime > timeout) {
+                logger.warn("NMT process did not respond within " + timeout + "ms, killing it");
+                worker.process.kill();
+            }
+        }
+
+        // Check idle processes
+        for (Worker worker : idle) {
+            if (!worker.process.isAlive()) {
+                if (idle.remove(worker))
+                    discard(worker);
+            } else if (now - Math.max(worker.lastUsed, worker.lastPing) > pingInterval) {
+                if (idle.remove(worker))
+                    background.execute(() -> ping(worker));
+            }
+        }
+
+        for (Worker worker : standbys) {
+            if (!worker.process.isAlive() && standbys.remove(worker)) {
+                logger.warn("Standby NMT process failed, restarting it");
+                closeInBackground(worker);
+            }
+        }
+
+        // Resize the pool according to the time spent waiting for a process
+        long count = waitCount.sumThenReset();
+        long time = waitTime.sumThenReset();
+        boolean overloaded = waiting.get() > 0 || (count > 0 && time / count >= GROW_WAIT_TIME);
+
+        synchronized (this) {
+            if (overloaded) {
+                if (size < maxSize) {
+                    size++;
+                    logger.info("Growing NMT processes pool to " + size + " processes");
+                }
+            } else if (size > minSize) {
+                Worker worker = idle.peekLast();
+
+                if (worker != null && now - worker.lastUsed > shrinkIdleTime && idle.removeLastOccurrence(worker)) {
+                    size--;
+                    workers.remove(worker);
+                    logger.info("Shrinking NMT processes pool to " + size + " processes");
+
+                    if (standbys.size() < standby)
+                        standbys.offer(worker);
+                    else
+                        closeInBackground(worker);
+                }
+            }
+
+            maintain();
+        }
+    }
+
+    private void ping(Worker worker) {
+        try {
+            worker.process.ping();
+            worker.lastPing = System.currentTimeMillis();
+            pingCount.increment();
+        } catch (NeuralDecoderException e) {
+            logger.warn("NMT process did not respond to ping", e);
+        }
+
+        if (worker.process.isAlive())
+            release(worker);
+        else
+            discard(worker);
+    }
+
+    /*
+     * Promotes standby processes and starts new ones in order to reach the target size; must hold the lock
+     */
+    private void maintain() {
+        if (closed)
+            return;
+
+        while (workers.size() < size) {
+            Worker worker = standbys.poll();
+            if (worker == null)
+                break;
+
+            worker.lastUsed = System.currentTimeMillis();
+            workers.add(worker);
+            idle.offerFirst(worker);
+        }
+
+        int missing = (size - workers.size()) + (standby - standbys.size()) - starting;
+        if (missing <= 0 || System.currentTimeMillis() < nextStartTime)
+            return;
+
+        for (int i = 0; i < missing; i++) {
+            StartNativeProcessTask task = pollTask();
+            if (task == null)
+                break;
+
+            starting++;
+            background.execute(() -> startInBackground(task));
         }
     }
 
+    private StartNativeProcessTask pollTask() {
+        return sharedTask == null ? freeTasks.poll() : sharedTask;
+    }
+
+    private void startInBackground(StartNativeProcessTask task) {
+        NativeProcess process = null;
+
+        try {
+            process = task.call();
+        } catch (Exception e) {
+            logger.error("Unable to start NMT process", e);
+        }
+
+        synchronized (this) {
+            starting--;
+
+            if (process == null) {
+                freeTasks.offer(task);
+                nextStartTime = System.currentTimeMillis() + RESTART_DELAY;
+            } else if (closed) {
+                IOUtils.closeQuietly(process);
+            } else {
+                Worker worker = new Worker(task, process);
+
+                if (workers.size() < size) {
+                    workers.add(worker);
+                    idle.offerFirst(worker);
+                } else if (standbys.size() < standby) {
+                    standbys.offer(worker);
+                } else {
+                    closeInBackground(worker);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of processes that are currently serving translations
+     */
+    int getSize() {
+        return workers.size();
+    }
+
+    /**
+     * @return the number of processes that are ready to replace failed processes
+     */
+    int getStandbySize() {
+        return standbys.size();
+    }
+
+    /**
+     * @return the number of pings the processes have responded to
+     */
+    long getPingCount() {
+        return pingCount.sum();
+    }
+
     /**
      * This method closes all the decoder processes that this ParallelExecutionQueue manages
      */
     @Override
     public void close() {
-        for (NativeProcess decoder : processes)
-            IOUtils.closeQuietly(decoder);
+        closed = true;
+
+        supervisor.shutdownNow();
+        background.shutdownNow();
+
+        synchronized (this) {
+            for (Worker worker : workers)
+                IOUtils.closeQuietly(worker.process);
+            for (Worker worker : standbys)
+                IOUtils.closeQuietly(worker.process);
+
+            workers.clear();
+            standbys.clear();
+            idle.clear();
+        }
+
+        try {
+            background.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Nothing to do
+        }
     }
+
+    private static final class Worker {
+
+        private final StartNativeProcessTask task;  // the task that started the process, used to restart it
+        private final NativeProcess process;
+        private volatile long lastUsed;
+        private volatile long lastPing = 0L;
+
+        private Worker(StartNativeProcessTask task, NativeProcess process) {
+            this.task = task;
+            this.process = process;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+    }
+
 }
@@ -0,0 +1,353 @@
+package eu.modernmt.decoder.neural.memory.lucene;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.Deletion;
+import eu.modernmt.data.TranslationUnit;
+import eu.modernmt.decoder.neural.memory.ScoreEntry;
+import eu.modernmt.decoder.neural.memory.TranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.rescoring.F1BleuRescorer;
+import eu.modernmt.decoder.neural.memory.lucene.rescoring.Rescorer;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Memory;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A TranslationMemory that splits its content in multiple independent Lucene indexes (shards):
+ * one group of shards per language direction, each group optionally partitioned by memory id.
+ * Every shard has its own writer and reader, so imports and deletions in one direction do not
+ * trigger merges or reader refreshes in the others. Searches are dispatched concurrently to
+ * all the shards of the requested direction and the results are merged by score.
+ * <p>
+ * The shards are stored in sub-folders of the index path, so a sharded memory cannot be opened
+ * on the path of an existing non-sharded index: the constructor fails instead of silently
+ * starting with an empty memory.
+ */
+public class ShardedTranslationMemory implements TranslationMemory {
+
+    public interface DirectoryFactory {
+
+        Directory open(String name) throws IOException;
+
+    }
+
+    private static final String METADATA_SHARD_NAME = "metadata";
+
+    private final Logger logger = LogManager.getLogger(ShardedTranslationMemory.class);
+
+    private final LanguageIndex languages;
+    private final Rescorer rescorer;
+    private final int shardsPerDirection;
+    private final Map<String, LuceneTranslationMemory[]> shards;
+    private final LuceneTranslationMemory metadata;
+    private final ExecutorService executor;
+
+    private static File forceMkdir(File directory) throws IOException {
+        if (!directory.isDirectory())
+            FileUtils.forceMkdir(directory);
+        return directory;
+    }
+
+    private static DirectoryFactory openShardsIn(File indexPath) throws IOException {
+        if (indexPath.isDirectory()) {
+            try (Directory directory = FSDirectory.open(indexPath)) {
+                if (DirectoryReader.indexExists(directory))
+                    throw new IOException("Found a non-sharded translation memory in " + indexPath +
+                            ": memory sharding cannot be enabled on an existing memory, disable it or re-create the engine");
+            }
+        }
+
+        return name -> FSDirectory.open(forceMkdir(new File(indexPath, name)));
+    }
+
+    public ShardedTranslationMemory(LanguageIndex languages, File indexPath, int minQuerySize, int shardsPerDirection) throws IOException {
+        this(languages, openShardsIn(indexPath), new F1BleuRescorer(), minQuerySize, shardsPerDirection);
+    }
+
+    public ShardedTranslationMemory(LanguageIndex languages, DirectoryFactory directories, Rescorer rescorer, int minQuerySize, int shardsPerDirection) throws IOException {
+        if (shardsPerDirection < 1)
+            throw new IllegalArgumentException("Invalid number of shards per direction: " + shardsPerDirection);
+
+        this.languages = languages;
+        this.rescorer = rescorer;
+        this.shardsPerDirection = shardsPerDirection;
+        this.shards = new HashMap<>();
+
+        boolean success = false;
+
+        try {
+            for (LanguagePair direction : languages) {
+                String key = DocumentBuilder.encode(direction);
+
+                if (this.shards.containsKey(key))
+                    continue;
+
+                LuceneTranslationMemory[] group = new LuceneTranslationMemory[shardsPerDirection];
+                this.shards.put(key, group);
+
+                for (int i = 0; i < group.length; i++) {
+                    String name = shardsPerDirection > 1 ? (key + '.' + i) : key;
+                    group[i] = new LuceneTranslationMemory(languages, directories.open(name), rescorer, minQuerySize);
+                }
+            }
+
+            // The metadata shard contains no translation units, it only keeps track of the
+            // channel positions that have been successfully committed to all the shards
+            this.metadata = new LuceneTranslationMemory(languages, directories.open(METADATA_SHARD_NAME), rescorer, minQuerySize);
+
+            success = true;
+        } finally {
+            if (!success)
+                this.close();
+        }
+
+        // One thread per shard: enough to search all the shards at once, bounded whatever the search load
+        this.executor = shardsPerDirection > 1 ? Executors.newFixedThreadPool(Math.max(1, shards.size() * shardsPerDirection), r -> {
+            Thread thread = new Thread(r, "ShardedTranslationMemory");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public LanguageIndex getLanguageIndex() {
+        return languages;
+    }
+
+    /**
+     * Returns the shards of a direction, that must be already mapped with the LanguageIndex:
+     * documents are indexed with the mapped direction, so searches must use it too.
+     */
+    private LuceneTranslationMemory[] getGroup(LanguagePair mapped) {
+        return mapped == null ? null : shards.get(DocumentBuilder.encode(mapped));
+    }
+
+    private LuceneTranslationMemory getShard(LanguagePair direction, long memory) {
+        LuceneTranslationMemory[] group = getGroup(languages.map(direction));
+
+        if (group == null)
+            return null;
+
+        return group[(int) Math.floorMod(memory, (long) group.length)];
+    }
+
+    private List<LuceneTranslationMemory> getShards(long memory) {
+        ArrayList<LuceneTranslationMemory> result = new ArrayList<>(shards.size());
+        for (LuceneTranslationMemory[] group : shards.values())
+            result.add(group[(int) Math.floorMod(memory, (long) group.length)]);
+        return result;
+    }
+
+    // TranslationMemory
+
+    @Override
+    /* This method does not store segments hash. Update of content inserted with this method is not possible */
+    public void bulkInsert(Map<Memory, MultilingualCorpus> batch) throws IOException {
+        HashSet<LuceneTranslationMemory> touched = new HashSet<>();
+        boolean success = false;
+
+        try {
+            for (Map.Entry<Memory, MultilingualCorpus> entry : batch.entrySet())
+                bulkInsert(entry.getKey().getId(), entry.getValue(), touched);
+
+            for (LuceneTranslationMemory shard : touched)
+                shard.getIndexWriter().commit();
+
+            success = true;
+        } finally {
+            if (!success) {
+                for (LuceneTranslationMemory shard : touched)
+                    shard.getIndexWriter().rollback();
+            }
+        }
+    }
+
+    @Override
+    /* This method does not store segments hash. Update of content inserted with this method is not possible */
+    public void bulkInsert(Memory memory, MultilingualCorpus corpus) throws IOException {
+        bulkInsert(Collections.singletonMap(memory, corpus));
+    }
+
+    private void bulkInsert(long memory, MultilingualCorpus corpus, Set<LuceneTranslationMemory> touched) throws IOException {
+        MultilingualCorpus.MultilingualLineReader reader = null;
+
+        try {
+            reader = corpus.getContentReader();
+
+            long begin = System.currentTimeMillis();
+
+            MultilingualCorpus.StringPair pair;
+            while ((pair = reader.read()) != null) {
+                LanguagePair direction = languages.map(pair.language);
+
+                if (direction != null) {
+                    LuceneTranslationMemory shard = getShard(direction, memory);
+                    touched.add(shard);
+
+                    Document document = DocumentBuilder.build(direction, memory, pair.source, pair.target);
+                    shard.getIndexWriter().addDocument(document);
+                }
+            }
+
+            double elapsed = System.currentTimeMillis() - begin;
+            elapsed = (int) (elapsed / 100);
+            elapsed /= 10.;
+
+            logger.info("Memory " + memory + " imported in " + elapsed + "s");
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    @Override
+    public ScoreEntry[] search(LanguagePair direction, Sentence source, int limit) throws IOException {
+        return search(direction, source, null, this.rescorer, limit);
+    }
+
+    public ScoreEntry[] search(LanguagePair direction, Sentence source, Rescorer rescorer, int limit) throws IOException {
+        return this.search(direction, source, null, rescorer, limit);
+    }
+
+    @Override
+    public ScoreEntry[] search(LanguagePair direction, Sentence source, ContextVector contextVector, int limit) throws IOException {
+        return this.search(direction, source, contextVector, this.rescorer, limit);
+    }
+
+    public ScoreEntry[] search(LanguagePair direction, Sentence source, ContextVector contextVector, Rescorer rescorer, int limit) throws IOException {
+        LanguagePair mapped = languages.map(direction);
+        LuceneTranslationMemory[] group = getGroup(mapped);
+
+        if (group == null)
+            return new ScoreEntry[0];
+
+        if (group.length == 1)
+            return group[0].search(mapped, source, contextVector, rescorer, limit);
+
+        ArrayList<Future<ScoreEntry[]>> futures = new ArrayList<>(group.length);
+        for (LuceneTranslationMemory shard : group)
+            futures.add(executor.submit(() -> shard.search(mapped, source, contextVector, rescorer, limit)));
+
+        ArrayList<ScoreEntry> entries = new ArrayList<>(limit * group.length);
+
+        try {
+            for (Future<ScoreEntry[]> future : futures)
+                Collections.addAll(entries, future.get());
+        } catch (InterruptedException e) {
+            throw new IOException("Memory search interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            else if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            else
+                throw new IOException("Unexpected exception during memory search", cause);
+        } finally {
+            for (Future<ScoreEntry[]> future : futures)
+                future.cancel(true);
+        }
+
+        entries.sort(Collections.reverseOrder());
+
+        int size = Math.min(limit, entries.size());
+        return entries.subList(0, size).toArray(new ScoreEntry[size]);
+    }
+
+    @Override
+    public void setDataFilter(DataFilter filter) {
+        for (LuceneTranslationMemory[] group : shards.values()) {
+            for (LuceneTranslationMemory shard : group)
+                shard.setDataFilter(filter);
+        }
+    }
+
+    // DataListener
+
+    @Override
+    public void onDataReceived(DataBatch batch) throws IOException {
+        HashMap<LuceneTranslationMemory, ShardDataBatch> batches = new HashMap<>();
+
+        for (TranslationUnit unit : batch.getTranslationUnits()) {
+            LuceneTranslationMemory shard = getShard(unit.direction, unit.memory);
+
+            if (shard != null)
+                batches.computeIfAbsent(shard, key -> new ShardDataBatch(batch)).units.add(unit);
+        }
+
+        for (Deletion deletion : batch.getDeletions()) {
+            for (LuceneTranslationMemory shard : getShards(deletion.memory))
+                batches.computeIfAbsent(shard, key -> new ShardDataBatch(batch)).deletions.add(deletion);
+        }
+
+        // Shards without data in this batch are left untouched: no commit, no reader refresh
+        for (Map.Entry<LuceneTranslationMemory, ShardDataBatch> entry : batches.entrySet())
+            entry.getKey().onDataReceived(entry.getValue());
+
+        this.metadata.onDataReceived(new ShardDataBatch(batch));
+    }
+
+    @Override
+    public Map<Short, Long> getLatestChannelPositions() {
+        return metadata.getLatestChannelPositions();
+    }
+
+    // Closeable
+
+    @Override
+    public void close() {
+        if (this.executor != null)
+            this.executor.shutdownNow();
+
+        for (LuceneTranslationMemory[] group : shards.values()) {
+            for (LuceneTranslationMemory shard : group)
+                IOUtils.closeQuietly(shard);
+        }
+
+        IOUtils.closeQuietly(this.metadata);
+    }
+
+    private static final class ShardDataBatch implements DataBatch {
+
+        private final ArrayList<TranslationUnit> units = new ArrayList<>();
+        private final ArrayList<Deletion> deletions = new ArrayList<>();
+        private final Map<Short, Long> positions;
+
+        public ShardDataBatch(DataBatch parent) {
+            this.positions = parent.getChannelPositions();
+        }
+
+        @Override
+        public Collection<TranslationUnit> getTranslationUnits() {
+            return units;
+        }
+
+        @Override
+        public Collection<Deletion> getDeletions() {
+            return deletions;
+        }
+
+        @Override
+        public Map<Short, Long> getChannelPositions() {
+            return positions;
+        }
+    }
+
+}
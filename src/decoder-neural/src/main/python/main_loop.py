@@ -77,6 +77,14 @@ class TranslationResponse:
         return json.dumps(json_root).replace('\n', ' ')
 
 
+class PingResponse:
+    REQUEST = '{"ping":true}'
+
+    @staticmethod
+    def to_json_string():
+        return '{"pong":true}'
+
+
 class MainController:
     def __init__(self, decoder, stdout):
         self._decoder = decoder
@@ -102,6 +110,9 @@ class MainController:
 
     def process(self, line):
         try:
+            if line.strip() == PingResponse.REQUEST:
+                return PingResponse()
+
             request = TranslationRequest.from_json_string(line)
             translations = self._decoder.translate(request.source_lang, request.target_lang, request.source,
                                                    suggestions=request.suggestions, n_best=request.n_best,
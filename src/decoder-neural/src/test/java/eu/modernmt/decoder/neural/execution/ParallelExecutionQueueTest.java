@@ -0,0 +1,177 @@
+package eu.modernmt.decoder.neural.execution;
+
+import eu.modernmt.decoder.neural.NeuralDecoderException;
+import eu.modernmt.decoder.neural.NeuralDecoderTimeoutException;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Word;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class ParallelExecutionQueueTest {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+
+    private static final StartNativeProcessTask STUB_TASK = new StartNativeProcessTask(null, null) {
+        @Override
+        public NativeProcess call() throws Exception {
+            String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+            String classpath = new File(StubDecoderProcess.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+
+            return new NativeProcess(new ProcessBuilder(java, "-cp", classpath, StubDecoderProcess.class.getName()).start());
+        }
+    };
+
+    private ParallelExecutionQueue queue;
+
+    private void setup(int minSize, int maxSize, int standby, long timeout) throws NeuralDecoderException {
+        queue = new ParallelExecutionQueue(STUB_TASK, null, minSize, maxSize, standby, timeout);
+    }
+
+    @After
+    public void teardown() {
+        if (queue != null)
+            queue.close();
+        queue = null;
+    }
+
+    private String translate(String text) throws NeuralDecoderException {
+        Sentence sentence = new Sentence(new Word[]{new Word(text, null)});
+        return queue.execute(EN_IT, null, sentence, 0).toString();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 20000L;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end)
+                fail("Condition not met in time");
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testTranslate() throws Throwable {
+        setup(2, 2, 0, 5000L);
+
+        assertEquals(2, queue.getSize());
+        assertEquals("hello", translate("hello"));
+        assertEquals("world", translate("world"));
+    }
+
+    @Test
+    public void testDecoderErrorKeepsProcess() throws Throwable {
+        setup(1, 1, 0, 5000L);
+
+        try {
+            translate("error");
+            fail("Expected NeuralDecoderException");
+        } catch (NeuralDecoderException e) {
+            assertEquals("ValueError - invalid source", e.getMessage());
+        }
+
+        assertEquals(1, queue.getSize());
+        assertEquals("hello", translate("hello"));
+    }
+
+    @Test
+    public void testCrashedProcessIsRestarted() throws Throwable {
+        setup(1, 1, 0, 5000L);
+
+        try {
+            translate("crash");
+            fail("Expected NeuralDecoderException");
+        } catch (NeuralDecoderException e) {
+            // expected
+        }
+
+        waitFor(() -> queue.getSize() == 1);
+        assertEquals("hello", translate("hello"));
+    }
+
+    @Test
+    public void testStuckProcessIsKilled() throws Throwable {
+        setup(1, 1, 0, 1000L);
+
+        long begin = System.currentTimeMillis();
+        try {
+            translate("hang");
+            fail("Expected NeuralDecoderTimeoutException");
+        } catch (NeuralDecoderTimeoutException e) {
+            // expected
+        }
+        assertTrue(System.currentTimeMillis() - begin < 1000L + 2 * ParallelExecutionQueue.SUPERVISOR_INTERVAL);
+
+        waitFor(() -> queue.getSize() == 1);
+        assertEquals("hello", translate("hello"));
+    }
+
+    @Test
+    public void testIdleProcessesArePinged() throws Throwable {
+        setup(1, 1, 0, 5000L);
+        assertEquals(0L, queue.getPingCount());
+
+        queue.pingInterval = 100L;
+        waitFor(() -> queue.getPingCount() >= 2);
+
+        // the pinged process is back in the pool
+        assertEquals(1, queue.getSize());
+        assertEquals("hello", translate("hello"));
+    }
+
+    @Test
+    public void testStandbyReplacesFailedProcess() throws Throwable {
+        setup(1, 1, 1, 5000L);
+        waitFor(() -> queue.getStandbySize() == 1);
+
+        try {
+            translate("crash");
+            fail("Expected NeuralDecoderException");
+        } catch (NeuralDecoderException e) {
+            // expected
+        }
+
+        // the standby process is promoted without waiting for a new process to start
+        assertEquals(1, queue.getSize());
+        assertEquals("hello", translate("hello"));
+
+        waitFor(() -> queue.getStandbySize() == 1);
+    }
+
+    @Test
+    public void testGrowAndShrink() throws Throwable {
+        setup(1, 3, 0, 5000L);
+        queue.shrinkIdleTime = 500L;
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            long end = System.currentTimeMillis() + 20000L;
+            while (queue.getSize() < 3 && System.currentTimeMillis() < end) {
+                ArrayList<Future<String>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++)
+                    futures.add(executor.submit(() -> translate("slow")));
+                for (Future<String> future : futures)
+                    assertEquals("slow", future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(3, queue.getSize());
+
+        waitFor(() -> queue.getSize() == 1);
+        assertEquals("hello", translate("hello"));
+    }
+
+}
@@ -0,0 +1,53 @@
+package eu.modernmt.decoder.neural.execution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * A CPU-only replacement of main_loop.py that speaks the same JSON line protocol:
+ * it translates a sentence into itself and changes its behaviour based on the source text
+ * ("crash" terminates the process, "hang" never responds, "slow" takes 300ms, "error" returns an error).
+ * It runs in a separate JVM with only the test classes in classpath.
+ */
+public class StubDecoderProcess {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+
+        System.out.println("ok");
+        System.out.flush();
+
+        String line;
+        while ((line = stdin.readLine()) != null) {
+            if (line.equals("{\"ping\":true}")) {
+                System.out.println("{\"pong\":true}");
+                System.out.flush();
+                continue;
+            }
+
+            int begin = line.indexOf("\"source\":\"") + 10;
+            String source = line.substring(begin, line.indexOf('"', begin));
+
+            switch (source) {
+                case "crash":
+                    System.exit(1);
+                    return;
+                case "hang":
+                    Thread.sleep(Long.MAX_VALUE);
+                    return;
+                case "slow":
+                    Thread.sleep(300);
+                    break;
+                case "error":
+                    System.out.println("{\"error\":{\"type\":\"ValueError\",\"message\":\"invalid source\"}}");
+                    System.out.flush();
+                    continue;
+            }
+
+            System.out.println("{\"result\":[{\"text\":\"" + source + "\",\"alignment\":[]}]}");
+            System.out.flush();
+        }
+    }
+
+}
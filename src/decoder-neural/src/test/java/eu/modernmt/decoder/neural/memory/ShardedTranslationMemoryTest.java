@@ -0,0 +1,163 @@
+package eu.modernmt.decoder.neural.memory;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.Deletion;
+import eu.modernmt.data.TranslationUnit;
+import eu.modernmt.decoder.neural.memory.lucene.LuceneTranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.ShardedTranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.rescoring.F1BleuRescorer;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.model.Memory;
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static eu.modernmt.decoder.neural.memory.TestData.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ShardedTranslationMemoryTest {
+
+    private HashMap<String, Directory> directories;
+    private ShardedTranslationMemory memory;
+
+    @Before
+    public void setup() throws Throwable {
+        this.directories = new HashMap<>();
+        this.memory = new ShardedTranslationMemory(new LanguageIndex(EN__IT, EN__FR),
+                name -> directories.computeIfAbsent(name, key -> new RAMDirectory()), new F1BleuRescorer(), 10, 2);
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        this.memory.close();
+        this.memory = null;
+        this.directories = null;
+    }
+
+    private int size(String shard) throws IOException {
+        try (DirectoryReader reader = DirectoryReader.open(directories.get(shard))) {
+            return reader.numDocs();
+        }
+    }
+
+    private static DataBatch batch(List<TranslationUnit> units, List<Deletion> deletions, Map<Short, Long> positions) {
+        return new DataBatch() {
+            @Override
+            public Collection<TranslationUnit> getTranslationUnits() {
+                return units;
+            }
+
+            @Override
+            public Collection<Deletion> getDeletions() {
+                return deletions;
+            }
+
+            @Override
+            public Map<Short, Long> getChannelPositions() {
+                return positions;
+            }
+        };
+    }
+
+    @Test
+    public void searchMergesResultsFromAllShards() throws Throwable {
+        memory.bulkInsert(new Memory(1), TestData.corpus("memory-1", Collections.singletonList(
+                TestData.tu(1L, EN__IT, "Hello world 1", "Ciao mondo 1", null))));
+        memory.bulkInsert(new Memory(2), TestData.corpus("memory-2", Collections.singletonList(
+                TestData.tu(2L, EN__IT, "Hello world", "Ciao mondo", null))));
+        memory.bulkInsert(new Memory(3), TestData.corpus("memory-3", Collections.singletonList(
+                TestData.tu(3L, EN__FR, "Hello world 3", "Bonjour monde 3", null))));
+
+        ScoreEntry[] result = memory.search(EN__IT, TestData.sentence("Hello world"), 100);
+
+        assertEquals(2, result.length);
+        assertEquals(2L, result[0].memory);
+        assertEquals(1L, result[1].memory);
+
+        result = memory.search(EN__IT, TestData.sentence("Hello world"), 1);
+        assertEquals(1, result.length);
+
+        result = memory.search(IT__EN, TestData.sentence("Ciao mondo"), 100);
+        assertEquals(2, result.length);
+
+        result = memory.search(EN__FR, TestData.sentence("Hello world"), 100);
+        assertEquals(1, result.length);
+        assertEquals(3L, result[0].memory);
+    }
+
+    @Test
+    public void searchMapsLanguageVariants() throws Throwable {
+        memory.bulkInsert(new Memory(1), TestData.corpus("memory-1", Collections.singletonList(
+                TestData.tu(1L, EN_US__IT, "Hello world 1", "Ciao mondo 1", null))));
+        memory.bulkInsert(new Memory(2), TestData.corpus("memory-2", Collections.singletonList(
+                TestData.tu(2L, EN__IT, "Hello world", "Ciao mondo", null))));
+
+        assertEquals(2, memory.search(EN_US__IT, TestData.sentence("Hello world"), 100).length);
+        assertEquals(2, memory.search(IT__EN_US, TestData.sentence("Ciao mondo"), 100).length);
+    }
+
+    @Test
+    public void existingNonShardedIndex() throws Throwable {
+        File path = Files.createTempDirectory("ShardedTranslationMemoryTest").toFile();
+
+        try {
+            new LuceneTranslationMemory(new LanguageIndex(EN__IT), path, 10).close();
+
+            try {
+                new ShardedTranslationMemory(new LanguageIndex(EN__IT), path, 10, 2).close();
+                fail("Expected IOException");
+            } catch (IOException e) {
+                // Expected
+            }
+        } finally {
+            FileUtils.deleteDirectory(path);
+        }
+    }
+
+    @Test
+    public void bulkInsertTouchesOnlyTargetShards() throws Throwable {
+        memory.bulkInsert(new Memory(1), TestData.corpus("memory-1", TestData.tuList(1L, EN__IT, 10)));
+        memory.bulkInsert(new Memory(2), TestData.corpus("memory-2", TestData.tuList(2L, EN__IT, 5)));
+
+        assertEquals(5, size("en__it.0"));
+        assertEquals(10, size("en__it.1"));
+        assertEquals(0, size("en__fr.0"));
+        assertEquals(0, size("en__fr.1"));
+    }
+
+    @Test
+    public void contributionsAndDeletions() throws Throwable {
+        List<TranslationUnit> units = Arrays.asList(
+                TestData.tu(0, 0L, 1L, EN__IT, null),
+                TestData.tu(0, 1L, 1L, EN__FR, null),
+                TestData.tu(0, 2L, 2L, IT__EN, null)
+        );
+
+        memory.onDataReceived(batch(units, Collections.emptyList(), TestData.channels(0, 2)));
+
+        assertEquals(TestData.channels(0, 2), memory.getLatestChannelPositions());
+        assertEquals(1 + 1, size("en__it.0"));
+        assertEquals(1 + 1, size("en__it.1"));
+        assertEquals(1 + 1, size("en__fr.1"));
+
+        memory.onDataReceived(batch(Collections.emptyList(), Collections.singletonList(
+                new Deletion((short) 0, 3L, 1L)), TestData.channels(0, 3)));
+
+        assertEquals(TestData.channels(0, 3), memory.getLatestChannelPositions());
+        assertEquals(1 + 1, size("en__it.0"));
+        assertEquals(1, size("en__it.1"));
+        assertEquals(1, size("en__fr.1"));
+        assertEquals(0, memory.search(EN__FR, TestData.sentence("Hello world"), 100).length);
+    }
+
+}
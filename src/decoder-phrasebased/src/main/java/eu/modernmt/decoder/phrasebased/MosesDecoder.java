@@ -18,6 +18,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -154,48 +155,49 @@ public class MosesDecoder implements Decoder, DecoderWithFeatures, DecoderWithNB
 
         String text = XUtils.encodeSentence(sentence);
 
-        ContextXObject context = ContextXObject.build(contextVector);
-
         if (logger.isDebugEnabled())
             logger.debug("Translating: \"" + text + "\"");
 
-        TranslationXObject xtranslation = this.xtranslate(text,
-                context == null ? null : context.keys,
-                context == null ? null : context.values,
-                nbestListSize);
+        XCodec codec = XCodec.get();
+        ByteBuffer request = codec.encodeTranslationRequest(text, contextVector, nbestListSize);
+        ByteBuffer response = codec.getResponseBuffer();
+
+        int size = this.xtranslate(request, request.limit(), response);
+        if (size < 0) {
+            // the translation did not fit in the buffer: it is kept by the native code until it is copied
+            size = -size;
+            response = codec.getResponseBuffer(size);
+            this.copyTranslation(response);
+        }
+
+        response.limit(size);
+        TranslationXObject xtranslation = codec.decodeTranslation(response);
 
         return xtranslation.getTranslation(sentence, this.featuresMap);
     }
 
-    private native TranslationXObject xtranslate(String text, long[] contextKeys, float[] contextValues, int nbest);
+    /**
+     * Translates the request encoded in the given direct buffer and writes the result in the response buffer.
+     *
+     * @return the size of the result in bytes, or its size with negative sign if the result
+     * exceeds the capacity of the response buffer; in that case the result must be read with copyTranslation()
+     */
+    private native int xtranslate(ByteBuffer request, int length, ByteBuffer response);
+
+    /**
+     * Copies the last translation that exceeded the capacity of the response buffer in the given buffer.
+     */
+    private native void copyTranslation(ByteBuffer response);
 
     // DataListener
 
     @Override
     public void onDataReceived(DataBatch batch) {
-        DataBatchXObject xbatch = new DataBatchXObject(batch, this.direction);
-
-        this.dataReceived(
-                xbatch.tuChannels, xbatch.tuChannelPositions, xbatch.tuMemories,
-                xbatch.tuSources, xbatch.tuTargets, xbatch.tuAlignments,
-
-                xbatch.delChannels, xbatch.delChannelPositions, xbatch.delMemories,
-
-                xbatch.channels, xbatch.channelPositions
-        );
+        ByteBuffer buffer = XCodec.get().encodeDataBatch(batch, this.direction);
+        this.dataReceived(buffer, buffer.limit());
     }
 
-    private native void dataReceived(
-            // Translation units
-            short[] tuChannels, long[] tuChannelPositions, long[] tuMemories,
-            String[] tuSources, String[] tuTargets, int[][] tuAlignments,
-
-            // Deletions
-            short[] delChannels, long[] delChannelPositions, long[] delMemories,
-
-            // Channel positions
-            short[] channels, long[] channelPositions
-    );
+    private native void dataReceived(ByteBuffer batch, int length);
 
     @Override
     public Map<Short, Long> getLatestChannelPositions() {
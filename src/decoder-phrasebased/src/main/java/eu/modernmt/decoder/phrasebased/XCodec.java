@@ -0,0 +1,253 @@
+package eu.modernmt.decoder.phrasebased;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.Deletion;
+import eu.modernmt.data.TranslationUnit;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.Alignment;
+import eu.modernmt.model.ContextVector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Packs the data exchanged with the native decoder in direct buffers, that the native code reads and writes
+ * in place without any JNI call. Buffers are owned by the calling thread and reused by the following calls:
+ * a buffer returned by this class is valid until the next call from the same thread.
+ * <p>
+ * All values are in native byte order and are not aligned. A string is encoded as an int32 length
+ * followed by its UTF-8 bytes; an alignment is encoded as an int32 size followed by the source indexes
+ * and then the target indexes (int32). The layouts are:
+ * <pre>
+ * translation request:  string text, int32 nbest, int32 size (-1 if there is no context),
+ *                       size x (int64 memory, float32 score)
+ * translation response: string text, alignment, int32 size, size x (string text, float32 score, string fvals)
+ * data batch:           int32 size, size x (int16 channel, int64 position, int64 memory,
+ *                                           string source, string target, alignment),
+ *                       int32 size, size x (int16 channel, int64 position, int64 memory),
+ *                       int32 size, size x (int16 channel, int64 position)
+ * </pre>
+ */
+class XCodec {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<XCodec> instances = ThreadLocal.withInitial(XCodec::new);
+
+    public static XCodec get() {
+        return instances.get();
+    }
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private ByteBuffer request = allocate(INITIAL_CAPACITY);
+    private ByteBuffer response = allocate(INITIAL_CAPACITY);
+    private byte[] bytes = new byte[1024];
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    // Requests --------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the request buffer, from position 0 to the end of the encoded request
+     */
+    public ByteBuffer encodeTranslationRequest(String text, ContextVector context, int nbest) {
+        request.clear();
+
+        putString(text);
+        putInt(nbest);
+
+        if (context == null) {
+            putInt(-1);
+        } else {
+            putInt(context.size());
+            ensure(context.size() * 12);
+
+            for (ContextVector.Entry entry : context) {
+                request.putLong(entry.memory.getId());
+                request.putFloat(entry.score);
+            }
+        }
+
+        request.flip();
+        return request;
+    }
+
+    /**
+     * Encodes the translation units of the given direction, the deletions and the channel positions of a batch.
+     *
+     * @return the request buffer, from position 0 to the end of the encoded batch
+     */
+    public ByteBuffer encodeDataBatch(DataBatch batch, LanguagePair direction) {
+        request.clear();
+
+        Collection<TranslationUnit> units = batch.getTranslationUnits();
+        int sizePosition = request.position();
+        int size = 0;
+        putInt(0);
+
+        for (TranslationUnit unit : units) {
+            if (!direction.equals(unit.direction))
+                continue;
+
+            ensure(18);
+            request.putShort(unit.channel);
+            request.putLong(unit.channelPosition);
+            request.putLong(unit.memory);
+            putString(XUtils.encodeSentence(unit.sentence));
+            putString(XUtils.encodeSentence(unit.translation));
+            putAlignment(unit.alignment);
+
+            size++;
+        }
+
+        request.putInt(sizePosition, size);
+
+        Collection<Deletion> deletions = batch.getDeletions();
+        putInt(deletions.size());
+        ensure(deletions.size() * 18);
+
+        for (Deletion deletion : deletions) {
+            request.putShort(deletion.channel);
+            request.putLong(deletion.channelPosition);
+            request.putLong(deletion.memory);
+        }
+
+        Map<Short, Long> positions = batch.getChannelPositions();
+        putInt(positions.size());
+        ensure(positions.size() * 10);
+
+        for (Map.Entry<Short, Long> entry : positions.entrySet()) {
+            request.putShort(entry.getKey());
+            request.putLong(entry.getValue());
+        }
+
+        request.flip();
+        return request;
+    }
+
+    private void ensure(int length) {
+        if (request.remaining() >= length)
+            return;
+
+        int capacity = request.capacity() * 2;
+        while (capacity - request.position() < length)
+            capacity *= 2;
+
+        ByteBuffer buffer = allocate(capacity);
+        request.flip();
+        buffer.put(request);
+        request = buffer;
+    }
+
+    private void putInt(int value) {
+        ensure(4);
+        request.putInt(value);
+    }
+
+    private void putString(String string) {
+        int lengthPosition = request.position();
+        putInt(0);
+
+        CharBuffer chars = CharBuffer.wrap(string);
+        encoder.reset();
+
+        while (encoder.encode(chars, request, true).isOverflow())
+            ensure(Math.max(chars.remaining(), 16) * 3);
+        while (encoder.flush(request).isOverflow())
+            ensure(16);
+
+        request.putInt(lengthPosition, request.position() - lengthPosition - 4);
+    }
+
+    private void putAlignment(Alignment alignment) {
+        int size = alignment == null ? 0 : alignment.size();
+        ensure(4 + size * 8);
+
+        request.putInt(size);
+        if (size > 0) {
+            int[] source = alignment.getSourceIndexes();
+            int[] target = alignment.getTargetIndexes();
+
+            for (int i = 0; i < size; i++)
+                request.putInt(source[i]);
+            for (int i = 0; i < size; i++)
+                request.putInt(target[i]);
+        }
+    }
+
+    // Responses -------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the response buffer, cleared
+     */
+    public ByteBuffer getResponseBuffer() {
+        response.clear();
+        return response;
+    }
+
+    /**
+     * @param capacity the min capacity of the buffer
+     * @return the response buffer, cleared and with at least the given capacity
+     */
+    public ByteBuffer getResponseBuffer(int capacity) {
+        if (response.capacity() < capacity)
+            response = allocate(Math.max(capacity, response.capacity() * 2));
+
+        return getResponseBuffer();
+    }
+
+    /**
+     * Decodes a translation response, from the position to the limit of the buffer.
+     */
+    public TranslationXObject decodeTranslation(ByteBuffer buffer) {
+        String text = getString(buffer);
+        int[] alignment = getAlignment(buffer);
+
+        int size = buffer.getInt();
+        TranslationXObject.Hypothesis[] nbest = null;
+
+        if (size > 0) {
+            nbest = new TranslationXObject.Hypothesis[size];
+
+            for (int i = 0; i < size; i++) {
+                String hypothesis = getString(buffer);
+                float score = buffer.getFloat();
+                String fvals = getString(buffer);
+
+                nbest[i] = new TranslationXObject.Hypothesis(hypothesis, score, fvals);
+            }
+        }
+
+        return new TranslationXObject(text, nbest, alignment);
+    }
+
+    private String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (bytes.length < length)
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int[] getAlignment(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        int[] alignment = new int[size * 2];
+        buffer.asIntBuffer().get(alignment);
+        buffer.position(buffer.position() + size * 8);
+
+        return alignment;
+    }
+
+}
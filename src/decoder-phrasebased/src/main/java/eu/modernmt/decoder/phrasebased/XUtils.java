@@ -10,16 +10,6 @@ import eu.modernmt.model.Word;
  */
 class XUtils {
 
-    public static int[] encodeAlignment(Alignment alignment) {
-        int size = alignment.size();
-
-        int[] encoded = new int[size * 2];
-        System.arraycopy(alignment.getSourceIndexes(), 0, encoded, 0, size);
-        System.arraycopy(alignment.getTargetIndexes(), 0, encoded, size, size);
-
-        return encoded;
-    }
-
     public static Alignment decodeAlignment(int[] encoded) {
         if (encoded == null || encoded.length == 0)
             return null;
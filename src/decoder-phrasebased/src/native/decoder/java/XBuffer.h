@@ -0,0 +1,109 @@
+//
+// Packed buffers exchanged with eu.modernmt.decoder.phrasebased.XCodec:
+// values are in native byte order and not aligned, strings are an int32 length followed by UTF-8 bytes.
+//
+
+#ifndef JNIMOSES_XBUFFER_H
+#define JNIMOSES_XBUFFER_H
+
+#include <cstdint>
+#include <cstring>
+#include <stdexcept>
+#include <string>
+#include <vector>
+
+class XBufferReader {
+    const char *data;
+    size_t length;
+    size_t position;
+
+    void check(size_t size) {
+        if (position + size > length)
+            throw std::out_of_range("XBufferReader: read past the end of the buffer");
+    }
+
+public:
+    XBufferReader(const void *data, size_t length) : data((const char *) data), length(length), position(0) {}
+
+    template<typename T>
+    T read() {
+        check(sizeof(T));
+
+        T value;
+        memcpy(&value, data + position, sizeof(T));
+        position += sizeof(T);
+
+        return value;
+    }
+
+    std::string readString() {
+        size_t size = (size_t) read<int32_t>();
+        check(size);
+
+        std::string value(data + position, size);
+        position += size;
+
+        return value;
+    }
+
+    template<typename T>
+    void readAlignment(std::vector<std::pair<T, T>> &alignment) {
+        size_t size = (size_t) read<int32_t>();
+        check(size * 8);
+        alignment.resize(size);
+
+        const char *source = data + position;
+        const char *target = source + size * 4;
+
+        for (size_t i = 0; i < size; ++i) {
+            int32_t s, t;
+            memcpy(&s, source + i * 4, 4);
+            memcpy(&t, target + i * 4, 4);
+
+            alignment[i].first = (T) s;
+            alignment[i].second = (T) t;
+        }
+
+        position += size * 8;
+    }
+};
+
+class XBufferWriter {
+    std::vector<char> data;
+
+public:
+    template<typename T>
+    void write(T value) {
+        size_t position = data.size();
+        data.resize(position + sizeof(T));
+        memcpy(data.data() + position, &value, sizeof(T));
+    }
+
+    void writeString(const std::string &value) {
+        write<int32_t>((int32_t) value.size());
+        data.insert(data.end(), value.begin(), value.end());
+    }
+
+    template<typename T>
+    void writeAlignment(const std::vector<std::pair<T, T>> &alignment) {
+        write<int32_t>((int32_t) alignment.size());
+        for (auto it = alignment.begin(); it != alignment.end(); ++it)
+            write<int32_t>((int32_t) it->first);
+        for (auto it = alignment.begin(); it != alignment.end(); ++it)
+            write<int32_t>((int32_t) it->second);
+    }
+
+    const char *bytes() const {
+        return data.data();
+    }
+
+    size_t size() const {
+        return data.size();
+    }
+
+    void clear() {
+        data.clear();
+    }
+};
+
+#endif //JNIMOSES_XBUFFER_H
@@ -6,7 +6,7 @@
 #include "../moses/MosesDecoder.h"
 #include <stdlib.h>
 #include "JMosesFeature.h"
-#include "JTranslation.h"
+#include "XBuffer.h"
 #include <mmt/jniutil.h>
 #include <moses/MosesDecoder.h>
 
@@ -14,103 +14,70 @@ using namespace std;
 using namespace mmt;
 using namespace mmt::decoder;
 
-void ParseContext(JNIEnv *jvm, jlongArray keys, jfloatArray values, map<string, float> &outContext) {
-    int size = jvm->GetArrayLength(values);
+/*
+ * The last translation of the current thread; it is kept when it exceeds the response buffer,
+ * until it is copied with copyTranslation()
+ */
+static thread_local XBufferWriter translationWriter;
 
-    jlong *keysArray = jvm->GetLongArrayElements(keys, 0);
-    jfloat *valuesArray = jvm->GetFloatArrayElements(values, 0);
+bool ParseTranslationRequest(XBufferReader &reader, string &outText, map<string, float> &outContext,
+                             size_t &outNbest) {
+    outText = reader.readString();
+    outNbest = (size_t) reader.read<int32_t>();
 
-    for (int i = 0; i < size; i++) {
-        string key = std::to_string((memory_t) keysArray[i]);
-        float value = valuesArray[i];
+    int32_t size = reader.read<int32_t>();
+    for (int32_t i = 0; i < size; i++) {
+        memory_t key = (memory_t) reader.read<int64_t>();
+        float value = reader.read<float>();
 
-        outContext[key] = value;
+        outContext[std::to_string(key)] = value;
     }
 
-    jvm->ReleaseLongArrayElements(keys, keysArray, 0);
-    jvm->ReleaseFloatArrayElements(values, valuesArray, 0);
+    return size >= 0;
 }
 
-alignment_t ParseAlignment(JNIEnv *jvm, jintArray jalignment) {
-    size_t fullsize = (size_t) jvm->GetArrayLength(jalignment);
-    size_t size = fullsize / 2;
-
-    jint *jalignmentArray = jvm->GetIntArrayElements(jalignment, 0);
+void WriteTranslation(translation_t &translation, XBufferWriter &writer) {
+    writer.clear();
+    writer.writeString(translation.text);
+    writer.writeAlignment(translation.alignment);
 
-    alignment_t result(size);
-
-    for (size_t i = 0; i < size; ++i) {
-        result[i].first = (length_t) jalignmentArray[i];
-        result[i].second = (length_t) jalignmentArray[i + size];
+    writer.write<int32_t>((int32_t) translation.hypotheses.size());
+    for (auto it = translation.hypotheses.begin(); it != translation.hypotheses.end(); ++it) {
+        writer.writeString(it->text);
+        writer.write<float>(it->score);
+        writer.writeString(it->fvals);
     }
-
-    jvm->ReleaseIntArrayElements(jalignment, jalignmentArray, 0);
-
-    return result;
 }
 
-void ParseTranslationUnits(JNIEnv *jvm, jshortArray jchannels, jlongArray jpositions, jlongArray jmemories,
-                           jobjectArray jsources, jobjectArray jtargets, jobjectArray jalignments,
-                           vector<raw_translation_unit> &output) {
-    size_t size = (size_t) jvm->GetArrayLength(jchannels);
-    output.resize(size);
-
-    jshort *jchannelsArray = jvm->GetShortArrayElements(jchannels, 0);
-    jlong *jpositionsArray = jvm->GetLongArrayElements(jpositions, 0);
-    jlong *jmemoriesArray = jvm->GetLongArrayElements(jmemories, 0);
-
-    for (size_t i = 0; i < size; ++i) {
-        raw_translation_unit &unit = output[i];
-        unit.channel = (channel_t) jchannelsArray[i];
-        unit.position = (seqid_t) jpositionsArray[i];
-        unit.memory = (memory_t) jmemoriesArray[i];
-        unit.source = jni_jstrtostr(jvm, (jstring) jvm->GetObjectArrayElement(jsources, (jsize) i));
-        unit.target = jni_jstrtostr(jvm, (jstring) jvm->GetObjectArrayElement(jtargets, (jsize) i));
-        unit.alignment = ParseAlignment(jvm, (jintArray) jvm->GetObjectArrayElement(jalignments, (jsize) i));
+void ParseDataBatch(XBufferReader &reader, vector<raw_translation_unit> &outUnits, vector<deletion> &outDeletions,
+                    unordered_map<channel_t, seqid_t> &outPositions) {
+    // Translation units
+    outUnits.resize((size_t) reader.read<int32_t>());
+    for (auto unit = outUnits.begin(); unit != outUnits.end(); ++unit) {
+        unit->channel = (channel_t) reader.read<int16_t>();
+        unit->position = (seqid_t) reader.read<int64_t>();
+        unit->memory = (memory_t) reader.read<int64_t>();
+        unit->source = reader.readString();
+        unit->target = reader.readString();
+        reader.readAlignment(unit->alignment);
     }
 
-    jvm->ReleaseShortArrayElements(jchannels, jchannelsArray, 0);
-    jvm->ReleaseLongArrayElements(jpositions, jpositionsArray, 0);
-    jvm->ReleaseLongArrayElements(jmemories, jmemoriesArray, 0);
-}
-
-void ParseDeletions(JNIEnv *jvm, jshortArray jchannels, jlongArray jchannelPositions, jlongArray jmemories,
-                    vector<deletion> &output) {
-    size_t size = (size_t) jvm->GetArrayLength(jchannels);
-    output.resize(size);
-
-    jshort *jchannelsArray = jvm->GetShortArrayElements(jchannels, 0);
-    jlong *jpositionsArray = jvm->GetLongArrayElements(jchannelPositions, 0);
-    jlong *jmemoriesArray = jvm->GetLongArrayElements(jmemories, 0);
-
-    for (size_t i = 0; i < size; ++i) {
-        deletion &deletion = output[i];
-        deletion.channel = (channel_t) jchannelsArray[i];
-        deletion.position = (seqid_t) jpositionsArray[i];
-        deletion.memory = (memory_t) jmemoriesArray[i];
+    // Deletions
+    outDeletions.resize((size_t) reader.read<int32_t>());
+    for (auto deletion = outDeletions.begin(); deletion != outDeletions.end(); ++deletion) {
+        deletion->channel = (channel_t) reader.read<int16_t>();
+        deletion->position = (seqid_t) reader.read<int64_t>();
+        deletion->memory = (memory_t) reader.read<int64_t>();
     }
 
-    jvm->ReleaseShortArrayElements(jchannels, jchannelsArray, 0);
-    jvm->ReleaseLongArrayElements(jchannelPositions, jpositionsArray, 0);
-    jvm->ReleaseLongArrayElements(jmemories, jmemoriesArray, 0);
-}
-
-void ParseChannelPositions(JNIEnv *jvm, jshortArray jchannels, jlongArray jchannelPositions,
-                           unordered_map<channel_t, seqid_t> &output) {
-    size_t size = (size_t) jvm->GetArrayLength(jchannels);
-
-    jshort *jchannelsArray = jvm->GetShortArrayElements(jchannels, 0);
-    jlong *jpositionsArray = jvm->GetLongArrayElements(jchannelPositions, 0);
+    // Channel positions
+    int32_t size = reader.read<int32_t>();
+    for (int32_t i = 0; i < size; i++) {
+        channel_t channel = (channel_t) reader.read<int16_t>();
+        seqid_t position = (seqid_t) reader.read<int64_t>();
 
-    for (size_t i = 0; i < size; ++i) {
-        channel_t channel = (channel_t) jchannelsArray[i];
-        seqid_t position = (seqid_t) jpositionsArray[i];
-
-        output[channel] = position;
+        outPositions[channel] = position;
     }
-
-    jvm->ReleaseShortArrayElements(jchannels, jchannelsArray, 0);
-    jvm->ReleaseLongArrayElements(jchannelPositions, jpositionsArray, 0);
 }
 
 /*
@@ -210,75 +177,71 @@ Java_eu_modernmt_decoder_phrasebased_MosesDecoder_setFeatureWeights(JNIEnv *jvm,
 /*
  * Class:     eu_modernmt_decoder_phrasebased_MosesDecoder
  * Method:    xtranslate
- * Signature: (Ljava/lang/String;[J[FI)Leu/modernmt/decoder/phrasebased/TranslationXObject;
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/nio/ByteBuffer;)I
  */
-JNIEXPORT jobject JNICALL Java_eu_modernmt_decoder_phrasebased_MosesDecoder_xtranslate
-        (JNIEnv *jvm, jobject jself, jstring text, jlongArray contextKeys, jfloatArray contextValues, jint nbest) {
+JNIEXPORT jint JNICALL Java_eu_modernmt_decoder_phrasebased_MosesDecoder_xtranslate
+        (JNIEnv *jvm, jobject jself, jobject jrequest, jint jlength, jobject jresponse) {
     MosesDecoder *instance = jni_gethandle<MosesDecoder>(jvm, jself);
-    string sentence = jni_jstrtostr(jvm, text);
 
-    translation_t translation;
-    if (contextKeys != NULL) {
-        map<string, float> context;
-        ParseContext(jvm, contextKeys, contextValues, context);
-
-        translation = instance->translate(sentence, &context, (size_t) nbest);
-    } else {
-        translation = instance->translate(sentence, NULL, (size_t) nbest);
+    string sentence;
+    map<string, float> context;
+    size_t nbest;
+    bool hasContext;
+
+    try {
+        XBufferReader reader(jvm->GetDirectBufferAddress(jrequest), (size_t) jlength);
+        hasContext = ParseTranslationRequest(reader, sentence, context, nbest);
+    } catch (const std::out_of_range &e) {
+        jvm->ThrowNew(jvm->FindClass("java/lang/IllegalArgumentException"), e.what());
+        return 0;
     }
 
-    jobjectArray hypothesesArray = NULL;
-    vector<hypothesis_t> hypotheses = translation.hypotheses;
-
-    if (hypotheses.size() > 0) {
-        JHypothesis Hypothesis(jvm);
-        hypothesesArray = jvm->NewObjectArray((jsize) hypotheses.size(), Hypothesis._class, nullptr);
-
-        for (size_t i = 0; i < hypotheses.size(); ++i) {
-            hypothesis_t hypothesis = hypotheses[i];
-            jobject jhypothesis = Hypothesis.create(jvm, hypothesis.text, hypothesis.score, hypothesis.fvals);
-            jvm->SetObjectArrayElement(hypothesesArray, (jsize) i, jhypothesis);
-            jvm->DeleteLocalRef(jhypothesis);
-        }
-    }
+    translation_t translation = instance->translate(sentence, hasContext ? &context : NULL, nbest);
+    WriteTranslation(translation, translationWriter);
 
-    JTranslation Translation(jvm);
+    jint size = (jint) translationWriter.size();
+    if ((jlong) size > jvm->GetDirectBufferCapacity(jresponse))
+        return -size;
 
-    jintArray jAlignment = Translation.getAlignment(jvm, translation.alignment);
-    jobject jtranslation = Translation.create(jvm, translation.text, hypothesesArray, jAlignment);
+    memcpy(jvm->GetDirectBufferAddress(jresponse), translationWriter.bytes(), (size_t) size);
+    return size;
+}
 
-    jvm->DeleteLocalRef(jAlignment);
-    if (hypothesesArray)
-        jvm->DeleteLocalRef(hypothesesArray);
+/*
+ * Class:     eu_modernmt_decoder_phrasebased_MosesDecoder
+ * Method:    copyTranslation
+ * Signature: (Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_eu_modernmt_decoder_phrasebased_MosesDecoder_copyTranslation
+        (JNIEnv *jvm, jobject jself, jobject jresponse) {
+    if ((jlong) translationWriter.size() > jvm->GetDirectBufferCapacity(jresponse)) {
+        jvm->ThrowNew(jvm->FindClass("java/lang/IllegalArgumentException"), "Response buffer too small");
+        return;
+    }
 
-    return jtranslation;
+    memcpy(jvm->GetDirectBufferAddress(jresponse), translationWriter.bytes(), translationWriter.size());
 }
 
 /*
  * Class:     eu_modernmt_decoder_phrasebased_MosesDecoder
  * Method:    dataReceived
- * Signature: ([S[J[J[Ljava/lang/String;[Ljava/lang/String;[[I[S[J[J[S[J)V
+ * Signature: (Ljava/nio/ByteBuffer;I)V
  */
 JNIEXPORT void JNICALL Java_eu_modernmt_decoder_phrasebased_MosesDecoder_dataReceived
-        (JNIEnv *jvm, jobject jself,
-
-         jshortArray jtuChannels, jlongArray jtuChannelPositions, jlongArray jtuMemories,
-         jobjectArray jtuSources, jobjectArray jtuTargets, jobjectArray jtuAlignments,
-
-         jshortArray jdelChannels, jlongArray jdelChannelPositions, jlongArray jdelMemories,
-
-         jshortArray jchannels, jlongArray jchannelPositions) {
+        (JNIEnv *jvm, jobject jself, jobject jbatch, jint jlength) {
     MosesDecoder *instance = jni_gethandle<MosesDecoder>(jvm, jself);
 
     vector<raw_translation_unit> units;
-    ParseTranslationUnits(jvm, jtuChannels, jtuChannelPositions,
-                          jtuMemories, jtuSources, jtuTargets, jtuAlignments, units);
-
     vector<deletion> deletions;
-    ParseDeletions(jvm, jdelChannels, jdelChannelPositions, jdelMemories, deletions);
-
     unordered_map<channel_t, seqid_t> positions;
-    ParseChannelPositions(jvm, jchannels, jchannelPositions, positions);
+
+    try {
+        XBufferReader reader(jvm->GetDirectBufferAddress(jbatch), (size_t) jlength);
+        ParseDataBatch(reader, units, deletions, positions);
+    } catch (const std::out_of_range &e) {
+        jvm->ThrowNew(jvm->FindClass("java/lang/IllegalArgumentException"), e.what());
+        return;
+    }
 
     instance->DeliverUpdates(units, deletions, positions);
 }
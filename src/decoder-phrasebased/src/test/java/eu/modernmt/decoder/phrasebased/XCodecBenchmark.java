@@ -0,0 +1,149 @@
+package eu.modernmt.decoder.phrasebased;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.Deletion;
+import eu.modernmt.data.TranslationUnit;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.Alignment;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Word;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Measures the time spent marshalling the data exchanged with the native decoder:
+ * a translation request and its response (per sentence) and a contributions batch (per batch).
+ * It does not need the native library, the response is written in place of the decoder.
+ * <p>
+ * Usage: XCodecBenchmark [iterations] [batch size]
+ */
+public class XCodecBenchmark {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+
+    private static Sentence sentence(Random random, int length) {
+        Word[] words = new Word[length];
+        for (int i = 0; i < length; i++)
+            words[i] = new Word("word" + random.nextInt(50000), i < length - 1 ? " " : null);
+        return new Sentence(words);
+    }
+
+    private static Alignment alignment(int length) {
+        int[] source = new int[length];
+        int[] target = new int[length];
+        for (int i = 0; i < length; i++)
+            source[i] = target[i] = i;
+        return new Alignment(source, target);
+    }
+
+    private static DataBatch batch(Random random, int size) {
+        List<TranslationUnit> units = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int length = 5 + random.nextInt(40);
+            TranslationUnit unit = new TranslationUnit((short) 0, i, EN_IT, 1L, null, null, null, null, null);
+            unit.sentence = sentence(random, length);
+            unit.translation = sentence(random, length);
+            unit.alignment = alignment(length);
+            units.add(unit);
+        }
+
+        Map<Short, Long> positions = Collections.singletonMap((short) 0, (long) size);
+
+        return new DataBatch() {
+            @Override
+            public Collection<TranslationUnit> getTranslationUnits() {
+                return units;
+            }
+
+            @Override
+            public Collection<Deletion> getDeletions() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Map<Short, Long> getChannelPositions() {
+                return positions;
+            }
+        };
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static long translations(XCodec codec, Sentence[] sentences, ContextVector context) {
+        long checksum = 0;
+
+        for (Sentence sentence : sentences) {
+            String text = XUtils.encodeSentence(sentence);
+            ByteBuffer request = codec.encodeTranslationRequest(text, context, 0);
+
+            ByteBuffer response = codec.getResponseBuffer();
+            writeString(response, text.getBytes(StandardCharsets.UTF_8));
+            response.putInt(0);
+            response.putInt(0);
+            response.flip();
+
+            checksum += request.limit() + codec.decodeTranslation(response).text.length();
+        }
+
+        return checksum;
+    }
+
+    private static long batches(XCodec codec, DataBatch[] batches) {
+        long checksum = 0;
+        for (DataBatch batch : batches)
+            checksum += codec.encodeDataBatch(batch, EN_IT).limit();
+        return checksum;
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Random random = new Random(42);
+        XCodec codec = XCodec.get();
+
+        Sentence[] sentences = new Sentence[10000];
+        for (int i = 0; i < sentences.length; i++)
+            sentences[i] = sentence(random, 5 + random.nextInt(40));
+
+        ContextVector.Builder builder = new ContextVector.Builder();
+        for (int i = 0; i < 10; i++)
+            builder.add(i + 1, random.nextFloat());
+        ContextVector context = builder.build();
+
+        DataBatch[] batches = new DataBatch[100];
+        for (int i = 0; i < batches.length; i++)
+            batches[i] = batch(random, batchSize);
+
+        long checksum = 0;
+        long translationTime = 0;
+        long batchTime = 0;
+
+        for (int i = 0; i < iterations * 2; i++) {
+            boolean warmup = i < iterations;
+
+            long begin = System.nanoTime();
+            checksum += translations(codec, sentences, context);
+            long middle = System.nanoTime();
+            checksum += batches(codec, batches);
+            long end = System.nanoTime();
+
+            if (!warmup) {
+                translationTime += middle - begin;
+                batchTime += end - middle;
+            }
+        }
+
+        System.out.printf("Translation: %.3f us/sentence%n", translationTime / 1000. / (iterations * sentences.length));
+        System.out.printf("Batch:       %.3f us/batch (%d units)%n", batchTime / 1000. / (iterations * batches.length), batchSize);
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+}
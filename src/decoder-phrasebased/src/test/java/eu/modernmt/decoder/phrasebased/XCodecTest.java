@@ -0,0 +1,233 @@
+package eu.modernmt.decoder.phrasebased;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.Deletion;
+import eu.modernmt.data.TranslationUnit;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguagePair;
+import eu.modernmt.model.Alignment;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Word;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trip tests of the packed buffers: the buffers are read and written here
+ * as the native decoder does, so they run without the native library.
+ */
+public class XCodecTest {
+
+    private static final LanguagePair EN_IT = new LanguagePair(Language.ENGLISH, Language.ITALIAN);
+    private static final LanguagePair EN_FR = new LanguagePair(Language.ENGLISH, Language.FRENCH);
+
+    private static Sentence sentence(String text) {
+        String[] tokens = text.split(" ");
+        Word[] words = new Word[tokens.length];
+        for (int i = 0; i < tokens.length; i++)
+            words[i] = new Word(tokens[i], i < tokens.length - 1 ? " " : null);
+
+        return new Sentence(words);
+    }
+
+    private static String repeat(String token, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            if (i > 0)
+                builder.append(' ');
+            builder.append(token).append(i);
+        }
+
+        return builder.toString();
+    }
+
+    // Native side
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readAlignment(ByteBuffer buffer) {
+        int[] alignment = new int[buffer.getInt() * 2];
+        for (int i = 0; i < alignment.length; i++)
+            alignment[i] = buffer.getInt();
+        return alignment;
+    }
+
+    private static void writeString(ByteBuffer buffer, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static ByteBuffer writeTranslation(XCodec codec, TranslationXObject translation) {
+        ByteBuffer buffer = codec.getResponseBuffer();
+        writeString(buffer, translation.text);
+        buffer.putInt(translation.alignment.length / 2);
+        for (int i : translation.alignment)
+            buffer.putInt(i);
+
+        buffer.putInt(translation.nbestList == null ? 0 : translation.nbestList.length);
+        if (translation.nbestList != null) {
+            for (TranslationXObject.Hypothesis hypothesis : translation.nbestList) {
+                writeString(buffer, hypothesis.text);
+                buffer.putFloat(hypothesis.totalScore);
+                writeString(buffer, hypothesis.fvals);
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    // Tests
+
+    @Test
+    public void testTranslationRequest() {
+        ContextVector.Builder builder = new ContextVector.Builder();
+        builder.add(1L, 0.5f);
+        builder.add(Long.MAX_VALUE, 0.25f);
+        ContextVector context = builder.build();
+
+        ByteBuffer buffer = XCodec.get().encodeTranslationRequest("hello wörld 😀", context, 10);
+
+        assertEquals("hello wörld 😀", readString(buffer));
+        assertEquals(10, buffer.getInt());
+        assertEquals(2, buffer.getInt());
+
+        Map<Long, Float> entries = new HashMap<>();
+        for (int i = 0; i < 2; i++)
+            entries.put(buffer.getLong(), buffer.getFloat());
+
+        assertEquals(0.5f, entries.get(1L), 0.f);
+        assertEquals(0.25f, entries.get(Long.MAX_VALUE), 0.f);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testTranslationRequestWithoutContext() {
+        ByteBuffer buffer = XCodec.get().encodeTranslationRequest("", null, 0);
+
+        assertEquals("", readString(buffer));
+        assertEquals(0, buffer.getInt());
+        assertEquals(-1, buffer.getInt());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testDataBatch() {
+        List<TranslationUnit> units = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            LanguagePair direction = i % 3 == 2 ? EN_FR : EN_IT;
+            TranslationUnit unit = new TranslationUnit((short) (i % 2), i, direction, 1000L + i,
+                    null, null, null, null, null);
+            unit.sentence = sentence(repeat("söurce", 1 + i % 40));
+            unit.translation = sentence(repeat("target😀", 1 + i % 30));
+            unit.alignment = i % 5 == 0 ? null : new Alignment(new int[]{0, 1, i}, new int[]{2, 0, i});
+            units.add(unit);
+        }
+
+        List<Deletion> deletions = Arrays.asList(new Deletion((short) 0, 5L, 10L), new Deletion((short) 1, 6L, 11L));
+        Map<Short, Long> positions = new HashMap<>();
+        positions.put((short) 0, 2998L);
+        positions.put((short) 1, 2999L);
+
+        DataBatch batch = new DataBatch() {
+            @Override
+            public Collection<TranslationUnit> getTranslationUnits() {
+                return units;
+            }
+
+            @Override
+            public Collection<Deletion> getDeletions() {
+                return deletions;
+            }
+
+            @Override
+            public Map<Short, Long> getChannelPositions() {
+                return positions;
+            }
+        };
+
+        ByteBuffer buffer = XCodec.get().encodeDataBatch(batch, EN_IT);
+
+        assertEquals(2000, buffer.getInt());
+        for (TranslationUnit unit : units) {
+            if (!EN_IT.equals(unit.direction))
+                continue;
+
+            assertEquals(unit.channel, buffer.getShort());
+            assertEquals(unit.channelPosition, buffer.getLong());
+            assertEquals(unit.memory, buffer.getLong());
+            assertEquals(XUtils.encodeSentence(unit.sentence), readString(buffer));
+            assertEquals(XUtils.encodeSentence(unit.translation), readString(buffer));
+
+            int[] alignment = readAlignment(buffer);
+            if (unit.alignment == null) {
+                assertEquals(0, alignment.length);
+            } else {
+                int size = unit.alignment.size();
+                assertArrayEquals(unit.alignment.getSourceIndexes(), Arrays.copyOfRange(alignment, 0, size));
+                assertArrayEquals(unit.alignment.getTargetIndexes(), Arrays.copyOfRange(alignment, size, size * 2));
+            }
+        }
+
+        assertEquals(2, buffer.getInt());
+        for (Deletion deletion : deletions) {
+            assertEquals(deletion.channel, buffer.getShort());
+            assertEquals(deletion.channelPosition, buffer.getLong());
+            assertEquals(deletion.memory, buffer.getLong());
+        }
+
+        assertEquals(2, buffer.getInt());
+        Map<Short, Long> decoded = new HashMap<>();
+        for (int i = 0; i < 2; i++)
+            decoded.put(buffer.getShort(), buffer.getLong());
+        assertEquals(positions, decoded);
+
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testTranslation() {
+        XCodec codec = XCodec.get();
+        TranslationXObject.Hypothesis[] nbest = new TranslationXObject.Hypothesis[]{
+                new TranslationXObject.Hypothesis("ciao mondo", -1.5f, "LM0= -12.5 TM0= 0.1 0.2"),
+                new TranslationXObject.Hypothesis("salve 😀", -2.25f, "LM0= -14"),
+        };
+        TranslationXObject expected = new TranslationXObject("ciao mondo", nbest, new int[]{0, 1, 1, 0});
+
+        TranslationXObject translation = codec.decodeTranslation(writeTranslation(codec, expected));
+
+        assertEquals(expected.text, translation.text);
+        assertArrayEquals(expected.alignment, translation.alignment);
+        assertEquals(2, translation.nbestList.length);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(nbest[i].text, translation.nbestList[i].text);
+            assertEquals(nbest[i].totalScore, translation.nbestList[i].totalScore, 0.f);
+            assertEquals(nbest[i].fvals, translation.nbestList[i].fvals);
+        }
+    }
+
+    @Test
+    public void testLargeTranslation() {
+        XCodec codec = XCodec.get();
+        String text = repeat("parola", 20000);
+        TranslationXObject expected = new TranslationXObject(text, null, new int[0]);
+
+        codec.getResponseBuffer(text.length() * 2);
+        TranslationXObject translation = codec.decodeTranslation(writeTranslation(codec, expected));
+
+        assertEquals(text, translation.text);
+        assertEquals(0, translation.alignment.length);
+        assertNull(translation.nbestList);
+    }
+
+}
@@ -1,6 +1,8 @@
 package eu.modernmt.persistence.cassandra;
 
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.exceptions.AuthenticationException;
 import com.datastax.driver.core.exceptions.InvalidQueryException;
@@ -9,14 +11,20 @@ import eu.modernmt.persistence.Connection;
 import eu.modernmt.persistence.PersistenceException;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by andrea on 09/03/17.
  * A CassandraConnection object represents a connection
  * with a Cassandra DataBase.
+ * <p>
+ * A connection can own its session, that is closed together with the connection,
+ * or it can wrap a session shared by all the cached connections of a database.
  */
 public class CassandraConnection implements Connection {
     final Session session;
+    private final boolean owned;
+    final ConcurrentHashMap<String, PreparedStatement> statements;
 
     /**
      * This constructor builds a CassandraConnection object
@@ -30,6 +38,8 @@ public class CassandraConnection implements Connection {
      *                 If is allowed to be null too.
      */
     public CassandraConnection(Cluster cluster, String keyspace) throws PersistenceException {
+        this.owned = true;
+        this.statements = new ConcurrentHashMap<>();
 
         try {
             if (keyspace == null) {
@@ -55,11 +65,59 @@ public class CassandraConnection implements Connection {
     }
 
     /**
-     * This method closes the session with the current DB
+     * This constructor builds a CassandraConnection object
+     * that uses a shared session and the statements already prepared with it.
+     *
+     * @param session    the shared session, that is not closed by this connection
+     * @param statements the cache of the prepared statements, indexed by query string
+     */
+    CassandraConnection(Session session, ConcurrentHashMap<String, PreparedStatement> statements) {
+        this.session = session;
+        this.owned = false;
+        this.statements = statements;
+    }
+
+    /**
+     * This method creates a new connection that shares the session
+     * and the prepared statements of this one, without owning them.
+     *
+     * @return a connection that does not close the session when closed
+     */
+    CassandraConnection share() {
+        return new CassandraConnection(session, statements);
+    }
+
+    /**
+     * This method returns a prepared version of the given statement:
+     * every statement is prepared only once, then it can be bound
+     * to different values and executed many times.
+     *
+     * @param statement the statement to prepare, with bind markers in place of values
+     * @return the prepared statement
+     */
+    PreparedStatement prepare(RegularStatement statement) {
+        String query = statement.getQueryString();
+        PreparedStatement prepared = statements.get(query);
+
+        if (prepared == null) {
+            /*concurrent threads may prepare the same statement twice, that is harmless*/
+            prepared = session.prepare(statement);
+            PreparedStatement current = statements.putIfAbsent(query, prepared);
+            if (current != null)
+                prepared = current;
+        }
+
+        return prepared;
+    }
+
+    /**
+     * This method closes the session with the current DB,
+     * if it is not shared with other connections
      */
     @Override
     public void close() throws IOException {
-        this.session.close();
+        if (owned)
+            this.session.close();
     }
 
 }
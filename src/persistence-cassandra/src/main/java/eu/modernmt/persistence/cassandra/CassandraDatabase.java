@@ -35,7 +35,9 @@ public class CassandraDatabase extends Database {
     private final String host;
     private final int port;
 
+    private final CassandraIdGenerator idGenerator = new CassandraIdGenerator();
     private Cluster cluster;
+    private CassandraConnection sharedConnection = null;
 
     /**
      * This method returns the default keyspace name
@@ -70,6 +72,7 @@ public class CassandraDatabase extends Database {
      * the method closes it and rebuilds it from scratch.
      */
     private void initCluster() {
+        resetSharedConnection();
         if (this.cluster != null)
             this.cluster.close();
         this.cluster = Cluster.builder().withPort(port).addContactPoint(host).build();
@@ -78,14 +81,34 @@ public class CassandraDatabase extends Database {
     /**
      * This method provides a connection to a Cassandra DB
      *
-     * @param cached
+     * @param cached if true, the connection shares a single long-lived session
+     *               (and its prepared statements) with the other cached connections;
+     *               otherwise a new session is opened for the connection.
      * @return A CassandraConnection object, that
      * can be used to establish a communication Session with the DB
      * @throws PersistenceException
      */
     @Override
     public CassandraConnection getConnection(boolean cached) throws PersistenceException {
-        return new CassandraConnection(this.cluster, this.keyspace);
+        if (cached)
+            return getSharedConnection().share();
+        else
+            return new CassandraConnection(this.cluster, this.keyspace);
+    }
+
+    private synchronized CassandraConnection getSharedConnection() throws PersistenceException {
+        if (sharedConnection == null)
+            sharedConnection = new CassandraConnection(this.cluster, this.keyspace);
+        return sharedConnection;
+    }
+
+    /**
+     * This method closes the shared session:
+     * it must be called when the keyspace is dropped or the cluster object is rebuilt.
+     */
+    private synchronized void resetSharedConnection() {
+        IOUtils.closeQuietly(sharedConnection);
+        sharedConnection = null;
     }
 
     /**
@@ -96,7 +119,7 @@ public class CassandraDatabase extends Database {
      */
     @Override
     public MemoryDAO getMemoryDAO(Connection connection) {
-        return new CassandraMemoryDAO((CassandraConnection) connection);
+        return new CassandraMemoryDAO((CassandraConnection) connection, idGenerator);
     }
 
     /**
@@ -107,7 +130,7 @@ public class CassandraDatabase extends Database {
      */
     @Override
     public ImportJobDAO getImportJobDAO(Connection connection) {
-        return new CassandraImportJobDAO((CassandraConnection) connection);
+        return new CassandraImportJobDAO((CassandraConnection) connection, idGenerator);
     }
 
     /**
@@ -130,6 +153,10 @@ public class CassandraDatabase extends Database {
         } finally {
             IOUtils.closeQuietly(connection);
         }
+
+        /*the IDs reserved so far and the prepared statements belong to the dropped tables*/
+        resetSharedConnection();
+        idGenerator.reset();
     }
 
     /**
@@ -199,6 +226,7 @@ public class CassandraDatabase extends Database {
          * Otherwise internal queries might result in random results.
          * (Issue with counters_table not updated with the correct table_counters: values always at 0)*/
         initCluster();
+        idGenerator.reset();
     }
 
     /**
@@ -243,6 +271,7 @@ public class CassandraDatabase extends Database {
 
     @Override
     public void close() throws IOException {
+        resetSharedConnection();
         this.cluster.close();
     }
 
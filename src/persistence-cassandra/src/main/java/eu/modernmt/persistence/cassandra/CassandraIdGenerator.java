@@ -1,20 +1,72 @@
 package eu.modernmt.persistence.cassandra;
 
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.BuiltStatement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import eu.modernmt.persistence.PersistenceException;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * This class provides static methods
- * that generate sequential integer IDs
+ * This class generates sequential integer IDs
  * for objects to store in our Cassandra DB.
+ * <p>
+ * IDs are reserved in blocks: a single lightweight transaction on the counters table
+ * reserves a whole range of IDs, that are then handed out locally without
+ * contacting the DB. Since every range is reserved atomically, IDs are unique
+ * across all the cluster nodes; however IDs generated by different nodes interleave
+ * and the unused IDs of a block are lost when the node is stopped.
  */
 public class CassandraIdGenerator {
 
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    /*statement for getting the last ID reserved for a table*/
+    private static final RegularStatement GET_COUNTER = QueryBuilder.select("table_counter")
+            .from(CassandraDatabase.COUNTERS_TABLE)
+            .where(QueryBuilder.eq("table_id", QueryBuilder.bindMarker()));
+
+    /*statement for updating the last ID reserved for a table only if it is still the same*/
+    private static final RegularStatement SET_COUNTER = QueryBuilder.update(CassandraDatabase.COUNTERS_TABLE)
+            .with(QueryBuilder.set("table_counter", QueryBuilder.bindMarker()))
+            .where(QueryBuilder.eq("table_id", QueryBuilder.bindMarker()))
+            .onlyIf(QueryBuilder.eq("table_counter", QueryBuilder.bindMarker()));
+
+    /*statement for updating the last ID reserved for a table only if it is smaller than the new one*/
+    private static final RegularStatement ADVANCE_COUNTER = QueryBuilder.update(CassandraDatabase.COUNTERS_TABLE)
+            .with(QueryBuilder.set("table_counter", QueryBuilder.bindMarker()))
+            .where(QueryBuilder.eq("table_id", QueryBuilder.bindMarker()))
+            .onlyIf(QueryBuilder.lt("table_counter", QueryBuilder.bindMarker()));
+
+    private final int blockSize;
+    private final ConcurrentHashMap<Integer, IdBlock> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * A range of reserved IDs, from next to last (included)
+     */
+    private static final class IdBlock {
+
+        private long next = 1L;
+        private long last = 0L;
+
+    }
+
+    public CassandraIdGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public CassandraIdGenerator(int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        this.blockSize = blockSize;
+    }
+
     /**
      * This method generates a new ID for a new object
      * that must be stored in a certain table.
-     * The new IDs are long and are generated in a sequential way.
+     * The new IDs are long and are taken from the current block of reserved IDs;
+     * a new block is reserved when the current one is exhausted.
      * <p>
      * This method is thread-safe.
      *
@@ -23,38 +75,80 @@ public class CassandraIdGenerator {
      * @return the newly generated ID,
      * @throws PersistenceException
      */
-    public static long generate(CassandraConnection connection, int tableId) throws PersistenceException {
+    public long generate(CassandraConnection connection, int tableId) throws PersistenceException {
+        IdBlock block = blocks.computeIfAbsent(tableId, key -> new IdBlock());
+
+        synchronized (block) {
+            if (block.next > block.last) {
+                block.next = reserve(connection, tableId, blockSize);
+                block.last = block.next + blockSize - 1;
+            }
+
+            return block.next++;
+        }
+    }
+
+    /**
+     * This method must be called when an object has been stored with a given ID instead of a generated one:
+     * it updates the counter of the table (see advanceCounter())
+     * and skips the given ID if it belongs to the current block of reserved IDs.
+     *
+     * @param connection the current connection with the database
+     * @param tableId    the ID of the table
+     * @param id         the ID that has been used
+     * @throws PersistenceException
+     */
+    public void notifyForcedId(CassandraConnection connection, int tableId, long id) throws PersistenceException {
+        advanceCounter(connection, tableId, id);
+
+        IdBlock block = blocks.get(tableId);
+        if (block != null) {
+            synchronized (block) {
+                if (block.next <= id)
+                    block.next = id + 1;
+            }
+        }
+    }
+
+    /**
+     * This method discards all the reserved IDs;
+     * it must be called when the database is dropped or re-created.
+     */
+    public void reset() {
+        blocks.clear();
+    }
+
+    /**
+     * This method reserves a range of IDs for a table, incrementing its counter atomically.
+     *
+     * @param connection the current connection with the database
+     * @param tableId    the ID of the table
+     * @param size       the number of IDs to reserve
+     * @return the first reserved ID
+     * @throws PersistenceException
+     */
+    private static long reserve(CassandraConnection connection, int tableId, int size) throws PersistenceException {
         /*the table COUNTERS_TABLE has a row for each other table in our db;
         each row holds the table id and a counter marking the last ID
-        that has been employed when storing an object in that table.*/
-
-        /*statement for getting the last ID used in the table under analysis
-         * from the Counters_table*/
-        BuiltStatement get = QueryBuilder.select("table_counter").
-                from(CassandraDatabase.COUNTERS_TABLE).
-                where(QueryBuilder.eq("table_id", tableId));
+        that has been reserved for that table.*/
 
+        Statement get = CassandraUtils.checkedBind(connection, GET_COUNTER, tableId);
 
-        /*Read the last ID used in the table under analysis.
-         If it is still the same, increment it and
-         return the new incremented ID.
-         Otherwise, read again.
-         This technique lets us read and update the ID atomically,
-          so it is thread-safe (even it may be if a bit slow).*/
+        /*Read the last ID reserved for the table under analysis.
+         If it is still the same, increment it by the block size and
+         return the first ID of the new block.
+         Otherwise, read again.*/
         while (true) {
 
-            /* Get the the last ID used in the table under analysis*/
+            /* Get the the last ID reserved for the table under analysis*/
             long oldCount = CassandraUtils.checkedExecute(connection, get).one().getLong("table_counter");
 
             /* Statement for updating the last ID only if it is still the same*/
-            BuiltStatement set = QueryBuilder.update(CassandraDatabase.COUNTERS_TABLE).
-                    with(QueryBuilder.set("table_counter", (oldCount + 1L))).
-                    where(QueryBuilder.eq("table_id", tableId)).
-                    onlyIf(QueryBuilder.eq("table_counter", oldCount));
+            Statement set = CassandraUtils.checkedBind(connection, SET_COUNTER, oldCount + size, tableId, oldCount);
 
             /* Try to execute the statement; if it succeeded,
              * then it means that no-one has updated the last ID
-             * after this thread has read it, so it can use it*/
+             * after this thread has read it, so the whole block belongs to this node*/
             if (CassandraUtils.checkedExecute(connection, set).wasApplied())
                 return oldCount + 1L;
         }
@@ -70,15 +164,10 @@ public class CassandraIdGenerator {
      */
     public static boolean advanceCounter(CassandraConnection connection, int tableID, long newCounter) throws PersistenceException {
         /* Statement for updating the last ID only if it smaller than the new counter*/
-        BuiltStatement update = QueryBuilder.update(CassandraDatabase.COUNTERS_TABLE)
-                .with(QueryBuilder.set("table_counter", newCounter))
-                .where(QueryBuilder.eq("table_id", tableID))
-                .onlyIf(QueryBuilder.lt("table_counter", newCounter));
+        Statement update = CassandraUtils.checkedBind(connection, ADVANCE_COUNTER, newCounter, tableID, newCounter);
 
         /* Statement for retrieving the last ID*/
-        BuiltStatement get = QueryBuilder.select("table_counter")
-                .from(CassandraDatabase.COUNTERS_TABLE)
-                .where(QueryBuilder.eq("table_id", tableID));
+        Statement get = CassandraUtils.checkedBind(connection, GET_COUNTER, tableID);
 
         /*Try to update the last ID and check if you have succeeded.
          * If you have not succeeded, try again.
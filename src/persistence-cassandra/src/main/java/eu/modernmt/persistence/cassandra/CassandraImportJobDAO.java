@@ -1,8 +1,9 @@
 package eu.modernmt.persistence.cassandra;
 
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
-import com.datastax.driver.core.querybuilder.BuiltStatement;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import eu.modernmt.model.ImportJob;
 import eu.modernmt.persistence.ImportJobDAO;
@@ -19,18 +20,44 @@ import java.util.UUID;
  */
 public class CassandraImportJobDAO implements ImportJobDAO {
 
+    /*statements are prepared only once and bound to the actual values at every call*/
+    private static final RegularStatement SELECT = QueryBuilder.select()
+            .from(CassandraDatabase.IMPORT_JOBS_TABLE)
+            .where(QueryBuilder.eq("id", QueryBuilder.bindMarker()));
+
+    private static final RegularStatement INSERT = QueryBuilder.insertInto(CassandraDatabase.IMPORT_JOBS_TABLE)
+            .value("id", QueryBuilder.bindMarker())
+            .value("memory", QueryBuilder.bindMarker())
+            .value("\"begin\"", QueryBuilder.bindMarker())
+            .value("end", QueryBuilder.bindMarker())
+            .value("data_channel", QueryBuilder.bindMarker())
+            .value("size", QueryBuilder.bindMarker())
+            .ifNotExists();
+
+    private static final RegularStatement UPDATE = QueryBuilder.update(CassandraDatabase.IMPORT_JOBS_TABLE)
+            .with(QueryBuilder.set("memory", QueryBuilder.bindMarker()))
+            .and(QueryBuilder.set("\"begin\"", QueryBuilder.bindMarker()))
+            .and(QueryBuilder.set("end", QueryBuilder.bindMarker()))
+            .and(QueryBuilder.set("data_channel", QueryBuilder.bindMarker()))
+            .and(QueryBuilder.set("size", QueryBuilder.bindMarker()))
+            .where(QueryBuilder.eq("id", QueryBuilder.bindMarker()))
+            .ifExists();
+
     private CassandraConnection connection;
+    private CassandraIdGenerator idGenerator;
 
     /**
      * This method creates a CassandraImportJobDao
      * that will communicate with the Cassandra DB under analysis
      * using a specific connection
      *
-     * @param connection the Cassandra Connection that the DAO will employ
-     *                   to deal with the ImportJob CRUD operations.
+     * @param connection  the Cassandra Connection that the DAO will employ
+     *                    to deal with the ImportJob CRUD operations.
+     * @param idGenerator the generator of the new ImportJob IDs
      */
-    public CassandraImportJobDAO(CassandraConnection connection) {
+    public CassandraImportJobDAO(CassandraConnection connection, CassandraIdGenerator idGenerator) {
         this.connection = connection;
+        this.idGenerator = idGenerator;
     }
 
     /**
@@ -43,14 +70,10 @@ public class CassandraImportJobDAO implements ImportJobDAO {
      */
     @Override
     public ImportJob store(ImportJob job) throws PersistenceException {
-        long id = CassandraIdGenerator.generate(connection, CassandraDatabase.IMPORT_JOBS_TABLE_ID);
+        long id = idGenerator.generate(connection, CassandraDatabase.IMPORT_JOBS_TABLE_ID);
 
-        String[] columns = {"id", "memory", "\"begin\"", "end", "data_channel", "size"};
-        Object[] values = {id, job.getMemory(), job.getBegin(), job.getEnd(), job.getDataChannel(), job.getSize()};
-        BuiltStatement statement = QueryBuilder
-                .insertInto("import_jobs")
-                .values(columns, values)
-                .ifNotExists();
+        Statement statement = CassandraUtils.checkedBind(connection, INSERT,
+                id, job.getMemory(), job.getBegin(), job.getEnd(), job.getDataChannel(), job.getSize());
 
         boolean success = CassandraUtils.checkedExecute(connection, statement).wasApplied();
 
@@ -61,6 +84,23 @@ public class CassandraImportJobDAO implements ImportJobDAO {
         return job;
     }
 
+    /**
+     * This method overwrites the memory, the offsets, the data channel and the size
+     * of the ImportJob with the same ID as the passed one
+     *
+     * @param job the ImportJob to overwrite
+     * @return the passed ImportJob if the overwrite is successful; null if the ID does not correspond to a stored job
+     * @throws PersistenceException if couldn't update the importjob in the DB
+     */
+    @Override
+    public ImportJob update(ImportJob job) throws PersistenceException {
+        Statement statement = CassandraUtils.checkedBind(connection, UPDATE,
+                job.getMemory(), job.getBegin(), job.getEnd(), job.getDataChannel(), job.getSize(),
+                ImportJob.getLongId(job.getId()));
+
+        return CassandraUtils.checkedExecute(connection, statement).wasApplied() ? job : null;
+    }
+
     /**
      * This method receives a unique UUID for an ImportJob,
      * uses it to extract the corresponding ID employed in the DB
@@ -75,10 +115,7 @@ public class CassandraImportJobDAO implements ImportJobDAO {
     public ImportJob retrieve(UUID uuid) throws PersistenceException {
         long id = ImportJob.getLongId(uuid);
 
-        BuiltStatement statement = QueryBuilder.
-                select().
-                from("import_jobs").
-                where(QueryBuilder.eq("id", id));
+        Statement statement = CassandraUtils.checkedBind(connection, SELECT, id);
 
         ResultSet result = CassandraUtils.checkedExecute(connection, statement);
         Row row = result.one();
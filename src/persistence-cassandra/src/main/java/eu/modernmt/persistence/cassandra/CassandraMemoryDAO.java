@@ -1,9 +1,10 @@
 package eu.modernmt.persistence.cassandra;
 
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.exceptions.CodecNotFoundException;
-import com.datastax.driver.core.querybuilder.BuiltStatement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import eu.modernmt.model.Memory;
 import eu.modernmt.persistence.MemoryDAO;
@@ -23,18 +24,48 @@ import java.util.Map;
  */
 public class CassandraMemoryDAO implements MemoryDAO {
 
+    /*statements are prepared only once and bound to the actual values at every call*/
+    private static final RegularStatement SELECT = QueryBuilder.select()
+            .from(CassandraDatabase.MEMORIES_TABLE)
+            .where(QueryBuilder.eq("id", QueryBuilder.bindMarker()));
+
+    private static final RegularStatement SELECT_IN = QueryBuilder.select()
+            .from(CassandraDatabase.MEMORIES_TABLE)
+            .where(QueryBuilder.in("id", QueryBuilder.bindMarker()));
+
+    private static final RegularStatement SELECT_ALL = QueryBuilder.select()
+            .from(CassandraDatabase.MEMORIES_TABLE);
+
+    private static final RegularStatement INSERT = QueryBuilder.insertInto(CassandraDatabase.MEMORIES_TABLE)
+            .value("id", QueryBuilder.bindMarker())
+            .value("name", QueryBuilder.bindMarker())
+            .ifNotExists();
+
+    private static final RegularStatement UPDATE = QueryBuilder.update(CassandraDatabase.MEMORIES_TABLE)
+            .with(QueryBuilder.set("name", QueryBuilder.bindMarker()))
+            .where(QueryBuilder.eq("id", QueryBuilder.bindMarker()))
+            .ifExists();
+
+    private static final RegularStatement DELETE = QueryBuilder.delete()
+            .from(CassandraDatabase.MEMORIES_TABLE)
+            .where(QueryBuilder.eq("id", QueryBuilder.bindMarker()))
+            .ifExists();
+
     private CassandraConnection connection;
+    private CassandraIdGenerator idGenerator;
 
     /**
      * This method creates a CassandraMemoryDAO
      * that will communicate with the Cassandra DB under analysis
      * using a specific connection
      *
-     * @param connection the Cassandra Connection that the DAO will employ
-     *                   to deal with the Memory CRUD operations.
+     * @param connection  the Cassandra Connection that the DAO will employ
+     *                    to deal with the Memory CRUD operations.
+     * @param idGenerator the generator of the new Memory IDs
      */
-    public CassandraMemoryDAO(CassandraConnection connection) {
+    public CassandraMemoryDAO(CassandraConnection connection, CassandraIdGenerator idGenerator) {
         this.connection = connection;
+        this.idGenerator = idGenerator;
     }
 
     /**
@@ -48,9 +79,7 @@ public class CassandraMemoryDAO implements MemoryDAO {
      */
     @Override
     public Memory retrieve(long id) throws PersistenceException {
-        BuiltStatement statement = QueryBuilder.select()
-                .from(CassandraDatabase.MEMORIES_TABLE)
-                .where(QueryBuilder.eq("id", id));
+        Statement statement = CassandraUtils.checkedBind(connection, SELECT, id);
 
         ResultSet result = CassandraUtils.checkedExecute(connection, statement);
         return read(result.one());
@@ -100,10 +129,7 @@ public class CassandraMemoryDAO implements MemoryDAO {
 
         ArrayList<Long> list = new ArrayList<>(ids.size());
         list.addAll(ids);
-        BuiltStatement statement = QueryBuilder.
-                select().
-                from(CassandraDatabase.MEMORIES_TABLE).
-                where(QueryBuilder.in("id", list));
+        Statement statement = CassandraUtils.checkedBind(connection, SELECT_IN, list);
 
         /*execute the query*/
         ResultSet result = CassandraUtils.checkedExecute(connection, statement);
@@ -128,9 +154,7 @@ public class CassandraMemoryDAO implements MemoryDAO {
     public Collection<Memory> retrieveAll() throws PersistenceException {
         ArrayList<Memory> list = new ArrayList<>();
 
-        BuiltStatement statement = QueryBuilder.select().
-                from(CassandraDatabase.MEMORIES_TABLE).
-                where();
+        Statement statement = CassandraUtils.checkedBind(connection, SELECT_ALL);
         ResultSet result = CassandraUtils.checkedExecute(connection, statement);
 
         for (Row row : result.all())
@@ -167,31 +191,30 @@ public class CassandraMemoryDAO implements MemoryDAO {
     public Memory store(Memory memory, boolean forceId) throws PersistenceException {
         long id;
 
-        if (!forceId) {
-            id = CassandraIdGenerator.generate(connection, CassandraDatabase.MEMORIES_TABLE_ID);
-        } else {
+        if (forceId) {
             id = memory.getId();
-            CassandraIdGenerator.advanceCounter(connection, CassandraDatabase.MEMORIES_TABLE_ID, id);
-        }
-
-        String[] columns = {"id", "name"};
-        Object[] values = {id, memory.getName()};
-
-        BuiltStatement statement = QueryBuilder
-                .insertInto(CassandraDatabase.MEMORIES_TABLE)
-                .values(columns, values)
-                .ifNotExists();
+            idGenerator.notifyForcedId(connection, CassandraDatabase.MEMORIES_TABLE_ID, id);
 
-        boolean success = CassandraUtils.checkedExecute(connection, statement).wasApplied();
-
-        if (!success)
-            throw new PersistenceException("Unable to insert memory into Cassandra Database: " + memory);
+            if (!insert(id, memory.getName()))
+                throw new PersistenceException("Unable to insert memory into Cassandra Database: " + memory);
+        } else {
+            /*a generated ID may have already been used by a memory stored with a forced ID:
+             * in that case, just try with the next one*/
+            do {
+                id = idGenerator.generate(connection, CassandraDatabase.MEMORIES_TABLE_ID);
+            } while (!insert(id, memory.getName()));
+        }
 
         memory.setId(id);
 
         return memory;
     }
 
+    private boolean insert(long id, String name) throws PersistenceException {
+        Statement statement = CassandraUtils.checkedBind(connection, INSERT, id, name);
+        return CassandraUtils.checkedExecute(connection, statement).wasApplied();
+    }
+
     /**
      * This method receives a Memory object
      * and stores it in the DB overwriting an existing row with same ID.
@@ -207,12 +230,8 @@ public class CassandraMemoryDAO implements MemoryDAO {
      */
     @Override
     public Memory update(Memory memory) throws PersistenceException {
-        BuiltStatement built = QueryBuilder.update(CassandraDatabase.MEMORIES_TABLE).
-                with(QueryBuilder.set("name", memory.getName())).
-                where(QueryBuilder.eq("id", memory.getId())).
-                ifExists();
-
-        ResultSet result = CassandraUtils.checkedExecute(connection, built);
+        Statement statement = CassandraUtils.checkedBind(connection, UPDATE, memory.getName(), memory.getId());
+        ResultSet result = CassandraUtils.checkedExecute(connection, statement);
 
         if (result.wasApplied())
             return memory;
@@ -230,12 +249,8 @@ public class CassandraMemoryDAO implements MemoryDAO {
      */
     @Override
     public boolean delete(long id) throws PersistenceException {
-        BuiltStatement built = QueryBuilder.delete().
-                from(CassandraDatabase.MEMORIES_TABLE).
-                where(QueryBuilder.eq("id", id)).
-                ifExists();
-
-        ResultSet result = CassandraUtils.checkedExecute(connection, built);
+        Statement statement = CassandraUtils.checkedBind(connection, DELETE, id);
+        ResultSet result = CassandraUtils.checkedExecute(connection, statement);
 
         return result.wasApplied();
     }
@@ -1,5 +1,7 @@
 package eu.modernmt.persistence.cassandra;
 
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.exceptions.*;
@@ -48,6 +50,24 @@ public class CassandraUtils {
         }
     }
 
+    /**
+     * This method prepares a statement, or returns the one already prepared
+     * with the same connection, and binds it to the given values
+     *
+     * @param connection the current connection with the DB
+     * @param statement  the statement to prepare, with bind markers in place of values
+     * @param values     the values to bind to the statement
+     * @return the statement bound to the given values, ready for the execution
+     * @throws PersistenceException
+     */
+    public static Statement checkedBind(CassandraConnection connection, RegularStatement statement, Object... values) throws PersistenceException {
+        try {
+            PreparedStatement prepared = connection.prepare(statement);
+            return prepared.bind(values);
+        } catch (DriverException e) {
+            throw unwrap(e);
+        }
+    }
 
     private static PersistenceException unwrap(DriverException cause) throws PersistenceException {
 
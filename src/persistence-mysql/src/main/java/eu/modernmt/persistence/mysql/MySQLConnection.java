@@ -4,16 +4,19 @@ import eu.modernmt.persistence.Connection;
 import eu.modernmt.persistence.PersistenceException;
 
 import java.io.IOException;
-import java.sql.SQLException;
 
 /**
  * Created by andrea on 29/09/17.
  * A MySQLConnection object represents a connection with a MySQLConnection dataBase.
+ * The underlying connection is borrowed from the connection pool of the database
+ * and it is returned to the pool when this object is closed.
  */
 public class MySQLConnection implements Connection {
+    private final MySQLConnectionPool pool;
     private java.sql.Connection dataSourceconnection;
 
-    public MySQLConnection(java.sql.Connection connection) throws PersistenceException {
+    MySQLConnection(MySQLConnectionPool pool, java.sql.Connection connection) throws PersistenceException {
+        this.pool = pool;
         this.dataSourceconnection = connection;
     }
 
@@ -22,14 +25,13 @@ public class MySQLConnection implements Connection {
     }
 
     /**
-     * This method closes the connection with the current DB
+     * This method returns the connection to the pool
      */
     @Override
     public void close() throws IOException {
-        try {
-            this.dataSourceconnection.close();
-        } catch (SQLException e) {
-            throw new IOException("Error while closing DB connection");
+        if (this.dataSourceconnection != null) {
+            pool.release(this.dataSourceconnection);
+            this.dataSourceconnection = null;
         }
     }
 
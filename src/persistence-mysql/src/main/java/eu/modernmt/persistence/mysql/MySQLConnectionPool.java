@@ -0,0 +1,146 @@
+package eu.modernmt.persistence.mysql;
+
+import eu.modernmt.persistence.mysql.utils.SQLUtils;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of physical connections to a MySQL DB.
+ * At most maxSize connections are borrowed at the same time: further requests wait
+ * for a connection to be released, up to a given timeout.
+ * Released connections are kept open (with their prepared statements cache) and they are
+ * validated again before being reused only if they have been idle for a while.
+ */
+class MySQLConnectionPool implements Closeable {
+
+    private static final long VALIDATION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final int VALIDATION_TIMEOUT = 5; // seconds
+
+    private static final class IdleConnection {
+
+        private final Connection connection;
+        private final long releaseTime;
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.releaseTime = System.currentTimeMillis();
+        }
+
+    }
+
+    private final DataSource dataSource;
+    private final Semaphore permits;
+    private final long timeout;
+    private final ArrayDeque<IdleConnection> idle;
+    private boolean closed = false;
+
+    /**
+     * @param dataSource the source of the physical connections
+     * @param maxSize    the max number of connections borrowed at the same time
+     * @param timeout    the max time in milliseconds to wait for a connection
+     */
+    public MySQLConnectionPool(DataSource dataSource, int maxSize, long timeout) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Invalid pool size: " + maxSize);
+
+        this.dataSource = dataSource;
+        this.permits = new Semaphore(maxSize, true);
+        this.timeout = timeout;
+        this.idle = new ArrayDeque<>(maxSize);
+    }
+
+    /**
+     * Returns an idle connection or opens a new one if none is available.
+     * The connection must be returned to the pool with release().
+     *
+     * @return a connection to the DB
+     * @throws SQLException if the pool is closed, the timeout expires or the DB cannot be reached
+     */
+    public Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS))
+                throw new SQLException("Timeout while waiting for a DB connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a DB connection", e);
+        }
+
+        try {
+            IdleConnection entry;
+            while ((entry = poll()) != null) {
+                if (System.currentTimeMillis() - entry.releaseTime < VALIDATION_INTERVAL ||
+                        entry.connection.isValid(VALIDATION_TIMEOUT))
+                    return entry.connection;
+
+                SQLUtils.closeQuietly(entry.connection);
+            }
+
+            return dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool; pending transactions are rolled back.
+     * Broken connections are closed and discarded.
+     *
+     * @param connection the connection to release
+     */
+    public void release(Connection connection) {
+        try {
+            boolean reusable;
+
+            try {
+                reusable = !connection.isClosed();
+
+                if (reusable && !connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+
+            if (!reusable || !offer(connection))
+                SQLUtils.closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private synchronized IdleConnection poll() throws SQLException {
+        if (closed)
+            throw new SQLException("Connection pool closed");
+
+        return idle.pollLast();
+    }
+
+    private synchronized boolean offer(Connection connection) {
+        if (closed)
+            return false;
+
+        idle.addLast(new IdleConnection(connection));
+        return true;
+    }
+
+    /**
+     * Closes the idle connections; borrowed connections are closed when released.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+
+        for (IdleConnection entry : idle)
+            SQLUtils.closeQuietly(entry.connection);
+        idle.clear();
+    }
+
+}
@@ -17,27 +17,56 @@ import java.sql.Statement;
  */
 public class MySQLDatabase extends Database {
 
+    public static final int DEFAULT_POOL_SIZE = 16;
+    public static final long DEFAULT_POOL_TIMEOUT = 30000L;
+
     private String name;
-    private DataSource dataSource;
+    private MySQLConnectionPool pool;
 
     public MySQLDatabase(String host, int port, String name, String user, String password) {
+        this(host, port, name, user, password, DEFAULT_POOL_SIZE, DEFAULT_POOL_TIMEOUT);
+    }
+
+    /**
+     * @param poolSize    the max number of connections open at the same time
+     * @param poolTimeout the max time in milliseconds to wait for a free connection
+     */
+    public MySQLDatabase(String host, int port, String name, String user, String password, int poolSize, long poolTimeout) {
+        this(name, createDataSource(host, port, name, user, password), poolSize, poolTimeout);
+    }
+
+    /**
+     * @param dataSource  the source of the physical connections to the DB
+     * @param poolSize    the max number of connections open at the same time
+     * @param poolTimeout the max time in milliseconds to wait for a free connection
+     */
+    MySQLDatabase(String name, DataSource dataSource, int poolSize, long poolTimeout) {
         this.name = name;
+        this.pool = new MySQLConnectionPool(dataSource, poolSize, poolTimeout);
+    }
 
+    private static DataSource createDataSource(String host, int port, String name, String user, String password) {
+        /*connections are reused, so prepared statements are cached on the server side
+         * for every connection and parsed only once*/
         String params = "useUnicode=true"
                 + "&useJDBCCompliantTimezoneShift=true"
                 + "&useLegacyDatetimeCode=false"
-                + "&serverTimezone=UTC";
+                + "&serverTimezone=UTC"
+                + "&useServerPrepStmts=true"
+                + "&cachePrepStmts=true"
+                + "&prepStmtCacheSize=64"
+                + "&prepStmtCacheSqlLimit=2048";
 
         MysqlDataSource mysqlDS = new MysqlDataSource();
         mysqlDS.setURL("jdbc:mysql://" + host + ":" + port + "/" + name + "?" + params);
         mysqlDS.setDatabaseName(name);
         mysqlDS.setUser(user);
         mysqlDS.setPassword(password);
-        this.dataSource = mysqlDS;
+        return mysqlDS;
     }
 
     /**
-     * This method provides a connection to the MySQL DB
+     * This method provides a connection to the MySQL DB, borrowed from the connection pool
      *
      * @param cached
      * @return A Connection object, that can be used to communicate with the DB
@@ -46,7 +75,7 @@ public class MySQLDatabase extends Database {
     @Override
     public MySQLConnection getConnection(boolean cached) throws PersistenceException {
         try {
-            return new MySQLConnection(dataSource.getConnection());
+            return new MySQLConnection(pool, pool.borrow());
         } catch (SQLException e) {
             throw new PersistenceException("SQLException: unable to connect" + e);
         }
@@ -74,7 +103,7 @@ public class MySQLDatabase extends Database {
 
     @Override
     public void close() throws IOException {
-        //do nothing
+        this.pool.close();
     }
 
     @Override
@@ -84,12 +113,12 @@ public class MySQLDatabase extends Database {
 
     @Override
     public boolean initialize() throws PersistenceException {
-        java.sql.Connection connection = null;
+        MySQLConnection connection = null;
         PreparedStatement statement = null;
         try {
             String query = "UPDATE mmt_metadata SET initialized = ? WHERE id = ? AND initialized = ?";
-            connection = this.dataSource.getConnection();
-            statement = connection.prepareStatement(query);
+            connection = getConnection(true);
+            statement = connection.getDataSourceConnection().prepareStatement(query);
             statement.setShort(1, (short) 1);
             statement.setLong(2, 1L);
             statement.setShort(3, (short) 0);
@@ -98,8 +127,8 @@ public class MySQLDatabase extends Database {
         } catch (SQLException e) {
             throw new PersistenceException(e);
         } finally {
-            SQLUtils.closeQuietly(connection);
             SQLUtils.closeQuietly(statement);
+            IOUtils.closeQuietly(connection);
         }
     }
 
@@ -105,6 +105,39 @@ public class MySQLImportJobDAO implements ImportJobDAO {
     }
 
 
+    /**
+     * This method updates the ImportJob with the same ID as the passed one,
+     * overwriting its memory, offsets, data channel and size.
+     *
+     * @param importJob the ImportJob to overwrite
+     * @return the passed ImportJob if the overwrite is successful; null if the ID does not correspond to a stored job.
+     * @throws PersistenceException if a DB error occurs
+     */
+    @Override
+    public ImportJob update(ImportJob importJob) throws PersistenceException {
+        String query = "UPDATE mmt_import_jobs SET memory = ?, begin = ?, end = ?, data_channel = ?, size = ? WHERE id = ?";
+
+        PreparedStatement statement = null;
+        try {
+            statement = this.connection.prepareStatement(query);
+            int i = 1;
+
+            statement.setLong(i++, importJob.getMemory());
+            statement.setLong(i++, importJob.getBegin());
+            statement.setLong(i++, importJob.getEnd());
+            statement.setShort(i++, importJob.getDataChannel());
+            statement.setInt(i++, importJob.getSize());
+            statement.setLong(i, ImportJob.getLongId(importJob.getId()));
+
+            return statement.executeUpdate() != 0 ? importJob : null;
+        } catch (SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            SQLUtils.closeQuietly(statement);
+        }
+    }
+
+
     /**
      * This method reads the fields of a ResultSet
      * from a table with name "resource_origins"
@@ -205,7 +205,7 @@ public class MySQLMemoryDAO implements MemoryDAO {
     @Override
     public Memory update(Memory memory) throws PersistenceException {
 
-        String query = "UPDATE TABLE mmt_memories SET name = ? WHERE id = ? ";
+        String query = "UPDATE mmt_memories SET name = ? WHERE id = ? ";
 
         /*execute query and read resources from its result*/
         PreparedStatement statement = null;
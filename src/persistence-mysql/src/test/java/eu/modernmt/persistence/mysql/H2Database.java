@@ -0,0 +1,48 @@
+package eu.modernmt.persistence.mysql;
+
+import org.apache.commons.io.FileUtils;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory H2 databases in MySQL mode, with the schema of sql/create_database.sql.
+ * Every database is new and empty, and it lives until the JVM exits.
+ */
+class H2Database {
+
+    private static final File SCHEMA = new File("sql", "create_database.sql");
+    private static final AtomicInteger counter = new AtomicInteger(0);
+
+    public static DataSource createDataSource() throws IOException, SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:mmt" + counter.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String query : FileUtils.readFileToString(SCHEMA, StandardCharsets.UTF_8).split(";")) {
+                query = query.trim();
+
+                // the database is created by the data source
+                if (query.isEmpty() || query.startsWith("CREATE DATABASE") || query.startsWith("USE "))
+                    continue;
+
+                // H2 does not know the MySQL table options
+                statement.execute(query.replaceAll("\\)\\s+ENGINE[^)]*$", ")"));
+            }
+        }
+
+        return dataSource;
+    }
+
+    public static MySQLDatabase create(int poolSize, long poolTimeout) throws IOException, SQLException {
+        return new MySQLDatabase("mmt", createDataSource(), poolSize, poolTimeout);
+    }
+
+}
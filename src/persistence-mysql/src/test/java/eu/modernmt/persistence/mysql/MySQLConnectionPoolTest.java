@@ -0,0 +1,177 @@
+package eu.modernmt.persistence.mysql;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MySQLConnectionPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger(0);
+    private DataSource dataSource;
+    private MySQLConnectionPool pool;
+
+    @Before
+    public void setUp() throws Throwable {
+        DataSource h2 = H2Database.createDataSource();
+
+        // counts the physical connections
+        dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName()))
+                        opened.incrementAndGet();
+
+                    try {
+                        return method.invoke(h2, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null)
+            pool.close();
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM mmt_memories")) {
+            assertTrue(result.next());
+            return result.getInt(1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSize() {
+        new MySQLConnectionPool(dataSource, 0, 1000L);
+    }
+
+    @Test
+    public void releasedConnectionsAreReused() throws Throwable {
+        pool = new MySQLConnectionPool(dataSource, 2, 1000L);
+
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        assertNotSame(first, second);
+        assertEquals(2, opened.get());
+
+        pool.release(first);
+        assertSame(first, pool.borrow());
+        assertEquals(2, opened.get());
+
+        pool.release(first);
+        pool.release(second);
+
+        // the last released connection is reused first
+        assertSame(second, pool.borrow());
+        assertEquals(2, opened.get());
+    }
+
+    @Test
+    public void borrowTimeout() throws Throwable {
+        pool = new MySQLConnectionPool(dataSource, 1, 200L);
+        Connection connection = pool.borrow();
+
+        long begin = System.currentTimeMillis();
+        try {
+            pool.borrow();
+            fail("Expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(System.currentTimeMillis() - begin >= 190L);
+        }
+
+        pool.release(connection);
+        assertSame(connection, pool.borrow());
+    }
+
+    @Test
+    public void waitingBorrowerGetsReleasedConnection() throws Throwable {
+        pool = new MySQLConnectionPool(dataSource, 1, 10000L);
+        Connection connection = pool.borrow();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> waiting = executor.submit(pool::borrow);
+
+            Thread.sleep(200);
+            assertFalse(waiting.isDone());
+
+            pool.release(connection);
+            assertSame(connection, waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void releaseRollsBackPendingTransaction() throws Throwable {
+        pool = new MySQLConnectionPool(dataSource, 1, 1000L);
+
+        Connection connection = pool.borrow();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO mmt_memories (name) VALUES ('uncommitted')");
+        }
+        assertEquals(1, count(connection));
+
+        pool.release(connection);
+
+        Connection reused = pool.borrow();
+        assertSame(connection, reused);
+        assertTrue(reused.getAutoCommit());
+        assertEquals(0, count(reused));
+    }
+
+    @Test
+    public void closedConnectionsAreDiscarded() throws Throwable {
+        pool = new MySQLConnectionPool(dataSource, 1, 200L);
+
+        Connection connection = pool.borrow();
+        connection.close();
+        pool.release(connection);
+
+        // the permit is returned even if the connection is discarded
+        Connection replacement = pool.borrow();
+        assertNotSame(connection, replacement);
+        assertFalse(replacement.isClosed());
+        assertEquals(2, opened.get());
+    }
+
+    @Test
+    public void close() throws Throwable {
+        pool = new MySQLConnectionPool(dataSource, 2, 200L);
+
+        Connection idle = pool.borrow();
+        Connection borrowed = pool.borrow();
+        pool.release(idle);
+
+        pool.close();
+        assertTrue(idle.isClosed());
+
+        // borrowed connections are closed when released
+        assertFalse(borrowed.isClosed());
+        pool.release(borrowed);
+        assertTrue(borrowed.isClosed());
+
+        try {
+            pool.borrow();
+            fail("Expected SQLException");
+        } catch (SQLException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package eu.modernmt.persistence.mysql;
+
+import eu.modernmt.persistence.PersistenceException;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MySQLDatabaseTest {
+
+    private MySQLDatabase database;
+
+    @Before
+    public void setUp() throws Throwable {
+        database = H2Database.create(1, 1000L);
+    }
+
+    @After
+    public void tearDown() {
+        IOUtils.closeQuietly(database);
+    }
+
+    @Test
+    public void initializeOnlyOnce() throws Throwable {
+        assertTrue(database.initialize());
+        assertFalse(database.initialize());
+    }
+
+    @Test
+    public void connectionsAreReturnedToThePool() throws Throwable {
+        // a pool of one connection: every test would time out if a connection was not released
+        for (int i = 0; i < 3; i++) {
+            database.testConnection();
+
+            MySQLConnection connection = database.getConnection(false);
+            assertNotNull(connection.getDataSourceConnection());
+            connection.close();
+            assertNull(connection.getDataSourceConnection());
+
+            // closing twice does not release the connection twice
+            connection.close();
+        }
+
+        MySQLConnection first = database.getConnection(false);
+        try {
+            database.getConnection(false);
+            fail("Expected PersistenceException");
+        } catch (PersistenceException e) {
+            // Expected
+        } finally {
+            first.close();
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package eu.modernmt.persistence.mysql;
+
+import eu.modernmt.model.ImportJob;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MySQLImportJobDAOTest {
+
+    private MySQLDatabase database;
+    private MySQLConnection connection;
+    private MySQLImportJobDAO dao;
+
+    @Before
+    public void setUp() throws Throwable {
+        database = H2Database.create(2, 1000L);
+        connection = database.getConnection(false);
+        dao = new MySQLImportJobDAO(connection);
+    }
+
+    @After
+    public void tearDown() {
+        IOUtils.closeQuietly(connection);
+        IOUtils.closeQuietly(database);
+    }
+
+    private static ImportJob job(long memory, long begin, long end, short channel, int size) {
+        ImportJob job = new ImportJob();
+        job.setMemory(memory);
+        job.setBegin(begin);
+        job.setEnd(end);
+        job.setDataChannel(channel);
+        job.setSize(size);
+        return job;
+    }
+
+    private static void assertJob(ImportJob expected, ImportJob job) {
+        assertNotNull(job);
+        assertEquals(expected.getId(), job.getId());
+        assertEquals(expected.getMemory(), job.getMemory());
+        assertEquals(expected.getBegin(), job.getBegin());
+        assertEquals(expected.getEnd(), job.getEnd());
+        assertEquals(expected.getDataChannel(), job.getDataChannel());
+        assertEquals(expected.getSize(), job.getSize());
+    }
+
+    @Test
+    public void storeAndRetrieve() throws Throwable {
+        ImportJob first = dao.store(job(1L, 100L, 199L, (short) 1, 100));
+        ImportJob second = dao.store(job(2L, 200L, 209L, (short) 0, 10));
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+
+        assertJob(first, dao.retrieve(first.getId()));
+        assertJob(second, dao.retrieve(second.getId()));
+        assertNull(dao.retrieve(new UUID(0L, ImportJob.getLongId(second.getId()) + 1)));
+    }
+
+    @Test
+    public void completePendingJob() throws Throwable {
+        ImportJob pending = dao.store(ImportJob.createPendingJob(7L, (short) 1));
+        assertTrue(dao.retrieve(pending.getId()).isPending());
+
+        ImportJob completed = job(7L, 1000L, 1499L, (short) 1, 500);
+        completed.setId(pending.getId());
+
+        assertSame(completed, dao.update(completed));
+
+        ImportJob job = dao.retrieve(pending.getId());
+        assertFalse(job.isPending());
+        assertJob(completed, job);
+    }
+
+    @Test
+    public void updateMissingJob() throws Throwable {
+        ImportJob job = job(7L, 0L, 0L, (short) 1, 0);
+        job.setId(1000L);
+
+        assertNull(dao.update(job));
+        assertNull(dao.retrieve(job.getId()));
+    }
+
+}
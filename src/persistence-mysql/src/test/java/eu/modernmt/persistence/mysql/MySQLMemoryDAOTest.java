@@ -0,0 +1,111 @@
+package eu.modernmt.persistence.mysql;
+
+import eu.modernmt.model.Memory;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class MySQLMemoryDAOTest {
+
+    private MySQLDatabase database;
+    private MySQLConnection connection;
+    private MySQLMemoryDAO dao;
+
+    @Before
+    public void setUp() throws Throwable {
+        database = H2Database.create(2, 1000L);
+        connection = database.getConnection(false);
+        dao = new MySQLMemoryDAO(connection);
+    }
+
+    @After
+    public void tearDown() {
+        IOUtils.closeQuietly(connection);
+        IOUtils.closeQuietly(database);
+    }
+
+    private static void assertMemory(long id, String name, Memory memory) {
+        assertNotNull(memory);
+        assertEquals(id, memory.getId());
+        assertEquals(name, memory.getName());
+    }
+
+    @Test
+    public void storeAndRetrieve() throws Throwable {
+        Memory first = dao.store(new Memory(0L, "first"));
+        Memory second = dao.store(new Memory(0L, "second"));
+
+        assertTrue(first.getId() > 0);
+        assertTrue(second.getId() > first.getId());
+
+        assertMemory(first.getId(), "first", dao.retrieve(first.getId()));
+        assertMemory(second.getId(), "second", dao.retrieve(second.getId()));
+        assertNull(dao.retrieve(second.getId() + 1));
+    }
+
+    @Test
+    public void storeWithForcedId() throws Throwable {
+        Memory memory = dao.store(new Memory(42L, "forced"), true);
+
+        assertMemory(42L, "forced", memory);
+        assertMemory(42L, "forced", dao.retrieve(42L));
+    }
+
+    @Test
+    public void retrieveCollection() throws Throwable {
+        long a = dao.store(new Memory(0L, "a")).getId();
+        long b = dao.store(new Memory(0L, "b")).getId();
+        long c = dao.store(new Memory(0L, "c")).getId();
+
+        Map<Long, Memory> memories = dao.retrieve(Arrays.asList(a, c, 1000L));
+
+        assertEquals(2, memories.size());
+        assertMemory(a, "a", memories.get(a));
+        assertMemory(c, "c", memories.get(c));
+        assertFalse(memories.containsKey(b));
+
+        assertTrue(dao.retrieve(Collections.emptyList()).isEmpty());
+        assertTrue(dao.retrieve(Collections.singleton(1000L)).isEmpty());
+    }
+
+    @Test
+    public void retrieveAll() throws Throwable {
+        assertTrue(dao.retrieveAll().isEmpty());
+
+        dao.store(new Memory(0L, "a"));
+        dao.store(new Memory(0L, "b"));
+
+        Set<String> names = new HashSet<>();
+        for (Memory memory : dao.retrieveAll())
+            names.add(memory.getName());
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), names);
+    }
+
+    @Test
+    public void update() throws Throwable {
+        long id = dao.store(new Memory(0L, "before")).getId();
+
+        Memory memory = new Memory(id, "after");
+        assertSame(memory, dao.update(memory));
+        assertMemory(id, "after", dao.retrieve(id));
+
+        assertNull(dao.update(new Memory(id + 1, "missing")));
+        assertNull(dao.retrieve(id + 1));
+    }
+
+    @Test
+    public void delete() throws Throwable {
+        long id = dao.store(new Memory(0L, "deleted")).getId();
+
+        assertTrue(dao.delete(id));
+        assertNull(dao.retrieve(id));
+        assertFalse(dao.delete(id));
+    }
+
+}
@@ -68,7 +68,7 @@ public class RareCharsNormalizer extends TextProcessor<SentenceBuilder, Sentence
      * @return the replacement character, if the old character must be replaced,
      * or the special character '\0' if it mustn't,
      */
-    private static char normalized(char c) {
+    public static char normalized(char c) {
         char nc = '\0';
 
         switch (c) {
@@ -0,0 +1,300 @@
+package eu.modernmt.processing.string;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.UnsupportedLanguageException;
+import eu.modernmt.processing.ProcessingException;
+import eu.modernmt.processing.TextProcessor;
+import eu.modernmt.processing.chars.RareCharsNormalizer;
+import eu.modernmt.processing.chars.WhitespacesNormalizer;
+import eu.modernmt.processing.recaser.UpperCasePreprocessor;
+import eu.modernmt.processing.xml.XMLCharacterEntity;
+
+import java.util.Map;
+
+/**
+ * A FusedSentenceConstructor replaces the front-end of the preprocessing pipeline, that is the chain:
+ * ControlCharsRemover, SentenceConstructor, XMLTagIdentifier, XMLEntityEscaper,
+ * RareCharsNormalizer, WhitespacesNormalizer, NumericPlaceholderNormalizer and UpperCasePreprocessor.
+ * <p>
+ * Instead of scanning the string once per processor (and running a regex matcher on a new String
+ * for tags, entities and numbers) it uses a table-driven scanner that:
+ * - strips control chars while copying the input string;
+ * - identifies XML tags and XML entities in a single pass over the original chars;
+ * - normalizes rare chars, whitespaces and numbers in a single pass over the resulting string;
+ * - lower-cases the string only if it is fully upper-case.
+ * <p>
+ * The resulting SentenceBuilder produces exactly the same Sentence as the original chain.
+ */
+public class FusedSentenceConstructor extends TextProcessor<String, SentenceBuilder> {
+
+    private static final byte OTHER = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte RARE = 3;
+
+    private static final char TABLE_SIZE = 0x3001;
+    private static final byte[] CHAR_CLASS = new byte[TABLE_SIZE];
+    private static final char[] REPLACEMENT = new char[TABLE_SIZE];
+
+    static {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            char replacement = RareCharsNormalizer.normalized(c);
+
+            if (WhitespacesNormalizer.isWhitespace(c)) {
+                CHAR_CLASS[c] = WHITESPACE;
+            } else if (c >= '0' && c <= '9') {
+                CHAR_CLASS[c] = DIGIT;
+            } else if (replacement != '\0') {
+                CHAR_CLASS[c] = RARE;
+                REPLACEMENT[c] = replacement;
+            }
+        }
+    }
+
+    private final SentenceBuilder builder = new SentenceBuilder();
+    private int gtIndex;
+
+    public FusedSentenceConstructor(Language sourceLanguage, Language targetLanguage) throws UnsupportedLanguageException {
+        super(sourceLanguage, targetLanguage);
+    }
+
+    @Override
+    public SentenceBuilder call(String string, Map<String, Object> metadata) throws ProcessingException {
+        // Control chars removal
+        char[] chars = string.toCharArray();
+        int length = 0;
+
+        for (char c : chars) {
+            if (c > 0x0008)
+                chars[length++] = c;
+        }
+
+        builder.initialize(length == chars.length ? string : new String(chars, 0, length));
+
+        identifyXML(chars, length);
+        normalize();
+
+        return builder;
+    }
+
+    // XML tags and entities
+
+    private void identifyXML(char[] chars, int length) {
+        SentenceBuilder.Editor editor = builder.edit();
+        gtIndex = -1;
+
+        int i = 0;
+        while (i < length) {
+            char c = chars[i];
+            int end;
+
+            if ((c == '<' || c == '-') && (end = matchTag(chars, length, i)) > 0) {
+                editor.setTag(i, end - i, " ");
+                i = end;
+            } else if (c == '&' && (end = matchEntity(chars, length, i)) > 0) {
+                Character entity = XMLCharacterEntity.unescape(new String(chars, i, end - i));
+                if (entity != null)
+                    editor.replace(i, end - i, entity.toString());
+                i = end;
+            } else {
+                i++;
+            }
+        }
+
+        editor.commit();
+    }
+
+    private static boolean isTagNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':';
+    }
+
+    /**
+     * Returns the index of the first '>' char starting from the given position, or length
+     * if there is none. Positions must be requested in non-decreasing order within the same scan.
+     */
+    private int indexOfGt(char[] chars, int length, int from) {
+        if (gtIndex < from) {
+            gtIndex = from;
+            while (gtIndex < length && chars[gtIndex] != '>')
+                gtIndex++;
+        }
+
+        return gtIndex;
+    }
+
+    /**
+     * Matches the same strings of Tag.TagRegex starting at the given position.
+     *
+     * @return the end of the tag, or -1 if there is no tag at the given position
+     */
+    private int matchTag(char[] chars, int length, int start) {
+        if (chars[start] == '-')
+            return (start + 2 < length && chars[start + 1] == '-' && chars[start + 2] == '>') ? start + 3 : -1;
+
+        if (start + 1 >= length)
+            return -1;
+
+        char c = chars[start + 1];
+
+        if (isTagNameStart(c)) {
+            // <name ... >
+            int gt = indexOfGt(chars, length, start + 2);
+            return gt < length ? gt + 1 : -1;
+        } else if (c == '/') {
+            // </name ... >
+            if (start + 2 < length && isTagNameStart(chars[start + 2])) {
+                int gt = indexOfGt(chars, length, start + 3);
+                return gt < length ? gt + 1 : -1;
+            }
+        } else if (c == '!') {
+            if (start + 2 < length && isTagNameStart(chars[start + 2])) {
+                // <!name ... X> where X is not '/', or where X is the first '>' itself
+                int name = start + 2;
+                int gt = indexOfGt(chars, length, name + 1);
+
+                if (gt < length) {
+                    if (gt + 1 < length && chars[gt + 1] == '>')
+                        return gt + 2;
+                    if (gt - 1 > name && chars[gt - 1] != '/')
+                        return gt + 1;
+                }
+            } else if (start + 3 < length && chars[start + 2] == '-' && chars[start + 3] == '-') {
+                // <!--
+                return start + 4;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * Matches the same strings of XMLCharacterEntity.EntityPattern starting at the given position.
+     *
+     * @return the end of the entity, or -1 if there is no entity at the given position
+     */
+    private static int matchEntity(char[] chars, int length, int start) {
+        int i = start + 1;
+
+        if (i < length && chars[i] == '#') {
+            i++;
+
+            boolean hex = i < length && chars[i] == 'x';
+            if (hex)
+                i++;
+
+            int begin = i;
+            while (i < length && i - begin < 4 && (hex ? isHexDigit(chars[i]) : (chars[i] >= '0' && chars[i] <= '9')))
+                i++;
+
+            if (i == begin)
+                return -1;
+        } else {
+            int begin = i;
+            while (i < length && ((chars[i] >= 'a' && chars[i] <= 'z') || (chars[i] >= 'A' && chars[i] <= 'Z')))
+                i++;
+
+            if (i == begin)
+                return -1;
+        }
+
+        return (i < length && chars[i] == ';') ? i + 1 : -1;
+    }
+
+    // Rare chars, whitespaces, numbers and case normalization
+
+    private void normalize() {
+        char[] chars = builder.toCharArray();
+        SentenceBuilder.Editor editor = builder.edit();
+
+        boolean sentenceBegin = true;
+        boolean upperCaseFound = false;
+        boolean lowerCaseFound = false;
+
+        int whitespaceStart = -1;
+        int digitStart = -1;
+        boolean zeroesOnly = true;
+
+        int i;
+        for (i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            byte type = c < TABLE_SIZE ? CHAR_CLASS[c] : OTHER;
+
+            if (digitStart >= 0 && type != DIGIT) {
+                if (!zeroesOnly)
+                    editor.replace(digitStart, i - digitStart, zeroes(i - digitStart));
+                digitStart = -1;
+            }
+
+            if (type == WHITESPACE) {
+                if (whitespaceStart == -1)
+                    whitespaceStart = i;
+                continue;
+            }
+
+            if (whitespaceStart >= 0) {
+                if (sentenceBegin)
+                    editor.delete(whitespaceStart, i - whitespaceStart);
+                else if (i - whitespaceStart > 1 || chars[whitespaceStart] != ' ')
+                    editor.replace(whitespaceStart, i - whitespaceStart, " ");
+                whitespaceStart = -1;
+            }
+
+            sentenceBegin = false;
+
+            if (type == DIGIT) {
+                if (digitStart == -1) {
+                    digitStart = i;
+                    zeroesOnly = true;
+                }
+                if (c != '0')
+                    zeroesOnly = false;
+            } else if (type == RARE) {
+                editor.replace(i, 1, Character.toString(REPLACEMENT[c]));
+            } else if (!lowerCaseFound) {
+                if (Character.isLowerCase(c))
+                    lowerCaseFound = true;
+                else if (!upperCaseFound && Character.isUpperCase(c))
+                    upperCaseFound = true;
+            }
+        }
+
+        if (digitStart >= 0 && !zeroesOnly)
+            editor.replace(digitStart, i - digitStart, zeroes(i - digitStart));
+        if (whitespaceStart >= 0)
+            editor.delete(whitespaceStart, i - whitespaceStart);
+
+        editor.commit();
+
+        if (upperCaseFound && !lowerCaseFound) {
+            chars = builder.toCharArray();
+            boolean firstLetter = false;
+
+            for (int j = 0; j < chars.length; j++) {
+                if (Character.isUpperCase(chars[j])) {
+                    if (firstLetter)
+                        chars[j] = Character.toLowerCase(chars[j]);
+                    else
+                        firstLetter = true;
+                }
+            }
+
+            builder.addAnnotation(UpperCasePreprocessor.ANNOTATION);
+
+            editor = builder.edit();
+            editor.replace(0, chars.length, new String(chars));
+            editor.commit();
+        }
+    }
+
+    private static String zeroes(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = '0';
+        return new String(chars);
+    }
+
+}
@@ -67,7 +67,7 @@ public class IndexMap {
 
         /*if necessary, create a new positions array*/
         if (this.positions == null || this.positions.length < this.arrayLength)
-            this.positions = new int[this.arrayLength];
+            this.positions = new int[Math.max(this.arrayLength, this.positions == null ? 0 : this.positions.length * 2)];
 
         /*positions is initialized so that in each position i it contains the value i itself:
          * therefore, at the very beginning it maps the original string with itself*/
@@ -96,19 +96,21 @@ public class IndexMap {
         /*the length of the text to replace*/
         int oldLength = end - start;
         /*the new length that the positions array must assume*/
+        int previousArrayLength = this.arrayLength;
         this.arrayLength = this.arrayLength - oldLength + newLength;
 
         /*if the replacement is longer than the text to replace*/
         if (newLength > oldLength) {
-            /*if necessary, replace the whole array with a new bigger one*/
+            /*if necessary, replace the whole array with a new bigger one;
+             * the array grows geometrically, so that it is soon large enough for any string*/
             if (this.arrayLength > this.positions.length) {
-                int[] newArray = new int[arrayLength];
-                System.arraycopy(this.positions, 0, newArray, 0, start);
+                int[] newArray = new int[Math.max(arrayLength, positions.length * 2)];
+                System.arraycopy(this.positions, 0, newArray, 0, previousArrayLength);
                 this.positions = newArray;
             }
 
             /*shift rightwards the array portion that follows the end of the text to replace*/
-            shiftPortion(end, this.arrayLength, newLength - oldLength);
+            shiftPortion(end, previousArrayLength, newLength - oldLength);
             /*update the positions between start and the new end
              * with values that distribute proportionally in relation to
              * the values at start and at the end of the new portion*/
@@ -20,7 +20,9 @@ import java.util.*;
  * <p>
  * In order to perform String processing the SentenceBuilder employs one Editor,
  * that can update the current string by creating and committing Transformations.
- * The SentenceBuilder also has a Transformation list all Editors add their Transformations to when executing commit.
+ * The SentenceBuilder also stores the Transformations all Editors commit;
+ * in order to avoid allocating one object per Transformation, they are kept in parallel primitive arrays
+ * (start, end, text length, text, replacement and token factory) that are reused across strings.
  * <p>
  * Moreover, the SentenceBuilder has a reference to a IndexMap object
  * that for each position on the local version of the string in the current Editor
@@ -35,13 +37,25 @@ import java.util.*;
  */
 public class SentenceBuilder {
 
+    private static final int INITIAL_CAPACITY = 64;
+
     private final HashSet<String> annotations = new HashSet<>();
     /*original string to tokenize*/
     private String originalString;
     /*the string as it appears after the changes performed during last commit*/
     private StringBuilder currentString;
-    /*ordered list that stores the Transformation committed by the editor so far*/
-    private List<Transformation> sentenceBuilderTransformations;
+    /*Transformations are stored in parallel arrays, in the order they are created by the editor:
+     * positions [0, committed) hold committed Transformations (indexes refer to the original string),
+     * positions [committed, size) hold the Transformations of the current editor scan
+     * (indexes still refer to the current string)*/
+    private int size = 0;
+    private int committed = 0;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] textLengths = new int[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private String[] replacements = new String[INITIAL_CAPACITY];
+    private TokenFactory[] factories = new TokenFactory[INITIAL_CAPACITY];
     /*indexMap is an object that for each position in currentString
      * stores the corresponding position in the original string*/
     private IndexMap indexMap;
@@ -50,6 +64,11 @@ public class SentenceBuilder {
      * It is a singleton and it can never serve by more than one client at a time*/
     private final Editor editor = new Editor();
 
+    /*buffers reused by build() in order to select and sort the tokenizable Transformations*/
+    private final BitSet tokenized = new BitSet();
+    private long[] sortKeys = new long[INITIAL_CAPACITY];
+    private final ArrayList<Word> words = new ArrayList<>();
+    private final ArrayList<Tag> tags = new ArrayList<>();
 
     /**
      * This constructor generates an empty SentenceBuilder,
@@ -63,8 +82,6 @@ public class SentenceBuilder {
         this.originalString = null;
         /*at the beginning no transformations have been performed*/
         this.currentString = new StringBuilder();
-        /*list of transformation lists generated by editors*/
-        this.sentenceBuilderTransformations = new ArrayList<>();
         /*initialize indexMap array that maps each position of the current string
          * to a position in the original string*/
         this.indexMap = new IndexMap();
@@ -94,8 +111,8 @@ public class SentenceBuilder {
         this.currentString.setLength(0);
         this.currentString.append(string);
 
-        /*list of transformation lists generated by editors*/
-        this.sentenceBuilderTransformations.clear();
+        /*no transformations have been committed*/
+        this.clearTransformations(0);
 
         /*initialize indexMap array that maps each position of the current string
          * to a position in the original string*/
@@ -118,8 +135,8 @@ public class SentenceBuilder {
         /*at the beginning no transformations have been performed*/
         this.currentString.setLength(0);
 
-        /*list of transformation lists generated by editors*/
-        this.sentenceBuilderTransformations.clear();
+        /*no transformations have been committed*/
+        this.clearTransformations(0);
 
         /*collection of annotations*/
         this.annotations.clear();
@@ -139,6 +156,46 @@ public class SentenceBuilder {
         return this.editor.init();
     }
 
+    /**
+     * Removes all the Transformations from the given position on,
+     * releasing the references to their strings.
+     *
+     * @param from the new number of Transformations
+     */
+    private void clearTransformations(int from) {
+        for (int i = from; i < size; i++) {
+            texts[i] = null;
+            replacements[i] = null;
+            factories[i] = null;
+        }
+
+        this.size = from;
+        this.committed = Math.min(committed, from);
+    }
+
+    /**
+     * Appends a new Transformation to the parallel arrays, growing them if necessary.
+     */
+    private void addTransformation(int start, int end, String text, String replacement, TokenFactory factory) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            textLengths = Arrays.copyOf(textLengths, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            replacements = Arrays.copyOf(replacements, capacity);
+            factories = Arrays.copyOf(factories, capacity);
+        }
+
+        starts[size] = start;
+        ends[size] = end;
+        textLengths[size] = end - start;
+        texts[size] = text;
+        replacements[size] = replacement;
+        factories[size] = factory;
+        size++;
+    }
+
     /**
      * Method that scans all transformations committed by the editor;
      * it selects the non-in-conflict transformations with highest priority,
@@ -148,18 +205,19 @@ public class SentenceBuilder {
      * @return the Sentence resulting from the transformations on the original string
      */
     public Sentence build() {
-        /*List of the highest priority transformation that do not overlap
+        /*select the highest priority transformations that do not overlap
          * and can therefore be all used to generate tokens*/
-        List<Transformation> tokenizableTransformations = this.getTokenizableTransformations();
+        int count = this.selectTokenizableTransformations();
 
-        /*Lists of words and tags generated by the tokenizable transformations*/
-        TokenSet tokenSet = this.tokenize(tokenizableTransformations);
-        List<Word> words = tokenSet.words;
-        List<Tag> tags = tokenSet.tags;
+        /*fill the words and tags lists with the tokens generated by the tokenizable transformations*/
+        this.tokenize(count);
 
         /*build the Sentence based on the words and tags lists */
         Sentence sentence = new Sentence(words.toArray(new Word[words.size()]), tags.toArray(new Tag[tags.size()]));
 
+        words.clear();
+        tags.clear();
+
         /*set sentence annotations*/
         if (!annotations.isEmpty())
             sentence.addAnnotations(annotations);
@@ -173,162 +231,114 @@ public class SentenceBuilder {
      * and selects those that can be employed to generate tokens.
      * In case of conflict between two or more Transformations,
      * the Transformations with lower priority are filtered out.
-     * The resulting Transformation list is sorted by increasing start position.
+     * The indexes of the selected Transformations are stored in the sortKeys buffer,
+     * sorted by increasing start position.
      * <p>
      * Note: replacements are considered as non tokenizable Transformations
      *
-     * @return the list of high-priority, non overlapping transformations,
-     * sorted by their start position on the original string
+     * @return the number of high-priority, non overlapping transformations
      */
-    private List<Transformation> getTokenizableTransformations() {
+    private int selectTokenizableTransformations() {
 
-        /*Create a bitset with as many bits as the positions in originalString
-         * the bitset is employed to remember, for each position in the original string,
+        /*the bitset is employed to remember, for each position in the original string,
          * whether the corresponding character has been altered by a transformation or not*/
-        BitSet bitset = new BitSet(this.originalString.length());
+        tokenized.clear();
 
-        /*List of priority, non overlapping tokenizable transformations extracted so far
-         * from the SentenceBuilder list of transformation lists*/
-        List<Transformation> tokenizableTransformations = new ArrayList<>();
+        if (sortKeys.length < committed)
+            sortKeys = new long[starts.length];
 
-        /*Scan the Transformation list backwards, from the last one to the first one*/
-        for (int j = sentenceBuilderTransformations.size() - 1; j >= 0; j--) {
-
-            Transformation t = sentenceBuilderTransformations.get(j);
-
-            /*the current transformation is by default tokenizable*/
-            boolean tokenizable = true;
+        int count = 0;
 
+        /*Scan the Transformations backwards, from the last one to the first one*/
+        for (int j = committed - 1; j >= 0; j--) {
             /* if the transformation has no tokenfactory, (e.g. it is a replacement)
              * it is not tokenizable and will be skipped*/
-            if (t.tokenFactory == null)
-                tokenizable = false;
+            if (factories[j] == null)
+                continue;
 
             /*then, check if the transformation is in conflict with already visited ones.
              * A transformation is in conflict if some of its positions in the bitset
              * have already been set to true by other already visited transformations
-             * (that have thus higher priority).
-             * If this happens, the transformation is not tokenizable*/
-            for (int h = t.start; h < t.end && tokenizable; h++) {
-                tokenizable = !bitset.get(h);
-            }
+             * (that have thus higher priority).*/
+            int start = starts[j];
+            int end = ends[j];
 
-            /*finally, if the current transformation is still considered tokenizable,
-             * it is added to the ordered list of tokenizable transformations*/
-            if (tokenizable) {
-                for (int h = t.start; h < t.end; h++) {
-                    bitset.set(h, true);
-                }
-                tokenizableTransformations.add(t);
-            }
+            int conflict = tokenized.nextSetBit(start);
+            if (conflict >= 0 && conflict < end)
+                continue;
+
+            tokenized.set(start, end);
+
+            /*the sort key holds the start position in the upper bits and the reversed transformation index
+             * in the lower ones: transformations with the same start keep the selection order*/
+            sortKeys[count++] = ((long) start << 32) | (Integer.MAX_VALUE - j);
         }
 
+        /*the tokenizable transformations are sorted by increasing start position*/
+        Arrays.sort(sortKeys, 0, count);
+        return count;
+    }
 
-        /*the tokenizable transformations list is sorted by increasing start position*/
-        Collections.sort(tokenizableTransformations,
-                new Comparator<Transformation>() {
-                    @Override
-                    public int compare(Transformation o1, Transformation o2) {
-                        return o1.start - o2.start;
-                    }
-                });
-        return tokenizableTransformations;
+    private int transformationAt(int sortIndex) {
+        return Integer.MAX_VALUE - (int) sortKeys[sortIndex];
     }
 
+    /**
+     * Returns the text of the original string between the given positions, XML unescaped.
+     * Most tokens and spaces contain no XML entities, so the regex based unescaping is avoided for them.
+     */
+    private String unescapedSubstring(int start, int end) {
+        if (end - start == 1 && originalString.charAt(start) == ' ')
+            return " ";
+
+        String text = originalString.substring(start, end);
+        return text.indexOf('&') < 0 ? text : XMLCharacterEntity.unescapeAll(text);
+    }
 
     /**
      * Method that scans over all the tokenizable Transformations and
-     * generates a Token object for each of them.
+     * generates a Token object for each of them, filling the words and tags lists.
      *
-     * @param transformations the list of all tokenizable Transformations,
-     *                        sorted by increasing start position
-     * @return a TokenSet containing a separate list of Tokens
-     * for each Token type generated (e.g. words, tags, etc).
+     * @param count the number of tokenizable Transformations in the sortKeys buffer
      */
-    private TokenSet tokenize(List<Transformation> transformations) {
-
-        /*get the original String as a char array*/
-        char[] originalChars = this.originalString.toCharArray();
-
-        /*list of words obtained by the tokenization process*/
-        List<Word> words = new ArrayList<>();
-        /*list of tags obtained by the tokenization process*/
-        List<Tag> tags = new ArrayList<>();
+    private void tokenize(int count) {
+        int length = this.originalString.length();
 
-        /*for each tokenizable transformation in list*/
-        for (int i = 0; i < transformations.size(); i++) {
-
-            Transformation transformation = transformations.get(i);
+        /*for each tokenizable transformation in the sorted buffer*/
+        for (int i = 0; i < count; i++) {
+            int j = transformationAt(i);
 
             /*extract the necessary information from the transformation*/
-            String placeholderText = transformation.text;
-            TokenFactory tokenFactory = transformation.tokenFactory;
-
-            /*compute additional information about the way that
-             the current transformation is linked to the previous and next ones in the list*/
-
-            /*there is a space between previous transformation text and current one*/
-            boolean hasLeftSpace;
-            /*there is a space between previous transformation text and next one*/
-            boolean hasRightSpace;
-            /*string with the space between current transformation text and next one*/
-            String rightSpace = null;
-            /*amount of WORDS that occur before the current transformation*/
-            int tagPosition;
-
-            /*compute hasLeftSpace*/
-            /*if the current transformation is the first one in the list,
-             * it has a leftspace if it doesn't start at position 0 */
-            if (i == 0) {
-                hasLeftSpace = (transformation.start != 0);
-                /*else, if the current transformation is not the first one in the list
-                 * it has a leftspace if it doesn't start at the end of its predecessor*/
-            } else {
-                Transformation previousTransformation = transformations.get(i - 1);
-                hasLeftSpace = (transformation.start - previousTransformation.end != 0);
-            }
-
-            /*compute hasRightSpace and rightSpace*/
-            /*if the current transformation is the last one in the list*/
-            if (i == transformations.size() - 1) {
-                hasRightSpace = (transformation.end != originalChars.length);
-
-                /*RightSpace can only be extracted by the original string,
-                as the transformation indexes refer to positions in the original string.
-                However the original string still has
-                    - xml tags
-                    - xml escaping sequences (e.g: &lt;, &gr;, &nbsp;, etc).
-                    - rare chars
-                    - whitespaces
-                    - etc
-                XML tags lead to the creation of new Tag Transformations that are now in the
-                tokenizable transformations list, so an XML tag can't be in a rightspace.
-
-                Xml escaping sequences, rare chars and whitespaces on the contrary
-                generate Replacement Transformations, that are not tokenizable
-                so are not in the tokenizable list.
-                While we are ok with having rarechars and whitespaces in the rightspace,
-                we still don't want XML escaping sequences.
-                Therefore we unescape the rightspace.*/
-                if (hasRightSpace) {
-                    //rightSpace = XMLCharacterEntity.unescapeAll(originalChars, transformation.end, originalChars.length - transformation.end);
-                    rightSpace = XMLCharacterEntity.unescapeAll(new String(originalChars, transformation.end, originalChars.length - transformation.end));
-                }
-                /*if the current transformation is not the last one in the list*/
-            } else {
-                Transformation nextTransformation = transformations.get(i + 1);
-                hasRightSpace = (transformation.end != nextTransformation.start);
-
-                if (hasRightSpace) {
-                    /*unescape the rightspace (see comment above to understand why)*/
-                    rightSpace = XMLCharacterEntity.unescapeAll(new String(originalChars, transformation.end, nextTransformation.start - transformation.end));
-
-                }
-            }
-
-            /*compute tagPosition*/
-            /*the current tag position is the amount of words in the words list*/
-            tagPosition = words.size();
+            int start = starts[j];
+            int end = ends[j];
+            TokenFactory tokenFactory = factories[j];
+
+            /*the current transformation has a left space
+             * if it doesn't start at the end of its predecessor (or at position 0 if it is the first one)*/
+            int previousEnd = i == 0 ? 0 : ends[transformationAt(i - 1)];
+            boolean hasLeftSpace = (start != previousEnd);
+
+            /*the current transformation has a right space
+             * if it doesn't end at the start of the next one (or at the end of the string if it is the last one)*/
+            int nextStart = i == count - 1 ? length : starts[transformationAt(i + 1)];
+
+            /*RightSpace can only be extracted by the original string,
+            as the transformation indexes refer to positions in the original string.
+            However the original string still has
+                - xml tags
+                - xml escaping sequences (e.g: &lt;, &gr;, &nbsp;, etc).
+                - rare chars
+                - whitespaces
+                - etc
+            XML tags lead to the creation of new Tag Transformations that are tokenizable,
+            so an XML tag can't be in a rightspace.
+
+            Xml escaping sequences, rare chars and whitespaces on the contrary
+            generate Replacement Transformations, that are not tokenizable.
+            While we are ok with having rarechars and whitespaces in the rightspace,
+            we still don't want XML escaping sequences.
+            Therefore we unescape the rightspace.*/
+            String rightSpace = end != nextStart ? unescapedSubstring(end, nextStart) : null;
 
             /*the original text is necessary to create the Token.
              However
@@ -342,15 +352,13 @@ public class SentenceBuilder {
                  */
             String originalText;
             if (tokenFactory == TokenFactory.TAG_FACTORY) {
-                originalText = new String(originalChars, transformation.start, transformation.end - transformation.start);
+                originalText = originalString.substring(start, end);
             } else {
-                //originalText = XMLCharacterEntity.unescapeAll(originalChars, transformation.start, transformation.end - transformation.start);
-                originalText = XMLCharacterEntity.unescapeAll(new String(originalChars, transformation.start, transformation.end - transformation.start));
-
+                originalText = unescapedSubstring(start, end);
             }
 
-            /*generate the Token*/
-            Token token = tokenFactory.build(originalText, placeholderText, hasLeftSpace, rightSpace, tagPosition);
+            /*generate the Token; the tag position is the amount of words created so far*/
+            Token token = tokenFactory.build(originalText, texts[j], hasLeftSpace, rightSpace, words.size());
 
             /*put the token in the separate list corresponding to its class*/
             if (token instanceof Tag) {
@@ -359,13 +367,8 @@ public class SentenceBuilder {
                 words.add((Word) token);
             }
         }
-
-        /*create and return a new tokenset with the various token lists obtained*/
-        return new TokenSet(words, tags);
     }
 
-
-
     /*getters and setters*/
 
     public String getOriginalString() {
@@ -418,7 +421,6 @@ public class SentenceBuilder {
      * - gets ready for serving a new client.
      */
     public class Editor {
-        private final List<Transformation> localTransformations = new ArrayList<>();
         private boolean inUse = false;
 
         /**
@@ -444,7 +446,7 @@ public class SentenceBuilder {
                 throw new IllegalStateException("this Editor is already in use");
             }
 
-            this.localTransformations.clear();
+            clearTransformations(committed);
             this.inUse = true;
 
             return this;
@@ -456,9 +458,9 @@ public class SentenceBuilder {
          * a replacement string (null is no replacement is involved in the Transformation),
          * and a reference to the token factory to use during build (null for simple replacements).
          * <p>
-         * The Editor now proceeds to create a Transformation object
-         * with indexes referring to the currentString in the SentenceBuilder.
-         * and stores it in the Transformation in a local list.
+         * The Editor now proceeds to store a Transformation
+         * with indexes referring to the currentString in the SentenceBuilder,
+         * after the ones already committed.
          * <p>
          * Potential replacements are not executed contextually to the SetTransformation method;
          * they are handled during the commit method instead.
@@ -485,18 +487,12 @@ public class SentenceBuilder {
                     throw new UnsupportedOperationException("Empty replacements not yet supported in the middle of the sencence");
             }
 
-            /*the text that is target to this transformation*/
-            String text = currentString.substring(currentStart, currentEnd);
-
-            /*create the transformation using the positions in the original string*/
-            Transformation transformation = new Transformation(
-                    currentStart,
-                    currentEnd,
-                    text,
-                    replacement,
-                    factory);
+            /*the text that is target to this transformation is only needed
+             * as placeholder of the Token it generates, if any*/
+            String text = factory == null ? null : currentString.substring(currentStart, currentEnd);
 
-            this.localTransformations.add(transformation);
+            /*store the transformation using the positions in the current string*/
+            addTransformation(currentStart, currentEnd, text, replacement, factory);
         }
 
         /**
@@ -608,35 +604,35 @@ public class SentenceBuilder {
             int offset = 0;
 
             /*executes replacements*/
-            for (Transformation t : this.localTransformations) {
+            for (int j = committed; j < size; j++) {
 
                 /*computes the transformation start on the currentString*/
-                int currentStart = t.start + offset;
+                int currentStart = starts[j] + offset;
                 /*computes the transformation end on the currentString*/
-                int currentEnd = t.end + offset;
+                int currentEnd = ends[j] + offset;
                 /*computes the transformation start on the originalString*/
-                t.start = indexMap.get(currentStart);
+                starts[j] = indexMap.get(currentStart);
                 /*computes the transformation end on the originalString*/
-                t.end = indexMap.get(currentEnd);
+                ends[j] = indexMap.get(currentEnd);
 
                 /*process replacement, if necessary*/
-                if (t.replacement != null) {
+                String replacement = replacements[j];
+                if (replacement != null) {
                     /*replace the symbols on the currentString*/
-                    currentString.replace(currentStart, currentEnd, t.replacement);
+                    currentString.replace(currentStart, currentEnd, replacement);
                     /*update the mapping information in the indexMap:
                      * the portion from currentStart to currentEnd
-                     * has become t.replacement.length() long*/
-                    indexMap.update(currentStart, currentEnd, t.replacement.length());
+                     * has become replacement.length() long*/
+                    indexMap.update(currentStart, currentEnd, replacement.length());
                     /*since the replacement was now completed,
                      * the following transformation must now use a different offset*/
-                    offset = offset - t.text.length() + t.replacement.length();
+                    offset = offset - textLengths[j] + replacement.length();
                 }
             }
-            /*add this Editor's transformation list to the SentenceBuilder Transformation lists*/
-            sentenceBuilderTransformations.addAll(this.localTransformations);
+            /*this Editor's transformations are now part of the SentenceBuilder committed ones*/
+            committed = size;
 
             /*make the editor ready to start over with a new client*/
-            localTransformations.clear();
             this.inUse = false;
 
             return SentenceBuilder.this;
@@ -652,7 +648,7 @@ public class SentenceBuilder {
          */
         public void abort() {
             /*make the editor ready to start over*/
-            localTransformations.clear();
+            clearTransformations(committed);
             this.inUse = false;
         }
     }
@@ -47,6 +47,147 @@ public class XMLTagProjector {
 
     }
 
+    /**
+     * Index of the word alignment used to map tags: it is computed once per translation
+     * with a single scan of the alignment, so that the aligned words of a tag pair are found in constant time
+     * and every self-closing tag is mapped with a single scan of the target words.
+     */
+    private static class AlignmentIndex {
+
+        /*sparse tables of the min and max target words aligned to the source words: the row k contains,
+         * for every source word i, the min (max) target word aligned to the source words in [i, i + 2^k)*/
+        private final int[][] minTarget;
+        private final int[][] maxTarget;
+        /*for every target word, the source word of its first alignment point (-1 if not aligned);
+         * this point decides if the target word is at the left or at the right of a self-closing tag*/
+        private final int[] firstSource;
+        /*for every source position p, the number of target words whose first alignment point is at p or after*/
+        private final int[] alignedFrom;
+
+        public AlignmentIndex(Alignment alignment, int targetLength) {
+            int[] sources = alignment.getSourceIndexes();
+            int[] targets = alignment.getTargetIndexes();
+
+            int sourceLength = 0;
+            for (int source : sources)
+                sourceLength = Math.max(sourceLength, source + 1);
+
+            int levels = 1;
+            while ((1 << levels) <= sourceLength)
+                levels++;
+
+            minTarget = new int[levels][];
+            maxTarget = new int[levels][];
+            minTarget[0] = new int[sourceLength];
+            maxTarget[0] = new int[sourceLength];
+            Arrays.fill(minTarget[0], Integer.MAX_VALUE);
+            Arrays.fill(maxTarget[0], -1);
+
+            firstSource = new int[targetLength];
+            Arrays.fill(firstSource, -1);
+
+            for (int i = 0; i < sources.length; i++) {
+                int source = sources[i];
+                int target = targets[i];
+
+                if (source >= 0) {
+                    minTarget[0][source] = Math.min(minTarget[0][source], target);
+                    maxTarget[0][source] = Math.max(maxTarget[0][source], target);
+                }
+
+                if (target >= 0 && target < targetLength && firstSource[target] == -1)
+                    firstSource[target] = source;
+            }
+
+            for (int k = 1; k < levels; k++) {
+                int half = 1 << (k - 1);
+                int length = sourceLength - (1 << k) + 1;
+
+                minTarget[k] = new int[length];
+                maxTarget[k] = new int[length];
+
+                for (int i = 0; i < length; i++) {
+                    minTarget[k][i] = Math.min(minTarget[k - 1][i], minTarget[k - 1][i + half]);
+                    maxTarget[k][i] = Math.max(maxTarget[k - 1][i], maxTarget[k - 1][i + half]);
+                }
+            }
+
+            alignedFrom = new int[sourceLength + 1];
+            for (int source : firstSource) {
+                if (source >= 0)
+                    alignedFrom[source]++;
+            }
+            for (int i = sourceLength - 1; i >= 0; i--)
+                alignedFrom[i] += alignedFrom[i + 1];
+        }
+
+        /**
+         * @return the min target word aligned to the source words in [start, end), or Integer.MAX_VALUE if none
+         */
+        public int getMinTarget(int start, int end) {
+            start = Math.max(start, 0);
+            end = Math.min(end, minTarget[0].length);
+            if (start >= end)
+                return Integer.MAX_VALUE;
+
+            int k = 31 - Integer.numberOfLeadingZeros(end - start);
+            return Math.min(minTarget[k][start], minTarget[k][end - (1 << k)]);
+        }
+
+        /**
+         * @return the max target word aligned to the source words in [start, end), or -1 if none
+         */
+        public int getMaxTarget(int start, int end) {
+            start = Math.max(start, 0);
+            end = Math.min(end, maxTarget[0].length);
+            if (start >= end)
+                return -1;
+
+            int k = 31 - Integer.numberOfLeadingZeros(end - start);
+            return Math.max(maxTarget[k][start], maxTarget[k][end - (1 << k)]);
+        }
+
+        /**
+         * Finds the target position of a self-closing tag that respects most of the left-right
+         * word-tag relationships of the source sentence: words at the left of the tag
+         * in the source sentence should be at the left of the mapped tag in the translation,
+         * and the same for those at the right.
+         *
+         * @param sourcePosition the position of the tag in the source sentence
+         * @param openingTag     true if the tag is an opening tag (opening tags are shifted to the right)
+         * @return the best position of the tag in the translation
+         */
+        public int getBestPosition(int sourcePosition, boolean openingTag) {
+            int left = 0;
+            int right = alignedFrom[Math.min(Math.max(sourcePosition, 0), alignedFrom.length - 1)];
+
+            int maxScore = right;
+            int bestPosition = 0;
+
+            for (int i = 0; i < firstSource.length; i++) {
+                int source = firstSource[i];
+
+                if (source != -1) {
+                    if (source < sourcePosition)
+                        left++;
+                    else
+                        right--;
+                }
+
+                int score = left + right;
+
+                //Remember the best position and score (for opening tag prefer to shift them to the right)
+                if ((openingTag && score >= maxScore) || (!openingTag && score > maxScore)) {
+                    maxScore = score;
+                    bestPosition = i + 1;
+                }
+            }
+
+            return bestPosition;
+        }
+
+    }
+
     public Translation project(Translation translation) {
         Sentence source = translation.getSource();
         if (source.hasTags()) {
@@ -66,25 +207,22 @@ public class XMLTagProjector {
 
     public static List<ExtendedTag> mapTags(Translation translation) {
         Tag[] sourceTags = translation.getSource().getTags();
-        Token[] sourceWord = translation.getSource().getWords();
         Token[] targetTokens = translation.getWords();
         Alignment alignment = translation.getWordAlignment();
         List<ExtendedTag> translationTags = new ArrayList<>(sourceTags.length);
-        Map<Integer, Integer> closing2opening = new HashMap<>();
 
-        Set<Integer> sourceLeftToken = new HashSet<>();
-        Set<Integer> sourceRightToken = new HashSet<>();
-        Set<Integer> targetLeftToken = new HashSet<>();
-        Set<Integer> targetRightToken = new HashSet<>();
-        Set<Integer> leftTokenIntersection = new HashSet<>();
-        Set<Integer> rightTokenIntersection = new HashSet<>();
+        AlignmentIndex index = new AlignmentIndex(alignment, targetTokens.length);
+
+        //For every closing tag, the position of its opening tag mapped as a self-closing tag (-1 if none)
+        int[] closing2opening = new int[sourceTags.length];
+        Arrays.fill(closing2opening, -1);
 
-        Set<Integer> alignedTags = new HashSet<Integer>();
+        boolean[] alignedTags = new boolean[sourceTags.length];
 
         for (int tagIndex = 0; tagIndex < sourceTags.length; tagIndex++) {
             Tag sourceTag = sourceTags[tagIndex];
             //If the tag has been already mapped (such as well formed closing tags), then continue
-            if (alignedTags.contains(tagIndex)) {
+            if (alignedTags[tagIndex]) {
                 continue;
             }
 
@@ -96,16 +234,10 @@ public class XMLTagProjector {
             if (closingTagIndex != -1) {
                 Tag closingTag = sourceTags[closingTagIndex];
                 int closePosition = closingTag.getPosition();
-                int minPos = Integer.MAX_VALUE;
-                int maxPos = -1;
 
                 //Check if they contain some aligned words
-                for (int[] align : alignment) {
-                    if (align[0] >= sourcePosition && align[0] < closePosition) {
-                        minPos = Math.min(minPos, align[1]);
-                        maxPos = Math.max(maxPos, align[1]);
-                    }
-                }
+                int minPos = index.getMinTarget(sourcePosition, closePosition);
+                int maxPos = index.getMaxTarget(sourcePosition, closePosition);
 
                 //If they contain no aligned words, treat the current tag as a self-closing tag
                 if (minPos == Integer.MAX_VALUE || maxPos == -1) {
@@ -122,8 +254,8 @@ public class XMLTagProjector {
                     closingTargetTag.setPosition(maxPos);
                     translationTags.add(new ExtendedTag(closingTargetTag, closingTag.getPosition(), closingTagIndex, maxPos));
 
-                    alignedTags.add(tagIndex);
-                    alignedTags.add(closingTagIndex);
+                    alignedTags[tagIndex] = true;
+                    alignedTags[closingTagIndex] = true;
                 }
             } else {
                 //If not closing tag has been found, treat this tag as a self-closing tag
@@ -132,76 +264,19 @@ public class XMLTagProjector {
 
             //If it is a self-closing tag
             if (singleTag) {
-                sourceLeftToken.clear();
-                sourceRightToken.clear();
-                //Words that are at the left of the tag in the source sentence, should be at left of the mapped tag
-                //in the translation. Some reasoning for those that are at the right.
-                for (int[] align : alignment) {
-                    //If the word is at the left of the current tag
-                    if (align[0] < sourcePosition) {
-                        if (!sourceRightToken.contains(align[1])) {
-                            //Remember that it should be at the left also in the translation
-                            sourceLeftToken.add(align[1]);
-                        }
-                    } else {
-                        //It the word is at the right of the current tag
-                        if (!sourceLeftToken.contains(align[1])) {
-                            //Remember that it should be at the right also in the translation
-                            sourceRightToken.add(align[1]);
-                        }
-                    }
-                }
-                boolean openingTag = sourceTag.isOpeningTag();
-                //Find the mapped position that respects most of the left-right word-tag relationship as possible.
-                targetLeftToken.clear();
-                targetRightToken.clear();
-                leftTokenIntersection.clear();
-                rightTokenIntersection.clear();
-
-                for (int i = 0; i < targetTokens.length; i++) {
-                    targetRightToken.add(i);
-                }
-                rightTokenIntersection.addAll(sourceRightToken);
-                rightTokenIntersection.retainAll(targetRightToken);
-                int maxScore = rightTokenIntersection.size();
-                int bestPosition = 0;
-
-                int actualPosition = 0;
-                for (int i = 0; i < targetTokens.length; i++) {
-                    actualPosition++;
-
-                    targetLeftToken.add(i);
-                    targetRightToken.remove(i);
-                    leftTokenIntersection.clear();
-                    rightTokenIntersection.clear();
-
-                    leftTokenIntersection.addAll(sourceLeftToken);
-                    leftTokenIntersection.retainAll(targetLeftToken);
-                    rightTokenIntersection.addAll(sourceRightToken);
-                    rightTokenIntersection.retainAll(targetRightToken);
-                    int score = leftTokenIntersection.size() + rightTokenIntersection.size();
-
-                    //Remember the best position and score (for opening tag prefer to shift them to the right)
-                    if ((openingTag && score >= maxScore) || (!openingTag && score > maxScore)) {
-                        maxScore = score;
-                        bestPosition = actualPosition;
-                    } else if (score < maxScore) {
-                        //The function that describes the score should be concave,
-                        // so we can break as soon it starts decreasing
-                        //break
-                    }
-                }
-                Integer openingPosition = closing2opening.get(tagIndex);
-                if (openingPosition != null) {
+                int bestPosition = index.getBestPosition(sourcePosition, sourceTag.isOpeningTag());
+
+                int openingPosition = closing2opening[tagIndex];
+                if (openingPosition != -1) {
                     bestPosition = Math.max(openingPosition, bestPosition);
                 } else if (closingTagIndex != -1) {
-                    closing2opening.put(closingTagIndex, bestPosition);
+                    closing2opening[closingTagIndex] = bestPosition;
                 }
                 //Map the tag to the best position
                 Tag targetTag = Tag.fromTag(sourceTag);
                 targetTag.setPosition(bestPosition);
                 translationTags.add(new ExtendedTag(targetTag, sourceTag.getPosition(), tagIndex, bestPosition));
-                alignedTags.add(tagIndex);
+                alignedTags[tagIndex] = true;
             }
         }
 
@@ -0,0 +1,401 @@
+package eu.modernmt.processing.benchmark;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.UnsupportedLanguageException;
+import eu.modernmt.model.Alignment;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import eu.modernmt.model.Word;
+import eu.modernmt.processing.Preprocessor;
+import eu.modernmt.processing.ProcessingException;
+import eu.modernmt.processing.ProcessingPipeline;
+import eu.modernmt.processing.TextProcessor;
+import eu.modernmt.processing.builder.XMLPipelineBuilder;
+import eu.modernmt.processing.string.SentenceBuilder;
+import eu.modernmt.processing.tokenizer.corenlp.CoreNLPTokenizer;
+import eu.modernmt.processing.tokenizer.jflex.ChineseJFlexTokenizer;
+import eu.modernmt.processing.tokenizer.jflex.JFlexTokenizer;
+import eu.modernmt.processing.tokenizer.kuromoji.KuromojiTokenizer;
+import eu.modernmt.processing.tokenizer.languagetool.LanguageToolTokenizer;
+import eu.modernmt.processing.tokenizer.lucene.LuceneTokenizer;
+import eu.modernmt.processing.tokenizer.opennlp.OpenNLPTokenizer;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Benchmark of the tokenizers and of the default preprocessing and postprocessing chains,
+ * over the sample text bundled for every supported language.
+ * <p>
+ * Every workload is run with an increasing number of threads; as in PipelineExecutor, every thread
+ * owns its processors, so a drop of the speedup reveals the contention on shared state
+ * (like the CoreNLP tokenizer factories). For each run it reports the throughput, the allocation rate
+ * of the worker threads and the speedup over the single-thread run.
+ * <p>
+ * Usage: ProcessingBenchmark [options]
+ * <pre>
+ *   -l lang1,lang2    languages to test (default: all the bundled samples)
+ *   -w workload,...   tokenizers, preprocessor, postprocessor (default: all)
+ *   -t 1,2,4          numbers of threads (default: 1 and the number of CPUs)
+ *   -d millis         duration of every measurement (default: 1000)
+ *   -W millis         duration of the warm-up before every measurement (default: 500)
+ * </pre>
+ * The tokenizers that need external models (like OpenNLP) are benchmarked only if the system property
+ * "mmt.processing.models" points to the models folder (i.e. vendor/ in the source tree).
+ */
+public class ProcessingBenchmark {
+
+    private static final String[] LANGUAGES = {
+            "ar", "bg", "br", "ca", "cs", "da", "de", "el", "en", "eo", "es", "eu", "fa", "fi", "fr", "ga",
+            "gl", "he", "hi", "hu", "hy", "id", "is", "it", "ja", "km", "ko", "lv", "ml", "nl", "no", "pl",
+            "pt", "pt-BR", "ro", "ru", "se", "sk", "sl", "sv", "ta", "th", "tl", "tr", "uk", "zh"
+    };
+
+    private static final List<Class<? extends TextProcessor>> TOKENIZERS = Arrays.asList(
+            LuceneTokenizer.class, CoreNLPTokenizer.class, OpenNLPTokenizer.class, KuromojiTokenizer.class,
+            LanguageToolTokenizer.class, JFlexTokenizer.class, ChineseJFlexTokenizer.class
+    );
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The work of a single thread: it processes the i-th sample and returns its length in chars
+     */
+    private interface Job {
+
+        int run(int i) throws ProcessingException;
+
+    }
+
+    private interface JobFactory {
+
+        Job create() throws ProcessingException;
+
+    }
+
+    private static class Result {
+
+        private final int threads;
+        private final long operations;
+        private final long chars;
+        private final long allocated;
+        private final long nanos;
+
+        private Result(int threads, long operations, long chars, long allocated, long nanos) {
+            this.threads = threads;
+            this.operations = operations;
+            this.chars = chars;
+            this.allocated = allocated;
+            this.nanos = nanos;
+        }
+
+        private double throughput() {
+            return operations * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+
+            return String.format("%3d threads  %10.0f sent/s  %8.2f Mchar/s  %8.1f MB/s alloc  %8.0f B/sent",
+                    threads, throughput(), chars / seconds / 1e6, allocated / seconds / (1024 * 1024),
+                    (double) allocated / operations);
+        }
+    }
+
+    // Workloads -------------------------------------------------------------------------------------------------------
+
+    private static Language target(Language source) {
+        return Language.ENGLISH.getLanguage().equals(source.getLanguage()) ? Language.ITALIAN : Language.ENGLISH;
+    }
+
+    private static JobFactory tokenizer(Class<? extends TextProcessor> tokenizerClass, Language language, String[] samples) {
+        return () -> {
+            TextProcessor<SentenceBuilder, SentenceBuilder> tokenizer = newTokenizer(tokenizerClass, language);
+            SentenceBuilder builder = new SentenceBuilder();
+            HashMap<String, Object> metadata = new HashMap<>();
+
+            return i -> {
+                String text = samples[i];
+                builder.initialize(text);
+                tokenizer.call(builder, metadata);
+                return text.length();
+            };
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TextProcessor<SentenceBuilder, SentenceBuilder> newTokenizer(Class<? extends TextProcessor> tokenizerClass,
+                                                                               Language language) throws ProcessingException {
+        try {
+            return tokenizerClass.getConstructor(Language.class, Language.class).newInstance(language, target(language));
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof UnsupportedLanguageException)
+                throw (UnsupportedLanguageException) e.getCause();
+            throw new ProcessingException("Unable to create " + tokenizerClass.getSimpleName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new ProcessingException("Unable to create " + tokenizerClass.getSimpleName(), e);
+        }
+    }
+
+    private static JobFactory preprocessor(XMLPipelineBuilder<String, Sentence> builder, Language language, String[] samples) {
+        return () -> {
+            ProcessingPipeline<String, Sentence> pipeline = builder.newPipeline(language, target(language));
+
+            return i -> {
+                String text = samples[i];
+                pipeline.call(text);
+                return text.length();
+            };
+        };
+    }
+
+    private static JobFactory postprocessor(XMLPipelineBuilder<Translation, Void> builder, Language language,
+                                            Sentence source, Sentence[] samples) {
+        return () -> {
+            ProcessingPipeline<Translation, Void> pipeline = builder.newPipeline(target(language), language);
+
+            return i -> {
+                Translation translation = decoderOutput(source, samples[i]);
+                pipeline.call(translation);
+                return samples[i].toString().length();
+            };
+        };
+    }
+
+    /*
+     * A translation as the decoder returns it: words have only placeholders and a monotone alignment
+     */
+    private static Translation decoderOutput(Sentence source, Sentence target) {
+        Word[] words = target.getWords();
+        Word[] output = new Word[words.length];
+        for (int i = 0; i < words.length; i++)
+            output[i] = new Word(words[i].getPlaceholder(), i < words.length - 1 ? " " : null);
+
+        int size = Math.min(words.length, source.getWords().length);
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++)
+            indexes[i] = i;
+
+        return new Translation(output, source, new Alignment(indexes, indexes));
+    }
+
+    // Runner ----------------------------------------------------------------------------------------------------------
+
+    private static Result run(JobFactory factory, int samples, int threads, long warmup, long duration) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean stop = new AtomicBoolean(false);
+
+        long[] operations = new long[threads];
+        long[] chars = new long[threads];
+        long[] allocated = new long[threads];
+        Throwable[] errors = new Throwable[threads];
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+
+            workers[t] = new Thread(() -> {
+                try {
+                    Job job = factory.create();
+                    barrier.await();
+
+                    int i = id % samples;
+                    boolean measured = false;
+                    long startAllocated = 0;
+
+                    while (!stop.get()) {
+                        if (!measured && measuring.get()) {
+                            measured = true;
+                            startAllocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                        }
+
+                        int length = job.run(i);
+                        i = (i + 1) % samples;
+
+                        if (measured) {
+                            operations[id]++;
+                            chars[id] += length;
+                        }
+                    }
+
+                    allocated[id] = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startAllocated;
+                } catch (Throwable e) {
+                    errors[id] = e;
+                    barrier.reset();
+                }
+            });
+            workers[t].start();
+        }
+
+        barrier.await();
+        Thread.sleep(warmup);
+        measuring.set(true);
+        long begin = System.nanoTime();
+        Thread.sleep(duration);
+        stop.set(true);
+        long nanos = System.nanoTime() - begin;
+
+        for (Thread worker : workers)
+            worker.join();
+
+        for (Throwable error : errors) {
+            if (error instanceof Exception)
+                throw (Exception) error;
+            else if (error != null)
+                throw new Error(error);
+        }
+
+        return new Result(threads, sum(operations), sum(chars), sum(allocated), nanos);
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values)
+            sum += value;
+        return sum;
+    }
+
+    private static void benchmark(String name, JobFactory factory, int samples, int[] threads, long warmup, long duration) {
+        try {
+            // fail fast if the workload does not support the language
+            factory.create();
+        } catch (UnsupportedLanguageException e) {
+            return;
+        } catch (ProcessingException e) {
+            System.out.println(name + "  FAILED: " + (e.getCause() == null ? e.getMessage() : e.getCause()));
+            return;
+        }
+
+        Result single = null;
+
+        for (int n : threads) {
+            try {
+                Result result = run(factory, samples, n, warmup, duration);
+                if (single == null)
+                    single = result;
+
+                System.out.printf("%-40s %s  %5.2fx%n", name, result, result.throughput() / single.throughput());
+            } catch (Exception e) {
+                System.out.println(name + "  FAILED: " + e);
+                return;
+            }
+        }
+    }
+
+    // Samples ---------------------------------------------------------------------------------------------------------
+
+    private static String[] loadSamples(String language) throws IOException {
+        InputStream stream = null;
+
+        try {
+            stream = ProcessingBenchmark.class.getResourceAsStream(language + ".txt");
+            if (stream == null)
+                throw new IOException("Missing sample text for language " + language);
+
+            List<String> lines = IOUtils.readLines(stream, StandardCharsets.UTF_8);
+            lines.removeIf(String::isEmpty);
+
+            return lines.toArray(new String[lines.size()]);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private static Sentence[] preprocess(XMLPipelineBuilder<String, Sentence> builder, Language language,
+                                         String[] samples) throws ProcessingException {
+        ProcessingPipeline<String, Sentence> pipeline = builder.newPipeline(language, target(language));
+
+        Sentence[] sentences = new Sentence[samples.length];
+        for (int i = 0; i < samples.length; i++)
+            sentences[i] = pipeline.call(samples[i]);
+
+        return sentences;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P, R> XMLPipelineBuilder<P, R> loadPipeline(String name) throws IOException {
+        InputStream stream = null;
+
+        try {
+            stream = Preprocessor.class.getResourceAsStream(name);
+            return XMLPipelineBuilder.loadFromXML(stream);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    // Main ------------------------------------------------------------------------------------------------------------
+
+    public static void main(String[] args) throws Throwable {
+        List<String> languages = Arrays.asList(LANGUAGES);
+        Set<String> workloads = new HashSet<>(Arrays.asList("tokenizers", "preprocessor", "postprocessor"));
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int[] threads = cpus > 1 ? new int[]{1, cpus} : new int[]{1};
+        long duration = 1000;
+        long warmup = 500;
+
+        for (int i = 0; i < args.length - 1; i += 2) {
+            String value = args[i + 1];
+
+            switch (args[i]) {
+                case "-l":
+                    languages = Arrays.asList(value.split(","));
+                    break;
+                case "-w":
+                    workloads = new HashSet<>(Arrays.asList(value.split(",")));
+                    break;
+                case "-t":
+                    threads = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-d":
+                    duration = Long.parseLong(value);
+                    break;
+                case "-W":
+                    warmup = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        XMLPipelineBuilder<String, Sentence> preprocessorBuilder = loadPipeline("preprocessor-default.xml");
+        XMLPipelineBuilder<Translation, Void> postprocessorBuilder = loadPipeline("postprocessor-default.xml");
+
+        Sentence english = preprocess(preprocessorBuilder, Language.ENGLISH, loadSamples("en"))[0];
+        Sentence italian = preprocess(preprocessorBuilder, Language.ITALIAN, loadSamples("it"))[0];
+
+        for (String code : languages) {
+            Language language = Language.fromString(code);
+            String[] samples = loadSamples(code);
+
+            if (workloads.contains("tokenizers")) {
+                for (Class<? extends TextProcessor> tokenizer : TOKENIZERS)
+                    benchmark(code + " " + tokenizer.getSimpleName(), tokenizer(tokenizer, language, samples),
+                            samples.length, threads, warmup, duration);
+            }
+
+            if (workloads.contains("preprocessor"))
+                benchmark(code + " preprocessor", preprocessor(preprocessorBuilder, language, samples),
+                        samples.length, threads, warmup, duration);
+
+            if (workloads.contains("postprocessor")) {
+                Sentence source = target(language).equals(Language.ENGLISH) ? english : italian;
+                Sentence[] sentences = preprocess(preprocessorBuilder, language, samples);
+
+                benchmark(code + " postprocessor", postprocessor(postprocessorBuilder, language, source, sentences),
+                        samples.length, threads, warmup, duration);
+            }
+        }
+    }
+
+}
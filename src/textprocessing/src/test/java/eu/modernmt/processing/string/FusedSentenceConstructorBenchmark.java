@@ -0,0 +1,156 @@
+package eu.modernmt.processing.string;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.processing.ProcessingException;
+import eu.modernmt.processing.chars.ControlCharsRemover;
+import eu.modernmt.processing.chars.RareCharsNormalizer;
+import eu.modernmt.processing.chars.WhitespacesNormalizer;
+import eu.modernmt.processing.numbers.NumericPlaceholderNormalizer;
+import eu.modernmt.processing.recaser.UpperCasePreprocessor;
+import eu.modernmt.processing.xml.XMLEntityEscaper;
+import eu.modernmt.processing.xml.XMLTagIdentifier;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the FusedSentenceConstructor with the chain of processors it replaces
+ * (time and bytes allocated per sentence), over the bundled sample text of every language.
+ * Every sentence is also processed with some markup, entities and numbers added, so that all the paths are exercised.
+ * <p>
+ * Usage: FusedSentenceConstructorBenchmark [iterations]
+ */
+public class FusedSentenceConstructorBenchmark {
+
+    private static final String[] LANGUAGES = {
+            "ar", "bg", "br", "ca", "cs", "da", "de", "el", "en", "eo", "es", "eu", "fa", "fi", "fr", "ga",
+            "gl", "he", "hi", "hu", "hy", "id", "is", "it", "ja", "km", "ko", "lv", "ml", "nl", "no", "pl",
+            "pt", "pt-BR", "ro", "ru", "se", "sk", "sl", "sv", "ta", "th", "tl", "tr", "uk", "zh"
+    };
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Stage {
+
+        SentenceBuilder call(String string) throws ProcessingException;
+
+    }
+
+    private static Stage legacy(Language source, Language target) throws ProcessingException {
+        SentenceConstructor constructor = new SentenceConstructor(source, target);
+        XMLTagIdentifier tagIdentifier = new XMLTagIdentifier(source, target);
+        XMLEntityEscaper entityEscaper = new XMLEntityEscaper(source, target);
+        RareCharsNormalizer rareCharsNormalizer = new RareCharsNormalizer(source, target);
+        WhitespacesNormalizer whitespacesNormalizer = new WhitespacesNormalizer(source, target);
+        NumericPlaceholderNormalizer numericNormalizer = new NumericPlaceholderNormalizer(source, target);
+        UpperCasePreprocessor upperCasePreprocessor = new UpperCasePreprocessor(source, target);
+
+        return string -> {
+            SentenceBuilder builder = constructor.call(ControlCharsRemover.strip(string), null);
+            builder = tagIdentifier.call(builder, null);
+            builder = entityEscaper.call(builder, null);
+            builder = rareCharsNormalizer.call(builder, null);
+            builder = whitespacesNormalizer.call(builder, null);
+            builder = numericNormalizer.call(builder, null);
+            return upperCasePreprocessor.call(builder, null);
+        };
+    }
+
+    private static Stage fused(Language source, Language target) throws ProcessingException {
+        FusedSentenceConstructor constructor = new FusedSentenceConstructor(source, target);
+        return string -> constructor.call(string, null);
+    }
+
+    private static List<String> loadSamples(String language) throws IOException {
+        InputStream stream = null;
+
+        try {
+            stream = FusedSentenceConstructorBenchmark.class.getResourceAsStream("/eu/modernmt/processing/benchmark/" + language + ".txt");
+            if (stream == null)
+                throw new IOException("Missing sample text for language " + language);
+
+            List<String> result = new ArrayList<>();
+            for (String line : IOUtils.readLines(stream, StandardCharsets.UTF_8)) {
+                if (line.isEmpty())
+                    continue;
+
+                result.add(line);
+                result.add("<b>" + line + "</b> &amp; 1234,5 &lt;" + line.length() + "&gt;");
+            }
+
+            return result;
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * @return {nanoseconds, allocated bytes} spent by the stage on every sample, iterations times
+     */
+    private static long[] run(Stage stage, String[] samples, int iterations) throws ProcessingException {
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String sample : samples)
+                checksum += stage.call(sample).toString().length();
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+
+        if (checksum < 0)
+            throw new Error("Unexpected checksum");
+
+        return new long[]{elapsed, allocated};
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        long[] legacyTotal = new long[2];
+        long[] fusedTotal = new long[2];
+        long sentences = 0;
+
+        System.out.printf("%-6s %12s %12s %12s %12s%n", "lang", "legacy ns", "fused ns", "legacy B", "fused B");
+
+        for (String code : LANGUAGES) {
+            Language source = Language.fromString(code);
+            Language target = Language.ENGLISH.getLanguage().equals(source.getLanguage()) ? Language.ITALIAN : Language.ENGLISH;
+            String[] samples = loadSamples(code).toArray(new String[0]);
+
+            Stage legacy = legacy(source, target);
+            Stage fused = fused(source, target);
+
+            // warm-up
+            run(legacy, samples, iterations);
+            run(fused, samples, iterations);
+
+            long[] legacyResult = run(legacy, samples, iterations);
+            long[] fusedResult = run(fused, samples, iterations);
+
+            double count = (double) samples.length * iterations;
+            System.out.printf("%-6s %12.0f %12.0f %12.0f %12.0f%n", code,
+                    legacyResult[0] / count, fusedResult[0] / count, legacyResult[1] / count, fusedResult[1] / count);
+
+            for (int i = 0; i < 2; i++) {
+                legacyTotal[i] += legacyResult[i];
+                fusedTotal[i] += fusedResult[i];
+            }
+            sentences += samples.length * (long) iterations;
+        }
+
+        System.out.printf("%-6s %12.0f %12.0f %12.0f %12.0f%n", "all",
+                (double) legacyTotal[0] / sentences, (double) fusedTotal[0] / sentences,
+                (double) legacyTotal[1] / sentences, (double) fusedTotal[1] / sentences);
+    }
+
+}
@@ -0,0 +1,157 @@
+package eu.modernmt.processing.string;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.processing.ProcessingException;
+import eu.modernmt.processing.chars.ControlCharsRemover;
+import eu.modernmt.processing.chars.RareCharsNormalizer;
+import eu.modernmt.processing.chars.WhitespacesNormalizer;
+import eu.modernmt.processing.numbers.NumericPlaceholderNormalizer;
+import eu.modernmt.processing.recaser.UpperCasePreprocessor;
+import eu.modernmt.processing.xml.XMLEntityEscaper;
+import eu.modernmt.processing.xml.XMLTagIdentifier;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Differential test: the FusedSentenceConstructor must produce exactly
+ * the same sentences of the processors chain it replaces.
+ */
+public class FusedSentenceConstructorTest {
+
+    private static final Language[][] LANGUAGES = new Language[][]{
+            {Language.ENGLISH, Language.ITALIAN},
+            {Language.ITALIAN, Language.ENGLISH},
+            {Language.GERMAN, Language.ENGLISH},
+            {Language.ENGLISH, Language.RUSSIAN},
+            {Language.CHINESE, Language.ENGLISH},
+            {Language.ENGLISH, Language.JAPANESE},
+            {Language.ARABIC, Language.ENGLISH},
+    };
+
+    private static final String[] CORPUS = new String[]{
+            "",
+            " ",
+            "Hello world!",
+            "  Hello   world!  ",
+            "HELLO WORLD",
+            "HELLO <b>WORLD</b>",
+            "Hello<b>world</b>!",
+            "<a href=\"x\">link</a> <br/> <br />",
+            "<!DOCTYPE html> <!-- comment --> text",
+            "<!a>> <!ab/> <!ab/>> <!a> <!-- -->",
+            "a < b and c > d",
+            "1 < 2 > 3",
+            "--> <!-- <! <!- </ </a </>",
+            "&nbsp;&#48;&#x41;&foo;&amp;&lt;b&gt;",
+            "&#12345; &#x12345; &; &#; &#x; & amp;",
+            "Price: 1234,56 € - 000 0.0 007",
+            "tab\there nbsp thin　ideographic",
+            "\u0001\u0002control\u0008chars\u0009",
+            "‘quotes’ “double” … – —",
+            "ÀCCENTED ÉTÉ",
+            "<b> </b> <i> </i>",
+            "&lt;b&gt;not a tag&lt;/b&gt;",
+            "A",
+            "a",
+            "123",
+            "   123   ",
+    };
+
+    private static final String[] FRAGMENTS = new String[]{
+            "<b>", "</b>", "<br/>", "<a href='x'>", "<!a>", "<!a>>", "<!ab/>", "<!ab/>>", "<!--", "-->", "<", ">",
+            "<!", "</", "&nbsp;", "&#48;", "&#x41;", "&#xFFFF;", "&foo;", "&amp;", "&", ";", "#",
+            " ", "  ", "\t", "\n", " ", " ", "　", "\u0001", "\u0007",
+            "0", "1", "42", "000", "3.14",
+            "HELLO", "World", "hello", "É", "é", "Ж", "中文",
+            "‘", "’", "“", "…", "—", "！",
+    };
+
+    private static SentenceBuilder legacy(Language source, Language target, String string) throws ProcessingException {
+        SentenceBuilder builder = new SentenceConstructor(source, target).call(ControlCharsRemover.strip(string), null);
+
+        builder = new XMLTagIdentifier(source, target).call(builder, null);
+        builder = new XMLEntityEscaper(source, target).call(builder, null);
+        builder = new RareCharsNormalizer(source, target).call(builder, null);
+        builder = new WhitespacesNormalizer(source, target).call(builder, null);
+        builder = new NumericPlaceholderNormalizer(source, target).call(builder, null);
+        builder = new UpperCasePreprocessor(source, target).call(builder, null);
+
+        return builder;
+    }
+
+    private static Sentence build(SentenceBuilder builder) {
+        // every char becomes a word, so that the whole index map is checked
+        char[] chars = builder.toCharArray();
+        SentenceBuilder.Editor editor = builder.edit();
+
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] != ' ')
+                editor.setWord(i, 1, null);
+        }
+
+        editor.commit();
+
+        return builder.build();
+    }
+
+    private static void test(String string) throws ProcessingException {
+        for (Language[] pair : LANGUAGES) {
+            SentenceBuilder expected = legacy(pair[0], pair[1], string);
+            SentenceBuilder actual = new FusedSentenceConstructor(pair[0], pair[1]).call(string, null);
+
+            assertEquals(expected.toString(), actual.toString());
+
+            Sentence expectedSentence = build(expected);
+            Sentence actualSentence = build(actual);
+
+            assertArrayEquals(string, expectedSentence.getWords(), actualSentence.getWords());
+            assertArrayEquals(string, expectedSentence.getTags(), actualSentence.getTags());
+            assertEquals(string, expectedSentence.toString(true, false), actualSentence.toString(true, false));
+            assertEquals(string, expectedSentence.toString(false, true), actualSentence.toString(false, true));
+            assertEquals(string, expectedSentence.hasAnnotation(UpperCasePreprocessor.ANNOTATION),
+                    actualSentence.hasAnnotation(UpperCasePreprocessor.ANNOTATION));
+        }
+    }
+
+    @Test
+    public void testCorpus() throws ProcessingException {
+        for (String string : CORPUS)
+            test(string);
+    }
+
+    @Test
+    public void testRandomStrings() throws ProcessingException {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder string = new StringBuilder();
+
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++)
+                string.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+
+            test(string.toString());
+        }
+    }
+
+    @Test
+    public void testUpperCaseRandomStrings() throws ProcessingException {
+        Random random = new Random(1234);
+
+        for (int i = 0; i < 500; i++) {
+            StringBuilder string = new StringBuilder();
+
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++)
+                string.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+
+            test(string.toString().toUpperCase());
+        }
+    }
+
+}
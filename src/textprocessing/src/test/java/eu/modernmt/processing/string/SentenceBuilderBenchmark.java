@@ -0,0 +1,140 @@
+package eu.modernmt.processing.string;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures time and bytes allocated per sentence by the SentenceBuilder lifecycle
+ * (initialize, edit, commit, build, clear) over the bundled sample text of every language.
+ * Every sentence is edited as a tokenizer does: tags and whitespace separated words.
+ * <p>
+ * Three modes are reported: the lifecycle without build() (once the buffers are large enough, it should
+ * allocate only the text of the tokens), the whole lifecycle with a reused builder (as in the processing pipelines)
+ * and the whole lifecycle with a new builder for every sentence.
+ * <p>
+ * Usage: SentenceBuilderBenchmark [iterations]
+ */
+public class SentenceBuilderBenchmark {
+
+    private static final String[] LANGUAGES = {
+            "ar", "bg", "br", "ca", "cs", "da", "de", "el", "en", "eo", "es", "eu", "fa", "fi", "fr", "ga",
+            "gl", "he", "hi", "hu", "hy", "id", "is", "it", "ja", "km", "ko", "lv", "ml", "nl", "no", "pl",
+            "pt", "pt-BR", "ro", "ru", "se", "sk", "sl", "sv", "ta", "th", "tl", "tr", "uk", "zh"
+    };
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private enum Mode {
+        NO_BUILD, REUSED, NEW_BUILDER
+    }
+
+    private static String[] loadSamples() throws IOException {
+        List<String> result = new ArrayList<>();
+
+        for (String language : LANGUAGES) {
+            InputStream stream = null;
+
+            try {
+                stream = SentenceBuilderBenchmark.class.getResourceAsStream("/eu/modernmt/processing/benchmark/" + language + ".txt");
+                if (stream == null)
+                    throw new IOException("Missing sample text for language " + language);
+
+                for (String line : IOUtils.readLines(stream, StandardCharsets.UTF_8)) {
+                    if (!line.isEmpty())
+                        result.add("<b>" + line + "</b> <br/>");
+                }
+            } finally {
+                IOUtils.closeQuietly(stream);
+            }
+        }
+
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Marks tags and whitespace separated words, in a single edit of the original string.
+     */
+    private static void tokenize(SentenceBuilder builder, String string) {
+        SentenceBuilder.Editor editor = builder.edit();
+
+        int length = string.length();
+        int start = -1;
+
+        for (int i = 0; i <= length; i++) {
+            char c = i == length ? ' ' : string.charAt(i);
+
+            if (c == '<' || c == ' ') {
+                if (start >= 0) {
+                    editor.setWord(start, i - start, null);
+                    start = -1;
+                }
+
+                if (c == '<') {
+                    int end = string.indexOf('>', i) + 1;
+                    editor.setTag(i, end - i, null);
+                    i = end - 1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+
+        editor.commit();
+    }
+
+    /**
+     * @return {nanoseconds, allocated bytes} spent processing every sample, iterations times
+     */
+    private static long[] run(Mode mode, String[] samples, int iterations) {
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+
+        SentenceBuilder builder = new SentenceBuilder();
+        long checksum = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            for (String sample : samples) {
+                if (mode == Mode.NEW_BUILDER)
+                    builder = new SentenceBuilder();
+
+                builder.initialize(sample);
+                tokenize(builder, sample);
+
+                if (mode != Mode.NO_BUILD)
+                    checksum += builder.build().length();
+
+                builder.clear();
+            }
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+
+        if (checksum < 0)
+            throw new Error("Unexpected checksum");
+
+        return new long[]{elapsed, allocated};
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        String[] samples = loadSamples();
+
+        for (Mode mode : Mode.values()) {
+            run(mode, samples, iterations); // warm-up
+            long[] result = run(mode, samples, iterations);
+
+            double count = (double) samples.length * iterations;
+            System.out.printf("%-12s %10.0f ns/sentence %10.0f B/sentence%n", mode, result[0] / count, result[1] / count);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package eu.modernmt.processing.string;
+
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Tag;
+import eu.modernmt.model.Word;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SentenceBuilderTest {
+
+    private static Sentence tokenize(SentenceBuilder builder, String string) {
+        builder.initialize(string);
+
+        char[] chars = builder.toCharArray();
+        SentenceBuilder.Editor editor = builder.edit();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == '<') {
+                int end = string.indexOf('>', i) + 1;
+                editor.setTag(i, end - i, " ");
+                i = end - 1;
+            }
+        }
+        editor.commit();
+
+        chars = builder.toCharArray();
+        editor = builder.edit();
+        int start = -1;
+        for (int i = 0; i <= chars.length; i++) {
+            boolean space = i == chars.length || chars[i] == ' ';
+
+            if (space && start >= 0) {
+                editor.setWord(start, i - start, null);
+                start = -1;
+            } else if (!space && start < 0) {
+                start = i;
+            }
+        }
+        editor.commit();
+
+        Sentence sentence = builder.build();
+        builder.clear();
+        return sentence;
+    }
+
+    @Test
+    public void testReusedBuilder() {
+        String[] strings = new String[]{
+                "Hello <b>world</b>!",
+                "a",
+                "",
+                "<br/>first &amp; second <i>third</i>",
+                "Hello <b>world</b>!",
+        };
+
+        SentenceBuilder reused = new SentenceBuilder();
+
+        for (String string : strings) {
+            Sentence expected = tokenize(new SentenceBuilder(), string);
+            Sentence actual = tokenize(reused, string);
+
+            assertArrayEquals(expected.getWords(), actual.getWords());
+            assertArrayEquals(expected.getTags(), actual.getTags());
+            assertEquals(expected.toString(true, false), actual.toString(true, false));
+        }
+    }
+
+    @Test
+    public void testManyTransformations() {
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < 500; i++)
+            string.append("w").append(i).append(" <t>");
+
+        Sentence sentence = tokenize(new SentenceBuilder(), string.toString());
+
+        assertEquals(500, sentence.getWords().length);
+        assertEquals(500, sentence.getTags().length);
+        assertEquals("w499", sentence.getWords()[499].toString());
+        assertEquals(500, sentence.getTags()[499].getPosition());
+    }
+
+    @Test
+    public void testAbortedEdit() {
+        SentenceBuilder builder = new SentenceBuilder("Hello world");
+
+        SentenceBuilder.Editor editor = builder.edit();
+        editor.setWord(0, 5, null);
+        editor.abort();
+
+        editor = builder.edit();
+        editor.setWord(6, 5, null);
+        editor.commit();
+
+        Sentence sentence = builder.build();
+        Word[] words = sentence.getWords();
+        Tag[] tags = sentence.getTags();
+
+        assertEquals(1, words.length);
+        assertEquals(0, tags.length);
+        assertEquals("world", words[0].toString());
+    }
+
+}